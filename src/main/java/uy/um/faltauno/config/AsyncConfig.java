@@ -10,7 +10,8 @@ import java.util.concurrent.Executor;
 
 /**
  * Configuración para ejecución asíncrona de métodos y tareas programadas
- * Usado principalmente para envío de emails y limpieza de rate limiting
+ * Usado para listeners @Async, códigos de verificación por email y limpieza de rate limiting
+ * (los emails de notificación van por email_outbox, con su propio pool en EmailOutboxService)
  */
 @Configuration
 @EnableAsync
@@ -70,8 +70,6 @@ public class CacheConfig implements CachingConfigurer {
             CacheNames.PARTIDOS_V2,
             CacheNames.PARTIDOS_DISPONIBLES,
             CacheNames.USUARIOS_PUBLICO,
-            CacheNames.COMMUNITY_STATS,
-            CacheNames.SYSTEM_STATS,
             CacheNames.NOTIFICACIONES
         ));
         
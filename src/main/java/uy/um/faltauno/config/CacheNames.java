@@ -21,10 +21,6 @@ public final class CacheNames {
     // ===== USUARIOS =====
     public static final String USUARIOS_PUBLICO = "usuarios-publico";
     
-    // ===== ESTADÍSTICAS =====
-    public static final String COMMUNITY_STATS = "community-stats";
-    public static final String SYSTEM_STATS = "system-stats";
-    
     // ===== NOTIFICACIONES =====
     public static final String NOTIFICACIONES = "notificaciones";
     
@@ -45,8 +41,6 @@ public final class CacheNames {
         PARTIDOS_V2,
         PARTIDOS_DISPONIBLES,
         USUARIOS_PUBLICO,
-        COMMUNITY_STATS,
-        SYSTEM_STATS,
         NOTIFICACIONES,
         REVIEWS,
         AMISTADES,
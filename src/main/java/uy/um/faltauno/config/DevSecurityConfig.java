@@ -112,7 +112,8 @@ public class DevSecurityConfig {
         configuration.setExposedHeaders(Arrays.asList(
             "Authorization",
             "Content-Type",
-            "X-Requested-With"
+            "X-Requested-With",
+            "X-Next-Cursor"
         ));
         configuration.setMaxAge(3600L);
         
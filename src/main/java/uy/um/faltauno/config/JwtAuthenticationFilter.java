@@ -9,6 +9,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import uy.um.faltauno.security.AuthStateCache;
 
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -26,7 +27,7 @@ import java.util.stream.Collectors;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
-    private final uy.um.faltauno.repository.UsuarioRepository usuarioRepository;
+    private final AuthStateCache authStateCache;
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
@@ -52,17 +53,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String token = header.substring(7).trim();
             log.debug("🔑 Token found, validating...");
             
-            // Validar token
-            if (!jwtUtil.validateToken(token)) {
+            // ⚡ Validar token y extraer claims en una sola verificación de firma
+            var claimsOpt = jwtUtil.parseAndVerify(token);
+            if (claimsOpt.isEmpty()) {
                 log.warn("❌ Invalid or expired JWT token for: {}", path);
                 filterChain.doFilter(request, response);
                 return;
             }
 
             // Extraer información del token
-            String email = jwtUtil.extractEmail(token);
-            UUID userId = jwtUtil.extractUserId(token);
-            Integer tokenVersion = jwtUtil.extractTokenVersion(token);
+            JwtUtil.JwtClaims claims = claimsOpt.get();
+            String email = claims.email();
+            UUID userId = claims.userId();
+            Integer tokenVersion = claims.tokenVersion();
             
             if (email == null) {
                 log.warn("❌ JWT token without email (subject) for: {}", path);
@@ -76,40 +79,30 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 return;
             }
             
-            // ✅ ESTÁNDAR INDUSTRIA: Validar tokenVersion contra DB y cargar usuario completo
-            uy.um.faltauno.entity.Usuario usuario = null;
-            if (tokenVersion != null) {
-                var userOpt = usuarioRepository.findById(userId);
-                if (userOpt.isPresent()) {
-                    usuario = userOpt.get();
-                    if (!tokenVersion.equals(usuario.getTokenVersion())) {
-                        log.warn("❌ Token version mismatch for user {}: token={}, db={}", 
-                                userId, tokenVersion, usuario.getTokenVersion());
-                        log.warn("   Token was invalidated (password change, security issue, etc.)");
-                        filterChain.doFilter(request, response);
-                        return;
-                    }
-                } else {
-                    log.warn("❌ User {} not found in database", userId);
-                    filterChain.doFilter(request, response);
-                    return;
-                }
-            } else {
-                // Tokens viejos sin tokenVersion: cargar usuario pero loggear warning
+            // ✅ ESTÁNDAR INDUSTRIA: Validar tokenVersion y baneo
+            // ⚡ Contra AuthStateCache (memoria); solo va a la DB si el usuario no está cacheado
+            var estadoOpt = authStateCache.obtener(userId);
+            if (estadoOpt.isEmpty()) {
+                log.warn("❌ User {} not found in database", userId);
+                filterChain.doFilter(request, response);
+                return;
+            }
+            AuthStateCache.AuthState estado = estadoOpt.get();
+
+            if (tokenVersion == null) {
+                // Tokens viejos sin tokenVersion: aceptar pero loggear warning
                 log.warn("⚠️ Token without version for user {} - consider refreshing", userId);
-                var userOpt = usuarioRepository.findById(userId);
-                if (userOpt.isEmpty()) {
-                    log.warn("❌ User {} not found in database", userId);
-                    filterChain.doFilter(request, response);
-                    return;
-                }
-                usuario = userOpt.get();
+            } else if (!tokenVersion.equals(estado.tokenVersion())) {
+                log.warn("❌ Token version mismatch for user {}: token={}, db={}", 
+                        userId, tokenVersion, estado.tokenVersion());
+                log.warn("   Token was invalidated (password change, security issue, etc.)");
+                filterChain.doFilter(request, response);
+                return;
             }
 
             // 🚫 CHECK: Verificar si el usuario está baneado
-            if (usuario.getBannedAt() != null) {
-                log.warn("⛔ Banned user {} attempted access to: {}. Ban reason: {}", 
-                        usuario.getEmail(), path, usuario.getBanReason());
+            if (estado.baneado()) {
+                log.warn("⛔ Banned user {} attempted access to: {}", estado.email(), path);
                 SecurityContextHolder.clearContext();
                 filterChain.doFilter(request, response);
                 return;
@@ -123,16 +116,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             }
 
             // Extraer roles del token
-            List<SimpleGrantedAuthority> authorities = jwtUtil.getRolesFromToken(token)
+            List<SimpleGrantedAuthority> authorities = claims.roles()
                     .stream()
                     .map(SimpleGrantedAuthority::new)
                     .collect(Collectors.toList());
 
-            // ✅ CRÍTICO: Usar el Usuario completo como principal (no UserPrincipal)
+            // ✅ CRÍTICO: Usar un Usuario como principal (no UserPrincipal)
             // Esto permite que el AdminRoleInterceptor pueda verificar el rol
+            // ⚡ Usuario liviano (id, email, rol, tokenVersion) armado desde el cache, no una entidad gestionada
+            uy.um.faltauno.entity.Usuario usuario = estado.toPrincipal();
             UsernamePasswordAuthenticationToken authentication = 
                     new UsernamePasswordAuthenticationToken(
-                            usuario, // Usuario completo como principal
+                            usuario, // Usuario como principal
                             null,
                             authorities
                     );
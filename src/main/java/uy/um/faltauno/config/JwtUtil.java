@@ -1,23 +1,38 @@
 package uy.um.faltauno.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.security.Keys;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
  * Utilidad JWT mejorada con manejo correcto de UUIDs y validación robusta.
+ *
+ * ⚡ parseAndVerify verifica la firma y parsea el token UNA vez y devuelve un record inmutable.
+ * Opcionalmente (jwt.cache.enabled) guarda el resultado por hash del token hasta su exp,
+ * así los requests siguientes del mismo cliente no repiten la verificación HMAC.
  */
 @Component
 public class JwtUtil {
@@ -28,10 +43,64 @@ public class JwtUtil {
     @Value("${jwt.expiration:86400000}") // 24 horas en milisegundos
     private long EXPIRATION_TIME;
 
+    @Value("${jwt.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    private SecretKey signingKey;
+    private JwtParser parser;
+    private Cache<String, JwtClaims> verifiedTokens;
+
+    /**
+     * Claims de un token ya verificado (firma válida y no expirado).
+     *
+     * @param userId       claim userId (o el subject si es un UUID), null si no tiene
+     * @param tokenVersion null en tokens viejos sin versión
+     * @param rol          USER/ADMIN (USER si no viene el claim)
+     * @param roles        roles de Spring Security (ROLE_USER si no viene el claim)
+     */
+    public record JwtClaims(String email, UUID userId, Integer tokenVersion, String rol,
+                            List<String> roles, String jti, Instant expiration) {
+        public JwtClaims {
+            roles = List.copyOf(roles);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        // enforce UTF-8 to avoid platform charset differences
+        signingKey = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        // El parser es inmutable y thread-safe: se arma una sola vez
+        parser = Jwts.parser().verifyWith(signingKey).build();
+        if (cacheEnabled) {
+            verifiedTokens = Caffeine.newBuilder()
+                    .maximumSize(cacheMaxSize)
+                    .expireAfter(new Expiry<String, JwtClaims>() {
+                        @Override
+                        public long expireAfterCreate(String key, JwtClaims claims, long currentTime) {
+                            // Cada entrada vive hasta el exp de su token
+                            return Math.max(0, Duration.between(Instant.now(), claims.expiration()).toNanos());
+                        }
+
+                        @Override
+                        public long expireAfterUpdate(String key, JwtClaims claims, long currentTime, long currentDuration) {
+                            return expireAfterCreate(key, claims, currentTime);
+                        }
+
+                        @Override
+                        public long expireAfterRead(String key, JwtClaims claims, long currentTime, long currentDuration) {
+                            return currentDuration;
+                        }
+                    })
+                    .build();
+        }
+    }
+
     // Clave generada una vez para mejor seguridad
     private SecretKey getSigningKey() {
-        // enforce UTF-8 to avoid platform charset differences
-        return Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        return signingKey;
     }
 
     /**
@@ -100,27 +169,96 @@ public class JwtUtil {
     }
 
     /**
-     * Extrae el userId del token (desde el claim).
+     * ⚡ Verifica la firma y la expiración y parsea todos los claims en una sola pasada.
+     * Con el cache activo, un token ya verificado se resuelve por su hash sin volver a verificar.
+     *
      * @param token Token JWT
-     * @return UUID del usuario, o null si no existe el claim
+     * @return Claims del token, o vacío si es inválido o está expirado
      */
-    public UUID extractUserId(String token) {
+    public Optional<JwtClaims> parseAndVerify(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        if (verifiedTokens == null) {
+            return verify(token);
+        }
+
+        String key = tokenHash(token);
+        JwtClaims cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            return cached.expiration().isAfter(Instant.now()) ? Optional.of(cached) : Optional.empty();
+        }
+        Optional<JwtClaims> claims = verify(token);
+        claims.ifPresent(c -> verifiedTokens.put(key, c));
+        return claims;
+    }
+
+    private Optional<JwtClaims> verify(String token) {
         try {
-            Claims claims = extractAllClaims(token);
-            String userIdStr = claims.get("userId", String.class);
-            if (userIdStr != null && !userIdStr.isBlank()) {
-                return UUID.fromString(userIdStr);
+            Claims claims = extractAllClaims(token); // lanza si es inválido
+            Date exp = claims.getExpiration();
+            if (exp == null || !exp.after(new Date())) {
+                return Optional.empty();
             }
-        } catch (Exception e) {
-            // Si no hay claim userId, intentar parsear el subject como UUID (fallback)
-            try {
-                String subject = getUsernameFromToken(token);
-                return UUID.fromString(subject);
-            } catch (Exception ignored) {
-                return null;
+            return Optional.of(toJwtClaims(claims));
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JwtClaims toJwtClaims(Claims claims) {
+        String subject = claims.getSubject();
+
+        UUID userId = null;
+        String userIdStr = claims.get("userId", String.class);
+        try {
+            if (userIdStr != null && !userIdStr.isBlank()) {
+                userId = UUID.fromString(userIdStr);
+            } else if (subject != null) {
+                // Fallback: tokens viejos con el UUID como subject
+                userId = UUID.fromString(subject);
             }
+        } catch (IllegalArgumentException ignored) {
+            userId = null;
         }
-        return null;
+
+        Integer tokenVersion;
+        try {
+            tokenVersion = claims.get("tokenVersion", Integer.class);
+        } catch (JwtException e) {
+            tokenVersion = null; // Tokens viejos sin versión
+        }
+
+        String rol = claims.get("rol", String.class);
+        Object rolesObj = claims.get("roles");
+        List<String> roles = rolesObj instanceof List
+                ? (List<String>) rolesObj
+                : Collections.singletonList("ROLE_USER");
+
+        return new JwtClaims(subject, userId, tokenVersion, rol != null ? rol : "USER", roles,
+                claims.get("jti", String.class), claims.getExpiration().toInstant());
+    }
+
+    /**
+     * SHA-256 del token: la clave del cache no guarda el token en claro
+     */
+    private static String tokenHash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Extrae el userId del token (desde el claim).
+     * @param token Token JWT
+     * @return UUID del usuario, o null si no existe el claim
+     */
+    public UUID extractUserId(String token) {
+        return parseAndVerify(token).map(JwtClaims::userId).orElse(null);
     }
     
     /**
@@ -129,12 +267,7 @@ public class JwtUtil {
      * @return Versión del token, o null si no existe
      */
     public Integer extractTokenVersion(String token) {
-        try {
-            Claims claims = extractAllClaims(token);
-            return claims.get("tokenVersion", Integer.class);
-        } catch (Exception e) {
-            return null; // Tokens viejos sin versión
-        }
+        return parseAndVerify(token).map(JwtClaims::tokenVersion).orElse(null);
     }
     
     /**
@@ -143,28 +276,21 @@ public class JwtUtil {
      * @return JTI (JWT ID), o null si no existe
      */
     public String extractJti(String token) {
-        try {
-            Claims claims = extractAllClaims(token);
-            return claims.get("jti", String.class);
-        } catch (Exception e) {
-            return null;
-        }
+        return parseAndVerify(token).map(JwtClaims::jti).orElse(null);
     }
 
     /**
      * Extrae el username (email) del subject del token.
      */
     public String getUsernameFromToken(String token) {
-        return extractAllClaims(token).getSubject();
+        return parseAndVerify(token).map(JwtClaims::email).orElse(null);
     }
 
     /**
      * Extrae todos los claims del token usando jjwt 0.12.x.
      */
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())   // establece la key de verificación
-                .build()
+        return parser
                 .parseSignedClaims(token)      // valida firma y parsea
                 .getPayload();                 // obtiene los Claims
     }
@@ -173,13 +299,7 @@ public class JwtUtil {
      * Valida si el token es válido (firma correcta y no expirado).
      */
     public boolean validateToken(String token) {
-        try {
-            Claims claims = extractAllClaims(token); // lanza si es inválido
-            Date exp = claims.getExpiration();
-            return exp != null && exp.after(new Date());
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        }
+        return parseAndVerify(token).isPresent();
     }
 
     /**
@@ -188,35 +308,21 @@ public class JwtUtil {
      * @return Rol del usuario (USER/ADMIN), o USER por defecto
      */
     public String extractRol(String token) {
-        try {
-            Claims claims = extractAllClaims(token);
-            String rol = claims.get("rol", String.class);
-            return rol != null ? rol : "USER";
-        } catch (Exception e) {
-            return "USER";
-        }
+        return parseAndVerify(token).map(JwtClaims::rol).orElse("USER");
     }
     
     /**
      * Extrae los roles desde el claim 'roles'.
      */
-    @SuppressWarnings("unchecked")
     public List<String> getRolesFromToken(String token) {
-        try {
-            Claims claims = extractAllClaims(token);
-            Object rolesObj = claims.get("roles");
-            if (rolesObj instanceof List) {
-                return (List<String>) rolesObj;
-            }
-        } catch (Exception ignored) {}
-        return Collections.singletonList("ROLE_USER");
+        return parseAndVerify(token).map(JwtClaims::roles).orElse(Collections.singletonList("ROLE_USER"));
     }
 
     /**
      * Extrae el email del token (alias de getUsernameFromToken).
      */
     public String extractEmail(String token) {
-        return getUsernameFromToken(token);
+        return parseAndVerify(token).map(JwtClaims::email).orElse(null);
     }
 
     /**
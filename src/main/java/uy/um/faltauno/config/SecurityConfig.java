@@ -129,7 +129,8 @@ public class SecurityConfig {
         configuration.setExposedHeaders(List.of(
             "Authorization",
             "Content-Type",
-            "X-Requested-With"
+            "X-Requested-With",
+            "X-Next-Cursor"
         ));
         configuration.setMaxAge(3600L);
 
@@ -1,11 +1,14 @@
 package uy.um.faltauno.config;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import uy.um.faltauno.websocket.StompAuthChannelInterceptor;
 
 /**
  * Configuración de WebSocket con STOMP para actualizaciones en tiempo real
@@ -27,6 +30,9 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
  * Destinos de envío (servidor recibe):
  * - /app/partidos/{partidoId}/typing - Eventos de "usuario escribiendo"
  * 
+ * Autenticación: header nativo "Authorization: Bearer <jwt>" en el frame CONNECT
+ * (StompAuthChannelInterceptor). Los connect/disconnect alimentan PresenciaTracker.
+ * 
  * Variables de entorno:
  * - WEBSOCKET_BROKER_TYPE: simple | rabbitmq (default: simple)
  * - RABBITMQ_HOST: hostname del broker (default: localhost)
@@ -36,8 +42,11 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
  */
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final StompAuthChannelInterceptor stompAuthChannelInterceptor;
+
     @Value("${websocket.broker.type:simple}")
     private String brokerType;
 
@@ -79,6 +88,12 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         config.setUserDestinationPrefix("/user");
     }
 
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Identificar al usuario en el CONNECT (JWT)
+        registration.interceptors(stompAuthChannelInterceptor);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // Endpoint para handshake WebSocket
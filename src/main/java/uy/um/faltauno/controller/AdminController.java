@@ -2,12 +2,14 @@ package uy.um.faltauno.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import uy.um.faltauno.dto.ApiResponse;
 import uy.um.faltauno.dto.BanRequest;
 import uy.um.faltauno.dto.PartidoDTO;
+import uy.um.faltauno.dto.PartidosPorDiaDTO;
 import uy.um.faltauno.dto.ReportDTO;
 import uy.um.faltauno.dto.ResolveReportRequest;
 import uy.um.faltauno.dto.UsuarioDTO;
@@ -20,6 +22,7 @@ import uy.um.faltauno.service.PartidoService;
 import uy.um.faltauno.service.ReportService;
 import uy.um.faltauno.service.UsuarioService;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.UUID;
 import java.util.List;
@@ -183,7 +186,34 @@ public class AdminController {
                     .body(new ApiResponse<>(null, "Error al listar partidos", false));
         }
     }
-    
+
+    /**
+     * GET /api/admin/partidos/serie?desde=2025-01-01&hasta=2025-01-31
+     * Serie diaria de partidos (creados, programados, cancelados, completados) desde el rollup
+     */
+    @GetMapping("/partidos/serie")
+    public ResponseEntity<ApiResponse<List<PartidosPorDiaDTO>>> obtenerSeriePartidos(
+            @AuthenticationPrincipal Usuario admin,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        try {
+            log.info("[ADMIN] {} obteniendo serie de partidos {} - {}", admin.getEmail(), desde, hasta);
+
+            List<PartidosPorDiaDTO> serie = partidoService.obtenerSerieDiaria(desde, hasta);
+
+            return ResponseEntity.ok(new ApiResponse<>(serie,
+                    String.format("Total: %d días", serie.size()),
+                    true));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(null, e.getMessage(), false));
+        } catch (Exception e) {
+            log.error("[ADMIN] Error al obtener serie de partidos", e);
+            return ResponseEntity.status(500)
+                    .body(new ApiResponse<>(null, "Error al obtener serie de partidos", false));
+        }
+    }
+
     /**
      * DELETE /api/admin/usuarios/{id}
      * Eliminar permanentemente un usuario (hard delete)
@@ -2,14 +2,18 @@ package uy.um.faltauno.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import uy.um.faltauno.dto.AmigosEnComunDTO;
 import uy.um.faltauno.dto.ApiResponse;
 import uy.um.faltauno.dto.AmistadDTO;
 import uy.um.faltauno.service.AmistadService;
+import uy.um.faltauno.util.AmistadCursor;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -28,6 +32,12 @@ import java.util.UUID;
  * - DELETE /api/amistades/{amigoId}       : Eliminar amistad existente
  * - GET /api/amistades/estado/{amigoId}   : Verificar estado de amistad
  * - GET /api/amistades/estadisticas       : Obtener contadores
+ * - GET /api/amistades/en-comun/{usuarioId} : Amigos en común (total + preview)
+ * - GET /api/amistades/en-comun?ids=...   : Cantidad de amigos en común con varios usuarios
+ *
+ * ⚡ Los listados aceptan paginación keyset opcional: ?limit=N devuelve el token de la
+ * página siguiente en el header X-Next-Cursor (se reenvía en ?cursor=...), y ?since=
+ * (ISO date-time) trae solo lo creado después de esa fecha. Sin limit, lista completa.
  */
 @RestController
 @RequestMapping("/api/amistades")
@@ -36,6 +46,8 @@ import java.util.UUID;
 @Slf4j
 public class AmistadController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final AmistadService amistadService;
 
     /**
@@ -94,14 +106,21 @@ public class AmistadController {
      */
     @GetMapping
     public ResponseEntity<ApiResponse<List<AmistadDTO>>> listarAmigos(
-            Authentication auth) {
+            Authentication auth,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         try {
             log.debug("[AmistadController] GET /api/amistades - Listando amigos");
             
-            List<AmistadDTO> amigos = amistadService.listarAmigos(auth);
+            List<AmistadDTO> amigos = amistadService.listarAmigos(auth, since, cursor, limit);
             
-            return ResponseEntity.ok(
-                    new ApiResponse<>(amigos, "Lista de amigos", true));
+            return conCursor(amigos, limit)
+                    .body(new ApiResponse<>(amigos, "Lista de amigos", true));
+                    
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse<>(null, e.getMessage(), false));
                     
         } catch (SecurityException e) {
             log.warn("[AmistadController] SecurityException: {}", e.getMessage());
@@ -123,14 +142,17 @@ public class AmistadController {
      */
     @GetMapping("/amigos/{userId}")
     public ResponseEntity<ApiResponse<List<AmistadDTO>>> listarAmigosDeUsuario(
-            @PathVariable UUID userId) {
+            @PathVariable UUID userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         try {
             log.debug("[AmistadController] GET /api/amistades/amigos/{}", userId);
             
-            List<AmistadDTO> amigos = amistadService.listarAmigosDeUsuario(userId);
+            List<AmistadDTO> amigos = amistadService.listarAmigosDeUsuario(userId, since, cursor, limit);
             
-            return ResponseEntity.ok(
-                    new ApiResponse<>(amigos, "Lista de amigos", true));
+            return conCursor(amigos, limit)
+                    .body(new ApiResponse<>(amigos, "Lista de amigos", true));
                     
         } catch (IllegalArgumentException e) {
             log.warn("[AmistadController] Usuario no encontrado: {}", userId);
@@ -152,14 +174,21 @@ public class AmistadController {
      */
     @GetMapping("/pendientes")
     public ResponseEntity<ApiResponse<List<AmistadDTO>>> listarSolicitudesPendientes(
-            Authentication auth) {
+            Authentication auth,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         try {
             log.debug("[AmistadController] GET /api/amistades/pendientes");
             
-            List<AmistadDTO> solicitudes = amistadService.listarSolicitudesPendientes(auth);
+            List<AmistadDTO> solicitudes = amistadService.listarSolicitudesPendientes(auth, since, cursor, limit);
             
-            return ResponseEntity.ok(
-                    new ApiResponse<>(solicitudes, "Solicitudes pendientes", true));
+            return conCursor(solicitudes, limit)
+                    .body(new ApiResponse<>(solicitudes, "Solicitudes pendientes", true));
+                    
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse<>(null, e.getMessage(), false));
                     
         } catch (SecurityException e) {
             log.warn("[AmistadController] SecurityException: {}", e.getMessage());
@@ -181,14 +210,21 @@ public class AmistadController {
      */
     @GetMapping("/enviadas")
     public ResponseEntity<ApiResponse<List<AmistadDTO>>> listarSolicitudesEnviadas(
-            Authentication auth) {
+            Authentication auth,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         try {
             log.debug("[AmistadController] GET /api/amistades/enviadas");
             
-            List<AmistadDTO> solicitudes = amistadService.listarSolicitudesEnviadas(auth);
+            List<AmistadDTO> solicitudes = amistadService.listarSolicitudesEnviadas(auth, since, cursor, limit);
             
-            return ResponseEntity.ok(
-                    new ApiResponse<>(solicitudes, "Solicitudes enviadas", true));
+            return conCursor(solicitudes, limit)
+                    .body(new ApiResponse<>(solicitudes, "Solicitudes enviadas", true));
+                    
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse<>(null, e.getMessage(), false));
                     
         } catch (SecurityException e) {
             log.warn("[AmistadController] SecurityException: {}", e.getMessage());
@@ -397,6 +433,75 @@ public class AmistadController {
         }
     }
 
+    /**
+     * Amigos en común con otro usuario
+     * 
+     * @param usuarioId ID del otro usuario
+     * @param limit Cantidad de perfiles a incluir como preview (default 3, máx 50)
+     * @param auth Usuario autenticado
+     * @return Total de amigos en común y preview de perfiles
+     */
+    @GetMapping("/en-comun/{usuarioId}")
+    public ResponseEntity<ApiResponse<AmigosEnComunDTO>> obtenerAmigosEnComun(
+            @PathVariable UUID usuarioId,
+            @RequestParam(required = false) Integer limit,
+            Authentication auth) {
+        try {
+            log.debug("[AmistadController] GET /api/amistades/en-comun/{}", usuarioId);
+            
+            AmigosEnComunDTO enComun = amistadService.obtenerAmigosEnComun(usuarioId, limit, auth);
+            
+            return ResponseEntity.ok(
+                    new ApiResponse<>(enComun, "Amigos en común", true));
+                    
+        } catch (SecurityException e) {
+            log.warn("[AmistadController] SecurityException: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ApiResponse<>(null, e.getMessage(), false));
+                    
+        } catch (Exception e) {
+            log.error("[AmistadController] Error obteniendo amigos en común", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse<>(null, "Error al obtener amigos en común", false));
+        }
+    }
+
+    /**
+     * Cantidad de amigos en común con varios usuarios en un solo request
+     * 
+     * @param ids IDs de los usuarios (máx 100)
+     * @param auth Usuario autenticado
+     * @return Mapa usuarioId → cantidad de amigos en común
+     */
+    @GetMapping("/en-comun")
+    public ResponseEntity<ApiResponse<Map<UUID, Integer>>> contarAmigosEnComun(
+            @RequestParam List<UUID> ids,
+            Authentication auth) {
+        try {
+            log.debug("[AmistadController] GET /api/amistades/en-comun - {} usuarios", ids.size());
+            
+            Map<UUID, Integer> conteos = amistadService.contarAmigosEnComun(ids, auth);
+            
+            return ResponseEntity.ok(
+                    new ApiResponse<>(conteos, "Amigos en común", true));
+                    
+        } catch (IllegalArgumentException e) {
+            log.warn("[AmistadController] Validación fallida: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse<>(null, e.getMessage(), false));
+                    
+        } catch (SecurityException e) {
+            log.warn("[AmistadController] SecurityException: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ApiResponse<>(null, e.getMessage(), false));
+                    
+        } catch (Exception e) {
+            log.error("[AmistadController] Error contando amigos en común", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse<>(null, "Error al obtener amigos en común", false));
+        }
+    }
+
     /**
      * Obtener estadísticas de amistades del usuario actual
      * 
@@ -455,4 +560,16 @@ public class AmistadController {
         
         throw new SecurityException("No se pudo obtener el ID del usuario");
     }
-}
\ No newline at end of file
+
+    /**
+     * Respuesta 200 con el header X-Next-Cursor si la página vino llena (solo cuando se pagina con limit)
+     */
+    private static ResponseEntity.BodyBuilder conCursor(List<AmistadDTO> pagina, Integer limit) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        String siguiente = AmistadCursor.siguiente(pagina, AmistadCursor.tamanoPagina(limit));
+        if (siguiente != null) {
+            response.header(NEXT_CURSOR_HEADER, siguiente);
+        }
+        return response;
+    }
+}
@@ -17,6 +17,7 @@ import uy.um.faltauno.dto.UsuarioMinDTO;
 import uy.um.faltauno.service.PartidoService;
 import uy.um.faltauno.service.InscripcionService;
 import uy.um.faltauno.service.NotificacionService;
+import uy.um.faltauno.util.PartidoCursor;
 import uy.um.faltauno.validation.OnCreate;
 import uy.um.faltauno.validation.OnUpdate;
 
@@ -36,6 +37,8 @@ public class PartidoController {
     private final InscripcionService inscripcionService;
     private final NotificacionService notificacionService;
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     public PartidoController(PartidoService partidoService, InscripcionService inscripcionService, NotificacionService notificacionService) {
         this.partidoService = partidoService;
         this.inscripcionService = inscripcionService;
@@ -128,6 +131,9 @@ public class PartidoController {
 
     /**
      * Listar partidos con filtros y paginación
+     * ⚡ Paginación keyset: el token para la página siguiente viene en el header X-Next-Cursor
+     * (ausente en la última página) y se reenvía en el parámetro "cursor".
+     * Con latitud/longitud/radioKm se ordena por distancia y se pagina con page/size.
      */
     @GetMapping
     public ResponseEntity<ApiResponse<List<PartidoDTO>>> listar(
@@ -140,6 +146,7 @@ public class PartidoController {
             @RequestParam(required = false) Double latitud,
             @RequestParam(required = false) Double longitud,
             @RequestParam(required = false) Double radioKm,
+            @RequestParam(required = false) String cursor,
             Pageable pageable) {
         
         try {
@@ -148,9 +155,21 @@ public class PartidoController {
             
             List<PartidoDTO> partidos = partidoService.listarPartidos(
                     tipoPartido, nivel, genero, fecha, estado, search, 
-                    latitud, longitud, radioKm, pageable);
+                    latitud, longitud, radioKm, cursor, pageable);
             
-            return ResponseEntity.ok(new ApiResponse<>(partidos, "Partidos encontrados", true));
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            boolean busquedaPorRadio = latitud != null && longitud != null && radioKm != null && radioKm > 0;
+            if (!busquedaPorRadio) {
+                String siguiente = PartidoCursor.siguiente(partidos, PartidoCursor.tamanoPagina(pageable));
+                if (siguiente != null) {
+                    response.header(NEXT_CURSOR_HEADER, siguiente);
+                }
+            }
+            return response.body(new ApiResponse<>(partidos, "Partidos encontrados", true));
+        } catch (IllegalArgumentException e) {
+            log.warn("Parámetros inválidos listando partidos: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse<>(null, e.getMessage(), false));
         } catch (Exception e) {
             log.error("Error listando partidos", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
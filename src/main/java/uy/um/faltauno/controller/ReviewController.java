@@ -8,6 +8,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import uy.um.faltauno.dto.ApiResponse;
 import uy.um.faltauno.dto.ReviewDTO;
+import uy.um.faltauno.dto.ReviewLoteDTO;
 import uy.um.faltauno.service.ReviewService;
 
 import jakarta.validation.Valid;
@@ -52,6 +53,35 @@ public class ReviewController {
         }
     }
 
+    /**
+     * Calificar varios compañeros de un partido en un solo request
+     * (las reviews que ya existían se omiten de la respuesta)
+     */
+    @PostMapping("/lote")
+    public ResponseEntity<ApiResponse<List<ReviewDTO>>> crearLote(
+            @Valid @RequestBody ReviewLoteDTO lote,
+            Authentication auth) {
+        try {
+            List<ReviewDTO> reviews = reviewService.crearReviewsEnLote(lote, auth);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(new ApiResponse<>(reviews, reviews.size() + " reviews creadas", true));
+        } catch (IllegalArgumentException e) {
+            log.warn("[ReviewController] Recurso no encontrado: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ApiResponse<>(null, e.getMessage(), false));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ApiResponse<>(null, e.getMessage(), false));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new ApiResponse<>(null, e.getMessage(), false));
+        } catch (Exception e) {
+            log.error("Error creando reviews en lote", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse<>(null, "Error al crear reviews", false));
+        }
+    }
+
     /**
      * Obtener reviews recibidas por un usuario
      */
@@ -3,6 +3,8 @@ package uy.um.faltauno.controller;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -24,14 +26,19 @@ import uy.um.faltauno.dto.UsuarioDTO;
 import uy.um.faltauno.entity.Usuario;
 import uy.um.faltauno.repository.UsuarioRepository;
 import uy.um.faltauno.repository.PartidoRepository;
+import uy.um.faltauno.service.FotoPerfilProcessor;
+import uy.um.faltauno.service.FotoPerfilService;
+import uy.um.faltauno.service.FotoStore;
 import uy.um.faltauno.service.UsuarioService;
 import uy.um.faltauno.service.ReviewService;
+import uy.um.faltauno.util.FotoPerfilUtils;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/usuarios")
@@ -45,6 +52,7 @@ public class UsuarioController {
     private final AuthenticationManager authenticationManager;
     private final UsuarioRepository usuarioRepository;
     private final PartidoRepository partidoRepository;
+    private final FotoPerfilService fotoPerfilService;
 
     // ================================
     // Registro con auto-login y JWT
@@ -195,31 +203,81 @@ public class UsuarioController {
         }
     }
 
-    @GetMapping(path = "/{id}/foto", produces = { MediaType.IMAGE_JPEG_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE })
-    public ResponseEntity<byte[]> getFoto(@PathVariable("id") String id) {
+    /**
+     * Foto de perfil como recurso binario cacheable.
+     * ⚡ ETag fuerte = hash del contenido; si el cliente ya la tiene responde 304 sin leer los bytes.
+     * Con ?v= igual a la versión actual (URL de fotoUrl) se marca immutable: una foto nueva cambia la URL.
+     * ?size=N sirve la variante más chica que cubra N px (64, 256 o 1024; por defecto la mayor).
+     */
+    @GetMapping(path = "/{id}/foto", produces = { MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE })
+    public ResponseEntity<Resource> getFoto(
+            @PathVariable("id") String id,
+            @RequestParam(value = "v", required = false) String version,
+            @RequestParam(value = "size", required = false) Integer size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
             UUID userId = UUID.fromString(id);
-            Usuario u = usuarioService.findUsuarioEntityById(userId);
+            Optional<UsuarioRepository.FotoMetaProjection> meta = fotoPerfilService.obtenerMeta(userId);
             
-            if (u == null) {
+            if (meta.isEmpty()) {
                 log.warn("[GET /foto] Usuario no encontrado: {}", id);
                 return ResponseEntity.notFound().build(); // 404 - User doesn't exist
             }
             
-            if (u.getFotoPerfil() == null) {
+            String hash = meta.get().getFotoHash();
+            if (hash == null) {
                 log.debug("[GET /foto] Usuario {} no tiene foto", id);
                 return ResponseEntity.noContent().build(); // 204 - User exists but has no photo
             }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.IMAGE_JPEG);
-            return new ResponseEntity<>(u.getFotoPerfil(), headers, HttpStatus.OK);
+            int tamano = FotoPerfilProcessor.normalizarTamano(size);
+            String etag = "\"" + hash + "-" + tamano + "\"";
+            CacheControl cacheControl = FotoPerfilUtils.version(hash).equals(version)
+                    ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable()
+                    : CacheControl.noCache().cachePrivate();
+
+            if (etagCoincide(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag)
+                        .cacheControl(cacheControl)
+                        .build();
+            }
+
+            Optional<FotoStore.FotoContenido> contenido = fotoPerfilService.leerFoto(userId, tamano);
+            if (contenido.isEmpty()) {
+                return ResponseEntity.noContent().build();
+            }
+
+            // ⚡ El recurso se copia en streaming a la respuesta (en filesystem, directo desde el archivo)
+            FotoStore.FotoContenido foto = contenido.get();
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(foto.contentType()))
+                    .contentLength(foto.bytes())
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .body(foto.recurso());
         } catch (IllegalArgumentException e) {
             log.error("[GET /foto] ID inválido: {}", id);
             return ResponseEntity.badRequest().build();
         }
     }
 
+    private static boolean etagCoincide(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.equals("*") || valor.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     // ================================
     // Verificación cédula
     // ================================
@@ -0,0 +1,21 @@
+package uy.um.faltauno.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Amigos en común con otro usuario: total + preview de perfiles
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AmigosEnComunDTO {
+    private String usuarioId;
+    private int total;
+    private List<UsuarioMinDTO> muestra;
+}
@@ -87,6 +87,7 @@ public class ObservabilityDTO {
     public static class UserMetrics {
         private Long activeUsers;            // últimos 30 días
         private Long dailyActiveUsers;       // últimas 24 horas
+        private Long hourlyActiveUsers;      // última hora
         private Long weeklyActiveUsers;      // últimos 7 días
         private Long onlineUsers;            // ahora
         private Map<String, Long> usersByCountry;
@@ -85,6 +85,10 @@ public class PartidoDTO {
     
     private String nivel;
     
+    // Distancia en km al punto de búsqueda (solo en búsquedas por radio)
+    @JsonProperty("distancia_km")
+    private Double distanciaKm;
+    
     @JsonProperty("jugadores_actuales")
     private Integer jugadoresActuales;
     
@@ -0,0 +1,25 @@
+package uy.um.faltauno.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Partidos de un día (para gráficos de admin), totales y desglose por tipo de partido
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PartidosPorDiaDTO {
+    private String dia;
+    private long creados;
+    private long programados;
+    private long cancelados;
+    private long completados;
+    /** tipoPartido → partidos programados ese día */
+    private Map<String, Long> programadosPorTipo;
+}
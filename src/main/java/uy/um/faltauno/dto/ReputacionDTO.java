@@ -0,0 +1,21 @@
+package uy.um.faltauno.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Reputación de un usuario (promedios redondeados a 1 decimal)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReputacionDTO {
+    private int totalReviews;
+    private double promedioNivel;
+    private double promedioDeportividad;
+    private double promedioCompanerismo;
+    private double promedioGeneral;
+}
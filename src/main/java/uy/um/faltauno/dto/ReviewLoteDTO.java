@@ -0,0 +1,58 @@
+package uy.um.faltauno.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Calificación de varios compañeros de un mismo partido en un solo request
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReviewLoteDTO {
+
+    public static final int MAX_REVIEWS = 50;
+
+    @NotNull(message = "El ID del partido es requerido")
+    @JsonProperty("partido_id")
+    private UUID partidoId;
+
+    @NotEmpty(message = "Debes incluir al menos una review")
+    @Size(max = MAX_REVIEWS, message = "Se pueden enviar como máximo " + MAX_REVIEWS + " reviews")
+    private List<@Valid Calificacion> reviews;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Calificacion {
+
+        @NotNull(message = "El ID del usuario calificado es requerido")
+        @JsonProperty("usuario_calificado_id")
+        private UUID usuarioCalificadoId;
+
+        @NotNull(message = "La calificación de nivel es requerida")
+        @Min(value = 1, message = "La calificación mínima es 1")
+        @Max(value = 5, message = "La calificación máxima es 5")
+        private Integer nivel;
+
+        @NotNull(message = "La calificación de deportividad es requerida")
+        @Min(value = 1, message = "La calificación mínima es 1")
+        @Max(value = 5, message = "La calificación máxima es 5")
+        private Integer deportividad;
+
+        @NotNull(message = "La calificación de compañerismo es requerida")
+        @Min(value = 1, message = "La calificación mínima es 1")
+        @Max(value = 5, message = "La calificación máxima es 5")
+        private Integer companerismo;
+
+        @Size(max = 300, message = "El comentario no puede exceder 300 caracteres")
+        private String comentario;
+    }
+}
@@ -18,7 +18,15 @@ public class UsuarioDTO {
     private Double altura;
     private Double peso;
     private String posicion;
-    private String fotoPerfil; // Base64 string
+    /**
+     * Foto en Base64: solo para recepción (registro con foto).
+     * Las respuestas exponen fotoUrl en su lugar.
+     */
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private String fotoPerfil;
+
+    // URL versionada de la foto (/api/usuarios/{id}/foto?v=...), null si no tiene
+    private String fotoUrl;
     
     // Indica explícitamente si el usuario tiene foto de perfil guardada en el backend
     // Esto evita que el frontend tenga que inferir la presencia de la foto por distintos aliases
@@ -48,6 +56,9 @@ public class UsuarioDTO {
     private String banUntil;
     private String bannedBy;
     
+    // Reputación agregada (reviews recibidas), solo en respuestas de perfil
+    private ReputacionDTO reputacion;
+
     // Activity tracking
     private String lastActivityAt;
     private String createdAt;
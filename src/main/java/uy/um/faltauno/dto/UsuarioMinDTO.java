@@ -7,25 +7,25 @@ public class UsuarioMinDTO {
     private String id;
     private String nombre;
     private String apellido;
-    private String fotoPerfil; // Base64 encoded string
+    private String fotoUrl; // URL versionada de la foto (/api/usuarios/{id}/foto?v=...), null si no tiene
     private LocalDateTime deletedAt; // Para indicar si el usuario está eliminado
 
     // Constructor sin parámetros para Jackson
     public UsuarioMinDTO() {
     }
 
-    public UsuarioMinDTO(UUID id, String nombre, String apellido, String fotoPerfil) {
+    public UsuarioMinDTO(UUID id, String nombre, String apellido, String fotoUrl) {
         this.id = id.toString();
         this.nombre = nombre;
         this.apellido = apellido;
-        this.fotoPerfil = fotoPerfil;
+        this.fotoUrl = fotoUrl;
     }
 
-    public UsuarioMinDTO(UUID id, String nombre, String apellido, String fotoPerfil, LocalDateTime deletedAt) {
+    public UsuarioMinDTO(UUID id, String nombre, String apellido, String fotoUrl, LocalDateTime deletedAt) {
         this.id = id.toString();
         this.nombre = nombre;
         this.apellido = apellido;
-        this.fotoPerfil = fotoPerfil;
+        this.fotoUrl = fotoUrl;
         this.deletedAt = deletedAt;
     }
 
@@ -36,8 +36,8 @@ public class UsuarioMinDTO {
     public void setNombre(String nombre) { this.nombre = nombre; }
     public String getApellido() { return apellido; }
     public void setApellido(String apellido) { this.apellido = apellido; }
-    public String getFotoPerfil() { return fotoPerfil; }
-    public void setFotoPerfil(String fotoPerfil) { this.fotoPerfil = fotoPerfil; }
+    public String getFotoUrl() { return fotoUrl; }
+    public void setFotoUrl(String fotoUrl) { this.fotoUrl = fotoUrl; }
     public LocalDateTime getDeletedAt() { return deletedAt; }
     public void setDeletedAt(LocalDateTime deletedAt) { this.deletedAt = deletedAt; }
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package uy.um.faltauno.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Arista dirigida de amistad (usuario → otro). Cada fila de amistad tiene dos aristas,
+ * una por dirección, así las consultas por usuario usan un solo índice.
+ *
+ * ⚠️ Solo lectura: la mantiene el trigger trigger_amistad_arista (V43) desde la tabla amistad.
+ * Se usa únicamente dentro de las queries de AmistadRepository.
+ */
+@Entity
+@Immutable
+@Table(name = "amistad_arista")
+@IdClass(AmistadArista.Clave.class)
+@Getter
+@NoArgsConstructor
+public class AmistadArista {
+
+    @Id
+    @Column(name = "usuario_id")
+    private UUID usuarioId;
+
+    @Id
+    @Column(name = "otro_id")
+    private UUID otroId;
+
+    @Column(name = "amistad_id", nullable = false)
+    private UUID amistadId;
+
+    @Column(nullable = false)
+    private String estado;
+
+    /** true si usuarioId envió la solicitud original */
+    @Column(nullable = false)
+    private Boolean enviada;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Clave implements Serializable {
+        private UUID usuarioId;
+        private UUID otroId;
+    }
+}
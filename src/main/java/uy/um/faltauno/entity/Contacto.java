@@ -7,6 +7,7 @@ import lombok.AllArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
+import java.util.Locale;
 
 /**
  * Entidad que representa un contacto importado desde el dispositivo del usuario
@@ -48,6 +49,13 @@ public class Contacto {
     @Column(nullable = false)
     private String celular;
     
+    /**
+     * ⚡ Email del contacto normalizado (trim + minúsculas), indexado.
+     * Se calcula desde celular al persistir; null si celular no es un email.
+     */
+    @Column(name = "email_norm")
+    private String emailNorm;
+    
     /**
      * Usuario de la app que coincide con este contacto (si existe)
      * Null si el contacto no está registrado en la app
@@ -69,8 +77,39 @@ public class Contacto {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    @PrePersist
+    protected void onCreate() {
+        emailNorm = normalizarEmail(celular);
+    }
+    
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        emailNorm = normalizarEmail(celular);
+    }
+    
+    /** Caracteres que se recortan en los extremos: los mismos que btrim(celular, E' \t\r\n') en V48 */
+    private static final String ESPACIOS_EMAIL = " \t\r\n";
+
+    /**
+     * ⚠️ Debe coincidir con el backfill de V48: lower(btrim(celular, E' \t\r\n')) si contiene '@'.
+     * No se usa String.trim(): recorta cualquier carácter ≤ U+0020 y btrim no.
+     * Limitación: para letras no ASCII, toLowerCase(Locale.ROOT) puede diferir de lower() según la
+     * collation de la base (los emails reales son ASCII en la práctica).
+     */
+    public static String normalizarEmail(String valor) {
+        if (valor == null || valor.indexOf('@') < 0) {
+            return null;
+        }
+        int desde = 0;
+        int hasta = valor.length();
+        while (desde < hasta && ESPACIOS_EMAIL.indexOf(valor.charAt(desde)) >= 0) {
+            desde++;
+        }
+        while (hasta > desde && ESPACIOS_EMAIL.indexOf(valor.charAt(hasta - 1)) >= 0) {
+            hasta--;
+        }
+        String normalizado = valor.substring(desde, hasta).toLowerCase(Locale.ROOT);
+        return normalizado.isEmpty() ? null : normalizado;
     }
 }
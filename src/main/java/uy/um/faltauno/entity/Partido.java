@@ -6,6 +6,7 @@ import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UuidGenerator;
 import org.hibernate.type.SqlTypes;
+import uy.um.faltauno.util.GeoUtils;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -57,6 +58,13 @@ public class Partido {
     @Column(name = "longitud", precision = 18, scale = 10)
     private BigDecimal longitud;
 
+    /**
+     * ⚡ Celda de grilla geográfica (indexada) para búsquedas por radio.
+     * Se recalcula automáticamente desde latitud/longitud (ver GeoUtils.celda)
+     */
+    @Column(name = "geo_celda")
+    private Long geoCelda;
+
     @Column(name = "cantidad_jugadores", nullable = false)
     private Integer cantidadJugadores;
 
@@ -94,4 +102,10 @@ public class Partido {
 
     @Column(name = "ultima_edicion")
     private Instant ultimaEdicion;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        this.geoCelda = GeoUtils.celda(latitud, longitud);
+    }
 }
\ No newline at end of file
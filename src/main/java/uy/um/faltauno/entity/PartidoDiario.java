@@ -0,0 +1,54 @@
+package uy.um.faltauno.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Rollup diario de partidos por tipo: creados ese día, programados para ese día y,
+ * de esos, cuántos están cancelados o completados.
+ *
+ * ⚠️ Solo lectura: la mantiene el trigger trigger_partido_diario (V45) desde la tabla partido.
+ */
+@Entity
+@Immutable
+@Table(name = "partido_diario")
+@IdClass(PartidoDiario.Clave.class)
+@Getter
+@NoArgsConstructor
+public class PartidoDiario {
+
+    @Id
+    @Column(name = "dia")
+    private LocalDate dia;
+
+    @Id
+    @Column(name = "tipo_partido")
+    private String tipoPartido;
+
+    @Column(nullable = false)
+    private Integer creados;
+
+    @Column(nullable = false)
+    private Integer programados;
+
+    @Column(nullable = false)
+    private Integer cancelados;
+
+    @Column(nullable = false)
+    private Integer completados;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Clave implements Serializable {
+        private LocalDate dia;
+        private String tipoPartido;
+    }
+}
@@ -0,0 +1,41 @@
+package uy.um.faltauno.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Reputación agregada de un usuario: cantidad de reviews recibidas y suma de cada dimensión.
+ *
+ * ⚠️ Solo lectura: la mantiene el trigger trigger_reputacion_usuario (V44) desde la tabla review.
+ */
+@Entity
+@Immutable
+@Table(name = "reputacion_usuario")
+@Getter
+@NoArgsConstructor
+public class ReputacionUsuario {
+
+    @Id
+    @Column(name = "usuario_id")
+    private UUID usuarioId;
+
+    @Column(name = "total_reviews", nullable = false)
+    private Integer totalReviews;
+
+    @Column(name = "suma_nivel", nullable = false)
+    private Long sumaNivel;
+
+    @Column(name = "suma_deportividad", nullable = false)
+    private Long sumaDeportividad;
+
+    @Column(name = "suma_companerismo", nullable = false)
+    private Long sumaCompanerismo;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
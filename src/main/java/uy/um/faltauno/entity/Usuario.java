@@ -29,9 +29,19 @@ public class Usuario {
     private Double peso;
     private String posicion;
 
-    @Basic(fetch = FetchType.LAZY)
-    @Column(name = "foto_perfil", columnDefinition = "bytea")
-    private byte[] fotoPerfil;
+    /**
+     * ⚡ SHA-256 (hex) de la variante mayor de la foto de perfil.
+     * Permite armar la URL versionada de la foto y el ETag sin leer los bytes.
+     * Los bytes viven en el FotoStore (fuera de esta tabla): ver FotoPerfilService.guardarVariantes
+     */
+    @Column(name = "foto_hash", length = 64)
+    private String fotoHash;
+
+    /**
+     * Tamaño en bytes de la variante mayor de la foto (null si no tiene)
+     */
+    @Column(name = "foto_bytes")
+    private Integer fotoBytes;
 
     private String cedula;
     
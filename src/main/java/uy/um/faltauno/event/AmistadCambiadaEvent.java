@@ -0,0 +1,33 @@
+package uy.um.faltauno.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.UUID;
+
+/**
+ * Evento publicado cuando cambia la relación de amistad entre dos usuarios.
+ * Los listeners lo procesan DESPUÉS del commit de la transacción.
+ */
+@Getter
+public class AmistadCambiadaEvent extends ApplicationEvent {
+
+    public enum Tipo {
+        SOLICITUD_ENVIADA,
+        /** Solicitud rechazada o cancelada */
+        SOLICITUD_DESCARTADA,
+        ACEPTADA,
+        ELIMINADA
+    }
+
+    private final UUID usuarioId;
+    private final UUID amigoId;
+    private final Tipo tipo;
+
+    public AmistadCambiadaEvent(Object source, UUID usuarioId, UUID amigoId, Tipo tipo) {
+        super(source);
+        this.usuarioId = usuarioId;
+        this.amigoId = amigoId;
+        this.tipo = tipo;
+    }
+}
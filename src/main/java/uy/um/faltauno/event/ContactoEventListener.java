@@ -0,0 +1,32 @@
+package uy.um.faltauno.event;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import uy.um.faltauno.service.ContactoService;
+
+/**
+ * Vincula los contactos sincronizados con usuarios recién registrados.
+ * Se ejecuta DESPUÉS del commit del registro y en otro thread: si falla, el registro no se ve afectado.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ContactoEventListener {
+
+    private final ContactoService contactoService;
+
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void handleUsuarioRegistrado(UsuarioRegistradoEvent event) {
+        try {
+            contactoService.actualizarContactosConNuevoUsuario(event.getUsuarioId(), event.getEmail());
+        } catch (Exception e) {
+            log.error("[ContactoEventListener] ❌ Error vinculando contactos del usuario {} (registro OK): {}",
+                    event.getUsuarioId(), e.getMessage(), e);
+        }
+    }
+}
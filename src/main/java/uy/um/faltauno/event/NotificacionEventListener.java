@@ -0,0 +1,34 @@
+package uy.um.faltauno.event;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import uy.um.faltauno.service.NotificacionService;
+
+/**
+ * Listener para entregar por WebSocket las notificaciones creadas en bloque.
+ * Se ejecuta DESPUÉS del commit y en otro thread: la transacción que las creó
+ * no espera a los envíos por WebSocket (los emails van por email_outbox).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NotificacionEventListener {
+
+    private final NotificacionService notificacionService;
+
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void handleNotificacionesCreadas(NotificacionesCreadasEvent event) {
+        try {
+            notificacionService.entregarNotificaciones(event);
+        } catch (Exception e) {
+            // Las notificaciones ya están guardadas; la entrega es best-effort
+            log.error("[NotificacionEventListener] ❌ Error entregando {} notificaciones {}: {}",
+                    event.getNotificaciones().size(), event.getTipo(), e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package uy.um.faltauno.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+import uy.um.faltauno.dto.NotificacionDTO;
+import uy.um.faltauno.entity.Notificacion;
+
+import java.util.List;
+
+/**
+ * Evento publicado cuando se crean notificaciones en bloque (mismo contenido, varios destinatarios).
+ * La entrega por WebSocket se hace DESPUÉS del commit, fuera de la transacción
+ * (los emails ya quedaron encolados en email_outbox dentro de ella).
+ */
+@Getter
+public class NotificacionesCreadasEvent extends ApplicationEvent {
+
+    private final List<NotificacionDTO> notificaciones;
+    private final Notificacion.TipoNotificacion tipo;
+
+    public NotificacionesCreadasEvent(
+            Object source,
+            List<NotificacionDTO> notificaciones,
+            Notificacion.TipoNotificacion tipo
+    ) {
+        super(source);
+        this.notificaciones = notificaciones;
+        this.tipo = tipo;
+    }
+}
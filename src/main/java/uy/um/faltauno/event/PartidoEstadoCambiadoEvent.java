@@ -0,0 +1,31 @@
+package uy.um.faltauno.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Evento publicado cuando se crea, cambia de estado o se elimina un partido.
+ * Los listeners lo procesan DESPUÉS del commit de la transacción.
+ */
+@Getter
+public class PartidoEstadoCambiadoEvent extends ApplicationEvent {
+
+    private final UUID partidoId;
+    /** null si el partido se acaba de crear */
+    private final String estadoAnterior;
+    /** null si el partido se eliminó */
+    private final String estadoNuevo;
+    private final LocalDate fecha;
+
+    public PartidoEstadoCambiadoEvent(Object source, UUID partidoId, String estadoAnterior, String estadoNuevo,
+                                      LocalDate fecha) {
+        super(source);
+        this.partidoId = partidoId;
+        this.estadoAnterior = estadoAnterior;
+        this.estadoNuevo = estadoNuevo;
+        this.fecha = fecha;
+    }
+}
@@ -0,0 +1,27 @@
+package uy.um.faltauno.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.UUID;
+
+/**
+ * Evento publicado por cada review creada (individual o en lote).
+ * Los listeners lo procesan DESPUÉS del commit de la transacción.
+ */
+@Getter
+public class ReviewCreadaEvent extends ApplicationEvent {
+
+    private final UUID usuarioCalificadoId;
+    private final int nivel;
+    private final int deportividad;
+    private final int companerismo;
+
+    public ReviewCreadaEvent(Object source, UUID usuarioCalificadoId, int nivel, int deportividad, int companerismo) {
+        super(source);
+        this.usuarioCalificadoId = usuarioCalificadoId;
+        this.nivel = nivel;
+        this.deportividad = deportividad;
+        this.companerismo = companerismo;
+    }
+}
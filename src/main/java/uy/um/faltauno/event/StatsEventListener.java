@@ -0,0 +1,58 @@
+package uy.um.faltauno.event;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import uy.um.faltauno.service.StatsService;
+
+/**
+ * Mantiene los contadores en memoria de StatsService.
+ * Se ejecuta DESPUÉS del commit (solo toca memoria, no hace falta otro thread):
+ * si la transacción hace rollback, el contador no cambia.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StatsEventListener {
+
+    private final StatsService statsService;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void handleUsuarioRegistrado(UsuarioRegistradoEvent event) {
+        try {
+            statsService.onUsuarioRegistrado();
+        } catch (Exception e) {
+            log.error("[StatsEventListener] ❌ Error actualizando estadísticas (usuario registrado): {}", e.getMessage(), e);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void handleUsuarioEliminado(UsuarioEliminadoEvent event) {
+        try {
+            statsService.onUsuarioEliminado();
+        } catch (Exception e) {
+            log.error("[StatsEventListener] ❌ Error actualizando estadísticas (usuario eliminado): {}", e.getMessage(), e);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void handlePartidoEstadoCambiado(PartidoEstadoCambiadoEvent event) {
+        try {
+            statsService.onPartidoEstadoCambiado(event.getEstadoAnterior(), event.getEstadoNuevo(), event.getFecha());
+        } catch (Exception e) {
+            log.error("[StatsEventListener] ❌ Error actualizando estadísticas (partido {}): {}",
+                    event.getPartidoId(), e.getMessage(), e);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void handleReviewCreada(ReviewCreadaEvent event) {
+        try {
+            statsService.onReviewCreada(event.getNivel(), event.getDeportividad(), event.getCompanerismo());
+        } catch (Exception e) {
+            log.error("[StatsEventListener] ❌ Error actualizando estadísticas (review): {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package uy.um.faltauno.event;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import uy.um.faltauno.service.SugerenciaAmigosService;
+
+/**
+ * Mantiene actualizadas las sugerencias de amistad precalculadas.
+ * Se ejecuta DESPUÉS del commit y en otro thread: si falla, no afecta la operación original.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SugerenciasEventListener {
+
+    private final SugerenciaAmigosService sugerenciaAmigosService;
+
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void handleAmistadCambiada(AmistadCambiadaEvent event) {
+        try {
+            switch (event.getTipo()) {
+                case SOLICITUD_ENVIADA ->
+                        sugerenciaAmigosService.onAmistadCambiada(event.getUsuarioId(), event.getAmigoId(), false);
+                case SOLICITUD_DESCARTADA ->
+                        sugerenciaAmigosService.onSolicitudResuelta(event.getUsuarioId(), event.getAmigoId());
+                case ACEPTADA, ELIMINADA ->
+                        sugerenciaAmigosService.onAmistadCambiada(event.getUsuarioId(), event.getAmigoId(), true);
+            }
+        } catch (Exception e) {
+            log.error("[SugerenciasEventListener] ❌ Error actualizando sugerencias ({}): {}",
+                    event.getTipo(), e.getMessage(), e);
+        }
+    }
+
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void handleInscripcionAceptada(InscripcionAceptadaEvent event) {
+        try {
+            sugerenciaAmigosService.onInscripcionAceptada(event.getUsuarioId(), event.getPartidoId());
+        } catch (Exception e) {
+            log.error("[SugerenciasEventListener] ❌ Error actualizando sugerencias por inscripción: {}",
+                    e.getMessage(), e);
+        }
+    }
+}
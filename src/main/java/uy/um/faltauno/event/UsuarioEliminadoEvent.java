@@ -0,0 +1,21 @@
+package uy.um.faltauno.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.UUID;
+
+/**
+ * Evento publicado cuando un usuario elimina su cuenta (soft delete).
+ * Los listeners lo procesan DESPUÉS del commit de la transacción.
+ */
+@Getter
+public class UsuarioEliminadoEvent extends ApplicationEvent {
+
+    private final UUID usuarioId;
+
+    public UsuarioEliminadoEvent(Object source, UUID usuarioId) {
+        super(source);
+        this.usuarioId = usuarioId;
+    }
+}
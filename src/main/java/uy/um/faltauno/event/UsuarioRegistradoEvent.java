@@ -0,0 +1,23 @@
+package uy.um.faltauno.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.UUID;
+
+/**
+ * Evento publicado cuando se registra un usuario nuevo (email/password o Google OAuth).
+ * Los listeners lo procesan DESPUÉS del commit de la transacción.
+ */
+@Getter
+public class UsuarioRegistradoEvent extends ApplicationEvent {
+
+    private final UUID usuarioId;
+    private final String email;
+
+    public UsuarioRegistradoEvent(Object source, UUID usuarioId, String email) {
+        super(source);
+        this.usuarioId = usuarioId;
+        this.email = email;
+    }
+}
@@ -4,26 +4,24 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.servlet.HandlerInterceptor;
 import uy.um.faltauno.config.CustomUserDetailsService.UserPrincipal;
-import uy.um.faltauno.entity.Usuario;
-import uy.um.faltauno.repository.UsuarioRepository;
+import uy.um.faltauno.service.ActividadBuffer;
+import uy.um.faltauno.service.PresenciaTracker;
 
-import java.time.LocalDateTime;
 import java.util.UUID;
 
 /**
- * Interceptor que actualiza last_activity_at en cada request autenticado.
+ * Interceptor que registra la actividad (last_activity_at) en cada request autenticado.
  * Permite calcular "Usuarios activos ahora" en tiempo real.
- * 
+ *
  * OPTIMIZACIÓN:
- * - Solo actualiza si han pasado más de 60 segundos desde la última actividad
- * - Ejecución asíncrona para no bloquear el request
+ * - ⚡ Write-behind: solo anota la actividad en memoria (ActividadBuffer);
+ *   un flusher la vuelca a la base en lotes, sin queries en el thread del request
+ * - ⚡ Presencia en memoria (PresenciaTracker) para "usuarios conectados" sin SQL
  * - Solo para requests autenticados (con token válido)
  */
 @Slf4j
@@ -31,68 +29,32 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class ActivityTrackingInterceptor implements HandlerInterceptor {
 
-    private final UsuarioRepository usuarioRepository;
-    
-    // Actualizar solo si han pasado más de 60 segundos (reducir writes a DB)
-    private static final long UPDATE_THRESHOLD_SECONDS = 60;
+    private final ActividadBuffer actividadBuffer;
+    private final PresenciaTracker presenciaTracker;
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        
+
         // Solo para requests autenticados
         if (auth != null && auth.isAuthenticated()) {
             UUID userId = null;
             Object principal = auth.getPrincipal();
-            
+
             // ✅ NUEVO: Soporte para Usuario como principal (JWT auth)
             if (principal instanceof uy.um.faltauno.entity.Usuario) {
                 userId = ((uy.um.faltauno.entity.Usuario) principal).getId();
             } else if (principal instanceof UserPrincipal) {
                 userId = ((UserPrincipal) principal).getId();
             }
-            
+
             if (userId != null) {
-                updateUserActivity(userId);
+                actividadBuffer.registrar(userId);
+                presenciaTracker.registrarActividad(userId);
+                log.trace("[ActivityTracking] Actividad registrada: userId={}", userId);
             }
         }
-        
-        return true; // Continuar con el request
-    }
 
-    /**
-     * Actualización asíncrona de actividad del usuario.
-     * Solo actualiza si han pasado más de 60 segundos desde la última actividad.
-     */
-    @Async
-    @Transactional
-    public void updateUserActivity(UUID userId) {
-        try {
-            Usuario usuario = usuarioRepository.findById(userId).orElse(null);
-            
-            if (usuario == null) {
-                log.trace("[ActivityTracking] Usuario no encontrado: {}", userId);
-                return;
-            }
-
-            LocalDateTime now = LocalDateTime.now();
-            LocalDateTime lastActivity = usuario.getLastActivityAt();
-            
-            // Solo actualizar si han pasado más de 60 segundos
-            if (lastActivity == null || 
-                lastActivity.plusSeconds(UPDATE_THRESHOLD_SECONDS).isBefore(now)) {
-                
-                usuario.setLastActivityAt(now);
-                usuarioRepository.save(usuario);
-                
-                log.trace("[ActivityTracking] ✅ Actividad actualizada: userId={}", userId);
-            } else {
-                log.trace("[ActivityTracking] ⏭️ Skip (< 60s): userId={}", userId);
-            }
-            
-        } catch (Exception e) {
-            // No fallar el request por error de tracking
-            log.error("[ActivityTracking] Error actualizando actividad userId={}: {}", userId, e.getMessage(), e);
-        }
+        return true; // Continuar con el request
     }
 }
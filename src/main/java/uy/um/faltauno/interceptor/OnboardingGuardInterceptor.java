@@ -12,6 +12,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 import uy.um.faltauno.dto.OnboardingStatusDTO;
 import uy.um.faltauno.entity.Usuario;
+import uy.um.faltauno.security.AuthStateCache;
 import uy.um.faltauno.service.UsuarioService;
 
 import java.io.IOException;
@@ -52,6 +53,7 @@ public class OnboardingGuardInterceptor implements HandlerInterceptor {
     );
 
     private final UsuarioService usuarioService;
+    private final AuthStateCache authStateCache;
     private final ObjectMapper objectMapper;
 
     @Override
@@ -70,8 +72,14 @@ public class OnboardingGuardInterceptor implements HandlerInterceptor {
             return true;
         }
 
+        // ⚡ Onboarding ya verificado como completo: chequeo en memoria, sin recalcular el estado
+        if (authStateCache.onboardingCompleto(usuario.getId())) {
+            return true;
+        }
+
         OnboardingStatusDTO onboarding = usuarioService.computeOnboardingStatus(usuario.getId());
         if (!onboarding.isRequiresAction()) {
+            authStateCache.marcarOnboardingCompleto(usuario.getId());
             return true;
         }
 
@@ -26,10 +26,14 @@ public interface ContactoMapper {
         return uuid.getMostSignificantBits() & Long.MAX_VALUE;
     }
     
+    /**
+     * Email del usuario de la app. El contacto se vinculó por email_norm = lower(email),
+     * así que se toma del propio contacto sin inicializar el proxy de usuarioApp (evita N+1).
+     */
     default String mapEmail(Contacto contacto) {
         if (contacto == null || contacto.getUsuarioApp() == null) {
             return null;
         }
-        return contacto.getUsuarioApp().getEmail();
+        return contacto.getEmailNorm();
     }
 }
@@ -1,20 +1,45 @@
 package uy.um.faltauno.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import uy.um.faltauno.entity.Amistad;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * Amistades y solicitudes de amistad.
+ *
+ * ⚡ Las consultas por usuario se resuelven sobre amistad_arista (entidad AmistadArista):
+ * dos aristas dirigidas por relación, mantenidas por trigger. Así "amigos de X", los conteos
+ * y "¿X e Y son amigos?" son un range scan sobre un único índice en lugar de
+ * (usuario_id = X OR amigo_id = X). Los métodos siguen devolviendo Amistad: la representación
+ * queda oculta detrás de este repositorio.
+ */
 public interface AmistadRepository extends JpaRepository<Amistad, UUID> {
+
+    /** Aristas de un usuario unidas a su amistad (alias e = arista, a = amistad) */
+    String DESDE_ARISTAS = "SELECT a FROM AmistadArista e JOIN Amistad a ON a.id = e.amistadId ";
+
+    /**
+     * Filtro keyset común a los listados paginados (orden created_at DESC, id DESC).
+     * - since: solo amistades/solicitudes creadas después de esa fecha (sincronización incremental)
+     * - cursorFecha/cursorId: posición del último elemento de la página anterior (ver AmistadCursor)
+     * Sobre las columnas de la arista: lo sirve idx_amistad_arista_usuario_estado.
+     */
+    String FILTRO_PAGINA = " AND (:since IS NULL OR e.createdAt > :since)"
+            + " AND (:cursorFecha IS NULL OR e.createdAt < :cursorFecha"
+            + " OR (e.createdAt = :cursorFecha AND e.amistadId < :cursorId))"
+            + " ORDER BY e.createdAt DESC, e.amistadId DESC";
     
     /**
      * Buscar solicitudes de amistad pendientes recibidas por un usuario
      */
-    @Query("SELECT a FROM Amistad a WHERE a.amigoId = :amigoId AND a.estado = :estado")
+    @Query(DESDE_ARISTAS + "WHERE e.usuarioId = :amigoId AND e.estado = :estado AND e.enviada = false")
     List<Amistad> findByAmigoIdAndEstado(
         @Param("amigoId") UUID amigoId, 
         @Param("estado") String estado
@@ -23,7 +48,7 @@ public interface AmistadRepository extends JpaRepository<Amistad, UUID> {
     /**
      * Buscar solicitudes de amistad enviadas por un usuario
      */
-    @Query("SELECT a FROM Amistad a WHERE a.usuarioId = :usuarioId AND a.estado = :estado")
+    @Query(DESDE_ARISTAS + "WHERE e.usuarioId = :usuarioId AND e.estado = :estado AND e.enviada = true")
     List<Amistad> findByUsuarioIdAndEstado(
         @Param("usuarioId") UUID usuarioId, 
         @Param("estado") String estado
@@ -32,15 +57,57 @@ public interface AmistadRepository extends JpaRepository<Amistad, UUID> {
     /**
      * Buscar todas las amistades de un usuario (tanto enviadas como recibidas)
      */
-    @Query("SELECT a FROM Amistad a WHERE (a.usuarioId = :usuarioId OR a.amigoId = :usuarioId) AND a.estado = 'ACEPTADO'")
+    @Query(DESDE_ARISTAS + "WHERE e.usuarioId = :usuarioId AND e.estado = 'ACEPTADO'")
     List<Amistad> findAmigosByUsuarioId(@Param("usuarioId") UUID usuarioId);
+
+    /**
+     * ⚡ Solo los IDs de los amigos de un usuario (sin cargar amistades)
+     */
+    @Query("SELECT e.otroId FROM AmistadArista e WHERE e.usuarioId = :usuarioId AND e.estado = 'ACEPTADO'")
+    List<UUID> findAmigoIds(@Param("usuarioId") UUID usuarioId);
+
+    /**
+     * ⚡ Página de amigos aceptados (en cualquier dirección)
+     */
+    @Query(DESDE_ARISTAS + "WHERE e.usuarioId = :usuarioId AND e.estado = 'ACEPTADO'" + FILTRO_PAGINA)
+    List<Amistad> findAmigosPagina(
+        @Param("usuarioId") UUID usuarioId,
+        @Param("since") LocalDateTime since,
+        @Param("cursorFecha") LocalDateTime cursorFecha,
+        @Param("cursorId") UUID cursorId,
+        Limit limit
+    );
+
+    /**
+     * ⚡ Página de solicitudes pendientes recibidas
+     */
+    @Query(DESDE_ARISTAS + "WHERE e.usuarioId = :usuarioId AND e.estado = 'PENDIENTE' AND e.enviada = false"
+            + FILTRO_PAGINA)
+    List<Amistad> findSolicitudesRecibidasPagina(
+        @Param("usuarioId") UUID usuarioId,
+        @Param("since") LocalDateTime since,
+        @Param("cursorFecha") LocalDateTime cursorFecha,
+        @Param("cursorId") UUID cursorId,
+        Limit limit
+    );
+
+    /**
+     * ⚡ Página de solicitudes pendientes enviadas
+     */
+    @Query(DESDE_ARISTAS + "WHERE e.usuarioId = :usuarioId AND e.estado = 'PENDIENTE' AND e.enviada = true"
+            + FILTRO_PAGINA)
+    List<Amistad> findSolicitudesEnviadasPagina(
+        @Param("usuarioId") UUID usuarioId,
+        @Param("since") LocalDateTime since,
+        @Param("cursorFecha") LocalDateTime cursorFecha,
+        @Param("cursorId") UUID cursorId,
+        Limit limit
+    );
     
     /**
      * Verificar si existe una amistad entre dos usuarios (en cualquier dirección)
      */
-    @Query("SELECT a FROM Amistad a WHERE " +
-           "(a.usuarioId = :usuarioId AND a.amigoId = :amigoId) OR " +
-           "(a.usuarioId = :amigoId AND a.amigoId = :usuarioId)")
+    @Query(DESDE_ARISTAS + "WHERE e.usuarioId = :usuarioId AND e.otroId = :amigoId")
     Optional<Amistad> findAmistadEntreUsuarios(
         @Param("usuarioId") UUID usuarioId, 
         @Param("amigoId") UUID amigoId
@@ -49,10 +116,8 @@ public interface AmistadRepository extends JpaRepository<Amistad, UUID> {
     /**
      * Verificar si existe una solicitud pendiente entre dos usuarios
      */
-    @Query("SELECT CASE WHEN COUNT(a) > 0 THEN true ELSE false END FROM Amistad a WHERE " +
-           "((a.usuarioId = :usuarioId AND a.amigoId = :amigoId) OR " +
-           "(a.usuarioId = :amigoId AND a.amigoId = :usuarioId)) AND " +
-           "a.estado = 'PENDIENTE'")
+    @Query("SELECT CASE WHEN COUNT(e) > 0 THEN true ELSE false END FROM AmistadArista e "
+            + "WHERE e.usuarioId = :usuarioId AND e.otroId = :amigoId AND e.estado = 'PENDIENTE'")
     boolean existeSolicitudPendiente(
         @Param("usuarioId") UUID usuarioId, 
         @Param("amigoId") UUID amigoId
@@ -61,10 +126,8 @@ public interface AmistadRepository extends JpaRepository<Amistad, UUID> {
     /**
      * Verificar si dos usuarios ya son amigos
      */
-    @Query("SELECT CASE WHEN COUNT(a) > 0 THEN true ELSE false END FROM Amistad a WHERE " +
-           "((a.usuarioId = :usuarioId AND a.amigoId = :amigoId) OR " +
-           "(a.usuarioId = :amigoId AND a.amigoId = :usuarioId)) AND " +
-           "a.estado = 'ACEPTADO'")
+    @Query("SELECT CASE WHEN COUNT(e) > 0 THEN true ELSE false END FROM AmistadArista e "
+            + "WHERE e.usuarioId = :usuarioId AND e.otroId = :amigoId AND e.estado = 'ACEPTADO'")
     boolean sonAmigos(
         @Param("usuarioId") UUID usuarioId, 
         @Param("amigoId") UUID amigoId
@@ -73,14 +136,13 @@ public interface AmistadRepository extends JpaRepository<Amistad, UUID> {
     /**
      * Contar amigos de un usuario
      */
-    @Query("SELECT COUNT(a) FROM Amistad a WHERE " +
-           "(a.usuarioId = :usuarioId OR a.amigoId = :usuarioId) AND " +
-           "a.estado = 'ACEPTADO'")
+    @Query("SELECT COUNT(e) FROM AmistadArista e WHERE e.usuarioId = :usuarioId AND e.estado = 'ACEPTADO'")
     long countAmigosByUsuarioId(@Param("usuarioId") UUID usuarioId);
     
     /**
      * Contar solicitudes pendientes recibidas
      */
-    @Query("SELECT COUNT(a) FROM Amistad a WHERE a.amigoId = :usuarioId AND a.estado = 'PENDIENTE'")
+    @Query("SELECT COUNT(e) FROM AmistadArista e "
+            + "WHERE e.usuarioId = :usuarioId AND e.estado = 'PENDIENTE' AND e.enviada = false")
     long countSolicitudesPendientes(@Param("usuarioId") UUID usuarioId);
-}
\ No newline at end of file
+}
@@ -1,6 +1,9 @@
 package uy.um.faltauno.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import uy.um.faltauno.entity.Contacto;
 
@@ -30,4 +33,14 @@ public interface ContactoRepository extends JpaRepository<Contacto, Long> {
      * Contar contactos de un usuario
      */
     long countByUsuarioId(UUID usuarioId);
+    
+    /**
+     * ⚡ Vincular todos los contactos con ese email a un usuario de la app (un único UPDATE por
+     * idx_contactos_email_norm). Devuelve la cantidad de contactos vinculados.
+     */
+    @Modifying
+    @Query(value = "UPDATE contactos SET usuario_app_id = :usuarioAppId, is_on_app = TRUE, updated_at = CURRENT_TIMESTAMP "
+            + "WHERE email_norm = :emailNorm "
+            + "AND (usuario_app_id IS NULL OR usuario_app_id <> :usuarioAppId)", nativeQuery = true)
+    int vincularUsuarioApp(@Param("usuarioAppId") UUID usuarioAppId, @Param("emailNorm") String emailNorm);
 }
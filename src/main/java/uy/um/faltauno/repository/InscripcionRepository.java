@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import uy.um.faltauno.entity.Inscripcion;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -41,6 +42,17 @@ public interface InscripcionRepository extends JpaRepository<Inscripcion, UUID>
     @Query("SELECT COUNT(i) FROM Inscripcion i WHERE i.partido.id = :partidoId")
     long countByPartidoId(@Param("partidoId") UUID partidoId);
     
+    /**
+     * ⚡ PERFORMANCE: Contar inscripciones de varios partidos en una sola query agrupada.
+     * Evita el patrón 1+N al armar listados (un COUNT por partido).
+     * Los partidos sin inscripciones no aparecen en el resultado.
+     */
+    @Query("SELECT i.partido.id AS partidoId, COUNT(i) AS total " +
+           "FROM Inscripcion i " +
+           "WHERE i.partido.id IN :partidoIds " +
+           "GROUP BY i.partido.id")
+    List<PartidoCount> countByPartidoIds(@Param("partidoIds") Collection<UUID> partidoIds);
+    
     /**
      * Buscar inscripción específica
      */
@@ -70,4 +82,15 @@ public interface InscripcionRepository extends JpaRepository<Inscripcion, UUID>
     @Query("SELECT COUNT(DISTINCT i.usuario.id) FROM Inscripcion i " +
            "WHERE i.partido.fecha >= :fechaDesde")
     long countDistinctUsuariosActivosDesde(@Param("fechaDesde") java.time.LocalDate fechaDesde);
-}
\ No newline at end of file
+
+    interface PartidoCount {
+        UUID getPartidoId();
+        Long getTotal();
+    }
+
+    /**
+     * ⚡ IDs de los jugadores de un partido (sin cargar entidades)
+     */
+    @Query("SELECT i.usuario.id FROM Inscripcion i WHERE i.partido.id = :partidoId")
+    List<UUID> findUsuarioIdsByPartidoId(@Param("partidoId") UUID partidoId);
+}
@@ -0,0 +1,23 @@
+package uy.um.faltauno.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import uy.um.faltauno.entity.PartidoDiario;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface PartidoDiarioRepository extends JpaRepository<PartidoDiario, PartidoDiario.Clave> {
+
+    /**
+     * Partidos programados entre dos fechas (inclusive), todos los tipos
+     */
+    @Query("SELECT COALESCE(SUM(d.programados), 0) FROM PartidoDiario d WHERE d.dia BETWEEN :desde AND :hasta")
+    long sumProgramados(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    /**
+     * Serie diaria entre dos fechas (inclusive), una fila por día y tipo
+     */
+    List<PartidoDiario> findByDiaBetweenOrderByDiaAscTipoPartidoAsc(LocalDate desde, LocalDate hasta);
+}
@@ -0,0 +1,23 @@
+package uy.um.faltauno.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import uy.um.faltauno.entity.ReputacionUsuario;
+
+import java.util.UUID;
+
+public interface ReputacionUsuarioRepository extends JpaRepository<ReputacionUsuario, UUID> {
+
+    /**
+     * Total de reviews (suma de los agregados, sin recorrer review)
+     */
+    @Query("SELECT COALESCE(SUM(r.totalReviews), 0) FROM ReputacionUsuario r")
+    long sumTotalReviews();
+
+    /**
+     * Promedio global de calificación: promedio de (nivel + deportividad + compañerismo) / 3 por review
+     */
+    @Query("SELECT SUM(r.sumaNivel + r.sumaDeportividad + r.sumaCompanerismo) / (3.0 * SUM(r.totalReviews)) "
+            + "FROM ReputacionUsuario r WHERE r.totalReviews > 0")
+    Double findAverageCalificacionGlobal();
+}
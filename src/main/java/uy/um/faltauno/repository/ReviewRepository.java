@@ -1,14 +1,29 @@
 package uy.um.faltauno.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import uy.um.faltauno.entity.Review;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 import java.util.UUID;
 
 public interface ReviewRepository extends JpaRepository<Review, UUID> {
+
+    /**
+     * Compañeros de partido que el usuario todavía no calificó: partidos COMPLETADOS ya jugados
+     * (anti-join contra review, resuelto con el índice único partido/calificador/calificado)
+     */
+    String FROM_PENDIENTES = "FROM Inscripcion mi JOIN mi.partido p "
+            + "JOIN Inscripcion otra ON otra.partido = p JOIN otra.usuario u "
+            + "WHERE mi.usuario.id = :usuarioId AND u.id <> :usuarioId "
+            + "AND p.estado = 'COMPLETADO' "
+            + "AND (p.fecha < :hoy OR (p.fecha = :hoy AND p.hora <= :hora)) "
+            + "AND NOT EXISTS (SELECT 1 FROM Review r WHERE r.partido = p "
+            + "AND r.usuarioQueCalifica.id = :usuarioId AND r.usuarioCalificado = u) ";
     
     /**
      * Buscar reviews recibidas por un usuario
@@ -72,4 +87,42 @@ public interface ReviewRepository extends JpaRepository<Review, UUID> {
      */
     @Query("SELECT AVG((r.nivel + r.deportividad + r.companerismo) / 3.0) FROM Review r")
     Double findAverageCalificacionGlobal();
-}
\ No newline at end of file
+
+    /**
+     * ⚡ Reviews pendientes del usuario en una sola query (una fila por partido + compañero)
+     */
+    @Query("SELECT p.id AS partidoId, p.tipoPartido AS tipoPartido, p.fecha AS fecha, "
+            + "p.nombreUbicacion AS nombreUbicacion, u.id AS usuarioId, u.nombre AS nombre, "
+            + "u.apellido AS apellido, u.fotoHash AS fotoHash "
+            + FROM_PENDIENTES
+            + "ORDER BY p.fecha DESC, p.hora DESC, p.id, u.nombre")
+    List<PendienteProjection> findPendientesDeCalificar(
+            @Param("usuarioId") UUID usuarioId,
+            @Param("hoy") LocalDate hoy,
+            @Param("hora") LocalTime hora);
+
+    @Query("SELECT p.id " + FROM_PENDIENTES)
+    List<UUID> findPartidosConPendientes(
+            @Param("usuarioId") UUID usuarioId,
+            @Param("hoy") LocalDate hoy,
+            @Param("hora") LocalTime hora,
+            Limit limit);
+
+    /**
+     * ⚡ ¿Tiene al menos una review pendiente? (LIMIT 1: corta en la primera fila)
+     */
+    default boolean existePendienteDeCalificar(UUID usuarioId, LocalDate hoy, LocalTime hora) {
+        return !findPartidosConPendientes(usuarioId, hoy, hora, Limit.of(1)).isEmpty();
+    }
+
+    interface PendienteProjection {
+        UUID getPartidoId();
+        String getTipoPartido();
+        LocalDate getFecha();
+        String getNombreUbicacion();
+        UUID getUsuarioId();
+        String getNombre();
+        String getApellido();
+        String getFotoHash();
+    }
+}
@@ -7,6 +7,9 @@ import org.springframework.data.repository.query.Param;
 import uy.um.faltauno.entity.Usuario;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -99,9 +102,112 @@ public interface UsuarioRepository extends JpaRepository<Usuario, UUID> {
                 """)
         boolean existsByCedula(@Param("cedula") String cedula, @Param("excludeId") UUID excludeId);
 
+    /**
+     * ⚡ Solo id + hash de la foto (sin cargar la entidad ni los bytes).
+     * Usado por GET /api/usuarios/{id}/foto para ETag / 304.
+     */
+    @Query("SELECT u.id AS id, u.fotoHash AS fotoHash FROM Usuario u WHERE u.id = :id AND u.deletedAt IS NULL")
+    Optional<FotoMetaProjection> findFotoMetaById(@Param("id") UUID id);
+
+    interface FotoMetaProjection {
+        UUID getId();
+        String getFotoHash();
+    }
+
+    /**
+     * ⚡ Estado mínimo para validar un JWT (sin cargar la entidad completa).
+     * Usado por AuthStateCache al cargar un usuario que no está en memoria.
+     */
+    @Query("SELECT u.id AS id, u.email AS email, u.rol AS rol, u.tokenVersion AS tokenVersion, u.bannedAt AS bannedAt "
+            + "FROM Usuario u WHERE u.id = :id AND u.deletedAt IS NULL")
+    Optional<AuthStateProjection> findAuthStateById(@Param("id") UUID id);
+
+    interface AuthStateProjection {
+        UUID getId();
+        String getEmail();
+        String getRol();
+        Integer getTokenVersion();
+        LocalDateTime getBannedAt();
+    }
+
+    /**
+     * ⚡ Perfil mínimo (id, nombre, apellido, hash de foto) de varios usuarios en una sola query.
+     * Para armar UsuarioMinDTO en listados sin cargar entidades completas.
+     */
+    @Query("SELECT u.id AS id, u.nombre AS nombre, u.apellido AS apellido, u.fotoHash AS fotoHash "
+            + "FROM Usuario u WHERE u.id IN :ids AND u.deletedAt IS NULL")
+    List<PerfilMinProjection> findPerfilMinByIds(@Param("ids") Collection<UUID> ids);
+
+    interface PerfilMinProjection {
+        UUID getId();
+        String getNombre();
+        String getApellido();
+        String getFotoHash();
+    }
+
+    /**
+     * ⚡ Usuarios activos cuyo email (en minúsculas) está en la lista.
+     * Usa idx_usuario_email_lower; los emails deben venir normalizados (trim + minúsculas).
+     * Preferir {@link #findEmailMatchByEmails}, que parte la lista en lotes.
+     */
+    @Query("SELECT u.id AS id, lower(u.email) AS email, u.nombre AS nombre, u.apellido AS apellido, "
+            + "u.fotoHash AS fotoHash FROM Usuario u WHERE lower(u.email) IN :emails AND u.deletedAt IS NULL")
+    List<EmailMatchProjection> findEmailMatchByEmailsLower(@Param("emails") Collection<String> emails);
+
+    /**
+     * Búsqueda masiva por email en lotes de {@link #LOTE_EMAILS} (evita IN gigantes y
+     * planes distintos por cada tamaño de lista). Solo id, email, nombre y hash de la foto.
+     */
+    default List<EmailMatchProjection> findEmailMatchByEmails(Collection<String> emailsNormalizados) {
+        List<String> emails = new ArrayList<>(emailsNormalizados);
+        List<EmailMatchProjection> encontrados = new ArrayList<>();
+        for (int desde = 0; desde < emails.size(); desde += LOTE_EMAILS) {
+            encontrados.addAll(findEmailMatchByEmailsLower(
+                    emails.subList(desde, Math.min(desde + LOTE_EMAILS, emails.size()))));
+        }
+        return encontrados;
+    }
+
+    int LOTE_EMAILS = 500;
+
+    interface EmailMatchProjection {
+        UUID getId();
+        /** Email en minúsculas */
+        String getEmail();
+        String getNombre();
+        String getApellido();
+        String getFotoHash();
+    }
+
     interface AuthProjection {
         UUID getId();
         String getEmail();
         String getPassword();
     }
+
+    /**
+     * ⚡ Email, nombre y preferencias de notificación por email de varios usuarios en una sola query.
+     * Para envíos masivos de notificaciones sin cargar entidades completas.
+     */
+    @Query("SELECT u.id AS id, u.email AS email, u.nombre AS nombre, "
+            + "u.notifEmailInvitaciones AS notifEmailInvitaciones, "
+            + "u.notifEmailSolicitudesAmistad AS notifEmailSolicitudesAmistad, "
+            + "u.notifEmailActualizacionesPartido AS notifEmailActualizacionesPartido, "
+            + "u.notifEmailSolicitudesReview AS notifEmailSolicitudesReview, "
+            + "u.notifEmailNuevosMensajes AS notifEmailNuevosMensajes, "
+            + "u.notifEmailGenerales AS notifEmailGenerales "
+            + "FROM Usuario u WHERE u.id IN :ids AND u.deletedAt IS NULL")
+    List<DestinatarioEmailProjection> findDestinatariosEmailByIds(@Param("ids") Collection<UUID> ids);
+
+    interface DestinatarioEmailProjection {
+        UUID getId();
+        String getEmail();
+        String getNombre();
+        Boolean getNotifEmailInvitaciones();
+        Boolean getNotifEmailSolicitudesAmistad();
+        Boolean getNotifEmailActualizacionesPartido();
+        Boolean getNotifEmailSolicitudesReview();
+        Boolean getNotifEmailNuevosMensajes();
+        Boolean getNotifEmailGenerales();
+    }
 }
\ No newline at end of file
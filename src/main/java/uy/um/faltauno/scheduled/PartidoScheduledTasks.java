@@ -2,10 +2,12 @@ package uy.um.faltauno.scheduled;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import uy.um.faltauno.entity.Partido;
+import uy.um.faltauno.event.PartidoEstadoCambiadoEvent;
 import uy.um.faltauno.repository.InscripcionRepository;
 import uy.um.faltauno.repository.PartidoRepository;
 
@@ -24,6 +26,7 @@ public class PartidoScheduledTasks {
 
     private final PartidoRepository partidoRepository;
     private final InscripcionRepository inscripcionRepository;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
     /**
      * Ejecuta cada 5 minutos para:
@@ -63,8 +66,11 @@ public class PartidoScheduledTasks {
                                 partido.getId(), inscritos, partido.getCantidadJugadores());
                     }
                     
+                    String estadoAnterior = partido.getEstado();
                     partido.setEstado("CANCELADO");
                     partidoRepository.save(partido);
+                    applicationEventPublisher.publishEvent(new PartidoEstadoCambiadoEvent(
+                            this, partido.getId(), estadoAnterior, "CANCELADO", partido.getFecha()));
                     cancelados++;
                 } catch (Exception e) {
                     log.error("Error cancelando partido {}", partido.getId(), e);
@@ -85,8 +91,11 @@ public class PartidoScheduledTasks {
             for (Partido partido : confirmadosVencidos) {
                 try {
                     log.info("Completando partido {} automáticamente", partido.getId());
+                    String estadoAnterior = partido.getEstado();
                     partido.setEstado("COMPLETADO");
                     partidoRepository.save(partido);
+                    applicationEventPublisher.publishEvent(new PartidoEstadoCambiadoEvent(
+                            this, partido.getId(), estadoAnterior, "COMPLETADO", partido.getFecha()));
                     completados++;
                 } catch (Exception e) {
                     log.error("Error completando partido {}", partido.getId(), e);
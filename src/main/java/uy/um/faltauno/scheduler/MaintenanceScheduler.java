@@ -4,7 +4,9 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import uy.um.faltauno.service.EmailOutboxService;
 import uy.um.faltauno.service.PasswordResetService;
+import uy.um.faltauno.service.ReputacionService;
 import uy.um.faltauno.service.UsuarioService;
 
 /**
@@ -12,6 +14,8 @@ import uy.um.faltauno.service.UsuarioService;
  * 
  * - Cleanup de usuarios eliminados hace más de 30 días (diario a las 3:00 AM)
  * - Cleanup de tokens de recuperación expirados (diario a las 4:00 AM)
+ * - Reparación de reputacion_usuario desde review (diario a las 4:30 AM)
+ * - Limpieza de email_outbox (enviados/fallidos antiguos, diario a las 4:45 AM)
  */
 @Slf4j
 @Component
@@ -20,6 +24,8 @@ public class MaintenanceScheduler {
 
     private final UsuarioService usuarioService;
     private final PasswordResetService passwordResetService;
+    private final ReputacionService reputacionService;
+    private final EmailOutboxService emailOutboxService;
 
     /**
      * Cleanup automático de usuarios eliminados hace más de 30 días.
@@ -68,4 +74,42 @@ public class MaintenanceScheduler {
             log.error("❌ [Scheduled] Error en cleanup de tokens: {}", e.getMessage(), e);
         }
     }
+
+    /**
+     * Reconstrucción por lotes del agregado reputacion_usuario desde review.
+     * Se ejecuta diariamente a las 4:30 AM (hora del servidor).
+     * 
+     * Cron: "0 30 4 * * *" = segundo 0, minuto 30, hora 4, todos los días
+     */
+    @Scheduled(cron = "0 30 4 * * *")
+    public void repararReputacion() {
+        log.info("🧹 [Scheduled] Iniciando reparación de reputación de usuarios...");
+        
+        try {
+            int corregidos = reputacionService.reparar();
+            log.info("✅ [Scheduled] Reparación completada: {} agregados corregidos", corregidos);
+            
+        } catch (Exception e) {
+            log.error("❌ [Scheduled] Error reparando reputación: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Limpieza de emails enviados o fallidos más viejos que app.email.outbox.retencion-dias.
+     * Se ejecuta diariamente a las 4:45 AM (hora del servidor).
+     * 
+     * Cron: "0 45 4 * * *" = segundo 0, minuto 45, hora 4, todos los días
+     */
+    @Scheduled(cron = "0 45 4 * * *")
+    public void limpiarEmailOutbox() {
+        log.info("🧹 [Scheduled] Iniciando limpieza de email_outbox...");
+        
+        try {
+            int borrados = emailOutboxService.limpiar();
+            log.info("✅ [Scheduled] Limpieza completada: {} emails antiguos eliminados", borrados);
+            
+        } catch (Exception e) {
+            log.error("❌ [Scheduled] Error limpiando email_outbox: {}", e.getMessage(), e);
+        }
+    }
 }
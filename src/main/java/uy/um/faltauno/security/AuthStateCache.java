@@ -0,0 +1,137 @@
+package uy.um.faltauno.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import uy.um.faltauno.entity.Usuario;
+import uy.um.faltauno.repository.UsuarioRepository;
+import uy.um.faltauno.service.InvalidacionDistribuida;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * ⚡ Cache en memoria del estado de autenticación por usuario (userId → tokenVersion, baneo, rol).
+ *
+ * JwtAuthenticationFilter lo consulta en cada request en lugar de hacer findById contra Postgres:
+ * con el pool de 3 conexiones, cada request autenticado costaba un round-trip.
+ *
+ * - Acotado (10K usuarios) y con TTL de 60 s como red de seguridad.
+ * - Invalidación explícita en cambio de password, baneo/desbaneo, cambio de rol y borrado:
+ *   se invalida al llamar y de nuevo después del commit, para que un request concurrente
+ *   no vuelva a cachear el estado previo.
+ * - ⚠️ Multi-instancia: la invalidación se publica a las demás instancias con
+ *   {@link InvalidacionDistribuida} (NOTIFY entregado al commit). Ventana de inconsistencia:
+ *   lo que tarda la notificación (milisegundos); si el listener pierde la conexión se vacía
+ *   el cache al reconectar, y en el peor caso (notificación perdida) un ban, cambio de rol,
+ *   borrado o tokenVersion nuevo tarda como máximo el TTL (60 s) en verse en otra instancia.
+ * - Métricas: faltauno_auth_cache_hits_total / faltauno_auth_cache_misses_total.
+ */
+@Component
+@Slf4j
+public class AuthStateCache {
+
+    private static final int MAX_USUARIOS = 10_000;
+    private static final String DOMINIO = "auth";
+    private static final Duration TTL = Duration.ofSeconds(60);
+
+    private final UsuarioRepository usuarioRepository;
+    private final InvalidacionDistribuida invalidacionDistribuida;
+    private final Counter hits;
+    private final Counter misses;
+    private final Cache<UUID, AuthState> cache = Caffeine.newBuilder()
+            .maximumSize(MAX_USUARIOS)
+            .expireAfterWrite(TTL)
+            .build();
+
+    public AuthStateCache(UsuarioRepository usuarioRepository, MeterRegistry meterRegistry,
+                          InvalidacionDistribuida invalidacionDistribuida) {
+        this.usuarioRepository = usuarioRepository;
+        this.invalidacionDistribuida = invalidacionDistribuida;
+        this.hits = meterRegistry.counter("faltauno_auth_cache_hits_total");
+        this.misses = meterRegistry.counter("faltauno_auth_cache_misses_total");
+        meterRegistry.gauge("faltauno_auth_cache_size", cache, Cache::estimatedSize);
+        invalidacionDistribuida.registrar(DOMINIO, cache::invalidate, cache::invalidateAll);
+    }
+
+    /**
+     * Estado de autenticación de un usuario activo (no eliminado).
+     *
+     * @param onboardingCompleto true cuando el OnboardingGuardInterceptor ya verificó que el
+     *                           usuario terminó el onboarding (nunca se cachea "incompleto")
+     */
+    public record AuthState(UUID id, String email, String rol, Integer tokenVersion, boolean baneado,
+                            boolean onboardingCompleto) {
+
+        /**
+         * Principal para el SecurityContext: Usuario liviano con id, email, rol y tokenVersion.
+         * ⚠️ No es una entidad gestionada: no persistirlo ni leer otros campos.
+         */
+        public Usuario toPrincipal() {
+            return Usuario.builder()
+                    .id(id)
+                    .email(email)
+                    .rol(rol)
+                    .tokenVersion(tokenVersion)
+                    .build();
+        }
+    }
+
+    /**
+     * Estado del usuario desde memoria, o desde la base si no está cacheado.
+     * Vacío si el usuario no existe o está eliminado (no se cachea).
+     */
+    public Optional<AuthState> obtener(UUID usuarioId) {
+        boolean[] cargado = {false};
+        AuthState estado = cache.get(usuarioId, id -> {
+            cargado[0] = true;
+            return usuarioRepository.findAuthStateById(id)
+                    .map(p -> new AuthState(p.getId(), p.getEmail(), p.getRol(), p.getTokenVersion(),
+                            p.getBannedAt() != null, false))
+                    .orElse(null);
+        });
+        (cargado[0] ? misses : hits).increment();
+        return Optional.ofNullable(estado);
+    }
+
+    /**
+     * true si ya se verificó que el usuario completó el onboarding (solo memoria, sin tocar la base)
+     */
+    public boolean onboardingCompleto(UUID usuarioId) {
+        AuthState estado = cache.getIfPresent(usuarioId);
+        return estado != null && estado.onboardingCompleto();
+    }
+
+    public void marcarOnboardingCompleto(UUID usuarioId) {
+        cache.asMap().computeIfPresent(usuarioId, (id, e) -> new AuthState(
+                e.id(), e.email(), e.rol(), e.tokenVersion(), e.baneado(), true));
+    }
+
+    /**
+     * Descartar el estado cacheado del usuario. Dentro de una transacción se repite después del commit
+     * (y las demás instancias lo descartan al recibir el NOTIFY de ese commit).
+     */
+    public void invalidar(UUID usuarioId) {
+        if (usuarioId == null) {
+            return;
+        }
+        cache.invalidate(usuarioId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(usuarioId);
+                }
+            });
+        }
+        invalidacionDistribuida.publicar(DOMINIO, List.of(usuarioId));
+        log.debug("[AuthStateCache] Estado de usuario {} invalidado", usuarioId);
+    }
+}
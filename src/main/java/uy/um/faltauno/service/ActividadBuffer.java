@@ -0,0 +1,123 @@
+package uy.um.faltauno.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ⚡ Buffer write-behind de usuario.last_activity_at
+ *
+ * Cada request autenticado solo registra (userId → último timestamp) en memoria;
+ * un flusher en background vuelca el buffer cada minuto con un único
+ * UPDATE ... FROM (VALUES ...) por lote, en lugar de findById + save por request.
+ *
+ * - Memoria acotada: como máximo {@link #MAX_USUARIOS} usuarios pendientes
+ *   (si se llena, se descartan registros hasta el próximo flush y se cuentan en métricas).
+ * - Flush final al apagar la aplicación (graceful shutdown).
+ */
+@Component
+@Slf4j
+public class ActividadBuffer {
+
+    private static final int MAX_USUARIOS = 20_000;
+    private static final int TAMANO_LOTE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Counter flushed;
+    private final Counter descartados;
+
+    /** Actividad aún no persistida */
+    private final ConcurrentHashMap<UUID, LocalDateTime> pendientes = new ConcurrentHashMap<>();
+
+    public ActividadBuffer(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.flushed = meterRegistry.counter("faltauno_activity_flushed_total");
+        this.descartados = meterRegistry.counter("faltauno_activity_dropped_total");
+        meterRegistry.gauge("faltauno_activity_pending", pendientes, Map::size);
+    }
+
+    /**
+     * Registrar actividad del usuario (solo memoria, no bloquea el request)
+     */
+    public void registrar(UUID usuarioId) {
+        LocalDateTime ahora = LocalDateTime.now();
+        if (pendientes.size() >= MAX_USUARIOS && !pendientes.containsKey(usuarioId)) {
+            descartados.increment();
+            return;
+        }
+        pendientes.merge(usuarioId, ahora, ActividadBuffer::max);
+    }
+
+    /**
+     * Volcar la actividad pendiente a la base, en lotes
+     */
+    @Scheduled(fixedDelayString = "${app.activity.flush-ms:60000}", initialDelayString = "${app.activity.flush-ms:60000}")
+    public void flush() {
+        if (pendientes.isEmpty()) {
+            return;
+        }
+
+        List<Map.Entry<UUID, LocalDateTime>> lote = new ArrayList<>(TAMANO_LOTE);
+        int total = 0;
+        for (UUID usuarioId : pendientes.keySet()) {
+            LocalDateTime ts = pendientes.remove(usuarioId);
+            if (ts == null) {
+                continue;
+            }
+            lote.add(Map.entry(usuarioId, ts));
+            if (lote.size() == TAMANO_LOTE) {
+                total += escribirLote(lote);
+                lote = new ArrayList<>(TAMANO_LOTE);
+            }
+        }
+        if (!lote.isEmpty()) {
+            total += escribirLote(lote);
+        }
+        flushed.increment(total);
+        log.debug("[ActividadBuffer] {} actividades volcadas a la base", total);
+    }
+
+    @PreDestroy
+    public void flushAlApagar() {
+        log.info("[ActividadBuffer] Flush final: {} actividades pendientes", pendientes.size());
+        flush();
+    }
+
+    private int escribirLote(List<Map.Entry<UUID, LocalDateTime>> lote) {
+        StringBuilder sql = new StringBuilder(
+                "UPDATE usuario u SET last_activity_at = v.ts FROM (VALUES ");
+        Object[] args = new Object[lote.size() * 2];
+        for (int i = 0; i < lote.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(CAST(? AS uuid), CAST(? AS timestamp))");
+            args[i * 2] = lote.get(i).getKey();
+            args[i * 2 + 1] = Timestamp.valueOf(lote.get(i).getValue());
+        }
+        sql.append(") AS v(id, ts) WHERE u.id = v.id AND (u.last_activity_at IS NULL OR u.last_activity_at < v.ts)");
+
+        try {
+            jdbcTemplate.update(sql.toString(), args);
+            return lote.size();
+        } catch (Exception e) {
+            // Reencolar para el próximo flush (sin pisar actividad más nueva)
+            log.warn("[ActividadBuffer] Error volcando {} actividades, se reintenta: {}", lote.size(), e.getMessage());
+            lote.forEach(entry -> pendientes.merge(entry.getKey(), entry.getValue(), ActividadBuffer::max));
+            return 0;
+        }
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -3,22 +3,27 @@ package uy.um.faltauno.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import uy.um.faltauno.config.CustomUserDetailsService;
+import uy.um.faltauno.dto.AmigosEnComunDTO;
 import uy.um.faltauno.dto.AmistadDTO;
 import uy.um.faltauno.dto.UsuarioMinDTO;
 import uy.um.faltauno.entity.Amistad;
 import uy.um.faltauno.entity.Usuario;
+import uy.um.faltauno.event.AmistadCambiadaEvent;
 import uy.um.faltauno.repository.AmistadRepository;
 import uy.um.faltauno.repository.UsuarioRepository;
+import uy.um.faltauno.util.AmistadCursor;
+import uy.um.faltauno.util.FotoPerfilUtils;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -29,6 +34,14 @@ public class AmistadService {
     private final UsuarioRepository usuarioRepository;
     private final NotificacionService notificacionService;
     private final uy.um.faltauno.websocket.WebSocketEventPublisher webSocketEventPublisher;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final GrafoAmistadCache grafoAmistadCache;
+    
+    /** Ids por query al resolver perfiles en bloque */
+    private static final int LOTE_PERFILES = 500;
+    private static final int MUESTRA_EN_COMUN_DEFAULT = 3;
+    private static final int MAX_MUESTRA_EN_COMUN = 50;
+    private static final int MAX_IDS_EN_COMUN = 100;
     
     // Lazy injection to avoid circular dependency
     private UsuarioService usuarioService;
@@ -80,6 +93,10 @@ public class AmistadService {
 
         Amistad guardada = amistadRepository.save(amistad);
         log.info("[AmistadService] ✅ Solicitud de amistad enviada: id={}", guardada.getId());
+        grafoAmistadCache.solicitudEnviada(guardada.getId(), usuarioId, amigoId);
+
+        applicationEventPublisher.publishEvent(
+                new AmistadCambiadaEvent(this, usuarioId, amigoId, AmistadCambiadaEvent.Tipo.SOLICITUD_ENVIADA));
 
         // Notificar al usuario que recibió la solicitud
         String nombreCompleto = usuario.getNombre() + " " + usuario.getApellido();
@@ -126,6 +143,10 @@ public class AmistadService {
         Amistad actualizada = amistadRepository.save(amistad);
         
         log.info("[AmistadService] ✅ Solicitud aceptada: id={}", solicitudId);
+        grafoAmistadCache.amistadAceptada(amistad.getId(), amistad.getUsuarioId(), amistad.getAmigoId());
+
+        applicationEventPublisher.publishEvent(
+                new AmistadCambiadaEvent(this, amistad.getUsuarioId(), amistad.getAmigoId(), AmistadCambiadaEvent.Tipo.ACEPTADA));
 
         Usuario usuario = usuarioRepository.findById(amistad.getUsuarioId()).orElse(null);
         Usuario amigo = usuarioRepository.findById(amistad.getAmigoId()).orElse(null);
@@ -170,6 +191,10 @@ public class AmistadService {
 
         amistadRepository.delete(amistad);
         log.info("[AmistadService] ✅ Solicitud rechazada y eliminada: id={}", solicitudId);
+        grafoAmistadCache.relacionEliminada(amistad.getUsuarioId(), amistad.getAmigoId());
+
+        applicationEventPublisher.publishEvent(
+                new AmistadCambiadaEvent(this, amistad.getUsuarioId(), amistad.getAmigoId(), AmistadCambiadaEvent.Tipo.SOLICITUD_DESCARTADA));
     }
 
     @Transactional
@@ -196,6 +221,10 @@ public class AmistadService {
 
         amistadRepository.delete(amistad);
         log.info("[AmistadService] ✅ Solicitud cancelada: id={}", solicitudId);
+        grafoAmistadCache.relacionEliminada(amistad.getUsuarioId(), amistad.getAmigoId());
+
+        applicationEventPublisher.publishEvent(
+                new AmistadCambiadaEvent(this, amistad.getUsuarioId(), amistad.getAmigoId(), AmistadCambiadaEvent.Tipo.SOLICITUD_DESCARTADA));
     }
 
     @Transactional
@@ -217,32 +246,25 @@ public class AmistadService {
 
         amistadRepository.delete(amistad);
         log.info("[AmistadService] ✅ Amistad eliminada: id={}", amistad.getId());
+        grafoAmistadCache.relacionEliminada(amistad.getUsuarioId(), amistad.getAmigoId());
+
+        applicationEventPublisher.publishEvent(
+                new AmistadCambiadaEvent(this, usuarioId, amigoId, AmistadCambiadaEvent.Tipo.ELIMINADA));
     }
 
+    /**
+     * Listar amigos aceptados del usuario actual.
+     *
+     * @param since  solo amistades creadas después de esta fecha (null = todas)
+     * @param cursor token de la página anterior (ver AmistadCursor), null para la primera
+     * @param limite tamaño de página; null = lista completa
+     */
     @Transactional(readOnly = true)
-    public List<AmistadDTO> listarAmigos(Authentication auth) {
+    public List<AmistadDTO> listarAmigos(Authentication auth, LocalDateTime since, String cursor, Integer limite) {
         log.debug("[AmistadService] Listando amigos");
         
         UUID usuarioId = getUserIdFromAuth(auth);
-        
-        List<Amistad> amistades = amistadRepository.findAmigosByUsuarioId(usuarioId);
-        
-        log.debug("[AmistadService] Encontrados {} amigos", amistades.size());
-
-        return amistades.stream()
-                .map(amistad -> {
-                    UUID otroUsuarioId = amistad.getUsuarioId().equals(usuarioId) 
-                            ? amistad.getAmigoId() 
-                            : amistad.getUsuarioId();
-                    
-                    Usuario usuario = usuarioRepository.findById(usuarioId).orElse(null);
-                    Usuario amigo = usuarioRepository.findById(otroUsuarioId).orElse(null);
-                    
-                    // ✅ FIX: Pasar amigo primero para que aparezca en el campo 'usuario' del DTO
-                    // El frontend espera ver la info del amigo en el campo 'usuario'
-                    return convertToDTO(amistad, amigo, usuario);
-                })
-                .collect(Collectors.toList());
+        return listarAmigosPagina(usuarioId, since, cursor, limite);
     }
 
     /**
@@ -250,7 +272,7 @@ public class AmistadService {
      * Para visualizar perfiles de otros usuarios
      */
     @Transactional(readOnly = true)
-    public List<AmistadDTO> listarAmigosDeUsuario(UUID userId) {
+    public List<AmistadDTO> listarAmigosDeUsuario(UUID userId, LocalDateTime since, String cursor, Integer limite) {
         log.debug("[AmistadService] Listando amigos de usuarioId={}", userId);
         
         // Verificar que el usuario existe
@@ -259,64 +281,111 @@ public class AmistadService {
             throw new IllegalArgumentException("Usuario no encontrado");
         }
         
-        List<Amistad> amistades = amistadRepository.findAmigosByUsuarioId(userId);
-        
-        log.debug("[AmistadService] Encontrados {} amigos para usuario {}", amistades.size(), userId);
-
-        return amistades.stream()
-                .map(amistad -> {
-                    UUID otroUsuarioId = amistad.getUsuarioId().equals(userId) 
-                            ? amistad.getAmigoId() 
-                            : amistad.getUsuarioId();
-                    
-                    Usuario usuario = usuarioRepository.findById(userId).orElse(null);
-                    Usuario amigo = usuarioRepository.findById(otroUsuarioId).orElse(null);
-                    
-                    // ✅ FIX: Pasar amigo primero para que aparezca en el campo 'usuario' del DTO
-                    return convertToDTO(amistad, amigo, usuario);
-                })
-                .collect(Collectors.toList());
+        return listarAmigosPagina(userId, since, cursor, limite);
     }
 
     @Transactional(readOnly = true)
-    public List<AmistadDTO> listarSolicitudesPendientes(Authentication auth) {
+    public List<AmistadDTO> listarSolicitudesPendientes(Authentication auth, LocalDateTime since, String cursor, Integer limite) {
         log.debug("[AmistadService] Listando solicitudes pendientes recibidas");
         
         UUID usuarioId = getUserIdFromAuth(auth);
+        AmistadCursor posicion = AmistadCursor.decode(cursor);
         
-        List<Amistad> solicitudes = amistadRepository.findByAmigoIdAndEstado(usuarioId, "PENDIENTE");
+        List<Amistad> solicitudes = amistadRepository.findSolicitudesRecibidasPagina(
+                usuarioId, since, fechaDe(posicion), idDe(posicion), limitDe(limite));
         
         log.debug("[AmistadService] Encontradas {} solicitudes pendientes", solicitudes.size());
-
-        return solicitudes.stream()
-                .map(amistad -> {
-                    Usuario usuario = usuarioRepository.findById(amistad.getUsuarioId()).orElse(null);
-                    Usuario amigo = usuarioRepository.findById(amistad.getAmigoId()).orElse(null);
-                    return convertToDTO(amistad, usuario, amigo);
-                })
-                .collect(Collectors.toList());
+        return convertirSolicitudes(solicitudes);
     }
 
     @Transactional(readOnly = true)
-    public List<AmistadDTO> listarSolicitudesEnviadas(Authentication auth) {
+    public List<AmistadDTO> listarSolicitudesEnviadas(Authentication auth, LocalDateTime since, String cursor, Integer limite) {
         log.debug("[AmistadService] Listando solicitudes enviadas");
         
         UUID usuarioId = getUserIdFromAuth(auth);
+        AmistadCursor posicion = AmistadCursor.decode(cursor);
         
-        List<Amistad> solicitudes = amistadRepository.findByUsuarioIdAndEstado(usuarioId, "PENDIENTE");
+        List<Amistad> solicitudes = amistadRepository.findSolicitudesEnviadasPagina(
+                usuarioId, since, fechaDe(posicion), idDe(posicion), limitDe(limite));
         
         log.debug("[AmistadService] Encontradas {} solicitudes enviadas", solicitudes.size());
+        return convertirSolicitudes(solicitudes);
+    }
+
+    private List<AmistadDTO> listarAmigosPagina(UUID usuarioId, LocalDateTime since, String cursor, Integer limite) {
+        AmistadCursor posicion = AmistadCursor.decode(cursor);
+        List<Amistad> amistades = amistadRepository.findAmigosPagina(
+                usuarioId, since, fechaDe(posicion), idDe(posicion), limitDe(limite));
+        
+        log.debug("[AmistadService] Encontrados {} amigos para usuario {}", amistades.size(), usuarioId);
 
-        return solicitudes.stream()
-                .map(amistad -> {
-                    Usuario usuario = usuarioRepository.findById(amistad.getUsuarioId()).orElse(null);
-                    Usuario amigo = usuarioRepository.findById(amistad.getAmigoId()).orElse(null);
-                    return convertToDTO(amistad, usuario, amigo);
-                })
-                .collect(Collectors.toList());
+        Map<UUID, UsuarioMinDTO> perfiles = resolverPerfiles(amistades);
+        LocalDateTime ahora = LocalDateTime.now();
+        List<AmistadDTO> resultado = new ArrayList<>(amistades.size());
+        for (Amistad amistad : amistades) {
+            UUID otroUsuarioId = amistad.getUsuarioId().equals(usuarioId)
+                    ? amistad.getAmigoId()
+                    : amistad.getUsuarioId();
+            // ✅ FIX: Pasar amigo primero para que aparezca en el campo 'usuario' del DTO
+            // El frontend espera ver la info del amigo en el campo 'usuario'
+            resultado.add(convertToDTO(amistad, perfiles.get(otroUsuarioId), perfiles.get(usuarioId), ahora));
+        }
+        return resultado;
     }
 
-    @Transactional(readOnly = true)
+    private List<AmistadDTO> convertirSolicitudes(List<Amistad> solicitudes) {
+        Map<UUID, UsuarioMinDTO> perfiles = resolverPerfiles(solicitudes);
+        LocalDateTime ahora = LocalDateTime.now();
+        List<AmistadDTO> resultado = new ArrayList<>(solicitudes.size());
+        for (Amistad amistad : solicitudes) {
+            resultado.add(convertToDTO(amistad,
+                    perfiles.get(amistad.getUsuarioId()), perfiles.get(amistad.getAmigoId()), ahora));
+        }
+        return resultado;
+    }
+
+    /**
+     * ⚡ Resolver en bloque los perfiles referenciados por las amistades: una query por cada
+     * {@link #LOTE_PERFILES} ids (en vez de dos findById por fila). Cada perfil se arma una sola vez
+     * y se comparte entre los DTOs que lo referencian.
+     */
+    private Map<UUID, UsuarioMinDTO> resolverPerfiles(List<Amistad> amistades) {
+        if (amistades.isEmpty()) {
+            return Map.of();
+        }
+        Set<UUID> ids = new HashSet<>(amistades.size() * 2);
+        for (Amistad amistad : amistades) {
+            ids.add(amistad.getUsuarioId());
+            ids.add(amistad.getAmigoId());
+        }
+        List<UUID> pendientes = new ArrayList<>(ids);
+        Map<UUID, UsuarioMinDTO> perfiles = HashMap.newHashMap(ids.size());
+        for (int desde = 0; desde < pendientes.size(); desde += LOTE_PERFILES) {
+            List<UUID> lote = pendientes.subList(desde, Math.min(desde + LOTE_PERFILES, pendientes.size()));
+            for (UsuarioRepository.PerfilMinProjection p : usuarioRepository.findPerfilMinByIds(lote)) {
+                perfiles.put(p.getId(), new UsuarioMinDTO(
+                        p.getId(), p.getNombre(), p.getApellido(), FotoPerfilUtils.url(p.getId(), p.getFotoHash())));
+            }
+        }
+        return perfiles;
+    }
+
+    private static LocalDateTime fechaDe(AmistadCursor posicion) {
+        return posicion != null ? posicion.createdAt() : null;
+    }
+
+    private static UUID idDe(AmistadCursor posicion) {
+        return posicion != null ? posicion.id() : null;
+    }
+
+    private static Limit limitDe(Integer limite) {
+        Integer tamano = AmistadCursor.tamanoPagina(limite);
+        return tamano != null ? Limit.of(tamano) : Limit.unlimited();
+    }
+
+    /**
+     * ⚡ Estado de la relación con otro usuario, resuelto desde el grafo en memoria
+     */
     public Map<String, Object> obtenerEstadoAmistad(UUID amigoId, Authentication auth) {
         log.debug("[AmistadService] Verificando estado de amistad con usuarioId={}", amigoId);
         
@@ -324,15 +393,15 @@ public class AmistadService {
         
         Map<String, Object> resultado = new HashMap<>();
         
-        Optional<Amistad> amistadOpt = amistadRepository.findAmistadEntreUsuarios(usuarioId, amigoId);
+        Optional<GrafoAmistadCache.Relacion> relacion = grafoAmistadCache.relacion(usuarioId, amigoId);
         
-        if (amistadOpt.isPresent()) {
-            Amistad amistad = amistadOpt.get();
+        if (relacion.isPresent()) {
+            GrafoAmistadCache.Relacion r = relacion.get();
             resultado.put("existe", true);
-            resultado.put("estado", amistad.getEstado());
-            resultado.put("amistadId", amistad.getId());
-            resultado.put("solicitudEnviada", amistad.getUsuarioId().equals(usuarioId));
-            resultado.put("solicitudRecibida", amistad.getAmigoId().equals(usuarioId));
+            resultado.put("estado", r.estado());
+            resultado.put("amistadId", r.amistadId());
+            resultado.put("solicitudEnviada", r.enviada());
+            resultado.put("solicitudRecibida", !r.enviada());
         } else {
             resultado.put("existe", false);
             resultado.put("estado", null);
@@ -341,72 +410,91 @@ public class AmistadService {
         return resultado;
     }
 
-    @Transactional(readOnly = true)
     public long contarAmigos(UUID usuarioId) {
-        return amistadRepository.countAmigosByUsuarioId(usuarioId);
+        return grafoAmistadCache.contarAmigos(usuarioId);
     }
 
-    @Transactional(readOnly = true)
     public long contarSolicitudesPendientes(UUID usuarioId) {
-        return amistadRepository.countSolicitudesPendientes(usuarioId);
+        return grafoAmistadCache.contarSolicitudesRecibidas(usuarioId);
+    }
+
+    /**
+     * ⚡ Amigos en común con otro usuario: total + preview de hasta {@code muestra} perfiles.
+     * Se calcula intersectando las listas ordenadas del grafo en memoria (sin cargar amistades).
+     */
+    public AmigosEnComunDTO obtenerAmigosEnComun(UUID otroId, Integer muestra, Authentication auth) {
+        UUID usuarioId = getUserIdFromAuth(auth);
+        int tamano = Math.clamp(muestra != null ? muestra : MUESTRA_EN_COMUN_DEFAULT, 0, MAX_MUESTRA_EN_COMUN);
+
+        GrafoAmistadCache.EnComun enComun = grafoAmistadCache.enComun(usuarioId, otroId, tamano);
+
+        List<UsuarioMinDTO> perfiles = new ArrayList<>(enComun.ids().size());
+        if (!enComun.ids().isEmpty()) {
+            Map<UUID, UsuarioMinDTO> porId = new HashMap<>();
+            for (UsuarioRepository.PerfilMinProjection p : usuarioRepository.findPerfilMinByIds(enComun.ids())) {
+                porId.put(p.getId(), new UsuarioMinDTO(
+                        p.getId(), p.getNombre(), p.getApellido(), FotoPerfilUtils.url(p.getId(), p.getFotoHash())));
+            }
+            enComun.ids().stream().map(porId::get).filter(Objects::nonNull).forEach(perfiles::add);
+        }
+
+        return AmigosEnComunDTO.builder()
+                .usuarioId(otroId.toString())
+                .total(enComun.total())
+                .muestra(perfiles)
+                .build();
+    }
+
+    /**
+     * ⚡ Cantidad de amigos en común con varios usuarios a la vez (resultados de búsqueda, sugerencias)
+     */
+    public Map<UUID, Integer> contarAmigosEnComun(List<UUID> otrosIds, Authentication auth) {
+        UUID usuarioId = getUserIdFromAuth(auth);
+        if (otrosIds == null || otrosIds.isEmpty()) {
+            return Map.of();
+        }
+        if (otrosIds.size() > MAX_IDS_EN_COMUN) {
+            throw new IllegalArgumentException("Se pueden consultar como máximo " + MAX_IDS_EN_COMUN + " usuarios");
+        }
+        return grafoAmistadCache.contarEnComun(usuarioId, new LinkedHashSet<>(otrosIds));
     }
 
     private AmistadDTO convertToDTO(Amistad amistad, Usuario usuario, Usuario amigo) {
+        return convertToDTO(amistad, perfilMin(usuario), perfilMin(amigo), LocalDateTime.now());
+    }
+
+    private AmistadDTO convertToDTO(Amistad amistad, UsuarioMinDTO usuario, UsuarioMinDTO amigo, LocalDateTime ahora) {
         AmistadDTO dto = new AmistadDTO();
         dto.setId(amistad.getId());
         dto.setUsuarioId(amistad.getUsuarioId());
         dto.setAmigoId(amistad.getAmigoId());
         dto.setEstado(amistad.getEstado());
         dto.setCreatedAt(amistad.getCreatedAt());
+        dto.setUsuario(usuario);
+        dto.setAmigo(amigo);
         
-        if (usuario != null) {
-            String fotoPerfilUsuario = null;
-            if (usuario.getFotoPerfil() != null) {
-                try {
-                    fotoPerfilUsuario = java.util.Base64.getEncoder().encodeToString(usuario.getFotoPerfil());
-                } catch (Exception ex) {
-                    log.warn("[AmistadService] Error encoding foto usuario: {}", ex.getMessage());
-                }
-            }
-            dto.setUsuario(new UsuarioMinDTO(
-                usuario.getId(),
-                usuario.getNombre(),
-                usuario.getApellido(),
-                fotoPerfilUsuario
-            ));
-        }
-        
-        if (amigo != null) {
-            String fotoPerfilAmigo = null;
-            if (amigo.getFotoPerfil() != null) {
-                try {
-                    fotoPerfilAmigo = java.util.Base64.getEncoder().encodeToString(amigo.getFotoPerfil());
-                } catch (Exception ex) {
-                    log.warn("[AmistadService] Error encoding foto amigo: {}", ex.getMessage());
-                }
-            }
-            dto.setAmigo(new UsuarioMinDTO(
-                amigo.getId(),
-                amigo.getNombre(),
-                amigo.getApellido(),
-                fotoPerfilAmigo
-            ));
-        }
-        
-        dto.setTiempoTranscurrido(calcularTiempoTranscurrido(amistad.getCreatedAt()));
-        dto.setPuedeAceptar("PENDIENTE".equals(amistad.getEstado()));
-        dto.setPuedeRechazar("PENDIENTE".equals(amistad.getEstado()));
-        dto.setPuedeCancelar("PENDIENTE".equals(amistad.getEstado()));
+        boolean pendiente = "PENDIENTE".equals(amistad.getEstado());
+        dto.setTiempoTranscurrido(calcularTiempoTranscurrido(amistad.getCreatedAt(), ahora));
+        dto.setPuedeAceptar(pendiente);
+        dto.setPuedeRechazar(pendiente);
+        dto.setPuedeCancelar(pendiente);
         
         return dto;
     }
 
-    private String calcularTiempoTranscurrido(LocalDateTime createdAt) {
+    private static UsuarioMinDTO perfilMin(Usuario usuario) {
+        if (usuario == null) {
+            return null;
+        }
+        return new UsuarioMinDTO(usuario.getId(), usuario.getNombre(), usuario.getApellido(),
+                FotoPerfilUtils.url(usuario));
+    }
+
+    private String calcularTiempoTranscurrido(LocalDateTime createdAt, LocalDateTime ahora) {
         if (createdAt == null) {
             return null;
         }
         
-        LocalDateTime ahora = LocalDateTime.now();
         Duration duracion = Duration.between(createdAt, ahora);
         
         long segundos = duracion.getSeconds();
@@ -1,5 +1,7 @@
 package uy.um.faltauno.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -12,8 +14,12 @@ import uy.um.faltauno.repository.ContactoRepository;
 import uy.um.faltauno.repository.UsuarioRepository;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,6 +30,7 @@ public class ContactoService {
     private final ContactoRepository contactoRepository;
     private final UsuarioRepository usuarioRepository;
     private final ContactoMapper contactoMapper;
+    private final MeterRegistry meterRegistry;
     
     /**
      * Obtener todos los contactos de un usuario
@@ -65,25 +72,20 @@ public class ContactoService {
         // Eliminar contactos anteriores
         contactoRepository.deleteByUsuarioId(usuario.getId());
         
-        // Extraer emails
-        List<String> emails = contactosRequest.stream()
-                .map(c -> c.get("email"))
-                .filter(e -> e != null && !e.trim().isEmpty())
-                .map(String::toLowerCase)
-                .distinct()
-                .collect(Collectors.toList());
+        // Extraer emails (normalizados: trim + minúsculas)
+        Set<String> emails = contactosRequest.stream()
+                .map(c -> normalizarEmail(c.get("email")))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
         
         log.info("Buscando {} emails únicos en la app", emails.size());
         
-        // Buscar usuarios existentes por email usando el método ya existente en repository
-        List<Usuario> usuariosEnApp = usuarioRepository.findAllActive().stream()
-                .filter(u -> u.getEmail() != null && emails.contains(u.getEmail().toLowerCase()))
-                .collect(Collectors.toList());
+        // ⚡ Búsqueda indexada por lower(email) en lotes: solo id/nombre/foto, sin cargar la tabla usuario
+        Map<String, UsuarioRepository.EmailMatchProjection> usuariosPorEmail = usuarioRepository
+                .findEmailMatchByEmails(emails).stream()
+                .collect(Collectors.toMap(UsuarioRepository.EmailMatchProjection::getEmail, u -> u, (a, b) -> a));
         
-        Map<String, Usuario> usuariosPorEmail = usuariosEnApp.stream()
-                .collect(Collectors.toMap(u -> u.getEmail().toLowerCase(), u -> u));
-        
-        log.info("Encontrados {} usuarios en la app", usuariosEnApp.size());
+        log.info("Encontrados {} usuarios en la app", usuariosPorEmail.size());
         
         // Crear contactos
         List<Contacto> contactos = new ArrayList<>();
@@ -100,10 +102,10 @@ public class ContactoService {
             contacto.setApellido(contactoData.getOrDefault("apellido", ""));
             contacto.setCelular(email); // Reusamos el campo celular para guardar el email
             
-            // Verificar si el contacto está en la app
-            Usuario usuarioApp = usuariosPorEmail.get(email.toLowerCase());
+            // Verificar si el contacto está en la app (referencia sin SELECT: solo hace falta la FK)
+            UsuarioRepository.EmailMatchProjection usuarioApp = usuariosPorEmail.get(normalizarEmail(email));
             if (usuarioApp != null) {
-                contacto.setUsuarioApp(usuarioApp);
+                contacto.setUsuarioApp(usuarioRepository.getReferenceById(usuarioApp.getId()));
                 contacto.setIsOnApp(true);
             } else {
                 contacto.setIsOnApp(false);
@@ -122,30 +124,28 @@ public class ContactoService {
     }
     
     /**
-     * Actualizar estado de contactos cuando un nuevo usuario se registra
+     * Actualizar estado de contactos cuando un nuevo usuario se registra.
+     *
+     * ⚡ Un único UPDATE por email_norm (indexado), sin recorrer la tabla de contactos.
+     * Se invoca después del commit del registro (ContactoEventListener, async).
      */
     @Transactional
-    public void actualizarContactosConNuevoUsuario(Usuario nuevoUsuario) {
-        if (nuevoUsuario.getEmail() == null) {
-            return;
+    public int actualizarContactosConNuevoUsuario(UUID nuevoUsuarioId, String email) {
+        String emailNorm = normalizarEmail(email);
+        if (nuevoUsuarioId == null || emailNorm == null) {
+            return 0;
         }
         
-        log.info("Actualizando contactos para nuevo usuario con email: {}", nuevoUsuario.getEmail());
-        
-        // Buscar todos los contactos que tengan este email (guardado en campo celular)
-        String emailLower = nuevoUsuario.getEmail().toLowerCase();
-        List<Contacto> contactosAActualizar = contactoRepository.findAll().stream()
-                .filter(c -> c.getCelular() != null && emailLower.equals(c.getCelular().toLowerCase()))
-                .collect(Collectors.toList());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        int vinculados = contactoRepository.vincularUsuarioApp(nuevoUsuarioId, emailNorm);
+        sample.stop(meterRegistry.timer("faltauno_contactos_vinculacion_duration_seconds"));
+        meterRegistry.counter("faltauno_contactos_vinculados_total").increment(vinculados);
         
-        log.info("Encontrados {} contactos a actualizar", contactosAActualizar.size());
-        
-        // Actualizar cada contacto
-        for (Contacto contacto : contactosAActualizar) {
-            contacto.setUsuarioApp(nuevoUsuario);
-            contacto.setIsOnApp(true);
-        }
-        
-        contactoRepository.saveAll(contactosAActualizar);
+        log.info("[ContactoService] Nuevo usuario {}: {} contactos vinculados", nuevoUsuarioId, vinculados);
+        return vinculados;
+    }
+    
+    private static String normalizarEmail(String email) {
+        return Contacto.normalizarEmail(email);
     }
 }
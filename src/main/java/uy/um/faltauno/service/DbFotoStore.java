@@ -0,0 +1,62 @@
+package uy.um.faltauno.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * ⚡ FotoStore en la tabla lateral usuario_foto (una fila por usuario y tamaño).
+ * Store por defecto: no necesita disco persistente (Cloud Run).
+ */
+@Component
+@ConditionalOnProperty(name = "app.fotos.store", havingValue = "db", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class DbFotoStore implements FotoStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void guardar(UUID usuarioId, List<FotoPerfilProcessor.FotoVariante> variantes) {
+        jdbcTemplate.update("DELETE FROM usuario_foto WHERE usuario_id = ?", usuarioId);
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO usuario_foto (usuario_id, tamano, content_type, contenido, bytes) VALUES (?, ?, ?, ?, ?)",
+                variantes,
+                variantes.size(),
+                (ps, v) -> {
+                    ps.setObject(1, usuarioId);
+                    ps.setInt(2, v.tamano());
+                    ps.setString(3, v.contentType());
+                    ps.setBytes(4, v.contenido());
+                    ps.setInt(5, v.contenido().length);
+                });
+        log.debug("[DbFotoStore] Usuario {}: {} variantes guardadas", usuarioId, variantes.size());
+    }
+
+    @Override
+    public Optional<FotoContenido> leer(UUID usuarioId, int tamano) {
+        List<FotoContenido> variante = jdbcTemplate.query(
+                "SELECT content_type, contenido FROM usuario_foto WHERE usuario_id = ? "
+                        + "ORDER BY (tamano >= ?) DESC, CASE WHEN tamano >= ? THEN tamano END ASC, tamano DESC "
+                        + "LIMIT 1",
+                (rs, rowNum) -> {
+                    byte[] contenido = rs.getBytes("contenido");
+                    return new FotoContenido(rs.getString("content_type"), contenido.length,
+                            new ByteArrayResource(contenido));
+                },
+                usuarioId, tamano, tamano);
+        return variante.stream().findFirst();
+    }
+
+    @Override
+    public void eliminar(UUID usuarioId) {
+        jdbcTemplate.update("DELETE FROM usuario_foto WHERE usuario_id = ?", usuarioId);
+    }
+}
@@ -0,0 +1,401 @@
+package uy.um.faltauno.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ⚡ Outbox transaccional de emails (tabla email_outbox, V47).
+ *
+ * {@link #encolar} / {@link #encolarLote} insertan el email ya renderizado con el JdbcTemplate,
+ * así participan de la transacción de negocio en curso: si hace rollback, el email no se envía.
+ *
+ * {@link #despachar()} reclama lotes (FOR UPDATE SKIP LOCKED + lease, seguro con varias instancias)
+ * y los reparte en un pool de workers propio, separado del executor @Async de AsyncConfig.
+ * Cada worker manda su lote por UNA conexión SMTP (JavaMailSender.send(MimeMessage...)).
+ *
+ * - Reintentos con backoff exponencial (+ jitter) hasta {@code max-intentos}, después FALLIDO.
+ * - Throttling por destinatario: a lo sumo {@code max-por-destinatario} emails por ventana;
+ *   el resto se posterga sin consumir intentos (contador en memoria, por instancia).
+ * - Métricas: faltauno_email_outbox_pendientes, faltauno_email_outbox_latencia y contadores
+ *   de enviados / reintentos / fallidos / postergados.
+ */
+@Service
+@Slf4j
+public class EmailOutboxService {
+
+    private static final String SQL_ENCOLAR =
+            "INSERT INTO email_outbox (destinatario, asunto, cuerpo_html, tipo) VALUES (?, ?, ?, ?)";
+
+    /** Reclamar hasta N emails listos (o con lease vencido) marcándolos ENVIANDO */
+    private static final String SQL_RECLAMAR = """
+            UPDATE email_outbox o
+               SET estado = 'ENVIANDO',
+                   intentos = o.intentos + 1,
+                   bloqueado_hasta = now() + make_interval(secs => ?)
+             WHERE o.id IN (
+                   SELECT id FROM email_outbox
+                    WHERE (estado = 'PENDIENTE' AND proximo_intento <= now())
+                       OR (estado = 'ENVIANDO' AND bloqueado_hasta < now())
+                    ORDER BY proximo_intento
+                    LIMIT ?
+                    FOR UPDATE SKIP LOCKED)
+            RETURNING o.id, o.destinatario, o.asunto, o.cuerpo_html, o.intentos, o.created_at
+            """;
+
+    private static final String SQL_ENVIADO = """
+            UPDATE email_outbox
+               SET estado = 'ENVIADO', enviado_at = now(), bloqueado_hasta = NULL, ultimo_error = NULL
+             WHERE id = ?
+            """;
+
+    private static final String SQL_REINTENTAR = """
+            UPDATE email_outbox
+               SET estado = 'PENDIENTE', bloqueado_hasta = NULL, ultimo_error = ?,
+                   proximo_intento = now() + make_interval(secs => ?)
+             WHERE id = ?
+            """;
+
+    private static final String SQL_FALLIDO = """
+            UPDATE email_outbox
+               SET estado = 'FALLIDO', bloqueado_hasta = NULL, ultimo_error = ?
+             WHERE id = ?
+            """;
+
+    /** Devolver a la cola sin consumir el intento (throttling o pool lleno) */
+    private static final String SQL_POSTERGAR = """
+            UPDATE email_outbox
+               SET estado = 'PENDIENTE', bloqueado_hasta = NULL, intentos = intentos - 1,
+                   proximo_intento = now() + make_interval(secs => ?)
+             WHERE id = ?
+            """;
+
+    private static final String SQL_CONTAR_PENDIENTES =
+            "SELECT COUNT(*) FROM email_outbox WHERE estado IN ('PENDIENTE', 'ENVIANDO')";
+
+    private static final String SQL_LIMPIAR = """
+            DELETE FROM email_outbox
+             WHERE estado IN ('ENVIADO', 'FALLIDO')
+               AND created_at < now() - make_interval(days => ?)
+            """;
+
+    private static final int MAX_ERROR = 1000;
+
+    public record EmailPendiente(String destinatario, String asunto, String cuerpoHtml, String tipo) {}
+
+    private record EmailReclamado(long id, String destinatario, String asunto, String cuerpoHtml,
+                                  int intentos, Instant createdAt) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JavaMailSender mailSender;
+    private final String fromEmail;
+
+    private final int lote;
+    private final int loteSmtp;
+    private final int maxEnVuelo;
+    private final int maxIntentos;
+    private final long backoffBaseMs;
+    private final long backoffMaxMs;
+    private final int maxPorDestinatario;
+    private final long ventanaDestinatarioMs;
+    private final int retencionDias;
+
+    private final ThreadPoolTaskExecutor workers;
+    private final AtomicInteger enVuelo = new AtomicInteger();
+    private final Cache<String, AtomicInteger> enviadosPorDestinatario;
+
+    private final AtomicLong pendientes = new AtomicLong();
+    private final Timer latencia;
+    private final Counter enviados;
+    private final Counter reintentos;
+    private final Counter fallidos;
+    private final Counter postergados;
+
+    public EmailOutboxService(
+            JdbcTemplate jdbcTemplate,
+            JavaMailSender mailSender,
+            MeterRegistry meterRegistry,
+            @Value("${spring.mail.username:#{null}}") String fromEmail,
+            @Value("${app.email.outbox.threads:2}") int threads,
+            @Value("${app.email.outbox.lote:100}") int lote,
+            @Value("${app.email.outbox.lote-smtp:20}") int loteSmtp,
+            @Value("${app.email.outbox.max-intentos:6}") int maxIntentos,
+            @Value("${app.email.outbox.backoff-base-ms:30000}") long backoffBaseMs,
+            @Value("${app.email.outbox.backoff-max-ms:3600000}") long backoffMaxMs,
+            @Value("${app.email.outbox.max-por-destinatario:5}") int maxPorDestinatario,
+            @Value("${app.email.outbox.ventana-destinatario-ms:60000}") long ventanaDestinatarioMs,
+            @Value("${app.email.outbox.retencion-dias:7}") int retencionDias
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mailSender = mailSender;
+        this.fromEmail = fromEmail;
+        this.lote = lote;
+        this.loteSmtp = loteSmtp;
+        this.maxIntentos = maxIntentos;
+        this.backoffBaseMs = backoffBaseMs;
+        this.backoffMaxMs = backoffMaxMs;
+        this.maxPorDestinatario = maxPorDestinatario;
+        this.ventanaDestinatarioMs = ventanaDestinatarioMs;
+        this.retencionDias = retencionDias;
+
+        // A lo sumo dos lotes SMTP por worker entre ejecutando y en cola
+        this.maxEnVuelo = threads * loteSmtp * 2;
+        this.workers = new ThreadPoolTaskExecutor();
+        workers.setCorePoolSize(threads);
+        workers.setMaxPoolSize(threads);
+        workers.setQueueCapacity(threads * 2);
+        workers.setThreadNamePrefix("email-outbox-");
+        workers.setWaitForTasksToCompleteOnShutdown(true);
+        workers.setAwaitTerminationSeconds(30);
+        workers.initialize();
+
+        // Ventana fija desde el primer envío al destinatario
+        this.enviadosPorDestinatario = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ventanaDestinatarioMs))
+                .maximumSize(100_000)
+                .build();
+
+        meterRegistry.gauge("faltauno_email_outbox_pendientes", pendientes);
+        meterRegistry.gauge("faltauno_email_outbox_en_vuelo", enVuelo);
+        this.latencia = meterRegistry.timer("faltauno_email_outbox_latencia");
+        this.enviados = meterRegistry.counter("faltauno_email_outbox_enviados_total");
+        this.reintentos = meterRegistry.counter("faltauno_email_outbox_reintentos_total");
+        this.fallidos = meterRegistry.counter("faltauno_email_outbox_fallidos_total");
+        this.postergados = meterRegistry.counter("faltauno_email_outbox_postergados_total");
+    }
+
+    @PreDestroy
+    public void detener() {
+        workers.shutdown();
+    }
+
+    /**
+     * Encolar un email (en la transacción en curso, si hay una)
+     */
+    public void encolar(String destinatario, String asunto, String cuerpoHtml, String tipo) {
+        jdbcTemplate.update(SQL_ENCOLAR, destinatario, asunto, cuerpoHtml, tipo);
+    }
+
+    /**
+     * Encolar varios emails con un único INSERT en batch
+     */
+    public int encolarLote(List<EmailPendiente> emails) {
+        if (emails.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(SQL_ENCOLAR, emails, emails.size(), (ps, e) -> {
+            ps.setString(1, e.destinatario());
+            ps.setString(2, e.asunto());
+            ps.setString(3, e.cuerpoHtml());
+            ps.setString(4, e.tipo());
+        });
+        return emails.size();
+    }
+
+    /**
+     * Reclamar emails listos y repartirlos entre los workers. No espera a los envíos:
+     * solo reclama lo que entra en el pool, así no frena al resto de tareas @Scheduled.
+     */
+    @Scheduled(fixedDelayString = "${app.email.outbox.poll-ms:2000}")
+    public void despachar() {
+        try {
+            int capacidad = Math.min(lote, maxEnVuelo - enVuelo.get());
+            if (capacidad <= 0) {
+                return;
+            }
+            long leaseSegundos = Math.max(60, (long) loteSmtp * 30);
+            List<EmailReclamado> reclamados = jdbcTemplate.query(SQL_RECLAMAR,
+                    EmailOutboxService::mapearReclamado, leaseSegundos, capacidad);
+            if (reclamados.isEmpty()) {
+                return;
+            }
+
+            List<EmailReclamado> aEnviar = new ArrayList<>(reclamados.size());
+            for (EmailReclamado email : reclamados) {
+                if (permitirDestinatario(email.destinatario())) {
+                    aEnviar.add(email);
+                } else {
+                    postergar(email, ventanaDestinatarioMs);
+                    postergados.increment();
+                }
+            }
+
+            for (int desde = 0; desde < aEnviar.size(); desde += loteSmtp) {
+                List<EmailReclamado> loteSmtpActual =
+                        List.copyOf(aEnviar.subList(desde, Math.min(desde + loteSmtp, aEnviar.size())));
+                enVuelo.addAndGet(loteSmtpActual.size());
+                try {
+                    workers.execute(() -> enviarLote(loteSmtpActual));
+                } catch (RejectedExecutionException e) {
+                    enVuelo.addAndGet(-loteSmtpActual.size());
+                    loteSmtpActual.forEach(email -> postergar(email, 0));
+                }
+            }
+        } catch (Exception e) {
+            // Lo reclamado y no enviado vuelve a la cola cuando vence el lease
+            log.error("[EmailOutboxService] Error despachando emails: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Refrescar el gauge faltauno_email_outbox_pendientes. Separado de {@link #despachar()}:
+     * el COUNT(*) cada poll-ms en cada instancia competía por el pool de 3 conexiones.
+     */
+    @Scheduled(fixedDelayString = "${app.email.outbox.gauge-ms:60000}")
+    public void actualizarPendientes() {
+        try {
+            pendientes.set(jdbcTemplate.queryForObject(SQL_CONTAR_PENDIENTES, Long.class));
+        } catch (Exception e) {
+            log.warn("[EmailOutboxService] No se pudo contar la cola: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Borrar enviados y fallidos más viejos que {@code retencion-dias}
+     */
+    public int limpiar() {
+        int borrados = jdbcTemplate.update(SQL_LIMPIAR, retencionDias);
+        log.info("[EmailOutboxService] Limpieza: {} emails antiguos eliminados", borrados);
+        return borrados;
+    }
+
+    private void enviarLote(List<EmailReclamado> emails) {
+        try {
+            Map<MimeMessage, EmailReclamado> porMensaje = new HashMap<>();
+            List<EmailReclamado> enviadosOk = new ArrayList<>(emails.size());
+            List<Map.Entry<EmailReclamado, Exception>> errores = new ArrayList<>();
+
+            for (EmailReclamado email : emails) {
+                try {
+                    porMensaje.put(construirMensaje(email), email);
+                } catch (Exception e) {
+                    errores.add(Map.entry(email, e));
+                }
+            }
+
+            if (!porMensaje.isEmpty()) {
+                try {
+                    // ⚡ Una sola conexión SMTP para todo el lote
+                    mailSender.send(porMensaje.keySet().toArray(new MimeMessage[0]));
+                    enviadosOk.addAll(porMensaje.values());
+                } catch (MailSendException e) {
+                    Map<Object, Exception> fallidosLote = e.getFailedMessages();
+                    porMensaje.forEach((mensaje, email) -> {
+                        Exception error = fallidosLote.get(mensaje);
+                        if (error == null && fallidosLote.isEmpty()) {
+                            error = e;
+                        }
+                        if (error != null) {
+                            errores.add(Map.entry(email, error));
+                        } else {
+                            enviadosOk.add(email);
+                        }
+                    });
+                } catch (MailException e) {
+                    // Conexión / autenticación: falla el lote completo
+                    porMensaje.values().forEach(email -> errores.add(Map.entry(email, e)));
+                }
+            }
+
+            Instant ahora = Instant.now();
+            for (EmailReclamado email : enviadosOk) {
+                jdbcTemplate.update(SQL_ENVIADO, email.id());
+                latencia.record(Duration.between(email.createdAt(), ahora));
+            }
+            enviados.increment(enviadosOk.size());
+            errores.forEach(error -> registrarError(error.getKey(), error.getValue()));
+
+            log.debug("[EmailOutboxService] Lote SMTP: {} enviados, {} con error", enviadosOk.size(), errores.size());
+        } catch (Exception e) {
+            log.error("[EmailOutboxService] Error enviando lote de {} emails: {}", emails.size(), e.getMessage(), e);
+        } finally {
+            enVuelo.addAndGet(-emails.size());
+        }
+    }
+
+    private MimeMessage construirMensaje(EmailReclamado email) throws Exception {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
+
+        helper.setFrom(fromEmail, "Falta Uno");
+        helper.setTo(email.destinatario());
+        helper.setSubject(email.asunto());
+        helper.setText(email.cuerpoHtml(), true);
+        return mimeMessage;
+    }
+
+    private void registrarError(EmailReclamado email, Exception error) {
+        String mensaje = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+        if (mensaje.length() > MAX_ERROR) {
+            mensaje = mensaje.substring(0, MAX_ERROR);
+        }
+
+        if (email.intentos() >= maxIntentos) {
+            jdbcTemplate.update(SQL_FALLIDO, mensaje, email.id());
+            fallidos.increment();
+            log.error("[EmailOutboxService] ❌ Email {} a {} descartado tras {} intentos: {}",
+                    email.id(), email.destinatario(), email.intentos(), mensaje);
+        } else {
+            long esperaMs = backoffMs(email.intentos());
+            jdbcTemplate.update(SQL_REINTENTAR, mensaje, esperaMs / 1000.0, email.id());
+            reintentos.increment();
+            log.warn("[EmailOutboxService] Email {} a {} falló (intento {}), reintento en {} s: {}",
+                    email.id(), email.destinatario(), email.intentos(), esperaMs / 1000, mensaje);
+        }
+    }
+
+    /**
+     * base * 2^(intento-1), con tope y hasta 20% de jitter para no reintentar todos juntos
+     */
+    private long backoffMs(int intento) {
+        long espera = backoffBaseMs << Math.min(Math.max(intento - 1, 0), 20);
+        espera = Math.min(espera, backoffMaxMs);
+        return espera + ThreadLocalRandom.current().nextLong(espera / 5 + 1);
+    }
+
+    private void postergar(EmailReclamado email, long esperaMs) {
+        jdbcTemplate.update(SQL_POSTERGAR, esperaMs / 1000.0, email.id());
+    }
+
+    private boolean permitirDestinatario(String destinatario) {
+        AtomicInteger contador = enviadosPorDestinatario.get(destinatario.toLowerCase(), d -> new AtomicInteger());
+        return contador.incrementAndGet() <= maxPorDestinatario;
+    }
+
+    private static EmailReclamado mapearReclamado(ResultSet rs, int rowNum) throws SQLException {
+        return new EmailReclamado(
+                rs.getLong("id"),
+                rs.getString("destinatario"),
+                rs.getString("asunto"),
+                rs.getString("cuerpo_html"),
+                rs.getInt("intentos"),
+                rs.getTimestamp("created_at").toInstant());
+    }
+}
@@ -11,6 +11,10 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import uy.um.faltauno.entity.Notificacion;
 import uy.um.faltauno.entity.Usuario;
+import uy.um.faltauno.repository.UsuarioRepository;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -18,6 +22,7 @@ import uy.um.faltauno.entity.Usuario;
 public class EmailService {
 
     private final JavaMailSender mailSender;
+    private final EmailOutboxService emailOutboxService;
     
     @Value("${spring.mail.username:#{null}}")
     private String fromEmail;
@@ -53,9 +58,9 @@ public class EmailService {
     }
 
     /**
-     * Enviar notificación por email de forma asíncrona
+     * Enviar notificación por email: se encola en email_outbox dentro de la transacción
+     * en curso y la despacha EmailOutboxService
      */
-    @Async
     public void enviarNotificacionEmail(
             Usuario usuario,
             Notificacion.TipoNotificacion tipo,
@@ -69,65 +74,106 @@ public class EmailService {
             return;
         }
 
-        try {
-            // Verificar si el usuario tiene habilitadas las notificaciones por email para este tipo
-            if (!debeEnviarEmail(usuario, tipo)) {
-                log.debug("[EmailService] Usuario {} tiene deshabilitadas las notificaciones de tipo {}", 
-                    usuario.getEmail(), tipo);
-                return;
-            }
-
-            String asunto = construirAsunto(tipo, titulo);
-            String cuerpoHtml = construirCuerpoEmail(usuario, tipo, titulo, mensaje, urlAccion);
+        // Verificar si el usuario tiene habilitadas las notificaciones por email para este tipo
+        if (!debeEnviarEmail(usuario, tipo)) {
+            log.debug("[EmailService] Usuario {} tiene deshabilitadas las notificaciones de tipo {}", 
+                usuario.getEmail(), tipo);
+            return;
+        }
 
-            MimeMessage mimeMessage = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
+        String asunto = construirAsunto(tipo, titulo);
+        String cuerpoHtml = construirCuerpoEmail(usuario.getNombre(), tipo, titulo, mensaje, urlAccion);
 
-            helper.setFrom(fromEmail, "Falta Uno");
-            helper.setTo(usuario.getEmail());
-            helper.setSubject(asunto);
-            helper.setText(cuerpoHtml, true);
+        emailOutboxService.encolar(usuario.getEmail(), asunto, cuerpoHtml, tipo.name());
+        
+        log.info("[EmailService] ✅ Email encolado para {}: tipo={}", usuario.getEmail(), tipo);
+    }
 
-            mailSender.send(mimeMessage);
-            
-            log.info("[EmailService] ✅ Email enviado a {}: tipo={}", usuario.getEmail(), tipo);
+    /**
+     * Enviar la misma notificación por email a varios destinatarios (preferencias ya cargadas
+     * con una sola query): se encolan todos en email_outbox con un único INSERT en batch.
+     *
+     * @return cantidad de emails encolados
+     */
+    public int enviarNotificacionEmails(
+            List<UsuarioRepository.DestinatarioEmailProjection> destinatarios,
+            Notificacion.TipoNotificacion tipo,
+            String titulo,
+            String mensaje,
+            String urlAccion
+    ) {
+        if (!isEmailConfigured()) {
+            log.debug("[EmailService] Email no configurado. Saltando envío masivo.");
+            return 0;
+        }
 
-        } catch (MessagingException e) {
-            log.error("[EmailService] ❌ Error enviando email a {}: {}", usuario.getEmail(), e.getMessage());
-        } catch (Exception e) {
-            log.error("[EmailService] ❌ Error inesperado enviando email: {}", e.getMessage(), e);
+        String asunto = construirAsunto(tipo, titulo);
+        List<EmailOutboxService.EmailPendiente> emails = new ArrayList<>(destinatarios.size());
+        for (UsuarioRepository.DestinatarioEmailProjection destinatario : destinatarios) {
+            if (debeEnviarEmail(destinatario, tipo)) {
+                emails.add(new EmailOutboxService.EmailPendiente(destinatario.getEmail(), asunto,
+                        construirCuerpoEmail(destinatario.getNombre(), tipo, titulo, mensaje, urlAccion),
+                        tipo.name()));
+            }
         }
+        int encolados = emailOutboxService.encolarLote(emails);
+        log.info("[EmailService] ✅ {} de {} emails encolados: tipo={}", encolados, destinatarios.size(), tipo);
+        return encolados;
     }
 
     /**
      * Verifica si se debe enviar email según las preferencias del usuario
      */
     private boolean debeEnviarEmail(Usuario usuario, Notificacion.TipoNotificacion tipo) {
-        if (usuario.getEmail() == null || usuario.getEmail().isBlank()) {
+        return debeEnviarEmail(usuario.getEmail(), tipo,
+                usuario.getNotifEmailInvitaciones(),
+                usuario.getNotifEmailSolicitudesAmistad(),
+                usuario.getNotifEmailActualizacionesPartido(),
+                usuario.getNotifEmailSolicitudesReview(),
+                usuario.getNotifEmailNuevosMensajes(),
+                usuario.getNotifEmailGenerales());
+    }
+
+    private boolean debeEnviarEmail(UsuarioRepository.DestinatarioEmailProjection destinatario,
+                                    Notificacion.TipoNotificacion tipo) {
+        return debeEnviarEmail(destinatario.getEmail(), tipo,
+                destinatario.getNotifEmailInvitaciones(),
+                destinatario.getNotifEmailSolicitudesAmistad(),
+                destinatario.getNotifEmailActualizacionesPartido(),
+                destinatario.getNotifEmailSolicitudesReview(),
+                destinatario.getNotifEmailNuevosMensajes(),
+                destinatario.getNotifEmailGenerales());
+    }
+
+    private static boolean debeEnviarEmail(
+            String email,
+            Notificacion.TipoNotificacion tipo,
+            Boolean invitaciones,
+            Boolean solicitudesAmistad,
+            Boolean actualizacionesPartido,
+            Boolean solicitudesReview,
+            Boolean nuevosMensajes,
+            Boolean generales
+    ) {
+        if (email == null || email.isBlank()) {
             return false;
         }
 
         return switch (tipo) {
-            case INVITACION_PARTIDO -> 
-                usuario.getNotifEmailInvitaciones() != null && usuario.getNotifEmailInvitaciones();
+            case INVITACION_PARTIDO -> Boolean.TRUE.equals(invitaciones);
             
-            case SOLICITUD_AMISTAD, AMISTAD_ACEPTADA -> 
-                usuario.getNotifEmailSolicitudesAmistad() != null && usuario.getNotifEmailSolicitudesAmistad();
+            case SOLICITUD_AMISTAD, AMISTAD_ACEPTADA -> Boolean.TRUE.equals(solicitudesAmistad);
             
             case PARTIDO_CANCELADO, PARTIDO_COMPLETADO, INSCRIPCION_ACEPTADA, 
                  INSCRIPCION_RECHAZADA, JUGADOR_SALIO, PARTIDO_PROXIMO, 
                  INVITACION_ACEPTADA, INVITACION_RECHAZADA, JUGADOR_UNIDO,
-                 NUEVA_SOLICITUD -> 
-                usuario.getNotifEmailActualizacionesPartido() != null && usuario.getNotifEmailActualizacionesPartido();
+                 NUEVA_SOLICITUD -> Boolean.TRUE.equals(actualizacionesPartido);
             
-            case REVIEW_PENDIENTE -> 
-                usuario.getNotifEmailSolicitudesReview() != null && usuario.getNotifEmailSolicitudesReview();
+            case REVIEW_PENDIENTE -> Boolean.TRUE.equals(solicitudesReview);
             
-            case NUEVO_MENSAJE -> 
-                usuario.getNotifEmailNuevosMensajes() != null && usuario.getNotifEmailNuevosMensajes();
+            case NUEVO_MENSAJE -> Boolean.TRUE.equals(nuevosMensajes);
             
-            default -> 
-                usuario.getNotifEmailGenerales() != null && usuario.getNotifEmailGenerales();
+            default -> Boolean.TRUE.equals(generales);
         };
     }
 
@@ -142,7 +188,7 @@ public class EmailService {
      * Construir cuerpo HTML del email
      */
     private String construirCuerpoEmail(
-            Usuario usuario,
+            String nombre,
             Notificacion.TipoNotificacion tipo,
             String titulo,
             String mensaje,
@@ -232,7 +278,7 @@ public class EmailService {
             """.formatted(
                 titulo,
                 frontendUrl, // Logo URL
-                usuario.getNombre(),
+                nombre,
                 colorPrincipal, // Border color
                 colorPrincipal, // Title color
                 emoji, titulo,
@@ -266,9 +312,8 @@ public class EmailService {
     }
 
     /**
-     * Enviar email de bienvenida
+     * Enviar email de bienvenida (encolado en email_outbox)
      */
-    @Async
     public void enviarEmailBienvenida(Usuario usuario) {
         // Verificar si el email está configurado
         if (!isEmailConfigured()) {
@@ -276,25 +321,12 @@ public class EmailService {
             return;
         }
 
-        try {
-            String asunto = "[Falta Uno] ¡Bienvenido a la comunidad!";
-            String cuerpoHtml = construirEmailBienvenida(usuario);
+        String asunto = "[Falta Uno] ¡Bienvenido a la comunidad!";
+        String cuerpoHtml = construirEmailBienvenida(usuario);
 
-            MimeMessage mimeMessage = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
-
-            helper.setFrom(fromEmail, "Falta Uno");
-            helper.setTo(usuario.getEmail());
-            helper.setSubject(asunto);
-            helper.setText(cuerpoHtml, true);
-
-            mailSender.send(mimeMessage);
-            
-            log.info("[EmailService] ✅ Email de bienvenida enviado a {}", usuario.getEmail());
-
-        } catch (Exception e) {
-            log.error("[EmailService] ❌ Error enviando email de bienvenida: {}", e.getMessage());
-        }
+        emailOutboxService.encolar(usuario.getEmail(), asunto, cuerpoHtml, "BIENVENIDA");
+        
+        log.info("[EmailService] ✅ Email de bienvenida encolado para {}", usuario.getEmail());
     }
 
     /**
@@ -0,0 +1,271 @@
+package uy.um.faltauno.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * ⚡ FotoStore en disco local: {directorio}/{usuarioId}/{tamano}.jpg
+ *
+ * - Escrituras atómicas (archivo temporal + move) para no servir nunca una foto a medio escribir.
+ * - Los archivos se publican/borran después del commit: un rollback no deja huérfanos.
+ * - Las lecturas se sirven en streaming desde el archivo, sin pasar por la base.
+ * - Al arrancar mueve a disco las fotos que hayan quedado en usuario_foto (backfill de V40
+ *   o instancias que usaban el store en base).
+ *
+ * ⚠️ Requiere un directorio persistente y compartido entre instancias.
+ */
+@Component
+@ConditionalOnProperty(name = "app.fotos.store", havingValue = "filesystem")
+@Slf4j
+public class FilesystemFotoStore implements FotoStore {
+
+    private static final int LOTE_MIGRACION = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path directorio;
+
+    public FilesystemFotoStore(JdbcTemplate jdbcTemplate,
+                               @Value("${app.fotos.directorio:./data/fotos}") String directorio) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.directorio = Paths.get(directorio).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Las variantes se escriben a archivos temporales ya mismo (un error de disco falla la transacción)
+     * y se mueven a su nombre final recién después del commit; si hay rollback se borran los temporales.
+     */
+    @Override
+    public void guardar(UUID usuarioId, List<FotoPerfilProcessor.FotoVariante> variantes) {
+        Path carpeta = carpeta(usuarioId);
+        List<Path[]> preparados = new ArrayList<>();
+        try {
+            Files.createDirectories(carpeta);
+            for (FotoPerfilProcessor.FotoVariante v : variantes) {
+                Path destino = carpeta.resolve(v.tamano() + extension(v.contentType()));
+                Path temporal = Files.createTempFile(carpeta, v.tamano() + "-", ".tmp");
+                preparados.add(new Path[] { temporal, destino });
+                Files.write(temporal, v.contenido());
+            }
+        } catch (IOException e) {
+            descartar(preparados);
+            throw new UncheckedIOException("No se pudo guardar la foto del usuario " + usuarioId, e);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        publicar(usuarioId, carpeta, preparados);
+                    } else {
+                        descartar(preparados);
+                    }
+                }
+            });
+        } else {
+            publicar(usuarioId, carpeta, preparados);
+        }
+    }
+
+    /**
+     * Mover los temporales a su nombre final y borrar variantes anteriores que no fueron reemplazadas
+     * (ej. original migrado)
+     */
+    private void publicar(UUID usuarioId, Path carpeta, List<Path[]> preparados) {
+        try {
+            Set<String> nuevos = new HashSet<>();
+            for (Path[] p : preparados) {
+                Files.move(p[0], p[1], StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                nuevos.add(p[1].getFileName().toString());
+            }
+            for (Path archivo : listar(carpeta)) {
+                if (!nuevos.contains(archivo.getFileName().toString())) {
+                    Files.deleteIfExists(archivo);
+                }
+            }
+            log.debug("[FilesystemFotoStore] Usuario {}: {} variantes guardadas en {}", usuarioId, preparados.size(), carpeta);
+        } catch (IOException e) {
+            log.error("[FilesystemFotoStore] No se pudo publicar la foto del usuario {}: {}", usuarioId, e.getMessage());
+            descartar(preparados);
+        }
+    }
+
+    private static void descartar(List<Path[]> preparados) {
+        for (Path[] p : preparados) {
+            try {
+                Files.deleteIfExists(p[0]);
+            } catch (IOException e) {
+                log.warn("[FilesystemFotoStore] No se pudo borrar el temporal {}: {}", p[0], e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public Optional<FotoContenido> leer(UUID usuarioId, int tamano) {
+        List<Path> archivos;
+        try {
+            archivos = listar(carpeta(usuarioId));
+        } catch (IOException e) {
+            log.warn("[FilesystemFotoStore] Error listando fotos de {}: {}", usuarioId, e.getMessage());
+            return Optional.empty();
+        }
+
+        Comparator<Path> porTamano = Comparator.comparingInt(FilesystemFotoStore::tamanoDe);
+        Optional<Path> elegido = archivos.stream()
+                .filter(p -> tamanoDe(p) >= tamano)
+                .min(porTamano)
+                .or(() -> archivos.stream().max(porTamano));
+
+        return elegido.flatMap(archivo -> {
+            try {
+                return Optional.of(new FotoContenido(contentTypeDe(archivo), Files.size(archivo),
+                        new FileSystemResource(archivo)));
+            } catch (NoSuchFileException e) {
+                // Reemplazada en paralelo por una subida nueva
+                return Optional.empty();
+            } catch (IOException e) {
+                log.warn("[FilesystemFotoStore] Error leyendo {}: {}", archivo, e.getMessage());
+                return Optional.empty();
+            }
+        });
+    }
+
+    /**
+     * Si hay una transacción activa, el borrado se hace después del commit
+     * (un rollback no pierde los archivos)
+     */
+    @Override
+    public void eliminar(UUID usuarioId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    borrarCarpeta(usuarioId);
+                }
+            });
+        } else {
+            borrarCarpeta(usuarioId);
+        }
+    }
+
+    private void borrarCarpeta(UUID usuarioId) {
+        Path carpeta = carpeta(usuarioId);
+        try {
+            for (Path archivo : listar(carpeta)) {
+                Files.deleteIfExists(archivo);
+            }
+            Files.deleteIfExists(carpeta);
+        } catch (IOException e) {
+            log.warn("[FilesystemFotoStore] No se pudo borrar {}: {}", carpeta, e.getMessage());
+        }
+    }
+
+    /**
+     * Mover a disco las fotos que siguen en usuario_foto, en lotes.
+     * Cada fila se borra recién después de escribir su archivo: si se corta, se retoma al próximo arranque.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrarDesdeBase() {
+        int migradas = 0;
+        try {
+            while (true) {
+                List<Object[]> lote = jdbcTemplate.query(
+                        "SELECT usuario_id, tamano, content_type, contenido FROM usuario_foto LIMIT ?",
+                        (rs, rowNum) -> new Object[] {
+                                rs.getObject("usuario_id", UUID.class), rs.getInt("tamano"),
+                                rs.getString("content_type"), rs.getBytes("contenido") },
+                        LOTE_MIGRACION);
+                if (lote.isEmpty()) {
+                    break;
+                }
+                for (Object[] fila : lote) {
+                    UUID usuarioId = (UUID) fila[0];
+                    int tamano = (Integer) fila[1];
+                    Path carpeta = carpeta(usuarioId);
+                    Files.createDirectories(carpeta);
+                    escribir(carpeta, tamano, (String) fila[2], (byte[]) fila[3]);
+                    jdbcTemplate.update("DELETE FROM usuario_foto WHERE usuario_id = ? AND tamano = ?", usuarioId, tamano);
+                    migradas++;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("[FilesystemFotoStore] Migración de fotos a disco interrumpida tras {} variantes: {}",
+                    migradas, e.getMessage());
+            return;
+        }
+        if (migradas > 0) {
+            log.info("[FilesystemFotoStore] ✅ {} variantes migradas de usuario_foto a {}", migradas, directorio);
+        }
+    }
+
+    private Path carpeta(UUID usuarioId) {
+        return directorio.resolve(usuarioId.toString());
+    }
+
+    private static Path escribir(Path carpeta, int tamano, String contentType, byte[] contenido) throws IOException {
+        Path destino = carpeta.resolve(tamano + extension(contentType));
+        Path temporal = Files.createTempFile(carpeta, tamano + "-", ".tmp");
+        try {
+            Files.write(temporal, contenido);
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+        return destino;
+    }
+
+    /**
+     * Archivos de variantes de una carpeta (ignora temporales). Lista vacía si no existe.
+     */
+    private static List<Path> listar(Path carpeta) throws IOException {
+        List<Path> archivos = new ArrayList<>();
+        if (!Files.isDirectory(carpeta)) {
+            return archivos;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(carpeta, "*.{jpg,png}")) {
+            stream.forEach(archivos::add);
+        }
+        return archivos;
+    }
+
+    private static int tamanoDe(Path archivo) {
+        String nombre = archivo.getFileName().toString();
+        try {
+            return Integer.parseInt(nombre.substring(0, nombre.indexOf('.')));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static String extension(String contentType) {
+        return "image/png".equals(contentType) ? ".png" : ".jpg";
+    }
+
+    private static String contentTypeDe(Path archivo) {
+        return archivo.getFileName().toString().endsWith(".png") ? "image/png" : FotoPerfilProcessor.CONTENT_TYPE;
+    }
+}
@@ -0,0 +1,265 @@
+package uy.um.faltauno.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * ⚡ Pipeline de procesamiento de fotos de perfil al subirlas.
+ *
+ * - Decodifica con submuestreo cuando la imagen es mucho más grande que la variante mayor
+ *   (evita rasters de 40+ MB en instancias de 512 MB).
+ * - Aplica la orientación EXIF y re-codifica sin metadata (elimina GPS, cámara, etc.).
+ * - Genera variantes JPEG compactas de {@link #TAMANOS} px (lado mayor, sin agrandar).
+ *
+ * Nota: el JDK no trae encoder WebP, por eso todas las variantes son JPEG.
+ */
+@Component
+@Slf4j
+public class FotoPerfilProcessor {
+
+    /** Tamaños generados (lado mayor en px), de menor a mayor */
+    public static final List<Integer> TAMANOS = List.of(64, 256, 1024);
+
+    public static final int TAMANO_MAXIMO = 1024;
+
+    public static final String CONTENT_TYPE = "image/jpeg";
+
+    /** Límite de píxeles de la imagen original (protección contra "decompression bombs") */
+    private static final long MAX_PIXELES = 50_000_000L;
+
+    private static final float CALIDAD_JPEG = 0.85f;
+
+    public record FotoVariante(int tamano, String contentType, byte[] contenido) {
+    }
+
+    /**
+     * Tamaño estándar a servir para un tamaño pedido: el menor estándar que lo cubre,
+     * o el mayor si se pide más grande (o no se especifica).
+     */
+    public static int normalizarTamano(Integer pedido) {
+        if (pedido == null || pedido <= 0) {
+            return TAMANO_MAXIMO;
+        }
+        for (int tamano : TAMANOS) {
+            if (tamano >= pedido) {
+                return tamano;
+            }
+        }
+        return TAMANO_MAXIMO;
+    }
+
+    /**
+     * Procesa la imagen subida y devuelve una variante por tamaño, de menor a mayor.
+     *
+     * @throws IllegalArgumentException si el contenido no es una imagen soportada
+     */
+    public List<FotoVariante> procesar(byte[] original) throws IOException {
+        long inicio = System.currentTimeMillis();
+
+        BufferedImage imagen = orientar(decodificar(original), leerOrientacionExif(original));
+
+        // De mayor a menor: cada variante se escala desde la anterior (menos trabajo que desde el original)
+        List<FotoVariante> variantes = new ArrayList<>(TAMANOS.size());
+        BufferedImage actual = imagen;
+        for (int i = TAMANOS.size() - 1; i >= 0; i--) {
+            int tamano = TAMANOS.get(i);
+            actual = redimensionar(actual, tamano);
+            variantes.add(0, new FotoVariante(tamano, CONTENT_TYPE, codificarJpeg(actual)));
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("[FotoPerfilProcessor] {} bytes -> {} en {}ms", original.length,
+                    variantes.stream().map(v -> v.tamano() + "px=" + v.contenido().length + "B").toList(),
+                    System.currentTimeMillis() - inicio);
+        }
+        return variantes;
+    }
+
+    private BufferedImage decodificar(byte[] original) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(original))) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalArgumentException("Formato de imagen no soportado");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int ancho = reader.getWidth(0);
+                int alto = reader.getHeight(0);
+                if ((long) ancho * alto > MAX_PIXELES) {
+                    throw new IllegalArgumentException("La imagen es demasiado grande");
+                }
+
+                // Submuestrear al decodificar manteniendo al menos 2x la variante mayor
+                ImageReadParam param = reader.getDefaultReadParam();
+                int factor = Math.max(1, Math.min(ancho, alto) / (TAMANO_MAXIMO * 2));
+                if (factor > 1) {
+                    param.setSourceSubsampling(factor, factor, 0, 0);
+                }
+                BufferedImage imagen = reader.read(0, param);
+                if (imagen == null) {
+                    throw new IllegalArgumentException("No se pudo leer la imagen");
+                }
+                return imagen;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Reduce la imagen para que su lado mayor sea como mucho maxLado, en pasos de a la mitad
+     * (mejor calidad que un único escalado bilineal). Siempre devuelve RGB sin transparencia.
+     */
+    private BufferedImage redimensionar(BufferedImage origen, int maxLado) {
+        int ancho = origen.getWidth();
+        int alto = origen.getHeight();
+        double escala = Math.min(1.0, (double) maxLado / Math.max(ancho, alto));
+        int anchoFinal = Math.max(1, (int) Math.round(ancho * escala));
+        int altoFinal = Math.max(1, (int) Math.round(alto * escala));
+
+        BufferedImage actual = origen;
+        do {
+            ancho = Math.max(anchoFinal, ancho / 2);
+            alto = Math.max(altoFinal, alto / 2);
+            actual = dibujar(actual, ancho, alto, null);
+        } while (ancho != anchoFinal || alto != altoFinal);
+        return actual;
+    }
+
+    private BufferedImage orientar(BufferedImage imagen, int orientacion) {
+        int w = imagen.getWidth();
+        int h = imagen.getHeight();
+        AffineTransform t = switch (orientacion) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);  // espejo horizontal
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h); // 180°
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);  // espejo vertical
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);   // transpuesta
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);  // 90° horario
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w); // transversa
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, w);  // 90° antihorario
+            default -> null;
+        };
+        if (t == null) {
+            return imagen;
+        }
+        boolean rota = orientacion >= 5;
+        return dibujar(imagen, rota ? h : w, rota ? w : h, t);
+    }
+
+    private BufferedImage dibujar(BufferedImage origen, int ancho, int alto, AffineTransform transform) {
+        BufferedImage destino = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = destino.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // Fondo blanco para PNG con transparencia
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, ancho, alto);
+            if (transform != null) {
+                g.drawImage(origen, transform, null);
+            } else {
+                g.drawImage(origen, 0, 0, ancho, alto, null);
+            }
+        } finally {
+            g.dispose();
+        }
+        return destino;
+    }
+
+    private byte[] codificarJpeg(BufferedImage imagen) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(CALIDAD_JPEG);
+            // Sin metadata: IIOImage sin thumbnails ni EXIF
+            writer.write(null, new IIOImage(imagen, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Lee el tag Orientation (0x0112) del IFD0 EXIF de un JPEG. Devuelve 1 si no hay o no es JPEG.
+     */
+    static int leerOrientacionExif(byte[] datos) {
+        if (datos.length < 4 || (datos[0] & 0xFF) != 0xFF || (datos[1] & 0xFF) != 0xD8) {
+            return 1;
+        }
+        int pos = 2;
+        while (pos + 4 <= datos.length) {
+            if ((datos[pos] & 0xFF) != 0xFF) {
+                return 1;
+            }
+            int marcador = datos[pos + 1] & 0xFF;
+            if (marcador == 0xDA || marcador == 0xD9) {
+                return 1; // Inicio de datos de imagen: no hay más metadata
+            }
+            int largo = ((datos[pos + 2] & 0xFF) << 8) | (datos[pos + 3] & 0xFF);
+            int inicio = pos + 4;
+            if (marcador == 0xE1 && largo >= 14 && inicio + 6 <= datos.length
+                    && datos[inicio] == 'E' && datos[inicio + 1] == 'x' && datos[inicio + 2] == 'i'
+                    && datos[inicio + 3] == 'f' && datos[inicio + 4] == 0 && datos[inicio + 5] == 0) {
+                return leerOrientacionTiff(datos, inicio + 6, Math.min(datos.length, pos + 2 + largo));
+            }
+            pos += 2 + largo;
+        }
+        return 1;
+    }
+
+    private static int leerOrientacionTiff(byte[] d, int tiff, int fin) {
+        if (tiff + 8 > fin) {
+            return 1;
+        }
+        boolean littleEndian = d[tiff] == 'I' && d[tiff + 1] == 'I';
+        int ifd = tiff + (int) leerEntero(d, tiff + 4, 4, littleEndian);
+        if (ifd + 2 > fin || ifd < tiff) {
+            return 1;
+        }
+        int entradas = (int) leerEntero(d, ifd, 2, littleEndian);
+        for (int i = 0; i < entradas; i++) {
+            int entrada = ifd + 2 + i * 12;
+            if (entrada + 12 > fin) {
+                return 1;
+            }
+            if (leerEntero(d, entrada, 2, littleEndian) == 0x0112) {
+                int valor = (int) leerEntero(d, entrada + 8, 2, littleEndian);
+                return valor >= 1 && valor <= 8 ? valor : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static long leerEntero(byte[] d, int pos, int bytes, boolean littleEndian) {
+        long valor = 0;
+        for (int i = 0; i < bytes; i++) {
+            int b = d[pos + (littleEndian ? bytes - 1 - i : i)] & 0xFF;
+            valor = (valor << 8) | b;
+        }
+        return valor;
+    }
+}
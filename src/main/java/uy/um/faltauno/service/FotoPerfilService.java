@@ -0,0 +1,80 @@
+package uy.um.faltauno.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import uy.um.faltauno.entity.Usuario;
+import uy.um.faltauno.repository.UsuarioRepository;
+import uy.um.faltauno.util.FotoPerfilUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * ⚡ Almacenamiento y lectura de fotos de perfil (GET /api/usuarios/{id}/foto)
+ *
+ * - Metadata (hash) sin cargar la entidad Usuario: permite responder 304 sin tocar los bytes.
+ * - Los bytes viven en el {@link FotoStore} configurado, nunca en la fila de usuario:
+ *   usuario solo guarda foto_hash y foto_bytes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FotoPerfilService {
+
+    private final UsuarioRepository usuarioRepository;
+    private final FotoPerfilProcessor fotoPerfilProcessor;
+    private final FotoStore fotoStore;
+
+    /**
+     * Metadata de la foto del usuario. Vacío si el usuario no existe (o está eliminado).
+     */
+    @Transactional(readOnly = true)
+    public Optional<UsuarioRepository.FotoMetaProjection> obtenerMeta(UUID usuarioId) {
+        return usuarioRepository.findFotoMetaById(usuarioId);
+    }
+
+    /**
+     * Validar y procesar la foto original (orientar, quitar metadata, generar variantes).
+     * Sin transacción: una imagen inválida no marca rollback-only la transacción del llamador.
+     *
+     * @throws IllegalArgumentException si el contenido no es una imagen soportada
+     */
+    public List<FotoPerfilProcessor.FotoVariante> procesar(byte[] original) throws IOException {
+        return fotoPerfilProcessor.procesar(original);
+    }
+
+    /**
+     * Guardar variantes ya procesadas en el store y actualizar foto_hash/foto_bytes del usuario
+     * (que debe estar persistido y gestionado por la transacción).
+     */
+    @Transactional
+    public void guardarVariantes(Usuario usuario, List<FotoPerfilProcessor.FotoVariante> variantes) {
+        fotoStore.guardar(usuario.getId(), variantes);
+
+        // El hash de la variante mayor versiona la URL de la foto
+        FotoPerfilProcessor.FotoVariante mayor = variantes.get(variantes.size() - 1);
+        usuario.setFotoHash(FotoPerfilUtils.hash(mayor.contenido()));
+        usuario.setFotoBytes(mayor.contenido().length);
+        log.info("[FotoPerfilService] Foto de usuario {} guardada: {} variantes", usuario.getId(), variantes.size());
+    }
+
+    /**
+     * Foto del usuario para el tamaño pedido: la variante más chica que lo cubre,
+     * o la mayor disponible. Vacío si no tiene foto.
+     */
+    @Transactional(readOnly = true)
+    public Optional<FotoStore.FotoContenido> leerFoto(UUID usuarioId, int tamano) {
+        return fotoStore.leer(usuarioId, tamano);
+    }
+
+    /**
+     * Borrar los bytes de la foto (al eliminar definitivamente al usuario)
+     */
+    public void eliminarFoto(UUID usuarioId) {
+        fotoStore.eliminar(usuarioId);
+    }
+}
@@ -0,0 +1,46 @@
+package uy.um.faltauno.service;
+
+import org.springframework.core.io.Resource;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * ⚡ Almacenamiento de los bytes de las fotos de perfil, fuera de la fila de usuario.
+ *
+ * La tabla usuario solo guarda foto_hash y foto_bytes; el contenido vive en el store
+ * configurado con app.fotos.store:
+ * - db (por defecto): tabla usuario_foto (ver DbFotoStore)
+ * - filesystem: archivos en app.fotos.directorio (ver FilesystemFotoStore)
+ *
+ * Convención de tamaños: lado mayor en px de cada variante procesada (ver FotoPerfilProcessor.TAMANOS).
+ * {@link #TAMANO_ORIGINAL} identifica una foto migrada sin procesar (subida antes del pipeline).
+ */
+public interface FotoStore {
+
+    /** Tamaño reservado para el original sin procesar (fotos previas al pipeline de variantes) */
+    int TAMANO_ORIGINAL = 0;
+
+    /**
+     * Contenido listo para servir. El recurso se lee en streaming al escribir la respuesta.
+     */
+    record FotoContenido(String contentType, long bytes, Resource recurso) {
+    }
+
+    /**
+     * Reemplazar todas las variantes de la foto de un usuario
+     */
+    void guardar(UUID usuarioId, List<FotoPerfilProcessor.FotoVariante> variantes);
+
+    /**
+     * Variante más chica que cubra el tamaño pedido, o la mayor disponible.
+     * Vacío si el usuario no tiene foto guardada.
+     */
+    Optional<FotoContenido> leer(UUID usuarioId, int tamano);
+
+    /**
+     * Borrar todas las variantes de la foto de un usuario (no falla si no tiene)
+     */
+    void eliminar(UUID usuarioId);
+}
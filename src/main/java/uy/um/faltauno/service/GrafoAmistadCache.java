@@ -0,0 +1,497 @@
+package uy.um.faltauno.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * ⚡ Grafo de amistades en memoria: estado de relación, conteos y amigos sin SQL.
+ *
+ * Por usuario se guarda un {@link Vecindario}:
+ * - amigos: array compacto y ordenado de ids (pares msb/lsb en un long[]), búsqueda binaria
+ *   y base para intersecciones (amigos en común)
+ * - pendientes: índice otroId → solicitud pendiente (enviada o recibida)
+ *
+ * - Carga perezosa: un usuario frío se carga con un único range scan sobre amistad_arista.
+ * - Memoria acotada por peso (cantidad total de ids guardados) y TTL de 5 minutos como red de seguridad.
+ * - Los cambios de AmistadService se aplican DESPUÉS del commit como deltas idempotentes
+ *   sobre los vecindarios cacheados (los que no están en memoria se cargarán ya actualizados).
+ * - ⚠️ Multi-instancia: cada cambio publica los dos usuarios con {@link InvalidacionDistribuida}
+ *   (NOTIFY entregado al commit) y las demás instancias descartan sus vecindarios. Ventana de
+ *   inconsistencia: la latencia del NOTIFY (milisegundos); si el listener pierde la conexión se vacía
+ *   el grafo al reconectar, y en el peor caso (notificación perdida) como máximo el TTL (5 minutos).
+ */
+@Component
+@Slf4j
+public class GrafoAmistadCache {
+
+    /** Máximo de ids (amigos + pendientes) en memoria entre todos los usuarios */
+    private static final long MAX_IDS = 2_000_000;
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    private static final int LOTE_CARGA = 200;
+    private static final String DOMINIO = "grafo-amistad";
+
+    private static final String SQL_VECINDARIOS =
+            "SELECT usuario_id, otro_id, amistad_id, estado, enviada FROM amistad_arista WHERE usuario_id IN (";
+
+    /**
+     * Relación de un usuario con otro
+     *
+     * @param enviada true si el usuario consultado envió la solicitud original
+     */
+    public record Relacion(UUID amistadId, String estado, boolean enviada) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InvalidacionDistribuida invalidacionDistribuida;
+    private final Counter hits;
+    private final Counter misses;
+    private final Cache<UUID, Vecindario> cache = Caffeine.newBuilder()
+            .maximumWeight(MAX_IDS)
+            .weigher((UUID id, Vecindario v) -> 1 + v.cantidadAmigos() + v.pendientes.size())
+            .expireAfterWrite(TTL)
+            .build();
+
+    public GrafoAmistadCache(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                             InvalidacionDistribuida invalidacionDistribuida) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.invalidacionDistribuida = invalidacionDistribuida;
+        this.hits = meterRegistry.counter("faltauno_grafo_amistad_hits_total");
+        this.misses = meterRegistry.counter("faltauno_grafo_amistad_misses_total");
+        meterRegistry.gauge("faltauno_grafo_amistad_usuarios", cache, Cache::estimatedSize);
+        invalidacionDistribuida.registrar(DOMINIO, cache::invalidate, cache::invalidateAll);
+    }
+
+    // ===== Consultas =====
+
+    /**
+     * Relación de usuarioId con otroId (amistad aceptada o solicitud pendiente), si existe
+     */
+    public Optional<Relacion> relacion(UUID usuarioId, UUID otroId) {
+        Vecindario v = vecindario(usuarioId);
+        int i = v.indiceAmigo(otroId);
+        if (i >= 0) {
+            return Optional.of(new Relacion(v.amistadIdDe(i), "ACEPTADO", v.amigoEnviada[i]));
+        }
+        return Optional.ofNullable(v.pendientes.get(otroId));
+    }
+
+    /**
+     * Filtro "sin amistad ni solicitud pendiente con usuarioId" (un solo lookup del vecindario)
+     */
+    public Predicate<UUID> sinRelacionCon(UUID usuarioId) {
+        Vecindario v = vecindario(usuarioId);
+        return otroId -> v.indiceAmigo(otroId) < 0 && !v.pendientes.containsKey(otroId);
+    }
+
+    public boolean sonAmigos(UUID usuarioId, UUID otroId) {
+        return vecindario(usuarioId).indiceAmigo(otroId) >= 0;
+    }
+
+    public int contarAmigos(UUID usuarioId) {
+        return vecindario(usuarioId).cantidadAmigos();
+    }
+
+    public int contarSolicitudesRecibidas(UUID usuarioId) {
+        return (int) vecindario(usuarioId).pendientes.values().stream()
+                .filter(r -> !r.enviada())
+                .count();
+    }
+
+    /**
+     * IDs de los amigos, en el orden interno del grafo (ordenados por id)
+     */
+    public List<UUID> amigos(UUID usuarioId) {
+        Vecindario v = vecindario(usuarioId);
+        List<UUID> ids = new ArrayList<>(v.cantidadAmigos());
+        for (int i = 0; i < v.cantidadAmigos(); i++) {
+            ids.add(v.amigoEn(i));
+        }
+        return ids;
+    }
+
+    // ===== Amigos en común (intersección de arrays ordenados) =====
+
+    /**
+     * Amigos en común entre dos usuarios
+     *
+     * @param muestra cuántos ids devolver como preview (el total se cuenta igual)
+     */
+    public EnComun enComun(UUID usuarioId, UUID otroId, int muestra) {
+        Map<UUID, Vecindario> v = vecindarios(List.of(usuarioId, otroId));
+        List<UUID> ids = new ArrayList<>(Math.min(muestra, 16));
+        int total = interseccion(v.get(usuarioId), v.get(otroId), muestra, ids);
+        return new EnComun(total, ids);
+    }
+
+    /**
+     * Cantidad de amigos en común del usuario con cada uno de los otros (batch)
+     */
+    public Map<UUID, Integer> contarEnComun(UUID usuarioId, Collection<UUID> otros) {
+        Set<UUID> todos = new HashSet<>(otros);
+        todos.add(usuarioId);
+        Map<UUID, Vecindario> v = vecindarios(todos);
+        Vecindario mio = v.get(usuarioId);
+        Map<UUID, Integer> resultado = new LinkedHashMap<>();
+        for (UUID otroId : otros) {
+            resultado.put(otroId, otroId.equals(usuarioId) ? 0 : interseccion(mio, v.get(otroId), 0, null));
+        }
+        return resultado;
+    }
+
+    /**
+     * @param ids preview ordenado por id (hasta {@code muestra} elementos)
+     */
+    public record EnComun(int total, List<UUID> ids) {
+    }
+
+    /**
+     * Cuenta la intersección de dos listas de amigos ordenadas, guardando hasta {@code muestra} ids en salida.
+     * Merge lineal si los tamaños son parecidos; si uno es mucho más chico, búsqueda binaria de cada
+     * elemento del chico en el grande (O(m·log n)).
+     */
+    static int interseccion(Vecindario a, Vecindario b, int muestra, List<UUID> salida) {
+        Vecindario chico = a.cantidadAmigos() <= b.cantidadAmigos() ? a : b;
+        Vecindario grande = chico == a ? b : a;
+        int m = chico.cantidadAmigos();
+        int n = grande.cantidadAmigos();
+        if (m == 0) {
+            return 0;
+        }
+        long[] x = chico.amigos;
+        long[] y = grande.amigos;
+        int total = 0;
+
+        if ((long) m * 32 < n) {
+            for (int i = 0; i < m; i++) {
+                if (buscar(y, n, x[2 * i], x[2 * i + 1]) >= 0) {
+                    total = anotar(total, x[2 * i], x[2 * i + 1], muestra, salida);
+                }
+            }
+            return total;
+        }
+
+        int i = 0;
+        int j = 0;
+        while (i < m && j < n) {
+            int c = comparar(x[2 * i], x[2 * i + 1], y[2 * j], y[2 * j + 1]);
+            if (c < 0) {
+                i++;
+            } else if (c > 0) {
+                j++;
+            } else {
+                total = anotar(total, x[2 * i], x[2 * i + 1], muestra, salida);
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+
+    private static int anotar(int total, long msb, long lsb, int muestra, List<UUID> salida) {
+        if (salida != null && total < muestra) {
+            salida.add(new UUID(msb, lsb));
+        }
+        return total + 1;
+    }
+
+    // ===== Cambios (se aplican después del commit; las otras instancias descartan los vecindarios) =====
+
+    public void solicitudEnviada(UUID amistadId, UUID de, UUID para) {
+        invalidacionDistribuida.publicar(DOMINIO, List.of(de, para));
+        despuesDelCommit(() -> {
+            actualizar(de, v -> v.conPendiente(para, new Relacion(amistadId, "PENDIENTE", true)));
+            actualizar(para, v -> v.conPendiente(de, new Relacion(amistadId, "PENDIENTE", false)));
+        });
+    }
+
+    /**
+     * @param solicitante quien envió la solicitud original
+     */
+    public void amistadAceptada(UUID amistadId, UUID solicitante, UUID aceptante) {
+        invalidacionDistribuida.publicar(DOMINIO, List.of(solicitante, aceptante));
+        despuesDelCommit(() -> {
+            actualizar(solicitante, v -> v.conAmigo(aceptante, amistadId, true));
+            actualizar(aceptante, v -> v.conAmigo(solicitante, amistadId, false));
+        });
+    }
+
+    /**
+     * Solicitud rechazada/cancelada o amistad eliminada
+     */
+    public void relacionEliminada(UUID a, UUID b) {
+        invalidacionDistribuida.publicar(DOMINIO, List.of(a, b));
+        despuesDelCommit(() -> {
+            actualizar(a, v -> v.sin(b));
+            actualizar(b, v -> v.sin(a));
+        });
+    }
+
+    /**
+     * Descartar los vecindarios cacheados (p. ej. borrado permanente de un usuario)
+     */
+    public void invalidar(Collection<UUID> usuarios) {
+        cache.invalidateAll(usuarios);
+        invalidacionDistribuida.publicar(DOMINIO, usuarios);
+        despuesDelCommit(() -> cache.invalidateAll(usuarios));
+    }
+
+    private void actualizar(UUID usuarioId, UnaryOperator<Vecindario> cambio) {
+        cache.asMap().computeIfPresent(usuarioId, (id, v) -> cambio.apply(v));
+    }
+
+    private static void despuesDelCommit(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    private Vecindario vecindario(UUID usuarioId) {
+        boolean[] cargado = {false};
+        Vecindario v = cache.get(usuarioId, id -> {
+            cargado[0] = true;
+            return cargar(Set.of(id)).get(id);
+        });
+        (cargado[0] ? misses : hits).increment();
+        return v;
+    }
+
+    /**
+     * Vecindarios de varios usuarios: los fríos se cargan juntos con una query por lote
+     */
+    private Map<UUID, Vecindario> vecindarios(Collection<UUID> usuarios) {
+        int calientes = cache.getAllPresent(usuarios).size();
+        Map<UUID, Vecindario> resultado = cache.getAll(usuarios, this::cargar);
+        hits.increment(calientes);
+        misses.increment(resultado.size() - calientes);
+        return resultado;
+    }
+
+    /**
+     * Cargar vecindarios desde amistad_arista: un range scan por usuario sobre la PK (usuario_id, otro_id),
+     * de a {@link #LOTE_CARGA} usuarios por query
+     */
+    private Map<UUID, Vecindario> cargar(Set<? extends UUID> usuarios) {
+        Map<UUID, List<Object[]>> amigos = new HashMap<>();
+        Map<UUID, Map<UUID, Relacion>> pendientes = new HashMap<>();
+        List<UUID> ids = new ArrayList<>(usuarios);
+        for (int desde = 0; desde < ids.size(); desde += LOTE_CARGA) {
+            List<UUID> lote = ids.subList(desde, Math.min(desde + LOTE_CARGA, ids.size()));
+            String sql = SQL_VECINDARIOS + String.join(", ", Collections.nCopies(lote.size(), "?")) + ")";
+            jdbcTemplate.query(sql, rs -> {
+                UUID usuarioId = rs.getObject("usuario_id", UUID.class);
+                UUID otroId = rs.getObject("otro_id", UUID.class);
+                UUID amistadId = rs.getObject("amistad_id", UUID.class);
+                boolean enviada = rs.getBoolean("enviada");
+                String estado = rs.getString("estado");
+                if ("ACEPTADO".equals(estado)) {
+                    amigos.computeIfAbsent(usuarioId, k -> new ArrayList<>())
+                            .add(new Object[]{otroId, amistadId, enviada});
+                } else if ("PENDIENTE".equals(estado)) {
+                    pendientes.computeIfAbsent(usuarioId, k -> new HashMap<>())
+                            .put(otroId, new Relacion(amistadId, estado, enviada));
+                }
+            }, lote.toArray());
+        }
+
+        Map<UUID, Vecindario> resultado = HashMap.newHashMap(ids.size());
+        for (UUID usuarioId : ids) {
+            Vecindario v = Vecindario.de(
+                    amigos.getOrDefault(usuarioId, List.of()),
+                    pendientes.getOrDefault(usuarioId, Map.of()));
+            resultado.put(usuarioId, v);
+        }
+        log.debug("[GrafoAmistad] {} vecindarios cargados", resultado.size());
+        return resultado;
+    }
+
+    /**
+     * Vecindario inmutable de un usuario (copy-on-write en cada cambio)
+     */
+    static final class Vecindario {
+
+        static final Vecindario VACIO = new Vecindario(new long[0], new long[0], new boolean[0], Map.of());
+
+        /** Amigos ordenados: [msb0, lsb0, msb1, lsb1, ...] */
+        final long[] amigos;
+        /** amistad.id de cada amigo, en paralelo a amigos */
+        final long[] amistadIds;
+        final boolean[] amigoEnviada;
+        final Map<UUID, Relacion> pendientes;
+
+        private Vecindario(long[] amigos, long[] amistadIds, boolean[] amigoEnviada, Map<UUID, Relacion> pendientes) {
+            this.amigos = amigos;
+            this.amistadIds = amistadIds;
+            this.amigoEnviada = amigoEnviada;
+            this.pendientes = pendientes;
+        }
+
+        /**
+         * Armar un vecindario desde filas (otroId, amistadId, enviada): se ordena una sola vez,
+         * O(n log n). ⚠️ No cargar con conAmigo por fila: cada inserción copia los arrays (O(n²)).
+         */
+        static Vecindario de(List<Object[]> filas, Map<UUID, Relacion> pendientes) {
+            List<Object[]> ordenadas = new ArrayList<>(filas);
+            ordenadas.sort((x, y) -> comparar((UUID) x[0], (UUID) y[0]));
+            int n = ordenadas.size();
+            long[] amigos = new long[2 * n];
+            long[] amistadIds = new long[2 * n];
+            boolean[] enviadas = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                UUID otroId = (UUID) ordenadas.get(i)[0];
+                UUID amistadId = (UUID) ordenadas.get(i)[1];
+                amigos[2 * i] = otroId.getMostSignificantBits();
+                amigos[2 * i + 1] = otroId.getLeastSignificantBits();
+                amistadIds[2 * i] = amistadId.getMostSignificantBits();
+                amistadIds[2 * i + 1] = amistadId.getLeastSignificantBits();
+                enviadas[i] = (Boolean) ordenadas.get(i)[2];
+            }
+            return new Vecindario(amigos, amistadIds, enviadas, Map.copyOf(pendientes));
+        }
+
+        int cantidadAmigos() {
+            return amigoEnviada.length;
+        }
+
+        UUID amigoEn(int i) {
+            return new UUID(amigos[2 * i], amigos[2 * i + 1]);
+        }
+
+        UUID amistadIdDe(int i) {
+            return new UUID(amistadIds[2 * i], amistadIds[2 * i + 1]);
+        }
+
+        /**
+         * Búsqueda binaria: índice del amigo, o (-(punto de inserción) - 1) si no está
+         */
+        int indiceAmigo(UUID id) {
+            return buscar(amigos, cantidadAmigos(), id.getMostSignificantBits(), id.getLeastSignificantBits());
+        }
+
+        Vecindario conPendientes(Map<UUID, Relacion> nuevos) {
+            return new Vecindario(amigos, amistadIds, amigoEnviada, Map.copyOf(nuevos));
+        }
+
+        Vecindario conPendiente(UUID otroId, Relacion relacion) {
+            if (indiceAmigo(otroId) >= 0) {
+                return this;
+            }
+            Map<UUID, Relacion> nuevos = new HashMap<>(pendientes);
+            nuevos.put(otroId, relacion);
+            return conPendientes(nuevos);
+        }
+
+        Vecindario conAmigo(UUID otroId, UUID amistadId, boolean enviada) {
+            Map<UUID, Relacion> sinPendiente = pendientes;
+            if (pendientes.containsKey(otroId)) {
+                Map<UUID, Relacion> nuevos = new HashMap<>(pendientes);
+                nuevos.remove(otroId);
+                sinPendiente = Map.copyOf(nuevos);
+            }
+            int i = indiceAmigo(otroId);
+            if (i >= 0) {
+                return new Vecindario(amigos, amistadIds, amigoEnviada, sinPendiente);
+            }
+            int pos = -i - 1;
+            int n = cantidadAmigos();
+            long[] nuevosAmigos = new long[2 * (n + 1)];
+            long[] nuevosIds = new long[2 * (n + 1)];
+            boolean[] nuevasEnviadas = new boolean[n + 1];
+            System.arraycopy(amigos, 0, nuevosAmigos, 0, 2 * pos);
+            System.arraycopy(amistadIds, 0, nuevosIds, 0, 2 * pos);
+            System.arraycopy(amigoEnviada, 0, nuevasEnviadas, 0, pos);
+            nuevosAmigos[2 * pos] = otroId.getMostSignificantBits();
+            nuevosAmigos[2 * pos + 1] = otroId.getLeastSignificantBits();
+            nuevosIds[2 * pos] = amistadId.getMostSignificantBits();
+            nuevosIds[2 * pos + 1] = amistadId.getLeastSignificantBits();
+            nuevasEnviadas[pos] = enviada;
+            System.arraycopy(amigos, 2 * pos, nuevosAmigos, 2 * pos + 2, 2 * (n - pos));
+            System.arraycopy(amistadIds, 2 * pos, nuevosIds, 2 * pos + 2, 2 * (n - pos));
+            System.arraycopy(amigoEnviada, pos, nuevasEnviadas, pos + 1, n - pos);
+            return new Vecindario(nuevosAmigos, nuevosIds, nuevasEnviadas, sinPendiente);
+        }
+
+        Vecindario sin(UUID otroId) {
+            Vecindario v = this;
+            if (pendientes.containsKey(otroId)) {
+                Map<UUID, Relacion> nuevos = new HashMap<>(pendientes);
+                nuevos.remove(otroId);
+                v = conPendientes(nuevos);
+            }
+            int pos = indiceAmigo(otroId);
+            if (pos < 0) {
+                return v;
+            }
+            int n = cantidadAmigos();
+            long[] nuevosAmigos = new long[2 * (n - 1)];
+            long[] nuevosIds = new long[2 * (n - 1)];
+            boolean[] nuevasEnviadas = new boolean[n - 1];
+            System.arraycopy(amigos, 0, nuevosAmigos, 0, 2 * pos);
+            System.arraycopy(amistadIds, 0, nuevosIds, 0, 2 * pos);
+            System.arraycopy(amigoEnviada, 0, nuevasEnviadas, 0, pos);
+            System.arraycopy(amigos, 2 * pos + 2, nuevosAmigos, 2 * pos, 2 * (n - pos - 1));
+            System.arraycopy(amistadIds, 2 * pos + 2, nuevosIds, 2 * pos, 2 * (n - pos - 1));
+            System.arraycopy(amigoEnviada, pos + 1, nuevasEnviadas, pos, n - pos - 1);
+            return new Vecindario(nuevosAmigos, nuevosIds, nuevasEnviadas, v.pendientes);
+        }
+    }
+
+    /**
+     * Orden de los ids en los arrays compactos: (msb, lsb) con comparación con signo
+     */
+    static int comparar(long msbA, long lsbA, long msbB, long lsbB) {
+        int c = Long.compare(msbA, msbB);
+        return c != 0 ? c : Long.compare(lsbA, lsbB);
+    }
+
+    static int comparar(UUID a, UUID b) {
+        return comparar(a.getMostSignificantBits(), a.getLeastSignificantBits(),
+                b.getMostSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    static int buscar(long[] pares, int cantidad, long msb, long lsb) {
+        int bajo = 0;
+        int alto = cantidad - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            int c = comparar(pares[2 * medio], pares[2 * medio + 1], msb, lsb);
+            if (c < 0) {
+                bajo = medio + 1;
+            } else if (c > 0) {
+                alto = medio - 1;
+            } else {
+                return medio;
+            }
+        }
+        return -(bajo + 1);
+    }
+}
@@ -21,6 +21,7 @@ import uy.um.faltauno.repository.PartidoRepository;
 import uy.um.faltauno.repository.SolicitudPartidoRepository;
 import uy.um.faltauno.repository.UsuarioRepository;
 import uy.um.faltauno.util.InscripcionMapper;
+import uy.um.faltauno.util.FotoPerfilUtils;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -288,19 +289,12 @@ public class InscripcionService {
                     
                     // Agregar info del usuario usando UsuarioMinDTO
                     Usuario usuario = sol.getUsuario();
-                    String fotoPerfil = null;
-                    if (usuario.getFotoPerfil() != null) {
-                        try {
-                            fotoPerfil = java.util.Base64.getEncoder().encodeToString(usuario.getFotoPerfil());
-                        } catch (Exception ex) {
-                            log.warn("[InscripcionService] Error encoding foto: {}", ex.getMessage());
-                        }
-                    }
+                    String fotoUrl = FotoPerfilUtils.url(usuario);
                     UsuarioMinDTO usuarioMin = new UsuarioMinDTO(
                         usuario.getId(),
                         usuario.getNombre(),
                         usuario.getApellido(),
-                        fotoPerfil
+                        fotoUrl
                     );
                     dto.setUsuario(usuarioMin);
                     
@@ -0,0 +1,191 @@
+package uy.um.faltauno.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * ⚡ Invalidación de caches en memoria entre instancias (Cloud Run corre hasta 3) vía Postgres LISTEN/NOTIFY.
+ *
+ * - {@link #publicar} hace pg_notify en la transacción en curso: Postgres entrega la notificación
+ *   recién al hacer commit (y nunca si hay rollback). Sin transacción se entrega en el momento.
+ * - Cada instancia escucha el canal con una conexión dedicada FUERA del pool de Hikari
+ *   y aplica los handlers registrados por dominio ({@link #registrar}).
+ * - Las notificaciones propias se ignoran (cada cache ya se invalidó localmente).
+ * - Si la conexión se cae se pueden perder notificaciones: al reconectar se llama a los handlers
+ *   de reconexión (los caches se vacían) y el TTL de cada cache sigue siendo la última red de seguridad.
+ *
+ * Payload: "{instancia}|{dominio}|{id1},{id2},..." (lotes de {@link #IDS_POR_NOTIFICACION} ids, muy por
+ * debajo del límite de 8000 bytes de NOTIFY).
+ */
+@Component
+@Slf4j
+public class InvalidacionDistribuida {
+
+    static final String CANAL = "faltauno_invalidacion";
+    private static final int IDS_POR_NOTIFICACION = 100;
+    private static final int ESPERA_NOTIFICACIONES_MS = 5000;
+    private static final long ESPERA_RECONEXION_MS = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String url;
+    private final String usuario;
+    private final String password;
+    private final boolean habilitada;
+    private final String instancia = UUID.randomUUID().toString();
+
+    private final Map<String, Consumer<UUID>> handlers = new ConcurrentHashMap<>();
+    private final List<Runnable> alReconectar = new CopyOnWriteArrayList<>();
+
+    private volatile boolean activa = true;
+    private volatile Thread escucha;
+
+    public InvalidacionDistribuida(
+            JdbcTemplate jdbcTemplate,
+            @Value("${spring.datasource.url}") String url,
+            @Value("${spring.datasource.username:}") String usuario,
+            @Value("${spring.datasource.password:}") String password,
+            @Value("${app.cache.invalidacion-distribuida:true}") boolean habilitada
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.url = url;
+        this.usuario = usuario;
+        this.password = password;
+        this.habilitada = habilitada;
+    }
+
+    /**
+     * Registrar qué hacer cuando otra instancia invalida un id del dominio, y cómo recuperarse
+     * si se perdieron notificaciones (reconexión del listener)
+     */
+    public void registrar(String dominio, Consumer<UUID> invalidar, Runnable invalidarTodo) {
+        handlers.put(dominio, invalidar);
+        alReconectar.add(invalidarTodo);
+    }
+
+    /**
+     * Avisar a las demás instancias que descarten estos ids (entrega al commit de la transacción en curso)
+     */
+    public void publicar(String dominio, Collection<UUID> ids) {
+        if (!habilitada || ids.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Dentro de una transacción NO se atrapa: un error de SQL ya la abortó en Postgres
+            notificar(dominio, ids);
+            return;
+        }
+        try {
+            notificar(dominio, ids);
+        } catch (RuntimeException e) {
+            // Las otras instancias quedan cubiertas por el TTL
+            log.warn("[InvalidacionDistribuida] No se pudo publicar invalidación de {}: {}", dominio, e.getMessage());
+        }
+    }
+
+    private void notificar(String dominio, Collection<UUID> ids) {
+        List<UUID> lista = new ArrayList<>(ids);
+        for (int desde = 0; desde < lista.size(); desde += IDS_POR_NOTIFICACION) {
+            StringBuilder payload = new StringBuilder(instancia).append('|').append(dominio).append('|');
+            List<UUID> lote = lista.subList(desde, Math.min(desde + IDS_POR_NOTIFICACION, lista.size()));
+            for (int i = 0; i < lote.size(); i++) {
+                payload.append(i > 0 ? "," : "").append(lote.get(i));
+            }
+            jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CANAL, payload.toString());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (!habilitada) {
+            log.info("[InvalidacionDistribuida] Deshabilitada: los caches solo se invalidan localmente");
+            return;
+        }
+        escucha = Thread.ofPlatform().daemon().name("cache-invalidacion").start(this::escuchar);
+    }
+
+    @PreDestroy
+    public void detener() {
+        activa = false;
+        Thread t = escucha;
+        if (t != null) {
+            t.interrupt();
+        }
+    }
+
+    private void escuchar() {
+        boolean primeraConexion = true;
+        while (activa) {
+            try (Connection conexion = DriverManager.getConnection(url, usuario, password)) {
+                try (Statement st = conexion.createStatement()) {
+                    st.execute("LISTEN " + CANAL);
+                }
+                if (!primeraConexion) {
+                    // Pudimos perder notificaciones mientras estuvimos desconectados
+                    alReconectar.forEach(Runnable::run);
+                }
+                primeraConexion = false;
+                log.info("[InvalidacionDistribuida] Escuchando {}", CANAL);
+
+                PGConnection pg = conexion.unwrap(PGConnection.class);
+                while (activa) {
+                    PGNotification[] notificaciones = pg.getNotifications(ESPERA_NOTIFICACIONES_MS);
+                    if (notificaciones != null) {
+                        for (PGNotification n : notificaciones) {
+                            aplicar(n.getParameter());
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                if (!activa) {
+                    return;
+                }
+                log.warn("[InvalidacionDistribuida] Conexión de LISTEN caída, reintentando en {} ms: {}",
+                        ESPERA_RECONEXION_MS, e.getMessage());
+                try {
+                    Thread.sleep(ESPERA_RECONEXION_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void aplicar(String payload) {
+        String[] partes = payload.split("\\|", 3);
+        if (partes.length < 3 || instancia.equals(partes[0])) {
+            return;
+        }
+        Consumer<UUID> handler = handlers.get(partes[1]);
+        if (handler == null) {
+            return;
+        }
+        for (String id : partes[2].split(",")) {
+            try {
+                handler.accept(UUID.fromString(id));
+            } catch (IllegalArgumentException e) {
+                log.warn("[InvalidacionDistribuida] Id inválido en notificación {}: {}", partes[1], id);
+            }
+        }
+    }
+}
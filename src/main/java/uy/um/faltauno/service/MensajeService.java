@@ -20,6 +20,7 @@ import uy.um.faltauno.repository.MensajeRepository;
 import uy.um.faltauno.repository.PartidoRepository;
 import uy.um.faltauno.repository.UsuarioRepository;
 import uy.um.faltauno.repository.ChatVisitRepository;
+import uy.um.faltauno.util.FotoPerfilUtils;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -303,19 +304,12 @@ public class MensajeService {
         try {
             Usuario usuario = usuarioRepository.findById(mensaje.getRemitenteId()).orElse(null);
             if (usuario != null) {
-                String fotoPerfil = null;
-                if (usuario.getFotoPerfil() != null) {
-                    try {
-                        fotoPerfil = java.util.Base64.getEncoder().encodeToString(usuario.getFotoPerfil());
-                    } catch (Exception ex) {
-                        log.warn("[MensajeService] Error encoding foto: {}", ex.getMessage());
-                    }
-                }
+                String fotoUrl = FotoPerfilUtils.url(usuario);
                 UsuarioMinDTO usuarioMin = new UsuarioMinDTO(
                     usuario.getId(),
                     usuario.getNombre(),
                     usuario.getApellido(),
-                    fotoPerfil
+                    fotoUrl
                 );
                 dto.setUsuario(usuarioMin);
             }
@@ -343,19 +337,12 @@ public class MensajeService {
         // Cargar información del remitente desde el mapa (sin query adicional)
         Usuario usuario = usuariosMap.get(mensaje.getRemitenteId());
         if (usuario != null) {
-            String fotoPerfil = null;
-            if (usuario.getFotoPerfil() != null) {
-                try {
-                    fotoPerfil = java.util.Base64.getEncoder().encodeToString(usuario.getFotoPerfil());
-                } catch (Exception ex) {
-                    log.warn("[MensajeService] Error encoding foto: {}", ex.getMessage());
-                }
-            }
+            String fotoUrl = FotoPerfilUtils.url(usuario);
             UsuarioMinDTO usuarioMin = new UsuarioMinDTO(
                 usuario.getId(),
                 usuario.getNombre(),
                 usuario.getApellido(),
-                fotoPerfil
+                fotoUrl
             );
             dto.setUsuario(usuarioMin);
         }
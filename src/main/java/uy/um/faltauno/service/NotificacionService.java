@@ -3,19 +3,30 @@ package uy.um.faltauno.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import uy.um.faltauno.dto.NotificacionDTO;
 import uy.um.faltauno.entity.Notificacion;
 import uy.um.faltauno.entity.Usuario;
+import uy.um.faltauno.event.NotificacionesCreadasEvent;
 import uy.um.faltauno.repository.NotificacionRepository;
+import uy.um.faltauno.repository.UsuarioRepository;
 import uy.um.faltauno.util.NotificacionMapper;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -24,10 +35,53 @@ import java.util.stream.Collectors;
 @Slf4j
 public class NotificacionService {
 
+    /**
+     * Tipos que no se duplican mientras haya una no leída para la misma entidad
+     * (tienden a generarse en masa o desde varias instancias de la aplicación).
+     * ⚠️ Debe coincidir con el índice parcial uq_notificacion_dedup_no_leida (V46)
+     */
+    static final Set<Notificacion.TipoNotificacion> TIPOS_DEDUPLICADOS = EnumSet.of(
+            Notificacion.TipoNotificacion.NUEVA_SOLICITUD,
+            Notificacion.TipoNotificacion.JUGADOR_UNIDO,
+            Notificacion.TipoNotificacion.NUEVO_MENSAJE,
+            Notificacion.TipoNotificacion.INSCRIPCION_ACEPTADA, // ✅ FIX: Prevenir emails duplicados
+            Notificacion.TipoNotificacion.INSCRIPCION_RECHAZADA
+    );
+
+    /** Predicado del índice parcial de deduplicación (mismo WHERE que en V46) */
+    private static final String PREDICADO_DEDUP = "leida = FALSE AND entidad_id IS NOT NULL AND tipo IN ("
+            + TIPOS_DEDUPLICADOS.stream().map(t -> "'" + t.name() + "'").collect(Collectors.joining(", ")) + ")";
+
+    /**
+     * Insertar la notificación o, si choca con una no leída deduplicada, actualizar mensaje,
+     * prioridad y fecha (xmax = 0 solo en filas recién insertadas)
+     */
+    private static final String SQL_UPSERT = """
+            INSERT INTO notificacion (id, usuario_id, tipo, titulo, mensaje, entidad_id, entidad_tipo, url_accion,
+                                      leida, prioridad, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, FALSE, ?, ?)
+            ON CONFLICT (usuario_id, tipo, entidad_id) WHERE %s
+            DO UPDATE SET mensaje = EXCLUDED.mensaje,
+                          prioridad = EXCLUDED.prioridad,
+                          created_at = EXCLUDED.created_at
+            RETURNING id, usuario_id, tipo, titulo, mensaje, entidad_id, entidad_tipo, url_accion,
+                      leida, fecha_lectura, prioridad, created_at, (xmax = 0) AS insertada
+            """.formatted(PREDICADO_DEDUP);
+
+    /** Alta simple para envíos en bloque (tipos no deduplicados) */
+    private static final String SQL_INSERTAR = """
+            INSERT INTO notificacion (id, usuario_id, tipo, titulo, mensaje, entidad_id, entidad_tipo, url_accion,
+                                      leida, prioridad, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, FALSE, ?, ?)
+            """;
+
     private final NotificacionRepository notificacionRepository;
     private final NotificacionMapper notificacionMapper;
     private final EmailService emailService;
     private final uy.um.faltauno.websocket.WebSocketEventPublisher webSocketEventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final UsuarioRepository usuarioRepository;
+    private final ApplicationEventPublisher applicationEventPublisher;
     
     // Lazy injection to avoid circular dependency
     private UsuarioService usuarioService;
@@ -53,58 +107,29 @@ public class NotificacionService {
     ) {
         log.debug("[NotificacionService] Creando notificación para usuario {}: tipo={}", usuarioId, tipo);
 
-        // 🎯 SISTEMA INTELIGENTE: Evitar duplicados recientes (últimas 24h)
-        // Ejemplo: Si ya existe "Nueva solicitud" para el mismo partido en las últimas 24h, 
-        // actualizamos el mensaje en lugar de crear duplicado
-        if (entidadId != null && debeValidarDuplicados(tipo)) {
-            Instant hace24h = Instant.now().minus(24, ChronoUnit.HOURS);
-            List<Notificacion> notificacionesRecientes = notificacionRepository.findByUsuarioIdOrderByCreatedAtDesc(usuarioId)
-                .stream()
-                .filter(n -> n.getCreatedAt().isAfter(hace24h))
-                .filter(n -> n.getTipo().equals(tipo))
-                .filter(n -> entidadId.equals(n.getEntidadId()))
-                .filter(n -> !n.getLeida()) // Solo actualizar si aún no fue leída
-                .limit(1)
-                .collect(Collectors.toList());
-            
-            if (!notificacionesRecientes.isEmpty()) {
-                Notificacion existente = notificacionesRecientes.get(0);
-                log.info("[NotificacionService] 🔄 Actualizando notificación existente en lugar de duplicar: id={}", existente.getId());
-                
-                // Actualizar mensaje para reflejar acumulación
-                existente.setMensaje(mensaje);
-                existente.setCreatedAt(Instant.now()); // Bump to top
-                existente.setPrioridad(prioridad != null ? prioridad : Notificacion.Prioridad.NORMAL);
-                
-                Notificacion actualizada = notificacionRepository.save(existente);
-                return notificacionMapper.toDTO(actualizada);
-            }
+        // 🎯 SISTEMA INTELIGENTE: Evitar duplicados
+        // Para los tipos deduplicados, si ya hay una no leída del mismo tipo y entidad
+        // (índice parcial único V46) se actualiza el mensaje y se sube arriba en lugar de duplicar.
+        // ⚡ Un único INSERT ... ON CONFLICT DO UPDATE, sin importar cuántas notificaciones tenga el usuario
+        Instant ahora = Instant.now();
+        Notificacion.Prioridad prioridadFinal = prioridad != null ? prioridad : Notificacion.Prioridad.NORMAL;
+        ResultadoUpsert resultado = jdbcTemplate.queryForObject(SQL_UPSERT, NotificacionService::mapearUpsert,
+                UUID.randomUUID(), usuarioId, tipo.name(), titulo, mensaje, entidadId, entidadTipo, urlAccion,
+                prioridadFinal.name(), Timestamp.from(ahora));
+
+        Notificacion guardada = resultado.notificacion();
+        if (!resultado.insertada()) {
+            log.info("[NotificacionService] 🔄 Actualizando notificación existente en lugar de duplicar: id={}", guardada.getId());
+            return notificacionMapper.toDTO(guardada);
         }
-
-        Notificacion notificacion = Notificacion.builder()
-                .usuarioId(usuarioId)
-                .tipo(tipo)
-                .titulo(titulo)
-                .mensaje(mensaje)
-                .entidadId(entidadId)
-                .entidadTipo(entidadTipo)
-                .urlAccion(urlAccion)
-                .leida(false)
-                .prioridad(prioridad != null ? prioridad : Notificacion.Prioridad.NORMAL)
-                .build();
-
-        Notificacion guardada = notificacionRepository.save(notificacion);
         log.info("[NotificacionService] ✅ Notificación creada: id={}, tipo={}", guardada.getId(), tipo);
 
-        // Enviar email de forma asíncrona (best-effort, no bloquea)
-        try {
-            Usuario usuario = usuarioService.findUsuarioEntityById(usuarioId);
-            if (usuario != null && usuario.getEmail() != null) {
-                emailService.enviarNotificacionEmail(usuario, tipo, titulo, mensaje, urlAccion);
-            }
-        } catch (Exception e) {
-            log.warn("[NotificacionService] No se pudo enviar email para notificación: {}", e.getMessage());
-            // NO propagar el error - el email es secundario
+        // Encolar email en email_outbox (lo despacha EmailOutboxService).
+        // ⚠️ Sin try/catch: el INSERT corre en esta transacción y si falla Postgres ya la abortó;
+        // atraparlo solo movería el error al commit del llamador (notificación y email van juntos)
+        Usuario usuario = usuarioService.findUsuarioEntityById(usuarioId);
+        if (usuario != null && usuario.getEmail() != null) {
+            emailService.enviarNotificacionEmail(usuario, tipo, titulo, mensaje, urlAccion);
         }
 
         NotificacionDTO dto = notificacionMapper.toDTO(guardada);
@@ -116,16 +141,111 @@ public class NotificacionService {
     }
 
     /**
-     * Determina si un tipo de notificación debe validar duplicados
-     * Solo aplicamos esta lógica a notificaciones que tienden a generarse en masa
-     * o que pueden ser enviadas por múltiples instancias de la aplicación
+     * ⚡ Crear la misma notificación para varios usuarios con un único INSERT en batch.
+     *
+     * Los emails se encolan en email_outbox en esta misma transacción (preferencias de todos los
+     * destinatarios con una sola query) y los despacha EmailOutboxService. El WebSocket NO se hace
+     * acá: se publica {@link NotificacionesCreadasEvent} y NotificacionEventListener lo envía
+     * después del commit, en otro thread.
+     * Solo para tipos no deduplicados (cancelado, confirmado, actualizado, completado...).
+     *
+     * @return cantidad de notificaciones creadas
+     */
+    @Transactional
+    public int crearNotificacionesMasivas(
+            Collection<UUID> usuariosIds,
+            Notificacion.TipoNotificacion tipo,
+            String titulo,
+            String mensaje,
+            UUID entidadId,
+            String entidadTipo,
+            String urlAccion,
+            Notificacion.Prioridad prioridad
+    ) {
+        if (TIPOS_DEDUPLICADOS.contains(tipo)) {
+            throw new IllegalArgumentException("El tipo " + tipo + " es deduplicado, usar crearNotificacion");
+        }
+        if (usuariosIds == null || usuariosIds.isEmpty()) {
+            return 0;
+        }
+
+        Instant ahora = Instant.now();
+        Notificacion.Prioridad prioridadFinal = prioridad != null ? prioridad : Notificacion.Prioridad.NORMAL;
+        List<Notificacion> notificaciones = new LinkedHashSet<>(usuariosIds).stream()
+                .map(usuarioId -> Notificacion.builder()
+                        .id(UUID.randomUUID())
+                        .usuarioId(usuarioId)
+                        .tipo(tipo)
+                        .titulo(titulo)
+                        .mensaje(mensaje)
+                        .entidadId(entidadId)
+                        .entidadTipo(entidadTipo)
+                        .urlAccion(urlAccion)
+                        .leida(false)
+                        .prioridad(prioridadFinal)
+                        .createdAt(ahora)
+                        .build())
+                .collect(Collectors.toList());
+
+        jdbcTemplate.batchUpdate(SQL_INSERTAR, notificaciones, notificaciones.size(), (ps, n) -> {
+            ps.setObject(1, n.getId());
+            ps.setObject(2, n.getUsuarioId());
+            ps.setString(3, n.getTipo().name());
+            ps.setString(4, n.getTitulo());
+            ps.setString(5, n.getMensaje());
+            ps.setObject(6, n.getEntidadId());
+            ps.setString(7, n.getEntidadTipo());
+            ps.setString(8, n.getUrlAccion());
+            ps.setString(9, n.getPrioridad().name());
+            ps.setTimestamp(10, Timestamp.from(n.getCreatedAt()));
+        });
+        log.info("[NotificacionService] ✅ {} notificaciones creadas en bloque: tipo={}, entidad={}",
+                notificaciones.size(), tipo, entidadId);
+
+        // Emails al outbox en la misma transacción (un error la aborta: se propaga, no se atrapa)
+        List<UsuarioRepository.DestinatarioEmailProjection> destinatarios =
+                usuarioRepository.findDestinatariosEmailByIds(
+                        notificaciones.stream().map(Notificacion::getUsuarioId).toList());
+        emailService.enviarNotificacionEmails(destinatarios, tipo, titulo, mensaje, urlAccion);
+
+        List<NotificacionDTO> dtos = notificaciones.stream()
+                .map(notificacionMapper::toDTO)
+                .collect(Collectors.toList());
+        applicationEventPublisher.publishEvent(
+                new NotificacionesCreadasEvent(this, dtos, tipo));
+        return dtos.size();
+    }
+
+    /**
+     * Entregar por WebSocket las notificaciones creadas en bloque.
+     * Lo llama NotificacionEventListener after-commit.
      */
-    private boolean debeValidarDuplicados(Notificacion.TipoNotificacion tipo) {
-        return tipo == Notificacion.TipoNotificacion.NUEVA_SOLICITUD ||
-               tipo == Notificacion.TipoNotificacion.JUGADOR_UNIDO ||
-               tipo == Notificacion.TipoNotificacion.NUEVO_MENSAJE ||
-               tipo == Notificacion.TipoNotificacion.INSCRIPCION_ACEPTADA || // ✅ FIX: Prevenir emails duplicados
-               tipo == Notificacion.TipoNotificacion.INSCRIPCION_RECHAZADA;
+    public void entregarNotificaciones(NotificacionesCreadasEvent event) {
+        for (NotificacionDTO dto : event.getNotificaciones()) {
+            // ✅ WebSocket: Notificar en tiempo real
+            webSocketEventPublisher.notifyNewNotification(dto.getUsuarioId().toString(), dto);
+        }
+    }
+
+    private record ResultadoUpsert(Notificacion notificacion, boolean insertada) {}
+
+    private static ResultadoUpsert mapearUpsert(ResultSet rs, int rowNum) throws SQLException {
+        Timestamp fechaLectura = rs.getTimestamp("fecha_lectura");
+        Notificacion notificacion = Notificacion.builder()
+                .id(rs.getObject("id", UUID.class))
+                .usuarioId(rs.getObject("usuario_id", UUID.class))
+                .tipo(Notificacion.TipoNotificacion.valueOf(rs.getString("tipo")))
+                .titulo(rs.getString("titulo"))
+                .mensaje(rs.getString("mensaje"))
+                .entidadId(rs.getObject("entidad_id", UUID.class))
+                .entidadTipo(rs.getString("entidad_tipo"))
+                .urlAccion(rs.getString("url_accion"))
+                .leida(rs.getBoolean("leida"))
+                .fechaLectura(fechaLectura != null ? fechaLectura.toInstant() : null)
+                .prioridad(Notificacion.Prioridad.valueOf(rs.getString("prioridad")))
+                .createdAt(rs.getTimestamp("created_at").toInstant())
+                .build();
+        return new ResultadoUpsert(notificacion, rs.getBoolean("insertada"));
     }
 
     /**
@@ -365,66 +485,58 @@ public class NotificacionService {
 
     @Transactional
     public void notificarPartidoCancelado(List<UUID> usuariosIds, UUID partidoId, String nombrePartido, String motivo) {
-        for (UUID usuarioId : usuariosIds) {
-            crearNotificacion(
-                    usuarioId,
-                    Notificacion.TipoNotificacion.PARTIDO_CANCELADO,
-                    "Partido cancelado",
-                    "El partido " + nombrePartido + " ha sido cancelado" + (motivo != null ? ": " + motivo : ""),
-                    partidoId,
-                    "PARTIDO",
-                    "/my-matches",
-                    Notificacion.Prioridad.ALTA
-            );
-        }
+        crearNotificacionesMasivas(
+                usuariosIds,
+                Notificacion.TipoNotificacion.PARTIDO_CANCELADO,
+                "Partido cancelado",
+                "El partido " + nombrePartido + " ha sido cancelado" + (motivo != null ? ": " + motivo : ""),
+                partidoId,
+                "PARTIDO",
+                "/my-matches",
+                Notificacion.Prioridad.ALTA
+        );
     }
 
     @Transactional
     public void notificarPartidoCompletado(List<UUID> usuariosIds, UUID partidoId, String nombrePartido) {
-        for (UUID usuarioId : usuariosIds) {
-            crearNotificacion(
-                    usuarioId,
-                    Notificacion.TipoNotificacion.REVIEW_PENDIENTE,
-                    "Partido completado",
-                    "Califica a los jugadores de " + nombrePartido,
-                    partidoId,
-                    "PARTIDO",
-                    "/matches/" + partidoId + "/review",
-                    Notificacion.Prioridad.NORMAL
-            );
-        }
+        crearNotificacionesMasivas(
+                usuariosIds,
+                Notificacion.TipoNotificacion.REVIEW_PENDIENTE,
+                "Partido completado",
+                "Califica a los jugadores de " + nombrePartido,
+                partidoId,
+                "PARTIDO",
+                "/matches/" + partidoId + "/review",
+                Notificacion.Prioridad.NORMAL
+        );
     }
 
     @Transactional
     public void notificarPartidoConfirmado(List<UUID> usuariosIds, UUID partidoId, String nombrePartido) {
-        for (UUID usuarioId : usuariosIds) {
-            crearNotificacion(
-                    usuarioId,
-                    Notificacion.TipoNotificacion.PARTIDO_CONFIRMADO,
-                    "Partido confirmado",
-                    "El partido " + nombrePartido + " ha sido confirmado por el organizador",
-                    partidoId,
-                    "PARTIDO",
-                    "/matches/" + partidoId,
-                    Notificacion.Prioridad.ALTA
-            );
-        }
+        crearNotificacionesMasivas(
+                usuariosIds,
+                Notificacion.TipoNotificacion.PARTIDO_CONFIRMADO,
+                "Partido confirmado",
+                "El partido " + nombrePartido + " ha sido confirmado por el organizador",
+                partidoId,
+                "PARTIDO",
+                "/matches/" + partidoId,
+                Notificacion.Prioridad.ALTA
+        );
     }
 
     @Transactional
     public void notificarPartidoActualizado(List<UUID> usuariosIds, UUID partidoId, String nombrePartido) {
-        for (UUID usuarioId : usuariosIds) {
-            crearNotificacion(
-                    usuarioId,
-                    Notificacion.TipoNotificacion.PARTIDO_ACTUALIZADO,
-                    "Partido actualizado",
-                    "El partido " + nombrePartido + " ha sido modificado. Revisa los cambios",
-                    partidoId,
-                    "PARTIDO",
-                    "/matches/" + partidoId,
-                    Notificacion.Prioridad.NORMAL
-            );
-        }
+        crearNotificacionesMasivas(
+                usuariosIds,
+                Notificacion.TipoNotificacion.PARTIDO_ACTUALIZADO,
+                "Partido actualizado",
+                "El partido " + nombrePartido + " ha sido modificado. Revisa los cambios",
+                partidoId,
+                "PARTIDO",
+                "/matches/" + partidoId,
+                Notificacion.Prioridad.NORMAL
+        );
     }
 
     @Transactional
@@ -472,25 +584,18 @@ public class NotificacionService {
     @Transactional(propagation = org.springframework.transaction.annotation.Propagation.REQUIRES_NEW)
     public void notificarNuevoMensaje(UUID usuarioId, UUID partidoId, String nombrePartido, String remitente) {
         try {
-            // Evitar spam: no notificar si ya existe una notificación reciente de mensaje
-            boolean existe = notificacionRepository.existeNotificacion(
-                    usuarioId, 
-                    partidoId, 
-                    Notificacion.TipoNotificacion.NUEVO_MENSAJE.name()
+            // Evitar spam: si ya hay una notificación de mensaje sin leer para el partido,
+            // crearNotificacion la actualiza (NUEVO_MENSAJE es un tipo deduplicado)
+            crearNotificacion(
+                    usuarioId,
+                    Notificacion.TipoNotificacion.NUEVO_MENSAJE,
+                    "Nuevo mensaje",
+                    remitente + " escribió en " + nombrePartido,
+                    partidoId,
+                    "PARTIDO",
+                    "/matches/" + partidoId,
+                    Notificacion.Prioridad.BAJA
             );
-            
-            if (!existe) {
-                crearNotificacion(
-                        usuarioId,
-                        Notificacion.TipoNotificacion.NUEVO_MENSAJE,
-                        "Nuevo mensaje",
-                        remitente + " escribió en " + nombrePartido,
-                        partidoId,
-                        "PARTIDO",
-                        "/matches/" + partidoId,
-                        Notificacion.Prioridad.BAJA
-                );
-            }
         } catch (Exception e) {
             log.error("[NotificacionService] Error creando notificación de mensaje: {}", e.getMessage());
             // No propagar la excepción para evitar rollback de la transacción principal
@@ -32,6 +32,7 @@ public class ObservabilityService {
     private final CacheManager cacheManager;
     private final PartidoService partidoService;
     private final UsuarioService usuarioService;
+    private final PresenciaTracker presenciaTracker;
     
     // Contadores en memoria para métricas de performance
     private final Map<String, AtomicLong> endpointCalls = new ConcurrentHashMap<>();
@@ -217,13 +218,13 @@ public class ObservabilityService {
             long weeklyActive = usuarioService.contarUsuariosConActividadReciente(7);
             log.info("[OBSERVABILITY] Weekly active: {}", weeklyActive);
             
-            log.info("[OBSERVABILITY] Contando usuarios diarios...");
+            // ⚠️ Globales desde la base: PresenciaTracker cuenta solo esta instancia
+            // (sus ventanas se exportan como gauges por instancia, faltauno_usuarios_activos)
             long dailyActive = usuarioService.contarUsuariosConActividadReciente(1);
-            log.info("[OBSERVABILITY] Daily active: {}", dailyActive);
-            
-            log.info("[OBSERVABILITY] Contando usuarios online...");
-            long onlineNow = usuarioService.contarUsuariosConectados(); // Últimos 5 minutos
-            log.info("[OBSERVABILITY] Online now: {}", onlineNow);
+            long hourlyActive = usuarioService.contarUsuariosConActividadEnMinutos(60);
+            long onlineNow = usuarioService.contarUsuariosConectados();
+            log.info("[OBSERVABILITY] Daily active: {} | Hourly active: {} | Online now: {} | WebSocket (esta instancia): {}",
+                    dailyActive, hourlyActive, onlineNow, presenciaTracker.sesionesWebSocketAbiertas());
             
             // Por país (simulado - requeriría geolocalización)
             log.info("[OBSERVABILITY] Calculando distribución por país...");
@@ -257,6 +258,7 @@ public class ObservabilityService {
             return UserMetrics.builder()
                     .activeUsers(activeUsers)
                     .dailyActiveUsers(dailyActive)
+                    .hourlyActiveUsers(hourlyActive)
                     .weeklyActiveUsers(weeklyActive)
                     .onlineUsers(onlineNow)
                     .usersByCountry(byCountry)
@@ -588,6 +590,7 @@ public class ObservabilityService {
         return UserMetrics.builder()
                 .activeUsers(0L)
                 .dailyActiveUsers(0L)
+                .hourlyActiveUsers(0L)
                 .weeklyActiveUsers(0L)
                 .onlineUsers(0L)
                 .usersByCountry(new HashMap<>())
@@ -6,8 +6,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
@@ -15,19 +17,27 @@ import org.springframework.transaction.annotation.Transactional;
 import uy.um.faltauno.config.CacheNames;
 import uy.um.faltauno.config.CustomUserDetailsService;
 import uy.um.faltauno.dto.PartidoDTO;
+import uy.um.faltauno.dto.PartidosPorDiaDTO;
 import uy.um.faltauno.dto.UsuarioMinDTO;
 import uy.um.faltauno.entity.Inscripcion;
 import uy.um.faltauno.entity.Partido;
+import uy.um.faltauno.entity.PartidoDiario;
 import uy.um.faltauno.entity.Review;
 import uy.um.faltauno.entity.Usuario;
+import uy.um.faltauno.event.PartidoEstadoCambiadoEvent;
 import uy.um.faltauno.repository.InscripcionRepository;
 import uy.um.faltauno.repository.MensajeRepository;
+import uy.um.faltauno.repository.PartidoDiarioRepository;
 import uy.um.faltauno.repository.PartidoRepository;
 import uy.um.faltauno.repository.ReviewRepository;
 import uy.um.faltauno.repository.UsuarioRepository;
+import uy.um.faltauno.util.GeoUtils;
+import uy.um.faltauno.util.PartidoCursor;
 import uy.um.faltauno.util.PartidoMapper;
+import uy.um.faltauno.util.FotoPerfilUtils;
 
 import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 
 import java.math.BigDecimal;
@@ -36,6 +46,7 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
@@ -51,12 +62,27 @@ public class PartidoService {
     private final InscripcionRepository inscripcionRepository;
     private final MensajeRepository mensajeRepository;
     private final ReviewRepository reviewRepository;
+    private final PartidoDiarioRepository partidoDiarioRepository;
     private final PartidoMapper partidoMapper;
     private final NotificacionService notificacionService;
     private final ReviewService reviewService;
     private final uy.um.faltauno.websocket.WebSocketEventPublisher webSocketEventPublisher;
     
     private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    
+    // ⚡ Límites de la búsqueda por radio
+    private static final double MAX_RADIO_BUSQUEDA_KM = 200.0;
+    private static final int MAX_CELDAS_BUSQUEDA = 400;
+    
+    // Máximo de días de la serie diaria de admin
+    private static final int MAX_DIAS_SERIE = 366;
+    
+    // Orden estable del listado, coincide con la tupla del cursor keyset
+    private static final Sort ORDEN_KEYSET = Sort.by(Sort.Direction.ASC, "fecha", "hora", "id");
+
+    // Ids por query IN (pgJDBC admite hasta 32767 parámetros; el listado de admin trae todos los partidos)
+    private static final int LOTE_CONTEOS = 500;
     
     // Lazy injection to avoid circular dependency
     private UsuarioService usuarioService;
@@ -113,6 +139,8 @@ public class PartidoService {
         Partido guardado = partidoRepository.save(partido);
         log.info("Partido creado: id={}, tipo={}, fecha={}", 
                 guardado.getId(), guardado.getTipoPartido(), guardado.getFecha());
+        applicationEventPublisher.publishEvent(new PartidoEstadoCambiadoEvent(
+                this, guardado.getId(), null, guardado.getEstado(), guardado.getFecha()));
 
         // ✅ Crear inscripción automática para el organizador
         Inscripcion inscripcionOrganizador = Inscripcion.builder()
@@ -159,7 +187,7 @@ public class PartidoService {
         List<UsuarioMinDTO> jugadores = inscripciones.stream()
             .map(i -> {
                 Usuario u = i.getUsuario();
-                return new UsuarioMinDTO(u.getId(), u.getNombre(), u.getApellido(), encodeFotoPerfil(u.getFotoPerfil()));
+                return new UsuarioMinDTO(u.getId(), u.getNombre(), u.getApellido(), FotoPerfilUtils.url(u));
             })
             .toList();
 
@@ -179,7 +207,8 @@ public class PartidoService {
     @Transactional(readOnly = true)
     @Cacheable(
         cacheNames = CacheNames.PARTIDOS_DISPONIBLES,
-        key = "#tipoPartido + '_' + #nivel + '_' + #genero + '_' + #fecha + '_' + #estado + '_' + #search",
+        key = "#tipoPartido + '_' + #nivel + '_' + #genero + '_' + #fecha + '_' + #estado + '_' + #search"
+            + " + '_' + #latitud + '_' + #longitud + '_' + #radioKm + '_' + #cursor + '_' + #pageable",
         unless = "#result.isEmpty()"
     )
     public List<PartidoDTO> listarPartidos(
@@ -192,10 +221,27 @@ public class PartidoService {
             Double latitud,
             Double longitud,
             Double radioKm,
+            String cursor,
             Pageable pageable) {
 
-        log.debug("[PartidoService] Listando partidos: tipo={}, nivel={}, genero={}, fecha={}, estado={}, search={}", 
-                tipoPartido, nivel, genero, fecha, estado, search);
+        log.debug("[PartidoService] Listando partidos: tipo={}, nivel={}, genero={}, fecha={}, estado={}, search={}, lat={}, lng={}, radioKm={}", 
+                tipoPartido, nivel, genero, fecha, estado, search, latitud, longitud, radioKm);
+
+        // ⚡ Búsqueda por cercanía: bounding box + celdas indexadas en SQL, haversine exacto en memoria
+        boolean busquedaPorRadio = latitud != null && longitud != null && radioKm != null && radioKm > 0;
+        double radioEfectivoKm = busquedaPorRadio ? Math.min(radioKm, MAX_RADIO_BUSQUEDA_KM) : 0;
+        GeoUtils.BoundingBox box = busquedaPorRadio
+                ? GeoUtils.boundingBox(latitud, longitud, radioEfectivoKm)
+                : null;
+        List<Long> celdas = box != null
+                ? GeoUtils.celdasEnBoundingBox(box, MAX_CELDAS_BUSQUEDA)
+                : null;
+
+        // ⚡ Paginación keyset sobre (fecha, hora, id): cada página cuesta O(tamaño de página)
+        // (la búsqueda por radio ordena por distancia y pagina por offset sobre el bounding box)
+        PartidoCursor posicion = !busquedaPorRadio && cursor != null && !cursor.isBlank()
+                ? PartidoCursor.decode(cursor)
+                : null;
 
         Specification<Partido> spec = (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
@@ -249,10 +295,41 @@ public class PartidoService {
                 }
             }
 
+            // Filtro por radio: celdas de la grilla (usa idx_partido_geo_celda_fecha) + bounding box
+            if (box != null) {
+                if (celdas != null) {
+                    predicates.add(root.get("geoCelda").in(celdas));
+                }
+                predicates.add(cb.between(root.get("latitud"),
+                        BigDecimal.valueOf(box.minLat()), BigDecimal.valueOf(box.maxLat())));
+                predicates.add(cb.between(root.get("longitud"),
+                        BigDecimal.valueOf(box.minLng()), BigDecimal.valueOf(box.maxLng())));
+            }
+
+            // Keyset: (fecha, hora, id) > posición del cursor (usa idx_partido_fecha_hora)
+            if (posicion != null) {
+                Path<LocalDate> f = root.get("fecha");
+                Path<LocalTime> h = root.get("hora");
+                Path<UUID> id = root.get("id");
+                predicates.add(cb.greaterThanOrEqualTo(f, posicion.fecha()));
+                predicates.add(cb.or(
+                        cb.greaterThan(f, posicion.fecha()),
+                        cb.and(cb.equal(f, posicion.fecha()), cb.greaterThan(h, posicion.hora())),
+                        cb.and(cb.equal(f, posicion.fecha()), cb.equal(h, posicion.hora()), cb.greaterThan(id, posicion.id()))
+                ));
+            }
+
             return cb.and(predicates.toArray(new Predicate[0]));
         };
 
-        List<Partido> partidos = partidoRepository.findAll(spec);
+        List<Partido> partidos;
+        if (busquedaPorRadio) {
+            // Acotado por el bounding box; el orden por distancia se resuelve en memoria
+            partidos = partidoRepository.findAll(spec);
+        } else {
+            int tamanoPagina = PartidoCursor.tamanoPagina(pageable);
+            partidos = partidoRepository.findBy(spec, q -> q.sortBy(ORDEN_KEYSET).limit(tamanoPagina).all());
+        }
         
         log.debug("[PartidoService.listarPartidos] Partidos encontrados: {}", partidos.size());
         
@@ -263,14 +340,66 @@ public class PartidoService {
             }
         }
         
+        if (busquedaPorRadio) {
+            return listarPorDistancia(partidos, latitud, longitud, radioEfectivoKm, pageable);
+        }
+        
+        // ⚡ PERFORMANCE: Un solo COUNT agrupado para toda la página (evita 1+N)
+        Map<UUID, Long> jugadoresPorPartido = contarJugadoresPorPartido(partidos);
+        
         List<PartidoDTO> resultado = partidos.stream()
-                .map(this::entityToDtoCompleto)
+                .map(p -> entityToDtoCompleto(p, jugadoresPorPartido))
                 .collect(Collectors.toList());
         
         log.debug("[PartidoService.listarPartidos] DTOs generados: {}", resultado.size());
         return resultado;
     }
 
+    /**
+     * Filtrar los candidatos del bounding box por distancia exacta (haversine),
+     * ordenarlos del más cercano al más lejano y devolver solo la página pedida.
+     */
+    private List<PartidoDTO> listarPorDistancia(List<Partido> candidatos, double latitud, double longitud,
+                                                double radioKm, Pageable pageable) {
+        Map<UUID, Double> distancias = new HashMap<>();
+        List<Partido> cercanos = new ArrayList<>();
+        for (Partido p : candidatos) {
+            if (p.getLatitud() == null || p.getLongitud() == null) {
+                continue;
+            }
+            double distancia = GeoUtils.haversineKm(latitud, longitud,
+                    p.getLatitud().doubleValue(), p.getLongitud().doubleValue());
+            if (distancia <= radioKm) {
+                distancias.put(p.getId(), distancia);
+                cercanos.add(p);
+            }
+        }
+
+        cercanos.sort(Comparator
+                .comparingDouble((Partido p) -> distancias.get(p.getId()))
+                .thenComparing(Partido::getFecha)
+                .thenComparing(Partido::getHora));
+
+        List<Partido> pagina = cercanos;
+        if (pageable != null && pageable.isPaged()) {
+            int desde = (int) Math.min(pageable.getOffset(), cercanos.size());
+            int hasta = Math.min(desde + pageable.getPageSize(), cercanos.size());
+            pagina = cercanos.subList(desde, hasta);
+        }
+
+        log.debug("[PartidoService.listarPorDistancia] Candidatos bbox: {}, dentro del radio: {}, página: {}",
+                candidatos.size(), cercanos.size(), pagina.size());
+
+        Map<UUID, Long> jugadoresPorPartido = contarJugadoresPorPartido(pagina);
+        return pagina.stream()
+                .map(p -> {
+                    PartidoDTO dto = entityToDtoCompleto(p, jugadoresPorPartido);
+                    dto.setDistanciaKm(Math.round(distancias.get(p.getId()) * 100.0) / 100.0);
+                    return dto;
+                })
+                .collect(Collectors.toList());
+    }
+
     /**
      * Listar partidos de un usuario (creados e inscritos)
      */
@@ -309,8 +438,11 @@ public class PartidoService {
 
             log.debug("[PartidoService.listarPartidosPorUsuario] Total partidos únicos: {}", todosPartidos.size());
 
+            // ⚡ PERFORMANCE: Un solo COUNT agrupado para todos los partidos del usuario
+            Map<UUID, Long> jugadoresPorPartido = contarJugadoresPorPartido(todosPartidos);
+
             List<PartidoDTO> resultado = todosPartidos.stream()
-                    .map(this::entityToDtoCompleto)
+                    .map(p -> entityToDtoCompleto(p, jugadoresPorPartido))
                     .sorted((a, b) -> {
                         // Ordenar por fecha descendente
                         LocalDateTime dateA = LocalDateTime.of(a.getFecha(), a.getHora());
@@ -473,8 +605,11 @@ public class PartidoService {
         }
 
         // Cambiar estado a CANCELADO
+        String estadoAnterior = partido.getEstado();
         partido.setEstado("CANCELADO");
         partidoRepository.save(partido);
+        applicationEventPublisher.publishEvent(new PartidoEstadoCambiadoEvent(
+                this, partido.getId(), estadoAnterior, "CANCELADO", partido.getFecha()));
 
         log.info("Partido cancelado: id={}, motivo={}", id, motivo);
         
@@ -523,8 +658,11 @@ public class PartidoService {
         }
 
         // Cambiar estado a COMPLETADO
+        String estadoAnterior = partido.getEstado();
         partido.setEstado("COMPLETADO");
         partidoRepository.save(partido);
+        applicationEventPublisher.publishEvent(new PartidoEstadoCambiadoEvent(
+                this, partido.getId(), estadoAnterior, "COMPLETADO", partido.getFecha()));
 
         log.info("Partido completado manualmente: id={}", id);
         
@@ -585,8 +723,11 @@ public class PartidoService {
         }
 
         // Cambiar estado a CONFIRMADO
+        String estadoAnterior = partido.getEstado();
         partido.setEstado("CONFIRMADO");
         partidoRepository.save(partido);
+        applicationEventPublisher.publishEvent(new PartidoEstadoCambiadoEvent(
+                this, partido.getId(), estadoAnterior, "CONFIRMADO", partido.getFecha()));
         
         log.info("Partido {} confirmado manualmente por organizador {}", id, userId);
 
@@ -629,7 +770,7 @@ public class PartidoService {
                         u.getId(),
                         u.getNombre(),
                         u.getApellido(),
-                        encodeFotoPerfil(u.getFotoPerfil())
+                        FotoPerfilUtils.url(u)
                     );
                 })
                 .collect(Collectors.toList());
@@ -692,6 +833,8 @@ public class PartidoService {
 
         partidoRepository.delete(partido);
         log.info("Partido eliminado: id={}", id);
+        applicationEventPublisher.publishEvent(new PartidoEstadoCambiadoEvent(
+                this, partido.getId(), partido.getEstado(), null, partido.getFecha()));
     }
 
     /**
@@ -774,8 +917,11 @@ public class PartidoService {
                         partido.getId(), jugadores, minimo);
                 
                 // Cambiar estado a CANCELADO
+                String estadoAnterior = partido.getEstado();
                 partido.setEstado("CANCELADO");
                 partidoRepository.save(partido);
+                applicationEventPublisher.publishEvent(new PartidoEstadoCambiadoEvent(
+                        this, partido.getId(), estadoAnterior, "CANCELADO", partido.getFecha()));
                 
                 // Notificar jugadores de la cancelación automática
                 List<Inscripcion> inscripciones = inscripcionRepository.findByPartidoId(partido.getId());
@@ -892,14 +1038,24 @@ public class PartidoService {
     }
 
     private PartidoDTO entityToDtoCompleto(Partido partido) {
+        // ✅ PERFORMANCE: Usar COUNT query optimizada
+        long jugadoresActuales = inscripcionRepository
+            .countByPartidoId(partido.getId());
+        return entityToDtoCompleto(partido, Map.of(partido.getId(), jugadoresActuales));
+    }
+
+    /**
+     * Mapeo completo usando conteos de jugadores ya precargados.
+     * Los listados deben usar esta variante junto con {@link #contarJugadoresPorPartido}
+     * para no ejecutar un COUNT por cada fila.
+     */
+    private PartidoDTO entityToDtoCompleto(Partido partido, Map<UUID, Long> jugadoresPorPartido) {
         log.debug("[PartidoService.entityToDtoCompleto] Iniciando mapeo para partido: {}", partido.getId());
         
         PartidoDTO dto = partidoMapper.toDto(partido);
         log.debug("[PartidoService.entityToDtoCompleto] Mapper completado");
         
-        // ✅ PERFORMANCE: Usar COUNT query optimizada
-        long jugadoresActuales = inscripcionRepository
-            .countByPartidoId(partido.getId());
+        long jugadoresActuales = jugadoresPorPartido.getOrDefault(partido.getId(), 0L);
         dto.setJugadoresActuales((int) jugadoresActuales);
         log.debug("[PartidoService.entityToDtoCompleto] Jugadores actuales: {}", jugadoresActuales);
         
@@ -909,22 +1065,14 @@ public class PartidoService {
             log.debug("[PartidoService.entityToDtoCompleto] Procesando organizador: {}", org.getId());
             // ✅ FIX: Ahora el organizador SE CARGA con JOIN FETCH en los repository methods
             // Por lo tanto podemos acceder a nombre/apellido sin LazyInitializationException
-            // ✅ NUEVO: Incluir foto_perfil del organizador para mostrar en frontend
-            String fotoPerfil = null;
-            if (org.getFotoPerfil() != null) {
-                try {
-                    fotoPerfil = java.util.Base64.getEncoder().encodeToString(org.getFotoPerfil());
-                    log.debug("[PartidoService] Foto de organizador incluida en DTO");
-                } catch (Exception e) {
-                    log.warn("[PartidoService] Error codificando foto del organizador: {}", e.getMessage());
-                }
-            }
+            // ⚡ Solo la URL versionada de la foto (sin Base64: no infla el JSON ni el caché)
+            String fotoUrl = FotoPerfilUtils.url(org);
             
             UsuarioMinDTO orgMin = new UsuarioMinDTO(
                 org.getId(),
                 org.getNombre(),
                 org.getApellido(),
-                fotoPerfil
+                fotoUrl
             );
             dto.setOrganizador(orgMin);
         } else {
@@ -943,18 +1091,26 @@ public class PartidoService {
     }
 
     /**
-     * Helper method to safely encode foto_perfil to Base64
+     * ⚡ PERFORMANCE: Obtener jugadores actuales de varios partidos con un COUNT agrupado
+     * por cada {@link #LOTE_CONTEOS} partidos.
+     * Los partidos sin inscripciones quedan fuera del mapa (usar getOrDefault(id, 0L)).
      */
-    private String encodeFotoPerfil(byte[] fotoPerfil) {
-        if (fotoPerfil == null) {
-            return null;
+    private Map<UUID, Long> contarJugadoresPorPartido(Collection<Partido> partidos) {
+        if (partidos.isEmpty()) {
+            return Collections.emptyMap();
         }
-        try {
-            return java.util.Base64.getEncoder().encodeToString(fotoPerfil);
-        } catch (Exception e) {
-            log.warn("[PartidoService] Error encoding foto_perfil: {}", e.getMessage());
-            return null;
+        List<UUID> ids = partidos.stream()
+                .map(Partido::getId)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<UUID, Long> jugadores = HashMap.newHashMap(ids.size());
+        for (int desde = 0; desde < ids.size(); desde += LOTE_CONTEOS) {
+            List<UUID> lote = ids.subList(desde, Math.min(desde + LOTE_CONTEOS, ids.size()));
+            for (InscripcionRepository.PartidoCount c : inscripcionRepository.countByPartidoIds(lote)) {
+                jugadores.put(c.getPartidoId(), c.getTotal());
+            }
         }
+        return jugadores;
     }
 
     public Partido findById(UUID id){
@@ -971,9 +1127,14 @@ public class PartidoService {
         log.info("[ADMIN] Listando todos los partidos");
         
         List<Partido> partidos = partidoRepository.findAll();
+        Map<UUID, Long> jugadoresPorPartido = contarJugadoresPorPartido(partidos);
         
         return partidos.stream()
-                .map(partidoMapper::toDto)
+                .map(p -> {
+                    PartidoDTO dto = partidoMapper.toDto(p);
+                    dto.setJugadoresActuales(jugadoresPorPartido.getOrDefault(p.getId(), 0L).intValue());
+                    return dto;
+                })
                 .collect(Collectors.toList());
     }
     
@@ -987,14 +1148,13 @@ public class PartidoService {
     
     /**
      * Contar partidos de hoy
+     *
+     * ⚡ Desde el rollup partido_diario (no carga la tabla partido)
      */
     @Transactional(readOnly = true)
     public long contarPartidosHoy() {
         LocalDate today = LocalDate.now();
-        
-        return partidoRepository.findAll().stream()
-                .filter(p -> p.getFecha().equals(today))
-                .count();
+        return partidoDiarioRepository.sumProgramados(today, today);
     }
     
     /**
@@ -1005,10 +1165,7 @@ public class PartidoService {
         LocalDate today = LocalDate.now();
         LocalDate startOfWeek = today.with(java.time.DayOfWeek.MONDAY);
         LocalDate endOfWeek = today.with(java.time.DayOfWeek.SUNDAY);
-        
-        return partidoRepository.findAll().stream()
-                .filter(p -> !p.getFecha().isBefore(startOfWeek) && !p.getFecha().isAfter(endOfWeek))
-                .count();
+        return partidoDiarioRepository.sumProgramados(startOfWeek, endOfWeek);
     }
     
     /**
@@ -1019,10 +1176,41 @@ public class PartidoService {
         LocalDate today = LocalDate.now();
         LocalDate startOfMonth = today.withDayOfMonth(1);
         LocalDate endOfMonth = today.withDayOfMonth(today.lengthOfMonth());
-        
-        return partidoRepository.findAll().stream()
-                .filter(p -> !p.getFecha().isBefore(startOfMonth) && !p.getFecha().isAfter(endOfMonth))
-                .count();
+        return partidoDiarioRepository.sumProgramados(startOfMonth, endOfMonth);
+    }
+    
+    /**
+     * Serie diaria de partidos entre dos fechas (inclusive) para los gráficos de admin.
+     * Días sin partidos se devuelven en cero para que la serie sea continua.
+     */
+    @Transactional(readOnly = true)
+    public List<PartidosPorDiaDTO> obtenerSerieDiaria(LocalDate desde, LocalDate hasta) {
+        if (desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("La fecha desde no puede ser posterior a hasta");
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) >= MAX_DIAS_SERIE) {
+            throw new IllegalArgumentException("El rango no puede superar " + MAX_DIAS_SERIE + " días");
+        }
+
+        Map<LocalDate, PartidosPorDiaDTO> porDia = new LinkedHashMap<>();
+        for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+            porDia.put(dia, PartidosPorDiaDTO.builder()
+                    .dia(dia.toString())
+                    .programadosPorTipo(new HashMap<>())
+                    .build());
+        }
+
+        for (PartidoDiario fila : partidoDiarioRepository.findByDiaBetweenOrderByDiaAscTipoPartidoAsc(desde, hasta)) {
+            PartidosPorDiaDTO dto = porDia.get(fila.getDia());
+            dto.setCreados(dto.getCreados() + fila.getCreados());
+            dto.setProgramados(dto.getProgramados() + fila.getProgramados());
+            dto.setCancelados(dto.getCancelados() + fila.getCancelados());
+            dto.setCompletados(dto.getCompletados() + fila.getCompletados());
+            if (fila.getProgramados() > 0) {
+                dto.getProgramadosPorTipo().merge(fila.getTipoPartido(), (long) fila.getProgramados(), Long::sum);
+            }
+        }
+        return new ArrayList<>(porDia.values());
     }
     
     /**
@@ -1061,5 +1249,7 @@ public class PartidoService {
         // 4. Finalmente eliminar el partido
         partidoRepository.delete(partido);
         log.info("[ADMIN] Partido {} eliminado exitosamente", id);
+        applicationEventPublisher.publishEvent(new PartidoEstadoCambiadoEvent(
+                this, partido.getId(), partido.getEstado(), null, partido.getFecha()));
     }
 }
@@ -10,6 +10,7 @@ import uy.um.faltauno.entity.PasswordResetToken;
 import uy.um.faltauno.entity.Usuario;
 import uy.um.faltauno.repository.PasswordResetTokenRepository;
 import uy.um.faltauno.repository.UsuarioRepository;
+import uy.um.faltauno.security.AuthStateCache;
 
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
@@ -24,6 +25,7 @@ public class PasswordResetService {
     private final UsuarioRepository usuarioRepository;
     private final EmailService emailService;
     private final PasswordEncoder passwordEncoder;
+    private final AuthStateCache authStateCache;
 
     @Value("${app.frontend.url:https://faltauno-frontend-169771742214.us-central1.run.app}")
     private String frontendUrl;
@@ -174,6 +176,7 @@ public class PasswordResetService {
         // Actualizar contraseña
         usuario.setPassword(passwordEncoder.encode(nuevaPassword));
         usuarioRepository.save(usuario);
+        authStateCache.invalidar(usuario.getId());
 
         // Marcar código como usado
         resetToken.setUsado(true);
@@ -206,6 +209,7 @@ public class PasswordResetService {
         // Actualizar contraseña
         usuario.setPassword(passwordEncoder.encode(nuevaPassword));
         usuarioRepository.save(usuario);
+        authStateCache.invalidar(usuario.getId());
 
         // Marcar token como usado
         resetToken.setUsado(true);
@@ -0,0 +1,237 @@
+package uy.um.faltauno.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.AbstractSubProtocolEvent;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ⚡ Presencia de usuarios en memoria ("online ahora", última hora, últimas 24 horas) sin SQL.
+ *
+ * Fuentes:
+ * - Actividad HTTP (ActivityTrackingInterceptor)
+ * - Sesiones STOMP: connect/disconnect; mientras la sesión está abierta el usuario
+ *   cuenta como activo (se renueva cada minuto)
+ *
+ * Estructura: cada usuario se cuenta en un único bucket, el del minuto de su última actividad.
+ * Un anillo de 1440 buckets (24 h) permite contar usuarios distintos de cualquier ventana
+ * sumando los buckets del rango, sin uniones de sets.
+ *
+ * Al arrancar se carga la actividad de las últimas 24 h desde usuario.last_activity_at
+ * (una única query), así las ventanas son correctas aunque la instancia sea nueva.
+ * ⚠️ Los conteos son por instancia: solo alimentan los gauges faltauno_usuarios_activos{ventana}.
+ * Los conteos globales (admin, observabilidad) salen de usuario.last_activity_at; por eso los usuarios
+ * con sesión STOMP abierta también se registran cada minuto en {@link ActividadBuffer}.
+ */
+@Component
+@Slf4j
+public class PresenciaTracker {
+
+    public enum Ventana {
+        CINCO_MINUTOS(5, "5m"),
+        UNA_HORA(60, "1h"),
+        UN_DIA(1440, "24h");
+
+        private final int minutos;
+        private final String etiqueta;
+
+        Ventana(int minutos, String etiqueta) {
+            this.minutos = minutos;
+            this.etiqueta = etiqueta;
+        }
+    }
+
+    private static final int MINUTOS_RETENIDOS = 1440;
+    private static final int MAX_USUARIOS = 100_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ActividadBuffer actividadBuffer;
+
+    /** Minuto (epoch) de la última actividad de cada usuario */
+    private final ConcurrentHashMap<UUID, Long> ultimoMinuto = new ConcurrentHashMap<>();
+
+    /** Anillo de buckets: cantidad de usuarios cuya última actividad cae en ese minuto. Guardado por this */
+    private final long[] usuariosPorMinuto = new long[MINUTOS_RETENIDOS];
+    private final long[] minutoDelBucket = new long[MINUTOS_RETENIDOS];
+
+    /** Sesiones STOMP abiertas: sessionId → usuario */
+    private final ConcurrentHashMap<String, UUID> sesionesWebSocket = new ConcurrentHashMap<>();
+
+    public PresenciaTracker(JdbcTemplate jdbcTemplate, ActividadBuffer actividadBuffer, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.actividadBuffer = actividadBuffer;
+        for (Ventana ventana : Ventana.values()) {
+            Gauge.builder("faltauno_usuarios_activos", this, t -> t.contar(ventana))
+                    .tag("ventana", ventana.etiqueta)
+                    .description("Usuarios distintos con actividad en la ventana (esta instancia)")
+                    .register(meterRegistry);
+        }
+        Gauge.builder("faltauno_websocket_sesiones", sesionesWebSocket, Map::size)
+                .description("Sesiones STOMP autenticadas abiertas")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registrar actividad del usuario ahora (llamado en cada request autenticado)
+     */
+    public void registrarActividad(UUID usuarioId) {
+        if (usuarioId != null) {
+            registrar(usuarioId, minutoActual());
+        }
+    }
+
+    /**
+     * Usuarios distintos con actividad en la ventana
+     */
+    public synchronized long contar(Ventana ventana) {
+        long ahora = minutoActual();
+        long total = 0;
+        for (long minuto = ahora - ventana.minutos + 1; minuto <= ahora; minuto++) {
+            int slot = slot(minuto);
+            if (minutoDelBucket[slot] == minuto) {
+                total += usuariosPorMinuto[slot];
+            }
+        }
+        return total;
+    }
+
+    public int sesionesWebSocketAbiertas() {
+        return sesionesWebSocket.size();
+    }
+
+    @EventListener
+    public void onConectado(SessionConnectedEvent event) {
+        UUID usuarioId = usuarioDe(event);
+        String sessionId = sessionIdDe(event);
+        if (usuarioId == null || sessionId == null) {
+            return;
+        }
+        sesionesWebSocket.put(sessionId, usuarioId);
+        registrarActividad(usuarioId);
+        actividadBuffer.registrar(usuarioId);
+    }
+
+    /**
+     * Spring puede publicar más de un disconnect por sesión: se indexa por sessionId
+     */
+    @EventListener
+    public void onDesconectado(SessionDisconnectEvent event) {
+        UUID usuarioId = sesionesWebSocket.remove(event.getSessionId());
+        if (usuarioId != null) {
+            registrarActividad(usuarioId);
+        }
+    }
+
+    /**
+     * Cada minuto: renovar a los usuarios con sesión STOMP abierta (acá y en last_activity_at,
+     * para los conteos globales) y podar los de hace más de 24 h
+     */
+    @Scheduled(fixedRate = 60000)
+    public void tick() {
+        long ahora = minutoActual();
+        for (UUID usuarioId : new HashSet<>(sesionesWebSocket.values())) {
+            registrar(usuarioId, ahora);
+            actividadBuffer.registrar(usuarioId);
+        }
+        synchronized (this) {
+            // Su bucket ya salió del anillo: solo hay que olvidarlos
+            ultimoMinuto.values().removeIf(minuto -> minuto <= ahora - MINUTOS_RETENIDOS);
+        }
+    }
+
+    /**
+     * Cargar la actividad de las últimas 24 h para no arrancar con las ventanas vacías
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarDesdeBase() {
+        try {
+            LocalDateTime corte = LocalDateTime.now().minusMinutes(MINUTOS_RETENIDOS);
+            jdbcTemplate.query(
+                    "SELECT id, last_activity_at FROM usuario WHERE last_activity_at > ? AND deleted_at IS NULL",
+                    rs -> {
+                        registrar(rs.getObject("id", UUID.class),
+                                minuto(rs.getTimestamp("last_activity_at").toLocalDateTime()));
+                    },
+                    Timestamp.valueOf(corte));
+            log.info("[PresenciaTracker] ✅ Presencia inicial cargada: {} usuarios en 24h", ultimoMinuto.size());
+        } catch (Exception e) {
+            log.warn("[PresenciaTracker] No se pudo cargar la presencia inicial: {}", e.getMessage());
+        }
+    }
+
+    private void registrar(UUID usuarioId, long minuto) {
+        Long previo = ultimoMinuto.get(usuarioId);
+        if (previo != null && previo >= minuto) {
+            return; // Ya contado en este minuto: sin lock
+        }
+        synchronized (this) {
+            previo = ultimoMinuto.get(usuarioId);
+            if (previo != null && previo >= minuto) {
+                return;
+            }
+            if (previo == null && ultimoMinuto.size() >= MAX_USUARIOS) {
+                return;
+            }
+            if (previo != null) {
+                int slotPrevio = slot(previo);
+                if (minutoDelBucket[slotPrevio] == previo && usuariosPorMinuto[slotPrevio] > 0) {
+                    usuariosPorMinuto[slotPrevio]--;
+                }
+            }
+            int slot = slot(minuto);
+            if (minutoDelBucket[slot] != minuto) {
+                // Bucket reciclado: pertenecía a un minuto de hace más de 24 h
+                minutoDelBucket[slot] = minuto;
+                usuariosPorMinuto[slot] = 0;
+            }
+            usuariosPorMinuto[slot]++;
+            ultimoMinuto.put(usuarioId, minuto);
+        }
+    }
+
+    private static UUID usuarioDe(AbstractSubProtocolEvent event) {
+        Principal user = event.getUser();
+        if (user == null) {
+            return null;
+        }
+        try {
+            // StompAuthChannelInterceptor usa el userId como nombre del principal
+            return UUID.fromString(user.getName());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String sessionIdDe(AbstractSubProtocolEvent event) {
+        Object sessionId = event.getMessage().getHeaders().get("simpSessionId");
+        return sessionId != null ? sessionId.toString() : null;
+    }
+
+    private static int slot(long minuto) {
+        return (int) Math.floorMod(minuto, (long) MINUTOS_RETENIDOS);
+    }
+
+    private static long minutoActual() {
+        return System.currentTimeMillis() / 60_000;
+    }
+
+    private static long minuto(LocalDateTime fecha) {
+        return fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() / 60_000;
+    }
+}
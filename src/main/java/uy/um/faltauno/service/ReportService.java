@@ -9,6 +9,7 @@ import uy.um.faltauno.entity.Report;
 import uy.um.faltauno.entity.Usuario;
 import uy.um.faltauno.repository.ReportRepository;
 import uy.um.faltauno.repository.UsuarioRepository;
+import uy.um.faltauno.util.FotoPerfilUtils;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
@@ -258,16 +259,13 @@ public class ReportService {
             return null;
         }
         
-        String fotoPerfil = null;
-        if (usuario.getFotoPerfil() != null && usuario.getFotoPerfil().length > 0) {
-            fotoPerfil = java.util.Base64.getEncoder().encodeToString(usuario.getFotoPerfil());
-        }
+        String fotoUrl = FotoPerfilUtils.url(usuario);
         
         return new UsuarioMinDTO(
             usuario.getId(),
             usuario.getNombre(),
             usuario.getApellido(),
-            fotoPerfil,
+            fotoUrl,
             usuario.getDeletedAt()
         );
     }
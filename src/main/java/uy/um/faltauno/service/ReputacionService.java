@@ -0,0 +1,194 @@
+package uy.um.faltauno.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import uy.um.faltauno.dto.ReputacionDTO;
+import uy.um.faltauno.entity.ReputacionUsuario;
+import uy.um.faltauno.repository.ReputacionUsuarioRepository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * ⚡ Reputación de usuarios desde el agregado reputacion_usuario (lectura por PK).
+ *
+ * El agregado lo mantiene un trigger sobre review (V44) en la misma transacción que cada
+ * alta/baja de review. {@link #reparar()} lo reconstruye desde review por lotes de usuarios,
+ * por si alguna escritura quedó fuera del trigger.
+ *
+ * ⚠️ Cada lote bloquea (FOR UPDATE) sus filas de reputacion_usuario ANTES de agregar: un trigger
+ * concurrente espera al commit del lote y suma sobre el valor reparado, en lugar de que la
+ * reparación lo pise con sumas calculadas sobre un snapshot viejo.
+ */
+@Service
+@Slf4j
+public class ReputacionService {
+
+    private static final int LOTE_REPARACION = 500;
+
+    private static final String SQL_LOTE_USUARIOS =
+            "SELECT id FROM usuario WHERE id > ? ORDER BY id LIMIT " + LOTE_REPARACION;
+
+    /**
+     * Asegurar que cada usuario del rango con reviews tenga fila: así un trigger concurrente siempre
+     * actualiza una fila existente (bloqueada por el lote) en vez de insertarla por su cuenta
+     */
+    private static final String SQL_ASEGURAR_FILAS = """
+            INSERT INTO reputacion_usuario (usuario_id)
+            SELECT DISTINCT r.usuario_calificado_id
+            FROM review r
+            WHERE r.usuario_calificado_id > ? AND r.usuario_calificado_id <= ?
+            ON CONFLICT (usuario_id) DO NOTHING
+            """;
+
+    /** Bloquear los agregados del rango hasta el commit del lote (orden fijo por PK) */
+    private static final String SQL_BLOQUEAR = """
+            SELECT usuario_id FROM reputacion_usuario
+            WHERE usuario_id > ? AND usuario_id <= ?
+            ORDER BY usuario_id
+            FOR UPDATE
+            """;
+
+    /** Recalcular desde review los agregados del rango (desde, hasta] que no coinciden */
+    private static final String SQL_RECALCULAR = """
+            INSERT INTO reputacion_usuario (usuario_id, total_reviews, suma_nivel, suma_deportividad, suma_companerismo, updated_at)
+            SELECT r.usuario_calificado_id, COUNT(*), SUM(r.nivel), SUM(r.deportividad), SUM(r.companerismo), now()
+            FROM review r
+            WHERE r.usuario_calificado_id > ? AND r.usuario_calificado_id <= ?
+            GROUP BY r.usuario_calificado_id
+            ON CONFLICT (usuario_id) DO UPDATE
+              SET total_reviews = EXCLUDED.total_reviews,
+                  suma_nivel = EXCLUDED.suma_nivel,
+                  suma_deportividad = EXCLUDED.suma_deportividad,
+                  suma_companerismo = EXCLUDED.suma_companerismo,
+                  updated_at = now()
+              WHERE (reputacion_usuario.total_reviews, reputacion_usuario.suma_nivel,
+                     reputacion_usuario.suma_deportividad, reputacion_usuario.suma_companerismo)
+                 IS DISTINCT FROM
+                    (EXCLUDED.total_reviews, EXCLUDED.suma_nivel,
+                     EXCLUDED.suma_deportividad, EXCLUDED.suma_companerismo)
+            """;
+
+    /** Poner en cero los agregados del rango cuyo usuario ya no tiene reviews */
+    private static final String SQL_VACIAR = """
+            UPDATE reputacion_usuario ru
+               SET total_reviews = 0, suma_nivel = 0, suma_deportividad = 0, suma_companerismo = 0, updated_at = now()
+             WHERE ru.usuario_id > ? AND ru.usuario_id <= ?
+               AND ru.total_reviews <> 0
+               AND NOT EXISTS (SELECT 1 FROM review r WHERE r.usuario_calificado_id = ru.usuario_id)
+            """;
+
+    private static final UUID UUID_MINIMO = new UUID(0L, 0L);
+
+    private final ReputacionUsuarioRepository reputacionUsuarioRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter corregidos;
+
+    public ReputacionService(ReputacionUsuarioRepository reputacionUsuarioRepository,
+                             JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry) {
+        this.reputacionUsuarioRepository = reputacionUsuarioRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.corregidos = meterRegistry.counter("faltauno_reputacion_corregidos_total");
+    }
+
+    /**
+     * Reputación de un usuario (sin reviews → todo en cero)
+     */
+    @Transactional(readOnly = true)
+    public ReputacionDTO obtener(UUID usuarioId) {
+        return reputacionUsuarioRepository.findById(usuarioId)
+                .map(ReputacionService::toDTO)
+                .orElseGet(() -> ReputacionDTO.builder().build());
+    }
+
+    /**
+     * Estadísticas de reviews en el formato de /api/reviews/estadisticas
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> estadisticas(UUID usuarioId) {
+        ReputacionDTO r = obtener(usuarioId);
+        return Map.of(
+            "total_reviews", r.getTotalReviews(),
+            "promedio_nivel", r.getPromedioNivel(),
+            "promedio_deportividad", r.getPromedioDeportividad(),
+            "promedio_companerismo", r.getPromedioCompanerismo(),
+            "promedio_general", r.getPromedioGeneral()
+        );
+    }
+
+    /**
+     * Reconstruir reputacion_usuario desde review, de a {@link #LOTE_REPARACION} usuarios
+     * (cada lote en su propia transacción corta que bloquea solo sus filas, no la tabla entera)
+     *
+     * @return cantidad de agregados corregidos
+     */
+    public int reparar() {
+        int total = 0;
+        UUID desde = UUID_MINIMO;
+        while (true) {
+            List<UUID> lote = jdbcTemplate.queryForList(SQL_LOTE_USUARIOS, UUID.class, desde);
+            if (lote.isEmpty()) {
+                break;
+            }
+            UUID hasta = lote.get(lote.size() - 1);
+            total += repararLote(desde, hasta);
+            if (lote.size() < LOTE_REPARACION) {
+                break;
+            }
+            desde = hasta;
+        }
+        corregidos.increment(total);
+        if (total > 0) {
+            log.warn("[ReputacionService] Reparación: {} agregados corregidos", total);
+        } else {
+            log.info("[ReputacionService] Reparación: agregados consistentes");
+        }
+        return total;
+    }
+
+    /**
+     * Rango (desde, hasta] en una transacción: filas aseguradas y bloqueadas antes de agregar,
+     * así un incremento del trigger o entra en el agregado o se aplica después del commit del lote
+     */
+    private int repararLote(UUID desde, UUID hasta) {
+        Integer corregidosLote = transactionTemplate.execute(status -> {
+            jdbcTemplate.update(SQL_ASEGURAR_FILAS, desde, hasta);
+            jdbcTemplate.queryForList(SQL_BLOQUEAR, UUID.class, desde, hasta);
+            return jdbcTemplate.update(SQL_RECALCULAR, desde, hasta)
+                    + jdbcTemplate.update(SQL_VACIAR, desde, hasta);
+        });
+        return corregidosLote != null ? corregidosLote : 0;
+    }
+
+    static ReputacionDTO toDTO(ReputacionUsuario r) {
+        int total = r.getTotalReviews();
+        if (total <= 0) {
+            return ReputacionDTO.builder().build();
+        }
+        double nivel = (double) r.getSumaNivel() / total;
+        double deportividad = (double) r.getSumaDeportividad() / total;
+        double companerismo = (double) r.getSumaCompanerismo() / total;
+        double general = (nivel + deportividad + companerismo) / 3.0;
+        return ReputacionDTO.builder()
+                .totalReviews(total)
+                .promedioNivel(redondear(nivel))
+                .promedioDeportividad(redondear(deportividad))
+                .promedioCompanerismo(redondear(companerismo))
+                .promedioGeneral(redondear(general))
+                .build();
+    }
+
+    private static double redondear(double valor) {
+        return Math.round(valor * 10.0) / 10.0;
+    }
+}
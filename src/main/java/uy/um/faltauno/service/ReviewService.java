@@ -2,21 +2,30 @@ package uy.um.faltauno.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import uy.um.faltauno.config.CustomUserDetailsService;
 import uy.um.faltauno.dto.ReviewDTO;
+import uy.um.faltauno.dto.ReviewLoteDTO;
 import uy.um.faltauno.dto.UsuarioMinDTO;
 import uy.um.faltauno.entity.Inscripcion;
 import uy.um.faltauno.entity.Partido;
 import uy.um.faltauno.entity.Review;
 import uy.um.faltauno.entity.Usuario;
+import uy.um.faltauno.event.ReviewCreadaEvent;
 import uy.um.faltauno.repository.InscripcionRepository;
 import uy.um.faltauno.repository.PartidoRepository;
 import uy.um.faltauno.repository.ReviewRepository;
 import uy.um.faltauno.repository.UsuarioRepository;
+import uy.um.faltauno.util.FotoPerfilUtils;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -30,11 +39,26 @@ public class ReviewService {
     private final PartidoRepository partidoRepository;
     private final UsuarioRepository usuarioRepository;
     private final InscripcionRepository inscripcionRepository;
+    private final ReputacionService reputacionService;
+    private final CacheManager cacheManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private static final String SQL_INSERTAR_REVIEW = """
+            INSERT INTO review (id, partido_id, usuario_que_califica_id, usuario_calificado_id,
+                                nivel, deportividad, companerismo, comentario, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, now())
+            ON CONFLICT (partido_id, usuario_que_califica_id, usuario_calificado_id) DO NOTHING
+            """;
 
     /**
      * Crear una review
+     *
+     * reputacion_usuario del calificado se actualiza por trigger en esta misma transacción;
+     * se descarta el perfil cacheado porque incluye la reputación.
      */
     @Transactional
+    @CacheEvict(value = "usuarios", key = "#dto.usuarioCalificadoId")
     public ReviewDTO crearReview(ReviewDTO dto, Authentication auth) {
         UUID userId = getUserIdFromAuth(auth);
 
@@ -99,12 +123,125 @@ public class ReviewService {
                 .build();
 
         Review guardada = reviewRepository.save(review);
+        applicationEventPublisher.publishEvent(new ReviewCreadaEvent(
+                this, calificado.getId(), guardada.getNivel(), guardada.getDeportividad(), guardada.getCompanerismo()));
         log.info("Review creada: partidoId={}, calificadorId={}, calificadoId={}", 
                 dto.getPartidoId(), userId, dto.getUsuarioCalificadoId());
 
         return convertirADTO(guardada);
     }
 
+    /**
+     * ⚡ Calificar varios compañeros de un partido en una sola transacción.
+     *
+     * - Una query de membresía (ids del roster) valida a todos los calificados
+     * - Un INSERT por lote JDBC; las reviews ya existentes se omiten (ON CONFLICT DO NOTHING),
+     *   así un reintento del cliente no falla
+     * - reputacion_usuario se actualiza por trigger, una vez por calificado
+     *
+     * @return reviews creadas (sin las ya existentes)
+     */
+    @Transactional
+    public List<ReviewDTO> crearReviewsEnLote(ReviewLoteDTO lote, Authentication auth) {
+        UUID userId = getUserIdFromAuth(auth);
+
+        Partido partido = partidoRepository.findById(lote.getPartidoId())
+                .orElseThrow(() -> new IllegalArgumentException("Partido no encontrado"));
+
+        if (!"COMPLETADO".equals(partido.getEstado())) {
+            throw new IllegalStateException("Solo puedes calificar partidos completados. Este partido está en estado: " + partido.getEstado());
+        }
+        LocalDateTime fechaPartido = LocalDateTime.of(partido.getFecha(), partido.getHora());
+        if (fechaPartido.isAfter(LocalDateTime.now())) {
+            throw new IllegalStateException("No puedes calificar un partido que aún no ha sucedido");
+        }
+
+        Set<UUID> roster = new HashSet<>(inscripcionRepository.findUsuarioIdsByPartidoId(partido.getId()));
+        if (!roster.contains(userId)) {
+            throw new SecurityException("No participaste en este partido");
+        }
+
+        Set<UUID> calificados = new HashSet<>();
+        for (ReviewLoteDTO.Calificacion c : lote.getReviews()) {
+            UUID calificadoId = c.getUsuarioCalificadoId();
+            if (userId.equals(calificadoId)) {
+                throw new IllegalStateException("No puedes calificarte a ti mismo");
+            }
+            if (!roster.contains(calificadoId)) {
+                throw new IllegalStateException("El usuario calificado no participó en este partido");
+            }
+            if (!calificados.add(calificadoId)) {
+                throw new IllegalStateException("Hay más de una review para el mismo usuario");
+            }
+        }
+
+        List<UUID> ids = new ArrayList<>(lote.getReviews().size());
+        int[][] resultados = jdbcTemplate.batchUpdate(SQL_INSERTAR_REVIEW, lote.getReviews(), lote.getReviews().size(),
+                (ps, c) -> {
+                    UUID id = UUID.randomUUID();
+                    ids.add(id);
+                    ps.setObject(1, id);
+                    ps.setObject(2, partido.getId());
+                    ps.setObject(3, userId);
+                    ps.setObject(4, c.getUsuarioCalificadoId());
+                    ps.setInt(5, c.getNivel());
+                    ps.setInt(6, c.getDeportividad());
+                    ps.setInt(7, c.getCompanerismo());
+                    ps.setString(8, c.getComentario());
+                });
+
+        List<ReviewLoteDTO.Calificacion> creadas = new ArrayList<>();
+        List<UUID> idsCreadas = new ArrayList<>();
+        int fila = 0;
+        for (int[] resultadosLote : resultados) {
+            for (int filas : resultadosLote) {
+                if (filas != 0) {
+                    creadas.add(lote.getReviews().get(fila));
+                    idsCreadas.add(ids.get(fila));
+                }
+                fila++;
+            }
+        }
+
+        Map<UUID, UsuarioMinDTO> perfiles = new HashMap<>();
+        if (!creadas.isEmpty()) {
+            List<UUID> calificadosCreados = creadas.stream().map(ReviewLoteDTO.Calificacion::getUsuarioCalificadoId).toList();
+            for (UsuarioRepository.PerfilMinProjection p : usuarioRepository.findPerfilMinByIds(calificadosCreados)) {
+                perfiles.put(p.getId(), new UsuarioMinDTO(
+                        p.getId(), p.getNombre(), p.getApellido(), FotoPerfilUtils.url(p.getId(), p.getFotoHash())));
+            }
+            // El perfil cacheado incluye la reputación
+            Cache usuarios = cacheManager.getCache("usuarios");
+            if (usuarios != null) {
+                calificadosCreados.forEach(usuarios::evict);
+            }
+        }
+
+        Instant ahora = Instant.now();
+        List<ReviewDTO> resultado = new ArrayList<>(creadas.size());
+        for (int i = 0; i < creadas.size(); i++) {
+            ReviewLoteDTO.Calificacion c = creadas.get(i);
+            applicationEventPublisher.publishEvent(new ReviewCreadaEvent(
+                    this, c.getUsuarioCalificadoId(), c.getNivel(), c.getDeportividad(), c.getCompanerismo()));
+            resultado.add(ReviewDTO.builder()
+                    .id(idsCreadas.get(i))
+                    .partidoId(partido.getId())
+                    .usuarioQueCalificaId(userId)
+                    .usuarioCalificadoId(c.getUsuarioCalificadoId())
+                    .nivel(c.getNivel())
+                    .deportividad(c.getDeportividad())
+                    .companerismo(c.getCompanerismo())
+                    .comentario(c.getComentario())
+                    .createdAt(ahora)
+                    .usuarioCalificado(perfiles.get(c.getUsuarioCalificadoId()))
+                    .build());
+        }
+
+        log.info("Reviews en lote: partidoId={}, calificadorId={}, creadas={}, omitidas={}",
+                partido.getId(), userId, resultado.size(), lote.getReviews().size() - resultado.size());
+        return resultado;
+    }
+
     /**
      * Obtener reviews recibidas por un usuario
      */
@@ -129,112 +266,40 @@ public class ReviewService {
 
     /**
      * Obtener estadísticas de un usuario
+     *
+     * ⚡ Lectura por PK del agregado reputacion_usuario (no carga las reviews)
      */
     @Transactional(readOnly = true)
     public Map<String, Object> obtenerEstadisticas(UUID usuarioId) {
-        List<Review> reviews = reviewRepository.findByUsuarioCalificado_Id(usuarioId);
-
-        if (reviews.isEmpty()) {
-            return Map.of(
-                "total_reviews", 0,
-                "promedio_nivel", 0.0,
-                "promedio_deportividad", 0.0,
-                "promedio_companerismo", 0.0,
-                "promedio_general", 0.0
-            );
-        }
-
-        double promedioNivel = reviews.stream()
-                .mapToInt(Review::getNivel)
-                .average()
-                .orElse(0.0);
-
-        double promedioDeportividad = reviews.stream()
-                .mapToInt(Review::getDeportividad)
-                .average()
-                .orElse(0.0);
-
-        double promedioCompanerismo = reviews.stream()
-                .mapToInt(Review::getCompanerismo)
-                .average()
-                .orElse(0.0);
-
-        double promedioGeneral = (promedioNivel + promedioDeportividad + promedioCompanerismo) / 3.0;
-
-        return Map.of(
-            "total_reviews", reviews.size(),
-            "promedio_nivel", Math.round(promedioNivel * 10.0) / 10.0,
-            "promedio_deportividad", Math.round(promedioDeportividad * 10.0) / 10.0,
-            "promedio_companerismo", Math.round(promedioCompanerismo * 10.0) / 10.0,
-            "promedio_general", Math.round(promedioGeneral * 10.0) / 10.0
-        );
+        return reputacionService.estadisticas(usuarioId);
     }
 
     /**
      * Obtener reviews pendientes (jugadores que debe calificar)
+     *
+     * ⚡ Una sola query (anti-join contra review) en vez de roster + exists por compañero
      */
     @Transactional(readOnly = true)
     public List<Map<String, Object>> obtenerReviewsPendientes(Authentication auth) {
         UUID userId = getUserIdFromAuth(auth);
-
-        // Obtener partidos donde participó (todos en inscripcion están aceptados)
-        List<Inscripcion> misInscripciones = inscripcionRepository
-                .findByUsuarioId(userId);
-
-        List<Map<String, Object>> pendientes = new ArrayList<>();
-
-        for (Inscripcion miInsc : misInscripciones) {
-            Partido partido = miInsc.getPartido();
-
-            // ✅ FIX: Solo partidos COMPLETADOS (no CANCELADOS)
-            if (!"COMPLETADO".equals(partido.getEstado())) {
-                continue;
-            }
-            
-            // Solo partidos pasados
-            LocalDateTime fechaPartido = LocalDateTime.of(partido.getFecha(), partido.getHora());
-            if (fechaPartido.isAfter(LocalDateTime.now())) {
-                continue;
-            }
-
-            // ✅ PERFORMANCE: Usar query optimizada con JOIN FETCH
-            List<Inscripcion> otrosJugadores = inscripcionRepository
-                    .findByPartidoId(partido.getId())
-                    .stream()
-                    .filter(i -> !i.getUsuario().getId().equals(userId))
-                    .collect(Collectors.toList());
-
-            // Verificar cuáles no ha calificado
-            for (Inscripcion otraInsc : otrosJugadores) {
-                UUID otroUsuarioId = otraInsc.getUsuario().getId();
-                
-                boolean yaCalificado = reviewRepository
-                        .existsByPartido_IdAndUsuarioQueCalifica_IdAndUsuarioCalificado_Id(
-                                partido.getId(), userId, otroUsuarioId);
-
-                if (!yaCalificado) {
-                    Usuario otroUsuario = otraInsc.getUsuario();
-                    String fotoPerfil = null;
-                    if (otroUsuario.getFotoPerfil() != null) {
-                        try {
-                            fotoPerfil = java.util.Base64.getEncoder().encodeToString(otroUsuario.getFotoPerfil());
-                        } catch (Exception ex) {
-                            log.warn("[ReviewService] Error encoding foto: {}", ex.getMessage());
-                        }
-                    }
-                    Map<String, Object> pendiente = new HashMap<>();
-                    pendiente.put("partido_id", partido.getId());
-                    pendiente.put("tipo_partido", partido.getTipoPartido());
-                    pendiente.put("fecha", partido.getFecha().toString());
-                    pendiente.put("usuario", new UsuarioMinDTO(
-                            otroUsuario.getId(),
-                            otroUsuario.getNombre(),
-                            otroUsuario.getApellido(),
-                            fotoPerfil
-                    ));
-                    pendientes.add(pendiente);
-                }
-            }
+        LocalDateTime ahora = LocalDateTime.now();
+
+        List<ReviewRepository.PendienteProjection> filas = reviewRepository
+                .findPendientesDeCalificar(userId, ahora.toLocalDate(), ahora.toLocalTime());
+
+        List<Map<String, Object>> pendientes = new ArrayList<>(filas.size());
+        for (ReviewRepository.PendienteProjection fila : filas) {
+            Map<String, Object> pendiente = new HashMap<>();
+            pendiente.put("partido_id", fila.getPartidoId());
+            pendiente.put("tipo_partido", fila.getTipoPartido());
+            pendiente.put("fecha", fila.getFecha().toString());
+            pendiente.put("usuario", new UsuarioMinDTO(
+                    fila.getUsuarioId(),
+                    fila.getNombre(),
+                    fila.getApellido(),
+                    FotoPerfilUtils.url(fila.getUsuarioId(), fila.getFotoHash())
+            ));
+            pendientes.add(pendiente);
         }
 
         return pendientes;
@@ -242,51 +307,13 @@ public class ReviewService {
 
     /**
      * Verificar si el usuario tiene reviews pendientes por completar
+     *
+     * ⚡ EXISTS indexado (LIMIT 1) en vez de recorrer inscripciones y rosters
      */
     @Transactional(readOnly = true)
     public boolean tienePendingReviews(UUID usuarioId) {
-        // Obtener partidos donde participó (todos en inscripcion están aceptados)
-        List<Inscripcion> misInscripciones = inscripcionRepository
-                .findByUsuarioId(usuarioId);
-
-        for (Inscripcion miInsc : misInscripciones) {
-            Partido partido = miInsc.getPartido();
-
-            // Solo partidos COMPLETADOS
-            if (!"COMPLETADO".equals(partido.getEstado())) {
-                continue;
-            }
-            
-            // Solo partidos pasados
-            LocalDateTime fechaPartido = LocalDateTime.of(partido.getFecha(), partido.getHora());
-            if (fechaPartido.isAfter(LocalDateTime.now())) {
-                continue;
-            }
-
-            // Obtener otros jugadores del partido
-            List<Inscripcion> otrosJugadores = inscripcionRepository
-                    .findByPartidoId(partido.getId())
-                    .stream()
-                    .filter(i -> !i.getUsuario().getId().equals(usuarioId))
-                    .collect(Collectors.toList());
-
-            // Verificar si hay algún jugador que no haya calificado
-            for (Inscripcion otraInsc : otrosJugadores) {
-                UUID otroUsuarioId = otraInsc.getUsuario().getId();
-                
-                boolean yaCalificado = reviewRepository
-                        .existsByPartido_IdAndUsuarioQueCalifica_IdAndUsuarioCalificado_Id(
-                                partido.getId(), usuarioId, otroUsuarioId);
-
-                if (!yaCalificado) {
-                    // Encontró al menos una review pendiente
-                    return true;
-                }
-            }
-        }
-
-        // No tiene reviews pendientes
-        return false;
+        LocalDateTime ahora = LocalDateTime.now();
+        return reviewRepository.existePendienteDeCalificar(usuarioId, ahora.toLocalDate(), ahora.toLocalTime());
     }
 
     /**
@@ -313,8 +340,15 @@ public class ReviewService {
             throw new SecurityException("Solo puedes eliminar tus propias reviews");
         }
 
+        UUID calificadoId = review.getUsuarioCalificado().getId();
         reviewRepository.delete(review);
         log.info("Review eliminada: id={}", reviewId);
+
+        // El perfil cacheado incluye la reputación (actualizada por trigger)
+        Cache usuarios = cacheManager.getCache("usuarios");
+        if (usuarios != null) {
+            usuarios.evict(calificadoId);
+        }
     }
 
     // ===== MÉTODOS AUXILIARES =====
@@ -322,19 +356,12 @@ public class ReviewService {
     private ReviewDTO convertirADTO(Review review) {
         // Crear UsuarioMinDTO para el usuario calificado
         Usuario calificado = review.getUsuarioCalificado();
-        String fotoPerfil = null;
-        if (calificado.getFotoPerfil() != null) {
-            try {
-                fotoPerfil = java.util.Base64.getEncoder().encodeToString(calificado.getFotoPerfil());
-            } catch (Exception ex) {
-                log.warn("[ReviewService] Error encoding foto: {}", ex.getMessage());
-            }
-        }
+        String fotoUrl = FotoPerfilUtils.url(calificado);
         UsuarioMinDTO usuarioCalificadoDTO = new UsuarioMinDTO(
                 calificado.getId(),
                 calificado.getNombre(),
                 calificado.getApellido(),
-                fotoPerfil
+                fotoUrl
         );
 
         // Usar el builder para crear el DTO
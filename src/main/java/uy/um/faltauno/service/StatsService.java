@@ -2,133 +2,240 @@ package uy.um.faltauno.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import uy.um.faltauno.config.CacheNames;
 import uy.um.faltauno.repository.PartidoRepository;
+import uy.um.faltauno.repository.ReputacionUsuarioRepository;
 import uy.um.faltauno.repository.UsuarioRepository;
-import uy.um.faltauno.repository.ReviewRepository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Servicio para calcular estadísticas de la aplicación
+ *
+ * ⚡ Los contadores viven en memoria y se actualizan con eventos de dominio (usuario registrado
+ * o eliminado, partido creado/cambia de estado/eliminado, review creada) vía StatsEventListener.
+ * Un job en background los reconcilia contra la base cada {@code app.stats.reconcile-ms}
+ * (corrige ventanas de tiempo que "envejecen" y cambios que no publican evento).
+ *
+ * Stale-while-revalidate: una vez cargados, los requests SIEMPRE responden desde memoria y nunca
+ * esperan a las queries de agregación. La única excepción es la carga inicial: recién arrancada la
+ * instancia (Cloud Run escala a cero) no hay valor viejo que servir, así que el primer request espera
+ * esa única carga (o la dispara) en lugar de responder ceros.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class StatsService {
 
+    /** Máximo que un request espera la carga inicial antes de responder con lo que haya */
+    private static final long ESPERA_CARGA_INICIAL_SEGUNDOS = 10;
+
+    static final List<String> ESTADOS_PARTIDO = List.of("DISPONIBLE", "CONFIRMADO", "EN_CURSO", "COMPLETADO", "CANCELADO");
+
     private final UsuarioRepository usuarioRepository;
     private final PartidoRepository partidoRepository;
-    private final ReviewRepository reviewRepository;
+    private final ReputacionUsuarioRepository reputacionUsuarioRepository;
+
+    private final AtomicLong totalUsuarios = new AtomicLong();
+    private final AtomicLong usuariosActivos = new AtomicLong();
+    private final AtomicLong nuevosMiembros = new AtomicLong();
+    private final AtomicLong totalPartidos = new AtomicLong();
+    private final AtomicLong partidosEstaSemana = new AtomicLong();
+    private final Map<String, AtomicLong> partidosPorEstado = new ConcurrentHashMap<>();
+    private final AtomicLong totalReviews = new AtomicLong();
+    /** Suma de (nivel + deportividad + compañerismo) de todas las reviews */
+    private final AtomicLong sumaPuntosReviews = new AtomicLong();
+
+    private final AtomicBoolean reconciliando = new AtomicBoolean(false);
+    private volatile LocalDateTime ultimaReconciliacion;
+    private final CountDownLatch cargaInicial = new CountDownLatch(1);
 
     /**
-     * Obtener estadísticas generales de la comunidad
-     * Se cachea por 5 minutos para no sobrecargar la DB
+     * Obtener estadísticas generales de la comunidad (desde memoria)
      */
-    @Cacheable(value = CacheNames.COMMUNITY_STATS, unless = "#result == null")
     public Map<String, Object> obtenerEstadisticasComunidad() {
-        log.debug("Calculando estadísticas de la comunidad...");
-        
+        esperarCargaInicial();
         Map<String, Object> stats = new HashMap<>();
+        stats.put("totalUsers", totalUsuarios.get());
+        stats.put("activeUsers", usuariosActivos.get());
+        stats.put("newMembers", nuevosMiembros.get());
+        stats.put("totalMatches", totalPartidos.get());
+        stats.put("matchesThisWeek", partidosEstaSemana.get());
+        stats.put("completedMatches", contador("COMPLETADO").get());
+        stats.put("totalReviews", totalReviews.get());
+
+        long reviews = totalReviews.get();
+        double promedioGlobal = reviews > 0 ? sumaPuntosReviews.get() / (3.0 * reviews) : 0.0;
+        stats.put("averageRating", Math.round(promedioGlobal * 10.0) / 10.0);
+        return stats;
+    }
 
-        try {
-            // Total de usuarios registrados (excluyendo soft-deleted)
-            // ⚡ IMPORTANTE: No usar count() porque incluye usuarios con deletedAt != NULL
-            long totalUsuarios = usuarioRepository.countActiveUsers();
-            stats.put("totalUsers", totalUsuarios);
-
-            // Usuarios activos (registrados en los últimos 30 días como proxy de actividad)
-            // En el futuro: implementar tracking de last_activity_at para métrica más precisa
-            LocalDateTime hace30Dias = LocalDateTime.now().minus(30, ChronoUnit.DAYS);
-            long usuariosActivos = usuarioRepository.countByCreatedAtAfter(hace30Dias);
-            stats.put("activeUsers", usuariosActivos);
+    /**
+     * Obtener estadísticas detalladas del sistema (desde memoria)
+     */
+    public Map<String, Object> obtenerEstadisticasSistema() {
+        Map<String, Object> stats = new HashMap<>(obtenerEstadisticasComunidad());
 
-            // Nuevos miembros (registrados en los últimos 7 días)
-            LocalDateTime hace7Dias = LocalDateTime.now().minus(7, ChronoUnit.DAYS);
-            long nuevosMiembros = usuarioRepository.countByCreatedAtAfter(hace7Dias);
-            stats.put("newMembers", nuevosMiembros);
+        // Partidos por estado
+        Map<String, Long> porEstado = new HashMap<>();
+        for (String estado : ESTADOS_PARTIDO) {
+            porEstado.put(estado, contador(estado).get());
+        }
+        stats.put("matchesByStatus", porEstado);
 
-            // Total de partidos
-            long totalPartidos = partidoRepository.count();
-            stats.put("totalMatches", totalPartidos);
+        // Tasa de completitud de partidos
+        long totalPartidosNoCancel = totalPartidos.get() - porEstado.get("CANCELADO");
+        double tasaCompletitud = totalPartidosNoCancel > 0
+            ? (double) porEstado.get("COMPLETADO") / totalPartidosNoCancel * 100.0
+            : 0.0;
+        stats.put("completionRate", Math.round(tasaCompletitud * 10.0) / 10.0);
+        stats.put("lastReconciledAt", ultimaReconciliacion != null ? ultimaReconciliacion.toString() : null);
 
-            // Partidos esta semana (últimos 7 días)
-            long partidosEstaSemana = partidoRepository.countPartidosEntreFechas(
-                hace7Dias.toLocalDate(), 
-                LocalDate.now().plusDays(1)
-            );
-            stats.put("matchesThisWeek", partidosEstaSemana);
+        return stats;
+    }
 
-            // Partidos completados
-            long partidosCompletados = partidoRepository.countByEstado("COMPLETADO");
-            stats.put("completedMatches", partidosCompletados);
+    /**
+     * Si todavía no hubo una reconciliación exitosa, hacerla ahora (o esperar la que está en curso).
+     * Después de la primera carga es un chequeo de un latch, sin bloqueo.
+     */
+    private void esperarCargaInicial() {
+        if (cargaInicial.getCount() == 0) {
+            return;
+        }
+        reconciliar(); // No hace nada si ya hay una reconciliación en curso
+        try {
+            if (!cargaInicial.await(ESPERA_CARGA_INICIAL_SEGUNDOS, TimeUnit.SECONDS)) {
+                log.warn("[StatsService] Carga inicial de estadísticas demorada: se responde con valores parciales");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-            // Total de reviews
-            long totalReviews = reviewRepository.count();
-            stats.put("totalReviews", totalReviews);
+    // ===== Eventos de dominio =====
 
-            // Promedio global de calificación
-            Double promedioGlobal = reviewRepository.findAverageCalificacionGlobal();
-            stats.put("averageRating", promedioGlobal != null ? Math.round(promedioGlobal * 10.0) / 10.0 : 0.0);
+    public void onUsuarioRegistrado() {
+        totalUsuarios.incrementAndGet();
+        usuariosActivos.incrementAndGet();
+        nuevosMiembros.incrementAndGet();
+    }
 
-            log.debug("Estadísticas calculadas: {} usuarios, {} partidos, {} reviews", 
-                totalUsuarios, totalPartidos, totalReviews);
+    public void onUsuarioEliminado() {
+        totalUsuarios.decrementAndGet();
+    }
 
-        } catch (Exception e) {
-            log.error("Error calculando estadísticas de la comunidad", e);
-            // Devolver stats vacías en caso de error
-            stats.put("totalUsers", 0);
-            stats.put("activeUsers", 0);
-            stats.put("newMembers", 0);
-            stats.put("totalMatches", 0);
-            stats.put("matchesThisWeek", 0);
-            stats.put("completedMatches", 0);
-            stats.put("totalReviews", 0);
-            stats.put("averageRating", 0.0);
+    /**
+     * @param estadoAnterior null si el partido es nuevo
+     * @param estadoNuevo    null si el partido se eliminó
+     */
+    public void onPartidoEstadoCambiado(String estadoAnterior, String estadoNuevo, LocalDate fecha) {
+        if (estadoAnterior == null && estadoNuevo != null) {
+            totalPartidos.incrementAndGet();
+            if (enSemanaActual(fecha)) {
+                partidosEstaSemana.incrementAndGet();
+            }
+        } else if (estadoAnterior != null && estadoNuevo == null) {
+            totalPartidos.decrementAndGet();
+            if (enSemanaActual(fecha)) {
+                partidosEstaSemana.decrementAndGet();
+            }
+        }
+        if (estadoAnterior != null) {
+            contador(estadoAnterior).decrementAndGet();
         }
+        if (estadoNuevo != null) {
+            contador(estadoNuevo).incrementAndGet();
+        }
+    }
 
-        return stats;
+    public void onReviewCreada(int nivel, int deportividad, int companerismo) {
+        totalReviews.incrementAndGet();
+        sumaPuntosReviews.addAndGet(nivel + deportividad + companerismo);
+    }
+
+    // ===== Reconciliación en background =====
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconciliarAlArrancar() {
+        reconciliar();
     }
 
     /**
-     * Obtener estadísticas detalladas del sistema
+     * Recalcular todos los contadores contra la base (fuera del camino de los requests)
      */
-    @Cacheable(value = CacheNames.SYSTEM_STATS, unless = "#result == null")
-    public Map<String, Object> obtenerEstadisticasSistema() {
-        log.debug("Calculando estadísticas del sistema...");
-        
-        Map<String, Object> stats = new HashMap<>();
-
+    @Scheduled(fixedDelayString = "${app.stats.reconcile-ms:300000}", initialDelayString = "${app.stats.reconcile-ms:300000}")
+    public void reconciliar() {
+        if (!reconciliando.compareAndSet(false, true)) {
+            return;
+        }
         try {
-            // Incluir stats de la comunidad
-            stats.putAll(obtenerEstadisticasComunidad());
-
-            // Partidos por estado
-            Map<String, Long> partidosPorEstado = new HashMap<>();
-            partidosPorEstado.put("DISPONIBLE", partidoRepository.countByEstado("DISPONIBLE"));
-            partidosPorEstado.put("CONFIRMADO", partidoRepository.countByEstado("CONFIRMADO"));
-            partidosPorEstado.put("EN_CURSO", partidoRepository.countByEstado("EN_CURSO"));
-            partidosPorEstado.put("COMPLETADO", partidoRepository.countByEstado("COMPLETADO"));
-            partidosPorEstado.put("CANCELADO", partidoRepository.countByEstado("CANCELADO"));
-            stats.put("matchesByStatus", partidosPorEstado);
-
-            // Tasa de completitud de partidos
-            long totalPartidosNoCancel = partidoRepository.count() - partidosPorEstado.get("CANCELADO");
-            double tasaCompletitud = totalPartidosNoCancel > 0 
-                ? (double) partidosPorEstado.get("COMPLETADO") / totalPartidosNoCancel * 100.0 
-                : 0.0;
-            stats.put("completionRate", Math.round(tasaCompletitud * 10.0) / 10.0);
+            long inicio = System.currentTimeMillis();
+
+            // ⚡ IMPORTANTE: No usar count() porque incluye usuarios con deletedAt != NULL
+            totalUsuarios.set(usuarioRepository.countActiveUsers());
 
+            // Usuarios activos (registrados en los últimos 30 días como proxy de actividad)
+            LocalDateTime hace30Dias = LocalDateTime.now().minus(30, ChronoUnit.DAYS);
+            usuariosActivos.set(usuarioRepository.countByCreatedAtAfter(hace30Dias));
+
+            // Nuevos miembros (registrados en los últimos 7 días)
+            LocalDateTime hace7Dias = LocalDateTime.now().minus(7, ChronoUnit.DAYS);
+            nuevosMiembros.set(usuarioRepository.countByCreatedAtAfter(hace7Dias));
+
+            totalPartidos.set(partidoRepository.count());
+            partidosEstaSemana.set(partidoRepository.countPartidosEntreFechas(
+                hace7Dias.toLocalDate(),
+                LocalDate.now().plusDays(1)
+            ));
+            for (String estado : ESTADOS_PARTIDO) {
+                contador(estado).set(partidoRepository.countByEstado(estado));
+            }
+
+            // Reviews desde el agregado reputacion_usuario
+            long reviews = reputacionUsuarioRepository.sumTotalReviews();
+            Double promedio = reputacionUsuarioRepository.findAverageCalificacionGlobal();
+            totalReviews.set(reviews);
+            sumaPuntosReviews.set(promedio != null ? Math.round(promedio * 3.0 * reviews) : 0L);
+
+            ultimaReconciliacion = LocalDateTime.now();
+            cargaInicial.countDown();
+            log.debug("[StatsService] Contadores reconciliados en {} ms: {} usuarios, {} partidos, {} reviews",
+                System.currentTimeMillis() - inicio, totalUsuarios.get(), totalPartidos.get(), reviews);
         } catch (Exception e) {
-            log.error("Error calculando estadísticas del sistema", e);
+            // Se sigue sirviendo el último valor conocido
+            log.error("[StatsService] Error reconciliando estadísticas: {}", e.getMessage(), e);
+        } finally {
+            reconciliando.set(false);
         }
+    }
 
-        return stats;
+    private AtomicLong contador(String estado) {
+        return partidosPorEstado.computeIfAbsent(estado, e -> new AtomicLong());
+    }
+
+    /**
+     * Misma ventana que la reconciliación: [hoy - 7 días, hoy + 1 día)
+     */
+    private static boolean enSemanaActual(LocalDate fecha) {
+        if (fecha == null) {
+            return false;
+        }
+        LocalDate hoy = LocalDate.now();
+        return !fecha.isBefore(hoy.minusDays(7)) && fecha.isBefore(hoy.plusDays(1));
     }
 }
@@ -0,0 +1,306 @@
+package uy.um.faltauno.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * ⚡ Motor de sugerencias de amistad: top-K precalculado por usuario.
+ *
+ * Puntaje de cada candidato:
+ * - Amigos en común (amigos de amigos)
+ * - Partidos jugados juntos (inscripcion)
+ * - Cercanía: partidos jugados en las mismas celdas geográficas (partido.geo_celda)
+ * - Misma posición / mismo género
+ *
+ * Servir sugerencias es un lookup en memoria. El cálculo es una única query acotada al
+ * vecindario del usuario (grafo de amistades + compañeros + celdas), nunca un scan de usuarios.
+ * Los eventos de amistad e inscripción (después del commit) solo invalidan a los usuarios
+ * afectados; se recalculan a demanda en su próxima lectura. Así un evento nunca dispara ráfagas
+ * de SQL_CANDIDATOS en el executor @Async compartido ni contra el pool de 3 conexiones.
+ *
+ * - ⚠️ Multi-instancia: las invalidaciones se publican con {@link InvalidacionDistribuida}
+ *   (dominio "sugerencias"). Además cada lista servida se filtra contra {@link GrafoAmistadCache}:
+ *   aunque se pierda una notificación, nunca se sugiere a alguien que ya es amigo o tiene una
+ *   solicitud pendiente (el grafo tiene su propia invalidación y un TTL de 5 minutos).
+ */
+@Service
+@Slf4j
+public class SugerenciaAmigosService {
+
+    private static final int TOP_K = 50;
+    private static final int MAX_USUARIOS = 10_000;
+    private static final Duration TTL = Duration.ofHours(12);
+    private static final String DOMINIO = "sugerencias";
+
+    private static final double PESO_AMIGO_EN_COMUN = 10;
+    private static final double PESO_PARTIDO_EN_COMUN = 6;
+    private static final double PESO_PARTIDO_CERCA = 2;
+    private static final int MAX_PARTIDOS_CERCA = 5;
+    private static final double PESO_MISMA_POSICION = 3;
+    private static final double PESO_MISMO_GENERO = 2;
+
+    /**
+     * Candidatos del vecindario del usuario con sus señales.
+     * - vinculos: amigos y solicitudes (en cualquier estado) → se excluyen
+     * - mis_partidos: últimos 100 partidos del usuario
+     * - cercanos: jugadores de partidos de los últimos 180 días en las mismas celdas
+     */
+    private static final String SQL_CANDIDATOS = """
+            WITH yo AS (
+                SELECT u.id, u.posicion, u.genero FROM usuario u WHERE u.id = ? AND u.deleted_at IS NULL
+            ),
+            vinculos AS (
+                SELECT e.otro_id AS id, e.estado FROM amistad_arista e JOIN yo ON e.usuario_id = yo.id
+            ),
+            amigos_de_amigos AS (
+                SELECT e.otro_id AS id, COUNT(*) AS n
+                FROM vinculos v JOIN amistad_arista e ON e.usuario_id = v.id
+                WHERE v.estado = 'ACEPTADO' AND e.estado = 'ACEPTADO'
+                GROUP BY e.otro_id
+            ),
+            mis_partidos AS (
+                SELECT i.partido_id FROM inscripcion i JOIN yo ON i.usuario_id = yo.id
+                ORDER BY i.created_at DESC LIMIT 100
+            ),
+            companeros AS (
+                SELECT i.usuario_id AS id, COUNT(*) AS n
+                FROM mis_partidos m JOIN inscripcion i ON i.partido_id = m.partido_id
+                GROUP BY i.usuario_id
+            ),
+            mis_celdas AS (
+                SELECT DISTINCT p.geo_celda FROM mis_partidos m JOIN partido p ON p.id = m.partido_id
+                WHERE p.geo_celda IS NOT NULL
+            ),
+            cercanos AS (
+                SELECT i.usuario_id AS id, COUNT(DISTINCT p.id) AS n
+                FROM partido p JOIN inscripcion i ON i.partido_id = p.id
+                WHERE p.geo_celda IN (SELECT geo_celda FROM mis_celdas)
+                  AND p.fecha >= CURRENT_DATE - 180
+                GROUP BY i.usuario_id
+            ),
+            candidatos AS (
+                SELECT id FROM amigos_de_amigos
+                UNION SELECT id FROM companeros
+                UNION SELECT id FROM cercanos
+            )
+            SELECT c.id,
+                   COALESCE(f.n, 0) AS amigos_en_comun,
+                   COALESCE(k.n, 0) AS partidos_en_comun,
+                   COALESCE(z.n, 0) AS partidos_cerca,
+                   (u.posicion IS NOT NULL AND u.posicion = yo.posicion) AS misma_posicion,
+                   (u.genero IS NOT NULL AND u.genero = yo.genero) AS mismo_genero
+            FROM candidatos c
+            CROSS JOIN yo
+            JOIN usuario u ON u.id = c.id
+            LEFT JOIN amigos_de_amigos f ON f.id = c.id
+            LEFT JOIN companeros k ON k.id = c.id
+            LEFT JOIN cercanos z ON z.id = c.id
+            WHERE c.id <> yo.id
+              AND u.deleted_at IS NULL
+              AND u.banned_at IS NULL
+              AND u.nombre IS NOT NULL
+              AND NOT EXISTS (SELECT 1 FROM vinculos v WHERE v.id = c.id)
+            """;
+
+    /**
+     * Relleno para usuarios sin vecindario (recién registrados): los más activos recientemente,
+     * priorizando misma posición / género. Acotado por LIMIT.
+     */
+    private static final String SQL_RELLENO = """
+            SELECT u.id,
+                   (u.posicion IS NOT NULL AND u.posicion = yo.posicion) AS misma_posicion,
+                   (u.genero IS NOT NULL AND u.genero = yo.genero) AS mismo_genero
+            FROM usuario u
+            CROSS JOIN (SELECT posicion, genero FROM usuario WHERE id = ?) yo
+            WHERE u.id <> ?
+              AND u.deleted_at IS NULL
+              AND u.banned_at IS NULL
+              AND u.nombre IS NOT NULL
+              AND u.last_activity_at IS NOT NULL
+              AND NOT EXISTS (
+                  SELECT 1 FROM amistad_arista e WHERE e.usuario_id = ? AND e.otro_id = u.id
+              )
+            ORDER BY u.last_activity_at DESC
+            LIMIT 200
+            """;
+
+    /**
+     * Sugerencia con su puntaje y las señales que lo explican
+     */
+    public record Sugerencia(UUID usuarioId, double puntaje, int amigosEnComun, int partidosEnComun) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final GrafoAmistadCache grafoAmistadCache;
+    private final InvalidacionDistribuida invalidacionDistribuida;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter invalidaciones;
+    private final Cache<UUID, List<Sugerencia>> topK = Caffeine.newBuilder()
+            .maximumSize(MAX_USUARIOS)
+            .expireAfterWrite(TTL)
+            .build();
+
+    public SugerenciaAmigosService(JdbcTemplate jdbcTemplate, GrafoAmistadCache grafoAmistadCache,
+                                   MeterRegistry meterRegistry, InvalidacionDistribuida invalidacionDistribuida) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.grafoAmistadCache = grafoAmistadCache;
+        this.invalidacionDistribuida = invalidacionDistribuida;
+        this.hits = meterRegistry.counter("faltauno_sugerencias_hits_total");
+        this.misses = meterRegistry.counter("faltauno_sugerencias_misses_total");
+        this.invalidaciones = meterRegistry.counter("faltauno_sugerencias_invalidaciones_total");
+        meterRegistry.gauge("faltauno_sugerencias_usuarios", topK, Cache::estimatedSize);
+        invalidacionDistribuida.registrar(DOMINIO, topK::invalidate, topK::invalidateAll);
+    }
+
+    /**
+     * IDs de los usuarios sugeridos, de mayor a menor puntaje.
+     * Se descartan los que ya tienen relación con el usuario según el grafo en memoria
+     * (por si el top-K cacheado es previo a una amistad o solicitud hecha en otra instancia).
+     */
+    public List<UUID> obtenerSugerencias(UUID usuarioId, int limite) {
+        Predicate<UUID> sinRelacion = grafoAmistadCache.sinRelacionCon(usuarioId);
+        return obtener(usuarioId).stream()
+                .filter(s -> sinRelacion.test(s.usuarioId()))
+                .limit(limite)
+                .map(Sugerencia::usuarioId)
+                .toList();
+    }
+
+    /**
+     * Top-K del usuario desde memoria; si no está, se calcula (una query) y se cachea
+     */
+    public List<Sugerencia> obtener(UUID usuarioId) {
+        boolean[] calculado = {false};
+        List<Sugerencia> sugerencias = topK.get(usuarioId, id -> {
+            calculado[0] = true;
+            return calcular(id);
+        });
+        (calculado[0] ? misses : hits).increment();
+        return sugerencias;
+    }
+
+    /**
+     * Cambió una amistad entre a y b (después del commit).
+     *
+     * - Solicitud enviada: solo se quitan mutuamente de las sugerencias (sin queries)
+     * - Aceptada / eliminada: cambian los amigos en común de a, b y de sus amigos
+     */
+    public void onAmistadCambiada(UUID a, UUID b, boolean cambiaElGrafo) {
+        quitar(a, b);
+        quitar(b, a);
+        if (!cambiaElGrafo) {
+            invalidacionDistribuida.publicar(DOMINIO, List.of(a, b));
+            return;
+        }
+        Set<UUID> afectados = new LinkedHashSet<>();
+        afectados.add(a);
+        afectados.add(b);
+        afectados.addAll(amigosDe(a));
+        afectados.addAll(amigosDe(b));
+        invalidarCacheados(afectados);
+    }
+
+    /**
+     * Solicitud rechazada o cancelada: a y b pueden volver a sugerirse entre sí
+     */
+    public void onSolicitudResuelta(UUID a, UUID b) {
+        invalidarCacheados(List.of(a, b));
+    }
+
+    /**
+     * Un usuario fue aceptado en un partido: suma un partido en común con cada compañero
+     */
+    public void onInscripcionAceptada(UUID usuarioId, UUID partidoId) {
+        Set<UUID> afectados = new LinkedHashSet<>();
+        afectados.add(usuarioId);
+        afectados.addAll(jdbcTemplate.queryForList(
+                "SELECT usuario_id FROM inscripcion WHERE partido_id = ?", UUID.class, partidoId));
+        invalidarCacheados(afectados);
+    }
+
+    /**
+     * Descartar las sugerencias del usuario (p. ej. cambió su posición o género)
+     */
+    public void invalidar(UUID usuarioId) {
+        if (usuarioId != null) {
+            topK.invalidate(usuarioId);
+            invalidacionDistribuida.publicar(DOMINIO, List.of(usuarioId));
+        }
+    }
+
+    /**
+     * Descartar el top-K de los afectados que lo tienen cacheado (sin queries): el recálculo
+     * se hace en {@link #obtener} cuando el usuario vuelve a pedir sugerencias.
+     * Las demás instancias descartan los mismos usuarios al recibir la notificación.
+     */
+    private void invalidarCacheados(Collection<UUID> usuarios) {
+        int invalidados = 0;
+        for (UUID usuarioId : usuarios) {
+            if (topK.asMap().remove(usuarioId) != null) {
+                invalidados++;
+            }
+        }
+        invalidaciones.increment(invalidados);
+        invalidacionDistribuida.publicar(DOMINIO, usuarios);
+    }
+
+    private void quitar(UUID usuarioId, UUID sugerido) {
+        topK.asMap().computeIfPresent(usuarioId, (id, lista) -> lista.stream()
+                .filter(s -> !s.usuarioId().equals(sugerido))
+                .toList());
+    }
+
+    private List<UUID> amigosDe(UUID usuarioId) {
+        return grafoAmistadCache.amigos(usuarioId);
+    }
+
+    private List<Sugerencia> calcular(UUID usuarioId) {
+        List<Sugerencia> candidatos = new ArrayList<>(jdbcTemplate.query(SQL_CANDIDATOS, (rs, i) -> {
+            int amigos = rs.getInt("amigos_en_comun");
+            int partidos = rs.getInt("partidos_en_comun");
+            double puntaje = amigos * PESO_AMIGO_EN_COMUN
+                    + partidos * PESO_PARTIDO_EN_COMUN
+                    + Math.min(rs.getInt("partidos_cerca"), MAX_PARTIDOS_CERCA) * PESO_PARTIDO_CERCA
+                    + (rs.getBoolean("misma_posicion") ? PESO_MISMA_POSICION : 0)
+                    + (rs.getBoolean("mismo_genero") ? PESO_MISMO_GENERO : 0);
+            return new Sugerencia(rs.getObject("id", UUID.class), puntaje, amigos, partidos);
+        }, usuarioId));
+
+        if (candidatos.size() < TOP_K) {
+            Set<UUID> yaIncluidos = new HashSet<>();
+            candidatos.forEach(s -> yaIncluidos.add(s.usuarioId()));
+            jdbcTemplate.query(SQL_RELLENO, rs -> {
+                UUID id = rs.getObject("id", UUID.class);
+                if (yaIncluidos.add(id)) {
+                    double puntaje = (rs.getBoolean("misma_posicion") ? PESO_MISMA_POSICION : 0)
+                            + (rs.getBoolean("mismo_genero") ? PESO_MISMO_GENERO : 0);
+                    candidatos.add(new Sugerencia(id, puntaje, 0, 0));
+                }
+            }, usuarioId, usuarioId, usuarioId);
+        }
+
+        List<Sugerencia> top = candidatos.stream()
+                .sorted(Comparator.comparingDouble(Sugerencia::puntaje).reversed())
+                .limit(TOP_K)
+                .toList();
+        log.debug("[SugerenciaAmigos] Top-{} calculado para {}: {} candidatos", TOP_K, usuarioId, candidatos.size());
+        return top;
+    }
+}
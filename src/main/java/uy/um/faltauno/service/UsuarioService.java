@@ -5,7 +5,7 @@ import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
@@ -18,6 +18,7 @@ import uy.um.faltauno.dto.PerfilDTO;
 import uy.um.faltauno.dto.PhotoValidationResult;
 import uy.um.faltauno.dto.UsuarioDTO;
 import uy.um.faltauno.dto.UsuarioMinDTO;
+import uy.um.faltauno.util.FotoPerfilUtils;
 import uy.um.faltauno.util.UsuarioMapper;
 import uy.um.faltauno.entity.Amistad;
 import uy.um.faltauno.entity.ChatVisit;
@@ -31,6 +32,9 @@ import uy.um.faltauno.entity.Report;
 import uy.um.faltauno.entity.Review;
 import uy.um.faltauno.entity.SolicitudPartido;
 import uy.um.faltauno.entity.Usuario;
+import uy.um.faltauno.event.PartidoEstadoCambiadoEvent;
+import uy.um.faltauno.event.UsuarioEliminadoEvent;
+import uy.um.faltauno.event.UsuarioRegistradoEvent;
 import uy.um.faltauno.repository.AmistadRepository;
 import uy.um.faltauno.repository.ChatVisitRepository;
 import uy.um.faltauno.repository.ContactoRepository;
@@ -43,6 +47,7 @@ import uy.um.faltauno.repository.ReportRepository;
 import uy.um.faltauno.repository.ReviewRepository;
 import uy.um.faltauno.repository.SolicitudPartidoRepository;
 import uy.um.faltauno.repository.UsuarioRepository;
+import uy.um.faltauno.security.AuthStateCache;
 
 import java.io.IOException;
 import java.time.LocalDate;
@@ -50,6 +55,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -71,8 +77,14 @@ public class UsuarioService {
     private final ChatVisitRepository chatVisitRepository;
     private final ReportRepository reportRepository;
     private final PhotoValidationService photoValidationService;
+    private final FotoPerfilService fotoPerfilService;
     private final EmailService emailService;
     private final NotificacionService notificacionService;
+    private final AuthStateCache authStateCache;
+    private final SugerenciaAmigosService sugerenciaAmigosService;
+    private final GrafoAmistadCache grafoAmistadCache;
+    private final ReputacionService reputacionService;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
     /**
      * Encuentra el ID de un usuario por email SIN cargar LOBs.
@@ -165,8 +177,6 @@ public class UsuarioService {
         // 🔍 DEBUG: Verificar foto
         log.info("[UsuarioService] 🔍 createUsuario - Foto recibida en DTO: {}", 
             dto.getFotoPerfil() != null ? "SÍ (" + dto.getFotoPerfil().length() + " chars)" : "NO");
-        log.info("[UsuarioService] 🔍 createUsuario - Foto en entidad después de mapper: {}", 
-            usuario.getFotoPerfil() != null ? "SÍ (" + usuario.getFotoPerfil().length + " bytes)" : "NO");
         
         // 🔍 DEBUG: Log para verificar qué path se toma
         log.info("[UsuarioService] 🔍 createUsuario - emailVerified: {} | password presente: {}", 
@@ -208,9 +218,14 @@ public class UsuarioService {
 
         usuario = usuarioRepository.save(usuario);
         
-        // 🔍 DEBUG: Verificar que la foto se guardó en BD
-        log.info("[UsuarioService] 🔍 createUsuario - Usuario guardado. Foto en BD: {}", 
-            usuario.getFotoPerfil() != null ? "SÍ (" + usuario.getFotoPerfil().length + " bytes)" : "NO");
+        // Vincular contactos que ya tenían este email (después del commit, async)
+        applicationEventPublisher.publishEvent(
+                new UsuarioRegistradoEvent(this, usuario.getId(), usuario.getEmail()));
+        
+        // ⚡ Foto del registro (Base64): mismo pipeline que subirFoto, los bytes van al FotoStore
+        guardarFotoRegistro(usuario, dto.getFotoPerfil());
+        log.info("[UsuarioService] 🔍 createUsuario - Usuario guardado. Foto: {}", 
+            usuario.getFotoHash() != null ? "SÍ (" + usuario.getFotoBytes() + " bytes)" : "NO");
 
         // ⏸️ NO enviar email de bienvenida aquí - se enviará después de completar perfil (teléfono + datos)
         log.info("[UsuarioService] ⏸️ Email de bienvenida pendiente - se enviará al completar perfil");
@@ -218,9 +233,9 @@ public class UsuarioService {
         UsuarioDTO out = usuarioMapper.toDTO(usuario);
         
         // 🔍 DEBUG: Verificar que hasFotoPerfil se calcula correctamente
-        log.info("[UsuarioService] 🔍 createUsuario - DTO retornado. hasFotoPerfil: {} | fotoPerfil en DTO: {}", 
+        log.info("[UsuarioService] 🔍 createUsuario - DTO retornado. hasFotoPerfil: {} | fotoUrl: {}", 
             out.getHasFotoPerfil(),
-            out.getFotoPerfil() != null ? "SÍ (" + out.getFotoPerfil().length() + " chars)" : "NO");
+            out.getFotoUrl());
         
         out.setPassword(null);
         return out;
@@ -259,18 +274,16 @@ public class UsuarioService {
                 }
             }
             
-            // ⚡ CRITICAL FIX: Force eager loading of foto WITHIN transaction
-            // fotoPerfil is LAZY, so we must access it before session closes
-            byte[] fotoPerfilBytes = usuario.getFotoPerfil(); // Trigger lazy load
-            
+            // ⚡ La foto ya NO se carga aquí: el DTO lleva fotoUrl/hasFotoPerfil calculados desde foto_hash
+            // (evita meter hasta 5MB por usuario en el caché "usuarios")
             UsuarioDTO dto = usuarioMapper.toDTO(usuario);
             
             // ⚡ CRITICAL: Asegurar que los campos calculados están correctos
             dto.setPerfilCompleto(dto.getPerfilCompleto());
             dto.setCedulaVerificada(dto.getCedulaVerificada());
             
-            // ⚡ CRITICAL FIX: Force hasFotoPerfil to be calculated correctly
-            dto.setHasFotoPerfil(fotoPerfilBytes != null && fotoPerfilBytes.length > 0);
+            // ⚡ Reputación: una lectura por PK de reputacion_usuario
+            dto.setReputacion(reputacionService.obtener(id));
             
             return dto;
         }
@@ -315,10 +328,7 @@ public class UsuarioService {
     }
 
     @Transactional
-    @Caching(evict = {
-        @CacheEvict(value = "usuarios", key = "#usuarioId"),
-        @CacheEvict(value = "sugerencias", allEntries = true)
-    })
+    @CacheEvict(value = "usuarios", key = "#usuarioId")
     public Usuario actualizarPerfil(UUID usuarioId, PerfilDTO perfilDTO) {
         Usuario usuario = usuarioRepository.findById(usuarioId)
                 .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
@@ -404,6 +414,9 @@ public class UsuarioService {
             usuario.setGenero(perfilDTO.getGenero());
         }
 
+        // Posición y género afectan el ranking de sus sugerencias de amistad
+        sugerenciaAmigosService.invalidar(usuarioId);
+
         try {
             String fechaStr = perfilDTO.getFechaNacimiento();
             if (fechaStr != null && !fechaStr.isBlank()) {
@@ -433,6 +446,25 @@ public class UsuarioService {
     return saved;
     }
 
+    /**
+     * Foto opcional enviada en Base64 al registrarse. Una foto inválida no impide el registro.
+     */
+    private void guardarFotoRegistro(Usuario usuario, String fotoBase64) {
+        if (fotoBase64 == null || fotoBase64.isBlank()) {
+            return;
+        }
+        // Validar y procesar ANTES de entrar al store transaccional: si la imagen es inválida
+        // se descarta sin marcar rollback-only la transacción del registro
+        List<FotoPerfilProcessor.FotoVariante> variantes;
+        try {
+            variantes = fotoPerfilService.procesar(Base64.getDecoder().decode(fotoBase64));
+        } catch (IllegalArgumentException | IOException e) {
+            log.warn("[UsuarioService] Foto de registro descartada para {}: {}", usuario.getId(), e.getMessage());
+            return;
+        }
+        fotoPerfilService.guardarVariantes(usuario, variantes);
+    }
+
     @Transactional
     @CacheEvict(value = "usuarios", key = "#usuarioId")
     public void subirFoto(UUID usuarioId, MultipartFile file) throws IOException {
@@ -468,7 +500,8 @@ public class UsuarioService {
             throw new IllegalArgumentException(failureMessage);
         }
 
-    usuario.setFotoPerfil(file.getBytes());
+    // ⚡ Pipeline: orientar, quitar metadata y generar variantes 64/256/1024 px (bytes al FotoStore)
+    fotoPerfilService.guardarVariantes(usuario, fotoPerfilService.procesar(file.getBytes()));
     usuarioRepository.save(usuario);
     // Forzar flush para asegurar visibilidad inmediata en lecturas posteriores
     usuarioRepository.flush();
@@ -545,91 +578,64 @@ public class UsuarioService {
 
     /**
      * Buscar usuarios por emails (para sincronización de contactos)
-     * Busca coincidencias exactas de email
+     * Busca coincidencias exactas de email (sin distinguir mayúsculas).
+     *
+     * ⚡ Consulta indexada por lower(email) en lotes: solo id, nombre y foto,
+     * el costo crece con la cantidad de emails y no con la cantidad de usuarios.
      */
     @Transactional(readOnly = true)
-    public List<UsuarioDTO> buscarPorEmails(List<String> emails) {
+    public List<UsuarioMinDTO> buscarPorEmails(List<String> emails) {
         if (emails == null || emails.isEmpty()) {
             return Collections.emptyList();
         }
 
         log.info("Buscando usuarios para {} emails", emails.size());
 
-        // Normalizar emails: convertir a minúsculas y filtrar vacíos
-        List<String> emailsNormalizados = emails.stream()
-                .map(String::toLowerCase)
-                .map(String::trim)
+        // Normalizar emails: trim, minúsculas y filtrar vacíos
+        Set<String> emailsNormalizados = emails.stream()
+                .filter(Objects::nonNull)
+                .map(email -> email.trim().toLowerCase(Locale.ROOT))
                 .filter(email -> !email.isEmpty())
-                .distinct()
-                .collect(Collectors.toList());
+                .collect(Collectors.toCollection(LinkedHashSet::new));
 
-        log.info("Emails normalizados: {}", emailsNormalizados.size());
-
-        // Buscar en la base de datos
-        List<Usuario> usuarios = usuarioRepository.findAllActive().stream()
-                .filter(u -> u.getEmail() != null && emailsNormalizados.contains(u.getEmail().toLowerCase()))
-                .collect(Collectors.toList());
+        List<UsuarioRepository.EmailMatchProjection> usuarios =
+                usuarioRepository.findEmailMatchByEmails(emailsNormalizados);
 
         log.info("Encontrados {} usuarios", usuarios.size());
 
         return usuarios.stream()
-                .map(usuarioMapper::toDTO)
+                .map(u -> new UsuarioMinDTO(u.getId(), u.getNombre(), u.getApellido(),
+                        FotoPerfilUtils.url(u.getId(), u.getFotoHash())))
                 .collect(Collectors.toList());
     }
 
+    /**
+     * ⚡ Reviews pendientes agrupadas por partido: una sola query (anti-join contra review)
+     * en vez de roster + exists por compañero de cada partido
+     */
     @Transactional(readOnly = true)
     public List<PendingReviewResponse> obtenerPendingReviews(UUID userId) {
-        List<Inscripcion> misInscripciones = inscripcionRepository.findByUsuarioId(userId);
-
-        Map<UUID, List<UsuarioMinDTO>> pendientesPorPartido = new HashMap<>();
-
-        for (Inscripcion miInsc : misInscripciones) {
-            Partido partido = miInsc.getPartido();
-            if (partido == null) continue;
-
-            UUID partidoId = partido.getId();
-            List<Inscripcion> inscDelPartido = inscripcionRepository.findByPartidoId(partidoId);
-
-            for (Inscripcion inscOtro : inscDelPartido) {
-                if (inscOtro.getUsuario() == null) continue;
-                UUID otroUsuarioId = inscOtro.getUsuario().getId();
-                if (userId.equals(otroUsuarioId)) continue;
-
-                boolean yaReseñado = reviewRepository.existsByPartido_IdAndUsuarioQueCalifica_IdAndUsuarioCalificado_Id(
-                        partidoId,
-                        userId,
-                        otroUsuarioId
-                );
-
-                if (!yaReseñado) {
-                    Usuario u = inscOtro.getUsuario();
-                    // ✅ FIX: No acceder a fotoPerfil LAZY aquí - causa LazyInitializationException
-                    // Solo pasar null, el frontend cargará la foto con endpoint separado
-                    UsuarioMinDTO um = new UsuarioMinDTO(u.getId(), u.getNombre(), u.getApellido(), null);
-                    pendientesPorPartido.computeIfAbsent(partidoId, k -> new ArrayList<>()).add(um);
-                }
-            }
-        }
-
-        List<PendingReviewResponse> result = new ArrayList<>();
-        for (Map.Entry<UUID, List<UsuarioMinDTO>> entry : pendientesPorPartido.entrySet()) {
-            UUID partidoId = entry.getKey();
-            List<UsuarioMinDTO> jugadoresPendientes = entry.getValue();
-
-            Partido partido = partidoRepository.findById(partidoId).orElse(null);
-            if (partido == null) continue;
-
-            PendingReviewResponse pr = new PendingReviewResponse();
-            pr.setPartido_id(partido.getId());
-            pr.setTipo_partido(partido.getTipoPartido());
-            pr.setFecha(partido.getFecha() != null ? partido.getFecha().toString() : null);
-            pr.setNombre_ubicacion(partido.getNombreUbicacion());
-            pr.setJugadores_pendientes(jugadoresPendientes);
-
-            result.add(pr);
+        LocalDateTime ahora = LocalDateTime.now();
+        List<ReviewRepository.PendienteProjection> filas = reviewRepository
+                .findPendientesDeCalificar(userId, ahora.toLocalDate(), ahora.toLocalTime());
+
+        Map<UUID, PendingReviewResponse> porPartido = new LinkedHashMap<>();
+        for (ReviewRepository.PendienteProjection fila : filas) {
+            PendingReviewResponse pr = porPartido.computeIfAbsent(fila.getPartidoId(), partidoId -> {
+                PendingReviewResponse nuevo = new PendingReviewResponse();
+                nuevo.setPartido_id(partidoId);
+                nuevo.setTipo_partido(fila.getTipoPartido());
+                nuevo.setFecha(fila.getFecha() != null ? fila.getFecha().toString() : null);
+                nuevo.setNombre_ubicacion(fila.getNombreUbicacion());
+                nuevo.setJugadores_pendientes(new ArrayList<>());
+                return nuevo;
+            });
+            pr.getJugadores_pendientes().add(new UsuarioMinDTO(
+                    fila.getUsuarioId(), fila.getNombre(), fila.getApellido(),
+                    FotoPerfilUtils.url(fila.getUsuarioId(), fila.getFotoHash())));
         }
 
-        return result;
+        return new ArrayList<>(porPartido.values());
     }
 
     @Transactional(readOnly = true)
@@ -816,8 +822,11 @@ public class UsuarioService {
         for (Partido partido : partidosOrganizados) {
             // Solo cancelar partidos disponibles
             if ("DISPONIBLE".equals(partido.getEstado())) {
+                String estadoAnterior = partido.getEstado();
                 partido.setEstado("CANCELADO");
                 partidoRepository.save(partido);
+                applicationEventPublisher.publishEvent(new PartidoEstadoCambiadoEvent(
+                        this, partido.getId(), estadoAnterior, "CANCELADO", partido.getFecha()));
                 partidosCancelados++;
                 log.info("🔴 Partido cancelado (usuario eliminado): partidoId={}, tipo={}", 
                     partido.getId(), partido.getTipoPartido());
@@ -827,6 +836,8 @@ public class UsuarioService {
         // 2️⃣ Soft delete: marcar usuario como eliminado
         usuario.setDeletedAt(LocalDateTime.now());
         usuarioRepository.save(usuario);
+        authStateCache.invalidar(id);
+        applicationEventPublisher.publishEvent(new UsuarioEliminadoEvent(this, id));
         
         log.info("✅ Usuario soft-deleted: id={}, email={}, partidosCancelados={}", 
             id, usuario.getEmail(), partidosCancelados);
@@ -912,6 +923,7 @@ public class UsuarioService {
                 log.info("🗑️ Eliminando físicamente: id={}, email={}, deletedAt={}", 
                          user.getId(), user.getEmail(), user.getDeletedAt());
                 usuarioRepository.delete(user);
+                fotoPerfilService.eliminarFoto(user.getId());
             } catch (Exception e) {
                 // Si falla por foreign keys, loggear pero continuar
                 log.warn("⚠️ No se pudo eliminar usuario {}: {}", user.getId(), e.getMessage());
@@ -1001,6 +1013,11 @@ public class UsuarioService {
         usuarioRepository.flush();
         
         log.info("[OAuth] ✅ Usuario guardado exitosamente - ID: {}, Email: {}", saved.getId(), saved.getEmail());
+
+        if (existenteOpt.isEmpty()) {
+            // Vincular contactos que ya tenían este email (después del commit, async)
+            applicationEventPublisher.publishEvent(new UsuarioRegistradoEvent(this, saved.getId(), saved.getEmail()));
+        }
         log.info("[OAuth] 🔍 Verificando que el usuario fue guardado correctamente...");
         
         // Verificar que el usuario realmente existe en la DB
@@ -1024,16 +1041,10 @@ public class UsuarioService {
             throw new IllegalArgumentException("Usuario no encontrado");
         }
         
-        // Obtener amigos reales del usuario
-        List<Usuario> amigosReales = amistadRepository.findAmigosByUsuarioId(usuarioId)
+        // Obtener amigos reales del usuario (⚡ IDs desde las aristas + un solo SELECT ... IN)
+        List<Usuario> amigosReales = usuarioRepository.findAllById(amistadRepository.findAmigoIds(usuarioId))
                 .stream()
-                .map(amistad -> {
-                    UUID amigoId = amistad.getUsuarioId().equals(usuarioId) 
-                            ? amistad.getAmigoId() 
-                            : amistad.getUsuarioId();
-                    return usuarioRepository.findById(amigoId).orElse(null);
-                })
-                .filter(u -> u != null)
+                .filter(u -> u.getDeletedAt() == null)
                 .collect(Collectors.toList());
 
         // Si tiene amigos reales, retornarlos
@@ -1049,52 +1060,23 @@ public class UsuarioService {
     }
 
     /**
-     * Sugerencias inteligentes de amistad basadas en:
-     * - Partidos en común
-     * - Nivel de habilidad similar
-     * - Proximidad geográfica
+     * Sugerencias inteligentes de amistad (amigos de amigos, partidos en común, cercanía,
+     * posición/género), servidas desde el top-K precalculado de SugerenciaAmigosService.
      */
-    @Cacheable(value = "sugerencias", key = "#usuarioId")
     private List<UsuarioDTO> obtenerSugerenciasInteligentes(UUID usuarioId) {
-        // Validar que el usuario existe
-        usuarioRepository.findById(usuarioId)
-                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
-        
-        // FUTURO: Implementar filtrado inteligente usando nivel, ubicación, historial de partidos, etc.
-        // Por ahora, recomendaciones básicas son suficientes para el MVP
-
-        // Obtener todos los usuarios ACTIVOS (excluye soft-deleted automáticamente)
-        List<Usuario> candidatos = usuarioRepository.findAllActive().stream()
-                .filter(u -> !u.getId().equals(usuarioId))
-                .filter(u -> u.getNombre() != null && u.getEmail() != null)
-                .collect(Collectors.toList());
-
-        // Obtener IDs de amigos actuales y solicitudes pendientes para excluirlos
-        List<UUID> idsExcluir = new java.util.ArrayList<>();
-        idsExcluir.add(usuarioId);
-        
-        amistadRepository.findAmigosByUsuarioId(usuarioId).forEach(amistad -> {
-            UUID amigoId = amistad.getUsuarioId().equals(usuarioId) 
-                    ? amistad.getAmigoId() 
-                    : amistad.getUsuarioId();
-            idsExcluir.add(amigoId);
-        });
-
-        // Excluir solicitudes pendientes enviadas
-        amistadRepository.findByUsuarioIdAndEstado(usuarioId, "PENDIENTE")
-                .forEach(amistad -> idsExcluir.add(amistad.getAmigoId()));
-
-        // Excluir solicitudes pendientes recibidas
-        amistadRepository.findByAmigoIdAndEstado(usuarioId, "PENDIENTE")
-                .forEach(amistad -> idsExcluir.add(amistad.getUsuarioId()));
+        List<UUID> ids = sugerenciaAmigosService.obtenerSugerencias(usuarioId, 20);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
 
-        // Filtrar candidatos
-        List<Usuario> sugerencias = candidatos.stream()
-                .filter(u -> !idsExcluir.contains(u.getId()))
-                .limit(20)
-                .collect(Collectors.toList());
+        // ⚡ Un solo SELECT ... IN para los perfiles, respetando el orden del ranking
+        Map<UUID, Usuario> porId = usuarioRepository.findAllById(ids).stream()
+                .filter(u -> u.getDeletedAt() == null)
+                .collect(Collectors.toMap(Usuario::getId, u -> u));
 
-        return sugerencias.stream()
+        return ids.stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
                 .map(usuarioMapper::toDTO)
                 .peek(dto -> dto.setPassword(null))
                 .collect(Collectors.toList());
@@ -1254,12 +1236,21 @@ public class UsuarioService {
     }
     
     /**
-     * Contar usuarios conectados (últimos 5 minutos)
+     * Contar usuarios conectados (últimos 5 minutos), entre todas las instancias.
+     * ⚠️ Desde la base y no desde PresenciaTracker (que cuenta solo la instancia local).
+     * last_activity_at es write-behind (ActividadBuffer): puede atrasarse hasta app.activity.flush-ms.
      */
     @Transactional(readOnly = true)
     public long contarUsuariosConectados() {
-        LocalDateTime cutoffDate = LocalDateTime.now().minusMinutes(5);
-        return usuarioRepository.countByLastActivityAtAfter(cutoffDate);
+        return contarUsuariosConActividadEnMinutos(5);
+    }
+
+    /**
+     * Contar usuarios con actividad en los últimos N minutos (global, desde la base)
+     */
+    @Transactional(readOnly = true)
+    public long contarUsuariosConActividadEnMinutos(int minutos) {
+        return usuarioRepository.countByLastActivityAtAfter(LocalDateTime.now().minusMinutes(minutos));
     }
     
     /**
@@ -1345,6 +1336,16 @@ public class UsuarioService {
             amistadRepository.deleteAll(amistades);
             amistadRepository.deleteAll(solicitudesEnviadas);
             amistadRepository.deleteAll(solicitudesRecibidas);
+
+            Set<UUID> afectados = new HashSet<>();
+            afectados.add(uuid);
+            Stream.of(amistades, solicitudesEnviadas, solicitudesRecibidas)
+                    .flatMap(List::stream)
+                    .forEach(a -> {
+                        afectados.add(a.getUsuarioId());
+                        afectados.add(a.getAmigoId());
+                    });
+            grafoAmistadCache.invalidar(afectados);
         }
         
         // 5️⃣ MENSAJES - Confiar en CASCADE DELETE de PostgreSQL
@@ -1439,6 +1440,8 @@ public class UsuarioService {
         // 9️⃣ USUARIO
         log.warn("[ADMIN] 🗑️ Eliminando usuario {} DEFINITIVAMENTE", usuarioId);
         usuarioRepository.delete(usuario);
+        fotoPerfilService.eliminarFoto(uuid);
+        authStateCache.invalidar(uuid);
         
         log.warn("[ADMIN] ✅ Usuario {} y TODOS sus datos eliminados permanentemente", usuarioId);
     }
@@ -1457,6 +1460,7 @@ public class UsuarioService {
         
         usuario.setRol(nuevoRol);
         usuarioRepository.save(usuario);
+        authStateCache.invalidar(uuid);
         
         return usuarioMapper.toDTO(usuario);
     }
@@ -1525,8 +1529,11 @@ public class UsuarioService {
         
         for (Partido partido : partidosOrganizados) {
             if ("DISPONIBLE".equals(partido.getEstado())) {
+                String estadoAnterior = partido.getEstado();
                 partido.setEstado("CANCELADO");
                 partidoRepository.save(partido);
+                applicationEventPublisher.publishEvent(new PartidoEstadoCambiadoEvent(
+                        this, partido.getId(), estadoAnterior, "CANCELADO", partido.getFecha()));
                 partidosCancelados++;
                 
                 // Notificar a todos los jugadores inscritos
@@ -1575,6 +1582,7 @@ public class UsuarioService {
         }
         
         usuarioRepository.save(usuario);
+        authStateCache.invalidar(usuario.getId());
         
         log.warn("[ADMIN] Usuario {} baneado exitosamente. Razón: {}. Inscripciones eliminadas: {}, Partidos cancelados: {}, Partidos confirmados pendientes: {}", 
             usuarioId, reason, inscripcionesEliminadas, partidosCancelados, totalPartidosConfirmados);
@@ -1606,6 +1614,7 @@ public class UsuarioService {
         usuario.setBannedBy(null);
         
         usuarioRepository.save(usuario);
+        authStateCache.invalidar(uuid);
         
         log.warn("[ADMIN] Usuario {} desbaneado exitosamente", usuarioId);
         
@@ -1632,6 +1641,7 @@ public class UsuarioService {
                         u.setBanUntil(null);
                         u.setBannedBy(null);
                         usuarioRepository.save(u);
+                        authStateCache.invalidar(uuid);
                         return false;
                     }
                     
@@ -0,0 +1,54 @@
+package uy.um.faltauno.util;
+
+import uy.um.faltauno.dto.AmistadDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * ⚡ Cursor de paginación keyset para los listados de amistades (amigos y solicitudes).
+ *
+ * El orden es (created_at DESC, id DESC); la posición es la tupla del último elemento
+ * de la página anterior. El formato del token lo define {@link KeysetCursor}.
+ */
+public record AmistadCursor(LocalDateTime createdAt, UUID id) {
+
+    /** Tamaño máximo de página aceptado */
+    public static final int MAX_TAMANO_PAGINA = 200;
+
+    /**
+     * Tamaño de página efectivo, o null si el cliente no pidió paginar (lista completa)
+     */
+    public static Integer tamanoPagina(Integer limite) {
+        return limite != null ? KeysetCursor.acotar(limite, MAX_TAMANO_PAGINA) : null;
+    }
+
+    public String encode() {
+        return KeysetCursor.encode(createdAt, id);
+    }
+
+    /**
+     * @return null si no hay token
+     * @throws IllegalArgumentException si el token no es un cursor válido
+     */
+    public static AmistadCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        String[] partes = KeysetCursor.decode(token, 2);
+        try {
+            return new AmistadCursor(LocalDateTime.parse(partes[0]), UUID.fromString(partes[1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+
+    /**
+     * Token para pedir la página siguiente, o null si esta fue la última (o no se paginó).
+     */
+    public static String siguiente(List<AmistadDTO> pagina, Integer tamanoPagina) {
+        AmistadDTO ultimo = tamanoPagina != null ? KeysetCursor.ultimoSiHayMas(pagina, tamanoPagina) : null;
+        return ultimo != null ? new AmistadCursor(ultimo.getCreatedAt(), ultimo.getId()).encode() : null;
+    }
+}
@@ -0,0 +1,71 @@
+package uy.um.faltauno.util;
+
+import uy.um.faltauno.entity.Usuario;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * ⚡ Helpers para servir fotos de perfil por URL en lugar de Base64 dentro del JSON.
+ *
+ * Cada foto se identifica por el SHA-256 de su contenido (usuario.foto_hash).
+ * La URL incluye una versión derivada del hash, así el cliente puede cachearla como
+ * inmutable: si la foto cambia, cambia la URL.
+ */
+public final class FotoPerfilUtils {
+
+    /** Caracteres del hash usados como versión en la URL */
+    private static final int LARGO_VERSION = 16;
+
+    private FotoPerfilUtils() {
+    }
+
+    /**
+     * SHA-256 (hex) del contenido de la foto, o null si no hay foto
+     */
+    public static String hash(byte[] contenido) {
+        if (contenido == null || contenido.length == 0) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(contenido));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 es obligatorio en toda JVM
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Versión corta del hash que viaja en la URL (?v=...)
+     */
+    public static String version(String hash) {
+        if (hash == null) {
+            return null;
+        }
+        return hash.length() <= LARGO_VERSION ? hash : hash.substring(0, LARGO_VERSION);
+    }
+
+    /**
+     * URL versionada de la foto, o null si el usuario no tiene foto
+     */
+    public static String url(UUID usuarioId, String hash) {
+        if (usuarioId == null || hash == null) {
+            return null;
+        }
+        return "/api/usuarios/" + usuarioId + "/foto?v=" + version(hash);
+    }
+
+    /**
+     * URL versionada de la foto de un usuario.
+     * Solo lee foto_hash: NO dispara la carga LAZY de los bytes.
+     */
+    public static String url(Usuario usuario) {
+        if (usuario == null) {
+            return null;
+        }
+        return url(usuario.getId(), usuario.getFotoHash());
+    }
+}
@@ -0,0 +1,122 @@
+package uy.um.faltauno.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ⚡ Utilidades geográficas para búsqueda de partidos por cercanía (sin PostGIS).
+ *
+ * - Grilla fija de 1/{@link #CELDAS_POR_GRADO} grados por celda: cada partido guarda su celda
+ *   en partido.geo_celda (indexada), así un radio se traduce en un IN de pocas celdas.
+ * - Bounding box para prefiltrar por latitud/longitud en SQL.
+ * - Haversine para la distancia exacta y el ordenamiento.
+ *
+ * ⚠️ La fórmula de celda debe coincidir con la usada en la migración V37.
+ */
+public final class GeoUtils {
+
+    public static final double RADIO_TIERRA_KM = 6371.0088;
+
+    /** 10 celdas por grado: celdas de 0.1° ≈ 11 km de latitud */
+    public static final int CELDAS_POR_GRADO = 10;
+
+    private static final long COLUMNAS_GRILLA = 360L * CELDAS_POR_GRADO;
+
+    private static final BigDecimal NOVENTA = BigDecimal.valueOf(90);
+    private static final BigDecimal CIENTO_OCHENTA = BigDecimal.valueOf(180);
+    private static final BigDecimal ESCALA = BigDecimal.valueOf(CELDAS_POR_GRADO);
+
+    private GeoUtils() {
+    }
+
+    /**
+     * Rectángulo [minLat, maxLat] x [minLng, maxLng] que contiene el círculo de búsqueda.
+     */
+    public record BoundingBox(double minLat, double maxLat, double minLng, double maxLng) {
+    }
+
+    /**
+     * Distancia en km entre dos puntos (fórmula de haversine)
+     */
+    public static double haversineKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * RADIO_TIERRA_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * Bounding box de un radio alrededor de un punto, sobre la misma esfera que {@link #haversineKm}
+     * (si no, el prefiltro SQL descarta puntos que haversine deja adentro, en el borde del radio).
+     * Si el círculo contiene un polo la longitud se abre a todo el rango.
+     */
+    public static BoundingBox boundingBox(double lat, double lng, double radioKm) {
+        double radioAngular = radioKm / RADIO_TIERRA_KM;
+        double deltaLat = Math.toDegrees(radioAngular);
+        // Ancho máximo en longitud del círculo: asin(sin d / cos lat), algo más que d / cos lat
+        double senoDelta = Math.sin(radioAngular) / Math.cos(Math.toRadians(lat));
+        double deltaLng = senoDelta >= 1 || Double.isNaN(senoDelta) ? 180 : Math.toDegrees(Math.asin(senoDelta));
+
+        double minLng = lng - deltaLng;
+        double maxLng = lng + deltaLng;
+        if (deltaLng >= 180 || minLng < -180 || maxLng > 180) {
+            // Cruce del antimeridiano: no acotar por longitud (raro en Uruguay, pero correcto)
+            minLng = -180;
+            maxLng = 180;
+        }
+        return new BoundingBox(
+                Math.max(-90, lat - deltaLat),
+                Math.min(90, lat + deltaLat),
+                minLng,
+                maxLng);
+    }
+
+    /**
+     * Celda de la grilla para un punto, o null si faltan coordenadas.
+     * Aritmética decimal exacta para coincidir con el backfill SQL (numeric) en los bordes de celda.
+     */
+    public static Long celda(BigDecimal latitud, BigDecimal longitud) {
+        if (latitud == null || longitud == null) {
+            return null;
+        }
+        long fila = latitud.add(NOVENTA).multiply(ESCALA).setScale(0, RoundingMode.FLOOR).longValue();
+        long columna = longitud.add(CIENTO_OCHENTA).multiply(ESCALA).setScale(0, RoundingMode.FLOOR).longValue();
+        return fila * COLUMNAS_GRILLA + Math.min(columna, COLUMNAS_GRILLA - 1);
+    }
+
+    private static long fila(double lat) {
+        return (long) Math.floor((lat + 90) * CELDAS_POR_GRADO);
+    }
+
+    private static long columna(double lng) {
+        return Math.min(COLUMNAS_GRILLA - 1, (long) Math.floor((lng + 180) * CELDAS_POR_GRADO));
+    }
+
+    /**
+     * Todas las celdas que intersectan el bounding box.
+     * Devuelve null si son más de maxCeldas (el llamador debe usar solo el bounding box).
+     */
+    public static List<Long> celdasEnBoundingBox(BoundingBox box, int maxCeldas) {
+        long filaMin = fila(box.minLat());
+        long filaMax = fila(box.maxLat());
+        long colMin = columna(box.minLng());
+        long colMax = columna(box.maxLng());
+
+        long total = (filaMax - filaMin + 1) * (colMax - colMin + 1);
+        if (total > maxCeldas) {
+            return null;
+        }
+
+        List<Long> celdas = new ArrayList<>((int) total);
+        for (long fila = filaMin; fila <= filaMax; fila++) {
+            for (long col = colMin; col <= colMax; col++) {
+                celdas.add(fila * COLUMNAS_GRILLA + col);
+            }
+        }
+        return celdas;
+    }
+}
@@ -47,19 +47,12 @@ public interface InscripcionMapper {
         if (usuario == null) {
             return null;
         }
-        String fotoPerfil = null;
-        if (usuario.getFotoPerfil() != null) {
-            try {
-                fotoPerfil = java.util.Base64.getEncoder().encodeToString(usuario.getFotoPerfil());
-            } catch (Exception e) {
-                // Log silently, return null
-            }
-        }
+        String fotoUrl = FotoPerfilUtils.url(usuario);
         return new UsuarioMinDTO(
             usuario.getId(),
             usuario.getNombre(),
             usuario.getApellido(),
-            fotoPerfil
+            fotoUrl
         );
     }
     
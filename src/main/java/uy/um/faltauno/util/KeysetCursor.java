@@ -0,0 +1,72 @@
+package uy.um.faltauno.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * ⚡ Helpers compartidos de los cursores de paginación keyset ({@link PartidoCursor}, {@link AmistadCursor}).
+ *
+ * La posición es la tupla de orden del último elemento de la página anterior, serializada como
+ * "a|b|...|id" en Base64 URL-safe para que el cliente la trate como token opaco.
+ * Cada cursor define sus campos y su tamaño máximo de página; acá vive el formato.
+ */
+public final class KeysetCursor {
+
+    private static final String SEPARADOR = "|";
+
+    private KeysetCursor() {
+    }
+
+    /**
+     * Token opaco con los valores de la tupla (toString de cada uno, en orden)
+     */
+    public static String encode(Object... valores) {
+        StringBuilder raw = new StringBuilder();
+        for (int i = 0; i < valores.length; i++) {
+            raw.append(i > 0 ? SEPARADOR : "").append(valores[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Valores de la tupla del token
+     *
+     * @throws IllegalArgumentException si el token no es Base64 o no tiene {@code campos} valores
+     */
+    public static String[] decode(String token, int campos) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] partes = raw.split("\\|");
+            if (partes.length != campos) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            return partes;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+
+    /**
+     * Tamaño de página pedido, acotado a {@code maximo}
+     *
+     * @throws IllegalArgumentException si el pedido no es positivo
+     */
+    public static int acotar(int pedido, int maximo) {
+        if (pedido <= 0) {
+            throw new IllegalArgumentException("limit debe ser mayor a 0");
+        }
+        return Math.min(pedido, maximo);
+    }
+
+    /**
+     * Último elemento si la página vino completa (puede haber otra), o null si fue la última
+     */
+    public static <T> T ultimoSiHayMas(List<T> pagina, int tamanoPagina) {
+        if (pagina == null || pagina.isEmpty() || pagina.size() < tamanoPagina) {
+            return null;
+        }
+        return pagina.get(pagina.size() - 1);
+    }
+}
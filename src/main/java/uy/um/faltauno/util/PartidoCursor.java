@@ -0,0 +1,58 @@
+package uy.um.faltauno.util;
+
+import org.springframework.data.domain.Pageable;
+import uy.um.faltauno.dto.PartidoDTO;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * ⚡ Cursor de paginación keyset (seek) para el listado de partidos.
+ *
+ * La posición es la tupla (fecha, hora, id) del último partido de la página anterior,
+ * que coincide con el orden del listado y con el índice idx_partido_fecha_hora.
+ * El formato del token lo define {@link KeysetCursor}.
+ */
+public record PartidoCursor(LocalDate fecha, LocalTime hora, UUID id) {
+
+    /** Tamaño máximo de página aceptado en el listado */
+    public static final int MAX_TAMANO_PAGINA = 100;
+
+    /**
+     * Tamaño de página efectivo: el pedido por el cliente, acotado a {@link #MAX_TAMANO_PAGINA}.
+     * El número de página se ignora: la posición la da el cursor.
+     */
+    public static int tamanoPagina(Pageable pageable) {
+        if (pageable == null || pageable.isUnpaged()) {
+            return MAX_TAMANO_PAGINA;
+        }
+        return KeysetCursor.acotar(pageable.getPageSize(), MAX_TAMANO_PAGINA);
+    }
+
+    public String encode() {
+        return KeysetCursor.encode(fecha, hora, id);
+    }
+
+    /**
+     * @throws IllegalArgumentException si el token no es un cursor válido
+     */
+    public static PartidoCursor decode(String token) {
+        String[] partes = KeysetCursor.decode(token, 3);
+        try {
+            return new PartidoCursor(LocalDate.parse(partes[0]), LocalTime.parse(partes[1]), UUID.fromString(partes[2]));
+        } catch (RuntimeException e) {
+            // DateTimeParseException, UUID mal formado...
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+
+    /**
+     * Token para pedir la página siguiente, o null si esta fue la última.
+     */
+    public static String siguiente(List<PartidoDTO> pagina, int tamanoPagina) {
+        PartidoDTO ultimo = KeysetCursor.ultimoSiHayMas(pagina, tamanoPagina);
+        return ultimo != null ? new PartidoCursor(ultimo.getFecha(), ultimo.getHora(), ultimo.getId()).encode() : null;
+    }
+}
@@ -26,6 +26,7 @@ public interface PartidoMapper {
     @Mapping(target = "jugadoresActuales", ignore = true)
     @Mapping(target = "jugadores", ignore = true)
     @Mapping(target = "solicitudesPendientes", ignore = true)
+    @Mapping(target = "distanciaKm", ignore = true)
     PartidoDTO toDto(Partido partido);
 
     List<PartidoDTO> toDtoList(List<Partido> partidos);
@@ -34,6 +35,7 @@ public interface PartidoMapper {
     @Mapping(target = "id", ignore = true) // ⬅️ no sobreescribas el PK al actualizar
     @Mapping(target = "organizador", source = "organizadorId", qualifiedByName = "idToUsuario")
     @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "geoCelda", ignore = true)
     Partido toEntity(PartidoDTO dto);
 
     List<Partido> toEntityList(List<PartidoDTO> dtos);
@@ -43,25 +45,19 @@ public interface PartidoMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "organizador", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "geoCelda", ignore = true)
     void updateEntityFromDto(PartidoDTO dto, @MappingTarget Partido entity);
 
     // Métodos auxiliares
     @Named("usuarioToMin")
     default UsuarioMinDTO usuarioToMin(Usuario usuario) {
         if (usuario == null) return null;
-        String fotoPerfil = null;
-        if (usuario.getFotoPerfil() != null) {
-            try {
-                fotoPerfil = java.util.Base64.getEncoder().encodeToString(usuario.getFotoPerfil());
-            } catch (Exception e) {
-                // Log silently, return null
-            }
-        }
+        String fotoUrl = FotoPerfilUtils.url(usuario);
         return new UsuarioMinDTO(
             usuario.getId(),
             usuario.getNombre(),
             usuario.getApellido(),
-            fotoPerfil,
+            fotoUrl,
             usuario.getDeletedAt() // Incluir deletedAt para que el frontend sepa si está eliminado
         );
     }
@@ -25,19 +25,12 @@ public interface ReviewMapper {
     @Named("usuarioToMin")
     default UsuarioMinDTO usuarioToMin(Usuario usuario) {
         if (usuario == null) return null;
-        String fotoPerfil = null;
-        if (usuario.getFotoPerfil() != null) {
-            try {
-                fotoPerfil = java.util.Base64.getEncoder().encodeToString(usuario.getFotoPerfil());
-            } catch (Exception e) {
-                // Silently handle encoding errors
-            }
-        }
+        String fotoUrl = FotoPerfilUtils.url(usuario);
         return new UsuarioMinDTO(
             usuario.getId(),
             usuario.getNombre(),
             usuario.getApellido(),
-            fotoPerfil
+            fotoUrl
         );
     }
 }
\ No newline at end of file
@@ -11,7 +11,6 @@ import uy.um.faltauno.entity.Usuario;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Base64;
 
 @Mapper(componentModel = "spring")
 public interface UsuarioMapper {
@@ -21,7 +20,8 @@ public interface UsuarioMapper {
     // ----------------------
     // ENTITY → DTO
     // ----------------------
-    @Mapping(source = "fotoPerfil", target = "fotoPerfil", qualifiedByName = "bytesToBase64")
+    @Mapping(target = "fotoPerfil", ignore = true) // ⚡ La foto se sirve por URL (fotoUrl), no en Base64
+    @Mapping(target = "fotoUrl", ignore = true) // Set in @AfterMapping
     @Mapping(source = "fechaNacimiento", target = "fechaNacimiento", qualifiedByName = "localDateToString")
     @Mapping(source = "rol", target = "rol") // Mapear rol explícitamente
     @Mapping(source = "lastActivityAt", target = "lastActivityAt", qualifiedByName = "localDateTimeToString")
@@ -34,13 +34,15 @@ public interface UsuarioMapper {
     @Mapping(target = "cedulaVerificada", ignore = true) // Calculated in DTO getter
     @Mapping(target = "perfilCompleto", ignore = true) // Calculated in DTO getter
     @Mapping(target = "hasFotoPerfil", ignore = true) // Set in @AfterMapping
+    @Mapping(target = "reputacion", ignore = true) // La setea UsuarioService (reputacion_usuario)
     UsuarioDTO toDTO(Usuario usuario);
     
     /**
-     * DTO ligero para listados (SIN foto en base64 - solo flag hasFotoPerfil)
+     * DTO ligero para listados (SIN foto en base64 - solo flag hasFotoPerfil y fotoUrl)
      * Usar en endpoints que retornan listas de usuarios
      */
-    @Mapping(source = "fotoPerfil", target = "fotoPerfil", ignore = true) // NO incluir foto
+    @Mapping(target = "fotoPerfil", ignore = true) // NO incluir foto
+    @Mapping(target = "fotoUrl", ignore = true) // Set in @AfterMapping
     @Mapping(source = "fechaNacimiento", target = "fechaNacimiento", qualifiedByName = "localDateToString")
     @Mapping(source = "rol", target = "rol")
     @Mapping(source = "lastActivityAt", target = "lastActivityAt", qualifiedByName = "localDateTimeToString")
@@ -53,6 +55,7 @@ public interface UsuarioMapper {
     @Mapping(target = "cedulaVerificada", ignore = true)
     @Mapping(target = "perfilCompleto", ignore = true)
     @Mapping(target = "hasFotoPerfil", ignore = true) // Set in @AfterMapping
+    @Mapping(target = "reputacion", ignore = true)
     UsuarioDTO toDTOWithoutPhoto(Usuario usuario);
 
     /**
@@ -70,14 +73,16 @@ public interface UsuarioMapper {
         dto.setCedulaVerificada(dto.getCedulaVerificada());
 
         // ✅ Forzar presence flag de foto para evitar que el frontend tenga que inferir
-        // Se expone hasFotoPerfil = usuario.fotoPerfil != null
-        dto.setHasFotoPerfil(usuario != null && usuario.getFotoPerfil() != null && usuario.getFotoPerfil().length > 0);
+        // ⚡ Se calcula desde foto_hash: NO dispara la carga LAZY de los bytes
+        dto.setHasFotoPerfil(usuario != null && usuario.getFotoHash() != null);
+        dto.setFotoUrl(FotoPerfilUtils.url(usuario));
     }
 
     // ----------------------
     // DTO → ENTITY
     // ----------------------
-    @Mapping(source = "fotoPerfil", target = "fotoPerfil", qualifiedByName = "base64ToBytes")
+    @Mapping(target = "fotoHash", ignore = true) // La foto (Base64) la procesa el servicio y va al FotoStore
+    @Mapping(target = "fotoBytes", ignore = true)
     @Mapping(source = "fechaNacimiento", target = "fechaNacimiento", qualifiedByName = "stringToLocalDate")
     @Mapping(target = "createdAt", ignore = true) // Gestionado por @CreationTimestamp
     @Mapping(target = "deletedAt", ignore = true) // Gestionado por el servicio
@@ -116,26 +121,4 @@ public interface UsuarioMapper {
     default String mapUuidToString(java.util.UUID uuid) {
         return uuid != null ? uuid.toString() : null;
     }
-
-    // Conversores para byte[] <-> Base64
-    @Named("bytesToBase64")
-    default String mapBytesToBase64(byte[] bytes) {
-        if (bytes == null || bytes.length == 0) {
-            return null;
-        }
-        return Base64.getEncoder().encodeToString(bytes);
-    }
-
-    @Named("base64ToBytes")
-    default byte[] mapBase64ToBytes(String base64) {
-        try {
-            if (base64 == null || base64.isBlank()) {
-                return null;
-            }
-            return Base64.getDecoder().decode(base64);
-        } catch (IllegalArgumentException e) {
-            // String no es Base64 válido
-            return null;
-        }
-    }
-}
\ No newline at end of file
+}
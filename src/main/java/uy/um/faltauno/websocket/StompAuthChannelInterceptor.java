@@ -0,0 +1,63 @@
+package uy.um.faltauno.websocket;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+import uy.um.faltauno.config.JwtUtil;
+import uy.um.faltauno.security.AuthStateCache;
+
+/**
+ * Identifica al usuario de una sesión STOMP a partir del header nativo
+ * "Authorization: Bearer ..." del frame CONNECT.
+ *
+ * - Mismas validaciones que JwtAuthenticationFilter (firma, tokenVersion, baneo), en memoria.
+ * - El nombre del principal es el userId: coincide con convertAndSendToUser(userId, ...)
+ *   y permite a PresenciaTracker seguir connect/disconnect por usuario.
+ * - Sin token (o inválido) la sesión sigue siendo anónima, como antes.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private final JwtUtil jwtUtil;
+    private final AuthStateCache authStateCache;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.CONNECT.equals(accessor.getCommand())) {
+            return message;
+        }
+
+        String header = accessor.getFirstNativeHeader("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            return message;
+        }
+
+        jwtUtil.parseAndVerify(header.substring(7).trim())
+                .filter(claims -> claims.userId() != null)
+                .filter(claims -> authStateCache.obtener(claims.userId())
+                        .filter(estado -> !estado.baneado())
+                        .filter(estado -> claims.tokenVersion() == null
+                                || claims.tokenVersion().equals(estado.tokenVersion()))
+                        .isPresent())
+                .ifPresentOrElse(claims -> {
+                    accessor.setUser(new UsernamePasswordAuthenticationToken(
+                            claims.userId().toString(),
+                            null,
+                            claims.roles().stream().map(SimpleGrantedAuthority::new).toList()));
+                    log.debug("[WebSocket] Sesión STOMP autenticada: userId={}", claims.userId());
+                }, () -> log.debug("[WebSocket] CONNECT con token inválido: sesión anónima"));
+
+        return message;
+    }
+}
@@ -0,0 +1,32 @@
+-- ============================================
+-- V37: Índice de celdas geográficas para búsqueda por cercanía
+-- ============================================
+-- idx_partido_ubicacion (latitud, longitud) solo servía para rangos sobre latitud.
+-- Agregamos una celda de grilla fija (0.1° x 0.1°) que permite traducir un radio
+-- en un IN de pocas celdas y usar índice en ambos ejes, sin PostGIS.
+--
+-- ⚠️ La fórmula debe coincidir con GeoUtils.celda():
+--   fila    = floor((latitud + 90) * 10)
+--   columna = floor((longitud + 180) * 10)   (acotada a 3599)
+--   celda   = fila * 3600 + columna
+
+ALTER TABLE partido
+    ADD COLUMN IF NOT EXISTS geo_celda BIGINT;
+
+UPDATE partido
+SET geo_celda = FLOOR((latitud + 90) * 10)::BIGINT * 3600
+              + LEAST(FLOOR((longitud + 180) * 10)::BIGINT, 3599)
+WHERE latitud IS NOT NULL
+  AND longitud IS NOT NULL;
+
+-- El índice (latitud, longitud) no ayuda para "partidos cerca de mí" (V24 ya lo eliminó; por las dudas)
+DROP INDEX IF EXISTS idx_partido_ubicacion;
+
+CREATE INDEX IF NOT EXISTS idx_partido_geo_celda_fecha
+    ON partido(geo_celda, fecha)
+    WHERE geo_celda IS NOT NULL;
+
+COMMENT ON COLUMN partido.geo_celda IS 'Celda de grilla 0.1° calculada desde latitud/longitud (ver GeoUtils.celda)';
+COMMENT ON INDEX idx_partido_geo_celda_fecha IS 'Optimiza búsqueda de partidos por radio (prefiltro por celdas)';
+
+ANALYZE partido;
@@ -0,0 +1,18 @@
+-- ============================================
+-- V38: Hash de contenido de la foto de perfil
+-- ============================================
+-- Las fotos dejan de viajar en Base64 dentro del JSON: los DTOs llevan una URL
+-- versionada (/api/usuarios/{id}/foto?v=<hash>) y el endpoint responde con ETag
+-- fuerte = hash. Guardamos el SHA-256 para no tener que leer los bytes.
+
+ALTER TABLE usuario
+    ADD COLUMN IF NOT EXISTS foto_hash VARCHAR(64);
+
+-- Backfill de fotos existentes (sha256() nativo desde PostgreSQL 11)
+UPDATE usuario
+SET foto_hash = encode(sha256(foto_perfil), 'hex')
+WHERE foto_perfil IS NOT NULL
+  AND length(foto_perfil) > 0
+  AND foto_hash IS NULL;
+
+COMMENT ON COLUMN usuario.foto_hash IS 'SHA-256 (hex) de foto_perfil; versión de la URL y ETag de la foto';
@@ -0,0 +1,18 @@
+-- ============================================
+-- V39: Variantes procesadas de la foto de perfil
+-- ============================================
+-- Al subir una foto se genera una versión re-codificada (sin metadata) por tamaño
+-- (64, 256 y 1024 px de lado mayor). GET /api/usuarios/{id}/foto?size=N sirve
+-- la variante más chica que cubra N, sin descargar nunca el original de hasta 5 MB.
+
+CREATE TABLE IF NOT EXISTS usuario_foto (
+    usuario_id   UUID        NOT NULL REFERENCES usuario(id) ON DELETE CASCADE,
+    tamano       INTEGER     NOT NULL,
+    content_type VARCHAR(32) NOT NULL,
+    contenido    BYTEA       NOT NULL,
+    bytes        INTEGER     NOT NULL,
+    created_at   TIMESTAMP   NOT NULL DEFAULT NOW(),
+    PRIMARY KEY (usuario_id, tamano)
+);
+
+COMMENT ON TABLE usuario_foto IS 'Variantes JPEG de la foto de perfil por tamaño (lado mayor en px)';
@@ -0,0 +1,43 @@
+-- ============================================
+-- V40: Sacar los bytes de la foto de la tabla usuario
+-- ============================================
+-- usuario.foto_perfil (BYTEA) hacía pesadas las lecturas de usuario (findById del filtro JWT,
+-- listados de admin). Los bytes pasan a usuario_foto (FotoStore) y usuario solo guarda
+-- foto_hash y foto_bytes.
+--
+-- Las fotos subidas antes del pipeline de variantes se copian como original sin procesar
+-- (tamano = 0, ver FotoStore.TAMANO_ORIGINAL) y se sirven para cualquier tamaño pedido.
+
+INSERT INTO usuario_foto (usuario_id, tamano, content_type, contenido, bytes)
+SELECT u.id,
+       0,
+       CASE WHEN substring(u.foto_perfil FROM 1 FOR 4) = '\x89504e47'::bytea THEN 'image/png' ELSE 'image/jpeg' END,
+       u.foto_perfil,
+       octet_length(u.foto_perfil)
+FROM usuario u
+WHERE u.foto_perfil IS NOT NULL
+  AND octet_length(u.foto_perfil) > 0
+  AND NOT EXISTS (SELECT 1 FROM usuario_foto f WHERE f.usuario_id = u.id)
+ON CONFLICT (usuario_id, tamano) DO NOTHING;
+
+ALTER TABLE usuario ADD COLUMN IF NOT EXISTS foto_bytes INTEGER;
+
+-- Tamaño de la variante mayor (la que define foto_hash)
+UPDATE usuario u
+SET foto_bytes = f.bytes
+FROM (
+    SELECT DISTINCT ON (usuario_id) usuario_id, bytes
+    FROM usuario_foto
+    ORDER BY usuario_id, tamano DESC
+) f
+WHERE u.id = f.usuario_id;
+
+-- Sin bytes en el store no hay foto que versionar
+UPDATE usuario u
+SET foto_hash = NULL
+WHERE u.foto_hash IS NOT NULL
+  AND NOT EXISTS (SELECT 1 FROM usuario_foto f WHERE f.usuario_id = u.id);
+
+ALTER TABLE usuario DROP COLUMN IF EXISTS foto_perfil;
+
+COMMENT ON COLUMN usuario.foto_bytes IS 'Tamaño en bytes de la variante mayor de la foto (bytes en usuario_foto)';
@@ -0,0 +1,17 @@
+-- ============================================
+-- V41: Índice por email normalizado para búsqueda masiva
+-- ============================================
+-- La sincronización de contactos traía toda la tabla usuario a memoria y comparaba
+-- emails con List.contains. Ahora busca por lower(email) en lotes de IN (...),
+-- así el costo depende de la cantidad de contactos y no de la cantidad de usuarios.
+--
+-- ⚠️ La expresión debe coincidir con la de UsuarioRepository.findEmailMatchByEmailsLower:
+--    lower(email) sobre usuarios no eliminados
+
+CREATE INDEX IF NOT EXISTS idx_usuario_email_lower
+    ON usuario (lower(email))
+    WHERE deleted_at IS NULL;
+
+COMMENT ON INDEX idx_usuario_email_lower IS 'Búsqueda masiva de usuarios por email (sincronización de contactos)';
+
+ANALYZE usuario;
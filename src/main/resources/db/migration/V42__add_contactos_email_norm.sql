@@ -0,0 +1,36 @@
+-- ============================================
+-- V42: Email normalizado en contactos
+-- ============================================
+-- Los contactos guardan el email en "celular" (tal cual vino del teléfono) y, al registrarse
+-- un usuario, se recorría toda la tabla con findAll() para compararlos en Java.
+-- email_norm (trim + minúsculas) indexado permite vincularlos con un único UPDATE.
+--
+-- ⚠️ La normalización debe coincidir con Contacto.normalizarEmail()
+
+ALTER TABLE contactos
+    ADD COLUMN IF NOT EXISTS email_norm VARCHAR(255);
+
+UPDATE contactos
+SET email_norm = lower(btrim(celular))
+WHERE email_norm IS NULL
+  AND position('@' IN celular) > 0;
+
+CREATE INDEX IF NOT EXISTS idx_contactos_email_norm
+    ON contactos(email_norm)
+    WHERE email_norm IS NOT NULL;
+
+-- Vincular contactos de usuarios que se registraron después de la sincronización
+-- (hasta ahora ese vínculo nunca se hacía)
+UPDATE contactos c
+SET usuario_app_id = u.id,
+    is_on_app = TRUE,
+    updated_at = CURRENT_TIMESTAMP
+FROM usuario u
+WHERE lower(u.email) = c.email_norm
+  AND u.deleted_at IS NULL
+  AND c.usuario_app_id IS NULL;
+
+COMMENT ON COLUMN contactos.email_norm IS 'Email del contacto normalizado (trim + minúsculas) para vincularlo con usuarios';
+COMMENT ON INDEX idx_contactos_email_norm IS 'Vinculación de contactos al registrarse un usuario';
+
+ANALYZE contactos;
@@ -0,0 +1,75 @@
+-- ============================================
+-- V43: Aristas dirigidas de amistad (tabla de adyacencia)
+-- ============================================
+-- amistad guarda una fila por relación (usuario_id = quien envió la solicitud), así que
+-- "amigos de X" y "¿X e Y son amigos?" filtraban por (usuario_id = X OR amigo_id = X):
+-- Postgres solo puede resolverlo con un BitmapOr de dos índices o un seq scan.
+--
+-- amistad_arista tiene dos filas por relación, una por dirección (usuario_id → otro_id),
+-- así cada consulta es un range scan sobre un único índice:
+--   amigos de X          → WHERE usuario_id = X AND estado = 'ACEPTADO'
+--   ¿X e Y son amigos?   → PK (usuario_id, otro_id)
+--
+-- La mantiene un trigger sobre amistad (alta, cambio de estado y baja), así queda en
+-- sincronía sin importar desde dónde se modifique la amistad.
+-- ⚠️ Solo lectura desde la aplicación (entidad AmistadArista @Immutable).
+
+CREATE TABLE IF NOT EXISTS amistad_arista (
+    usuario_id UUID NOT NULL REFERENCES usuario(id) ON DELETE CASCADE,
+    otro_id UUID NOT NULL REFERENCES usuario(id) ON DELETE CASCADE,
+    amistad_id UUID NOT NULL REFERENCES amistad(id) ON DELETE CASCADE,
+    estado VARCHAR(20) NOT NULL,
+    enviada BOOLEAN NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL,
+    PRIMARY KEY (usuario_id, otro_id)
+);
+
+-- Listados por usuario y estado, ordenados por fecha (amigos, solicitudes)
+CREATE INDEX IF NOT EXISTS idx_amistad_arista_usuario_estado
+    ON amistad_arista(usuario_id, estado, created_at DESC);
+
+-- Mantenimiento desde el trigger
+CREATE INDEX IF NOT EXISTS idx_amistad_arista_amistad
+    ON amistad_arista(amistad_id);
+
+-- Backfill: dos aristas por amistad existente
+INSERT INTO amistad_arista (usuario_id, otro_id, amistad_id, estado, enviada, created_at)
+SELECT a.usuario_id, a.amigo_id, a.id, a.estado, TRUE, a.created_at FROM amistad a
+UNION ALL
+SELECT a.amigo_id, a.usuario_id, a.id, a.estado, FALSE, a.created_at FROM amistad a
+ON CONFLICT (usuario_id, otro_id) DO NOTHING;
+
+CREATE OR REPLACE FUNCTION sync_amistad_arista()
+RETURNS TRIGGER
+AS $$
+BEGIN
+  IF TG_OP IN ('UPDATE', 'DELETE') THEN
+    DELETE FROM amistad_arista WHERE amistad_id = OLD.id;
+  END IF;
+
+  IF TG_OP IN ('INSERT', 'UPDATE') THEN
+    INSERT INTO amistad_arista (usuario_id, otro_id, amistad_id, estado, enviada, created_at)
+    VALUES (NEW.usuario_id, NEW.amigo_id, NEW.id, NEW.estado, TRUE, NEW.created_at),
+           (NEW.amigo_id, NEW.usuario_id, NEW.id, NEW.estado, FALSE, NEW.created_at)
+    ON CONFLICT (usuario_id, otro_id) DO UPDATE
+      SET amistad_id = EXCLUDED.amistad_id,
+          estado = EXCLUDED.estado,
+          enviada = EXCLUDED.enviada,
+          created_at = EXCLUDED.created_at;
+  END IF;
+
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trigger_amistad_arista ON amistad;
+
+CREATE TRIGGER trigger_amistad_arista
+AFTER INSERT OR UPDATE OR DELETE ON amistad
+FOR EACH ROW
+EXECUTE FUNCTION sync_amistad_arista();
+
+COMMENT ON TABLE amistad_arista IS 'Aristas dirigidas de amistad (2 por relación), mantenidas por trigger desde amistad';
+COMMENT ON COLUMN amistad_arista.enviada IS 'TRUE si usuario_id envió la solicitud original';
+
+ANALYZE amistad_arista;
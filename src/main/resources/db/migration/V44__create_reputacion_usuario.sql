@@ -0,0 +1,69 @@
+-- ============================================
+-- V44: Agregado de reputación por usuario
+-- ============================================
+-- Las estadísticas de perfil cargaban todas las reviews recibidas y promediaban en Java
+-- en cada vista, y el promedio global recorría la tabla review completa.
+--
+-- reputacion_usuario guarda por usuario calificado la cantidad de reviews y la suma de
+-- cada dimensión: los promedios salen de una lectura por PK.
+--
+-- La mantiene un trigger sobre review (alta, modificación y baja, incluidas las bajas en
+-- cascada al borrar un partido o usuario), así se actualiza en la misma transacción que
+-- la review. ReputacionService.reparar() la reconstruye por lotes desde review.
+-- ⚠️ Solo lectura desde la aplicación (entidad ReputacionUsuario @Immutable).
+
+CREATE TABLE IF NOT EXISTS reputacion_usuario (
+    usuario_id UUID PRIMARY KEY REFERENCES usuario(id) ON DELETE CASCADE,
+    total_reviews INT NOT NULL DEFAULT 0,
+    suma_nivel BIGINT NOT NULL DEFAULT 0,
+    suma_deportividad BIGINT NOT NULL DEFAULT 0,
+    suma_companerismo BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+-- Backfill desde las reviews existentes
+INSERT INTO reputacion_usuario (usuario_id, total_reviews, suma_nivel, suma_deportividad, suma_companerismo, updated_at)
+SELECT r.usuario_calificado_id, COUNT(*), SUM(r.nivel), SUM(r.deportividad), SUM(r.companerismo), now()
+FROM review r
+GROUP BY r.usuario_calificado_id
+ON CONFLICT (usuario_id) DO NOTHING;
+
+CREATE OR REPLACE FUNCTION sync_reputacion_usuario()
+RETURNS TRIGGER
+AS $$
+BEGIN
+  IF TG_OP IN ('UPDATE', 'DELETE') THEN
+    UPDATE reputacion_usuario
+       SET total_reviews = total_reviews - 1,
+           suma_nivel = suma_nivel - OLD.nivel,
+           suma_deportividad = suma_deportividad - OLD.deportividad,
+           suma_companerismo = suma_companerismo - OLD.companerismo,
+           updated_at = now()
+     WHERE usuario_id = OLD.usuario_calificado_id;
+  END IF;
+
+  IF TG_OP IN ('INSERT', 'UPDATE') THEN
+    INSERT INTO reputacion_usuario (usuario_id, total_reviews, suma_nivel, suma_deportividad, suma_companerismo, updated_at)
+    VALUES (NEW.usuario_calificado_id, 1, NEW.nivel, NEW.deportividad, NEW.companerismo, now())
+    ON CONFLICT (usuario_id) DO UPDATE
+      SET total_reviews = reputacion_usuario.total_reviews + 1,
+          suma_nivel = reputacion_usuario.suma_nivel + EXCLUDED.suma_nivel,
+          suma_deportividad = reputacion_usuario.suma_deportividad + EXCLUDED.suma_deportividad,
+          suma_companerismo = reputacion_usuario.suma_companerismo + EXCLUDED.suma_companerismo,
+          updated_at = now();
+  END IF;
+
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trigger_reputacion_usuario ON review;
+
+CREATE TRIGGER trigger_reputacion_usuario
+AFTER INSERT OR UPDATE OR DELETE ON review
+FOR EACH ROW
+EXECUTE FUNCTION sync_reputacion_usuario();
+
+COMMENT ON TABLE reputacion_usuario IS 'Cantidad y sumas de reviews recibidas por usuario, mantenidas por trigger desde review';
+
+ANALYZE reputacion_usuario;
@@ -0,0 +1,104 @@
+-- ============================================
+-- V45: Rollup diario de partidos por tipo
+-- ============================================
+-- Las métricas de admin (partidos hoy / esta semana / este mes) cargaban la tabla partido
+-- completa con findAll() y filtraban en Java.
+--
+-- partido_diario guarda por (día, tipo_partido):
+--   creados     → partidos creados ese día (created_at)
+--   programados → partidos que se juegan ese día (fecha), en cualquier estado
+--   cancelados  → de esos, los que hoy están CANCELADOS
+--   completados → de esos, los que hoy están COMPLETADOS
+-- Cualquier rango de fechas se responde sumando a lo sumo unas cientos de filas.
+--
+-- La mantiene un trigger sobre partido (alta, cambio de fecha/estado/tipo y baja): cada
+-- cambio resta el aporte de la fila vieja y suma el de la nueva.
+-- ⚠️ Solo lectura desde la aplicación (entidad PartidoDiario @Immutable).
+
+CREATE TABLE IF NOT EXISTS partido_diario (
+    dia DATE NOT NULL,
+    tipo_partido VARCHAR(20) NOT NULL,
+    creados INT NOT NULL DEFAULT 0,
+    programados INT NOT NULL DEFAULT 0,
+    cancelados INT NOT NULL DEFAULT 0,
+    completados INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (dia, tipo_partido)
+);
+
+-- Backfill desde los partidos existentes
+INSERT INTO partido_diario (dia, tipo_partido, creados, programados, cancelados, completados)
+SELECT dia, tipo_partido, SUM(creados), SUM(programados), SUM(cancelados), SUM(completados)
+FROM (
+    SELECT p.created_at::date AS dia, p.tipo_partido, 1 AS creados, 0 AS programados, 0 AS cancelados, 0 AS completados
+    FROM partido p
+    UNION ALL
+    SELECT p.fecha, p.tipo_partido, 0, 1,
+           CASE WHEN p.estado = 'CANCELADO' THEN 1 ELSE 0 END,
+           CASE WHEN p.estado = 'COMPLETADO' THEN 1 ELSE 0 END
+    FROM partido p
+) aportes
+GROUP BY dia, tipo_partido
+ON CONFLICT (dia, tipo_partido) DO NOTHING;
+
+-- Sumar (signo = 1) o restar (signo = -1) el aporte de un partido al rollup
+CREATE OR REPLACE FUNCTION aplicar_partido_diario(p_creado DATE, p_fecha DATE, p_tipo VARCHAR, p_estado VARCHAR,
+                                                  p_signo INT, p_contar_creado BOOLEAN)
+RETURNS VOID
+AS $$
+BEGIN
+  IF p_contar_creado THEN
+    INSERT INTO partido_diario AS d (dia, tipo_partido, creados)
+    VALUES (p_creado, p_tipo, p_signo)
+    ON CONFLICT (dia, tipo_partido) DO UPDATE
+      SET creados = d.creados + EXCLUDED.creados;
+  END IF;
+
+  INSERT INTO partido_diario AS d (dia, tipo_partido, programados, cancelados, completados)
+  VALUES (p_fecha, p_tipo, p_signo,
+          CASE WHEN p_estado = 'CANCELADO' THEN p_signo ELSE 0 END,
+          CASE WHEN p_estado = 'COMPLETADO' THEN p_signo ELSE 0 END)
+  ON CONFLICT (dia, tipo_partido) DO UPDATE
+    SET programados = d.programados + EXCLUDED.programados,
+        cancelados = d.cancelados + EXCLUDED.cancelados,
+        completados = d.completados + EXCLUDED.completados;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION sync_partido_diario()
+RETURNS TRIGGER
+AS $$
+DECLARE
+  cambia_tipo BOOLEAN;
+BEGIN
+  IF TG_OP = 'UPDATE'
+     AND OLD.fecha IS NOT DISTINCT FROM NEW.fecha
+     AND OLD.estado IS NOT DISTINCT FROM NEW.estado
+     AND OLD.tipo_partido IS NOT DISTINCT FROM NEW.tipo_partido THEN
+    RETURN NULL;
+  END IF;
+
+  IF TG_OP = 'INSERT' THEN
+    PERFORM aplicar_partido_diario(NEW.created_at::date, NEW.fecha, NEW.tipo_partido, NEW.estado, 1, TRUE);
+  ELSIF TG_OP = 'DELETE' THEN
+    PERFORM aplicar_partido_diario(OLD.created_at::date, OLD.fecha, OLD.tipo_partido, OLD.estado, -1, TRUE);
+  ELSE
+    -- "creados" solo cambia de fila si cambió el tipo
+    cambia_tipo := OLD.tipo_partido IS DISTINCT FROM NEW.tipo_partido;
+    PERFORM aplicar_partido_diario(OLD.created_at::date, OLD.fecha, OLD.tipo_partido, OLD.estado, -1, cambia_tipo);
+    PERFORM aplicar_partido_diario(NEW.created_at::date, NEW.fecha, NEW.tipo_partido, NEW.estado, 1, cambia_tipo);
+  END IF;
+
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trigger_partido_diario ON partido;
+
+CREATE TRIGGER trigger_partido_diario
+AFTER INSERT OR UPDATE OR DELETE ON partido
+FOR EACH ROW
+EXECUTE FUNCTION sync_partido_diario();
+
+COMMENT ON TABLE partido_diario IS 'Rollup diario de partidos por tipo (creados, programados, cancelados, completados), mantenido por trigger desde partido';
+
+ANALYZE partido_diario;
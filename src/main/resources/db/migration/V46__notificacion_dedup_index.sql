@@ -0,0 +1,36 @@
+-- ============================================
+-- V46: Clave de deduplicación de notificaciones
+-- ============================================
+-- crearNotificacion cargaba TODAS las notificaciones del usuario para buscar en Java
+-- una no leída del mismo tipo y entidad (últimas 24h) y actualizarla en lugar de duplicar.
+--
+-- Ahora la clave (usuario_id, tipo, entidad_id) de las notificaciones no leídas de los tipos
+-- deduplicados es única, y NotificacionService hace un único INSERT ... ON CONFLICT DO UPDATE
+-- sobre este índice parcial.
+-- ⚠️ La lista de tipos debe coincidir con NotificacionService.TIPOS_DEDUPLICADOS
+--    (el predicado del ON CONFLICT repite este WHERE).
+
+-- Colapsar duplicados existentes: se deja sin leer solo la más reciente de cada clave
+UPDATE notificacion n
+   SET leida = TRUE,
+       fecha_lectura = COALESCE(n.fecha_lectura, now())
+  FROM (
+    SELECT id,
+           ROW_NUMBER() OVER (PARTITION BY usuario_id, tipo, entidad_id ORDER BY created_at DESC, id) AS orden
+      FROM notificacion
+     WHERE leida = FALSE
+       AND entidad_id IS NOT NULL
+       AND tipo IN ('NUEVA_SOLICITUD', 'JUGADOR_UNIDO', 'NUEVO_MENSAJE', 'INSCRIPCION_ACEPTADA', 'INSCRIPCION_RECHAZADA')
+  ) dup
+ WHERE n.id = dup.id
+   AND dup.orden > 1;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_notificacion_dedup_no_leida
+    ON notificacion(usuario_id, tipo, entidad_id)
+    WHERE leida = FALSE
+      AND entidad_id IS NOT NULL
+      AND tipo IN ('NUEVA_SOLICITUD', 'JUGADOR_UNIDO', 'NUEVO_MENSAJE', 'INSCRIPCION_ACEPTADA', 'INSCRIPCION_RECHAZADA');
+
+COMMENT ON INDEX uq_notificacion_dedup_no_leida IS 'Una sola notificación no leída por (usuario, tipo, entidad) para los tipos deduplicados';
+
+ANALYZE notificacion;
@@ -0,0 +1,45 @@
+-- ============================================
+-- V47: Outbox transaccional de emails
+-- ============================================
+-- Los emails se enviaban por SMTP dentro de métodos @Async que comparten el executor
+-- de AsyncConfig (2-5 threads, cola de 100): ráfagas de notificaciones se rechazaban o
+-- bloqueaban el resto del trabajo asíncrono, y los fallos solo se loggeaban.
+--
+-- Ahora EmailService escribe el email ya renderizado en email_outbox, en la misma
+-- transacción que la operación de negocio (si hace rollback, el email no existe).
+-- EmailOutboxService lo despacha con su propio pool de workers:
+--   PENDIENTE → ENVIANDO (reclamado con FOR UPDATE SKIP LOCKED + lease en bloqueado_hasta)
+--   ENVIANDO  → ENVIADO | PENDIENTE (reintento con backoff en proximo_intento) | FALLIDO
+-- Si una instancia muere con filas ENVIANDO, se vuelven a reclamar al vencer el lease.
+
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    destinatario VARCHAR(255) NOT NULL,
+    asunto VARCHAR(500) NOT NULL,
+    cuerpo_html TEXT NOT NULL,
+    tipo VARCHAR(50),
+    estado VARCHAR(20) NOT NULL DEFAULT 'PENDIENTE',
+    intentos INT NOT NULL DEFAULT 0,
+    proximo_intento TIMESTAMPTZ NOT NULL DEFAULT now(),
+    bloqueado_hasta TIMESTAMPTZ,
+    ultimo_error TEXT,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    enviado_at TIMESTAMPTZ,
+    CONSTRAINT chk_email_outbox_estado CHECK (estado IN ('PENDIENTE', 'ENVIANDO', 'ENVIADO', 'FALLIDO'))
+);
+
+-- Cola: próximos a enviar
+CREATE INDEX IF NOT EXISTS idx_email_outbox_pendiente
+    ON email_outbox(proximo_intento)
+    WHERE estado = 'PENDIENTE';
+
+-- Leases vencidos (instancia caída a mitad de envío)
+CREATE INDEX IF NOT EXISTS idx_email_outbox_enviando
+    ON email_outbox(bloqueado_hasta)
+    WHERE estado = 'ENVIANDO';
+
+-- Limpieza de enviados/fallidos antiguos
+CREATE INDEX IF NOT EXISTS idx_email_outbox_created
+    ON email_outbox(created_at);
+
+COMMENT ON TABLE email_outbox IS 'Outbox transaccional de emails, despachado por EmailOutboxService con reintentos y backoff';
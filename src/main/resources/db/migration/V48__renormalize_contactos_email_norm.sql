@@ -0,0 +1,27 @@
+-- ============================================
+-- V48: Misma normalización de email_norm en SQL y en Java
+-- ============================================
+-- V42 calculó email_norm con lower(btrim(celular)), que solo recorta espacios, mientras que
+-- Contacto.normalizarEmail() usaba String.trim() (recorta tabs, saltos de línea y cualquier
+-- carácter ≤ U+0020). El mismo email podía quedar con dos email_norm distintos y la vinculación
+-- al registrarse un usuario fallaba sin error.
+--
+-- Ahora ambos recortan exactamente ' ', '\t', '\r', '\n' en los extremos.
+-- ⚠️ Debe coincidir con Contacto.normalizarEmail()
+-- Limitación: lower() depende de la collation de la base; para letras no ASCII puede diferir
+-- de toLowerCase(Locale.ROOT) en Java.
+
+UPDATE contactos
+SET email_norm = NULLIF(lower(btrim(celular, E' \t\r\n')), '')
+WHERE position('@' IN celular) > 0
+  AND email_norm IS DISTINCT FROM NULLIF(lower(btrim(celular, E' \t\r\n')), '');
+
+-- Vincular los contactos que recién ahora coinciden con un usuario
+UPDATE contactos c
+SET usuario_app_id = u.id,
+    is_on_app = TRUE,
+    updated_at = CURRENT_TIMESTAMP
+FROM usuario u
+WHERE lower(u.email) = c.email_norm
+  AND u.deleted_at IS NULL
+  AND c.usuario_app_id IS NULL;
@@ -0,0 +1,96 @@
+package uy.um.faltauno.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Microbenchmark de {@link JwtUtil#parseAndVerify}: verificación HMAC en cada llamada (cache fría
+ * o deshabilitada) contra el hit de la cache de tokens verificados (cache caliente).
+ *
+ * No corre en el build normal. Para medir:
+ * {@code mvn -B test -Dtest=JwtUtilBenchmarkTest -Dbenchmark=true}
+ * (imprime ns/op de cada escenario; los números dependen de la máquina, comparar entre sí).
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class JwtUtilBenchmarkTest {
+
+    private static final int TOKENS = 1_000;
+    private static final int CALENTAMIENTO = 200_000;
+    private static final int MEDICIONES = 1_000_000;
+
+    @Test
+    void parseAndVerifyCacheFriaVsCaliente() {
+        JwtUtil sinCache = jwtUtil(false);
+        JwtUtil conCache = jwtUtil(true);
+        List<String> tokens = IntStream.range(0, TOKENS)
+                .mapToObj(i -> sinCache.generateToken(UUID.randomUUID(), "user" + i + "@test.uy", 1, "USER"))
+                .toList();
+
+        // Fría: cada llamada parsea y verifica la firma
+        double fria = medir(sinCache, tokens);
+        // Miss: verifica y además calcula el hash y guarda en la cache (primer request de cada token)
+        double miss = medirMisses(tokens);
+        // Caliente: hash del token + lookup en Caffeine
+        tokens.forEach(conCache::parseAndVerify);
+        double caliente = medir(conCache, tokens);
+
+        System.out.printf("[JwtUtilBenchmark] fría (sin cache): %.0f ns/op%n", fria);
+        System.out.printf("[JwtUtilBenchmark] miss (cache vacía): %.0f ns/op%n", miss);
+        System.out.printf("[JwtUtilBenchmark] caliente (hit): %.0f ns/op (%.1fx)%n", caliente, fria / caliente);
+
+        assertThat(conCache.parseAndVerify(tokens.get(0)).orElseThrow())
+                .isSameAs(conCache.parseAndVerify(tokens.get(0)).orElseThrow());
+        assertThat(caliente).isLessThan(fria);
+    }
+
+    private static double medir(JwtUtil jwtUtil, List<String> tokens) {
+        long sumidero = 0;
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            sumidero += jwtUtil.parseAndVerify(tokens.get(i % TOKENS)).map(c -> c.jti().length()).orElse(0);
+        }
+        long inicio = System.nanoTime();
+        for (int i = 0; i < MEDICIONES; i++) {
+            sumidero += jwtUtil.parseAndVerify(tokens.get(i % TOKENS)).map(c -> c.jti().length()).orElse(0);
+        }
+        double nsPorOp = (double) (System.nanoTime() - inicio) / MEDICIONES;
+        assertThat(sumidero).isPositive();
+        return nsPorOp;
+    }
+
+    /**
+     * Cada ronda usa una instancia nueva (cache vacía), así todas las llamadas son misses
+     */
+    private static double medirMisses(List<String> tokens) {
+        int rondas = MEDICIONES / TOKENS;
+        long total = 0;
+        for (int ronda = 0; ronda < rondas * 2; ronda++) {
+            JwtUtil vacia = jwtUtil(true);
+            long inicio = System.nanoTime();
+            for (String token : tokens) {
+                vacia.parseAndVerify(token).orElseThrow();
+            }
+            // La primera mitad de las rondas es calentamiento
+            if (ronda >= rondas) {
+                total += System.nanoTime() - inicio;
+            }
+        }
+        return (double) total / ((long) rondas * TOKENS);
+    }
+
+    private static JwtUtil jwtUtil(boolean cache) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secretKey", "clave_de_benchmark_de_al_menos_256_bits_para_hs256_ok");
+        ReflectionTestUtils.setField(jwtUtil, "EXPIRATION_TIME", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheEnabled", cache);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", 10_000L);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+}
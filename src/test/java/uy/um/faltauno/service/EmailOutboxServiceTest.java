@@ -0,0 +1,258 @@
+package uy.um.faltauno.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.doubleThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Outbox de emails con JdbcTemplate y JavaMailSender mockeados: qué sentencia corre cada email
+ * reclamado (enviado, reintento con backoff, fallido, postergado) según el resultado del lote SMTP.
+ *
+ * El envío corre en el pool propio del servicio: cada test lo drena con {@link #esperarEnvios()}
+ * (detener() espera las tareas en curso) antes de verificar.
+ */
+@ExtendWith(MockitoExtension.class)
+class EmailOutboxServiceTest {
+
+    private static final int THREADS = 1;
+    private static final int LOTE_SMTP = 20;
+    private static final int MAX_INTENTOS = 3;
+    private static final long BACKOFF_BASE_MS = 10_000;
+    private static final long BACKOFF_MAX_MS = 60_000;
+    private static final int MAX_POR_DESTINATARIO = 2;
+    private static final long VENTANA_DESTINATARIO_MS = 60_000;
+
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private JavaMailSender mailSender;
+
+    private SimpleMeterRegistry meterRegistry;
+    private EmailOutboxService outbox;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        outbox = new EmailOutboxService(jdbcTemplate, mailSender, meterRegistry, "noreply@faltauno.uy",
+                THREADS, 100, LOTE_SMTP, MAX_INTENTOS, BACKOFF_BASE_MS, BACKOFF_MAX_MS,
+                MAX_POR_DESTINATARIO, VENTANA_DESTINATARIO_MS, 7);
+        lenient().when(mailSender.createMimeMessage()).thenAnswer(inv -> new MimeMessage((Session) null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        outbox.detener();
+    }
+
+    @Test
+    void reclamaConSkipLockedYRecuperaLeasesVencidos() {
+        reclamar();
+
+        outbox.despachar();
+        esperarEnvios();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        // lease = max(60, loteSmtp * 30) s; capacidad = min(lote, threads * loteSmtp * 2)
+        verify(jdbcTemplate).query(sql.capture(), any(RowMapper.class), eq((long) LOTE_SMTP * 30), eq(THREADS * LOTE_SMTP * 2));
+        assertThat(sql.getValue())
+                .contains("FOR UPDATE SKIP LOCKED")
+                .contains("estado = 'ENVIANDO' AND bloqueado_hasta < now()")
+                .contains("intentos = o.intentos + 1");
+        verifyNoInteractions(mailSender);
+    }
+
+    @Test
+    void emailConLeaseVencidoEnElUltimoIntentoQuedaFallido() {
+        // Reclamado de nuevo tras vencer el lease de otra instancia: el reclamo ya sumó el intento
+        reclamar(fila(7, "caido@test.uy", MAX_INTENTOS));
+        doThrow(new MailAuthenticationException("535 auth")).when(mailSender).send(any(MimeMessage[].class));
+
+        outbox.despachar();
+        esperarEnvios();
+
+        verify(jdbcTemplate).update(contains("SET estado = 'FALLIDO'"), eq("535 auth"), eq(7L));
+        verify(jdbcTemplate, never()).update(contains("proximo_intento = now()"), any(), anyDouble(), eq(7L));
+        assertThat(meterRegistry.counter("faltauno_email_outbox_fallidos_total").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void errorDeConexionReintentaTodoElLoteConBackoffExponencial() {
+        reclamar(fila(1, "a@test.uy", 1), fila(2, "b@test.uy", 2));
+        doThrow(new MailAuthenticationException("535 auth")).when(mailSender).send(any(MimeMessage[].class));
+
+        outbox.despachar();
+        esperarEnvios();
+
+        // base * 2^(intento-1) + hasta 20% de jitter, en segundos
+        verify(jdbcTemplate).update(contains("ultimo_error = ?,"), eq("535 auth"),
+                doubleThat(s -> s >= 10.0 && s <= 12.0), eq(1L));
+        verify(jdbcTemplate).update(contains("ultimo_error = ?,"), eq("535 auth"),
+                doubleThat(s -> s >= 20.0 && s <= 24.0), eq(2L));
+        verify(jdbcTemplate, never()).update(contains("SET estado = 'ENVIADO'"), any(Object[].class));
+        verify(jdbcTemplate, never()).update(contains("SET estado = 'FALLIDO'"), anyString(), anyLong());
+        assertThat(meterRegistry.counter("faltauno_email_outbox_reintentos_total").count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void backoffSeAcotaAlMaximo() {
+        reclamar(fila(1, "a@test.uy", MAX_INTENTOS - 1));
+        EmailOutboxService conTopeBajo = new EmailOutboxService(jdbcTemplate, mailSender, meterRegistry,
+                "noreply@faltauno.uy", THREADS, 100, LOTE_SMTP, MAX_INTENTOS, BACKOFF_BASE_MS, 15_000,
+                MAX_POR_DESTINATARIO, VENTANA_DESTINATARIO_MS, 7);
+        doThrow(new MailSendException("421 busy")).when(mailSender).send(any(MimeMessage[].class));
+
+        try {
+            conTopeBajo.despachar();
+            conTopeBajo.detener();
+
+            verify(jdbcTemplate).update(contains("ultimo_error = ?,"), eq("421 busy"),
+                    doubleThat(s -> s >= 15.0 && s <= 18.0), eq(1L));
+        } finally {
+            conTopeBajo.detener();
+        }
+    }
+
+    @Test
+    void throttlingPorDestinatarioPostergaSinConsumirIntentos() {
+        reclamar(fila(1, "spam@test.uy", 1), fila(2, "SPAM@test.uy", 1), fila(3, "spam@test.uy", 1),
+                fila(4, "otro@test.uy", 1));
+
+        outbox.despachar();
+        esperarEnvios();
+
+        // El tercero al mismo destinatario (sin distinguir mayúsculas) vuelve a la cola por una ventana
+        verify(jdbcTemplate).update(contains("intentos = intentos - 1"), eq(VENTANA_DESTINATARIO_MS / 1000.0), eq(3L));
+        verify(jdbcTemplate).update(contains("SET estado = 'ENVIADO'"), eq(4L));
+        verify(jdbcTemplate).update(contains("SET estado = 'ENVIADO'"), eq(1L));
+        verify(jdbcTemplate).update(contains("SET estado = 'ENVIADO'"), eq(2L));
+        verify(jdbcTemplate, never()).update(contains("SET estado = 'ENVIADO'"), eq(3L));
+        verify(jdbcTemplate, never()).update(contains("ultimo_error = ?,"), any(), anyDouble(), eq(3L));
+
+        ArgumentCaptor<MimeMessage[]> enviados = ArgumentCaptor.forClass(MimeMessage[].class);
+        verify(mailSender).send(enviados.capture());
+        assertThat(enviados.getValue()).hasSize(3);
+        assertThat(meterRegistry.counter("faltauno_email_outbox_postergados_total").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void fallaParcialDelLoteReintentaSoloLosMensajesRechazados() {
+        reclamar(fila(1, "a@test.uy", 1), fila(2, "rechazado@test.uy", 1), fila(3, "c@test.uy", 1));
+        doAnswer(inv -> {
+            Map<Object, Exception> fallidos = new LinkedHashMap<>();
+            for (MimeMessage mensaje : mensajes(inv.getArguments())) {
+                if (destinatario(mensaje).equals("rechazado@test.uy")) {
+                    fallidos.put(mensaje, new MessagingException("550 mailbox unavailable"));
+                }
+            }
+            throw new MailSendException(fallidos);
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        outbox.despachar();
+        esperarEnvios();
+
+        verify(jdbcTemplate).update(contains("ultimo_error = ?,"),
+                eq("550 mailbox unavailable"), anyDouble(), eq(2L));
+        verify(jdbcTemplate).update(contains("SET estado = 'ENVIADO'"), eq(1L));
+        verify(jdbcTemplate).update(contains("SET estado = 'ENVIADO'"), eq(3L));
+        verify(jdbcTemplate, never()).update(contains("SET estado = 'ENVIADO'"), eq(2L));
+        verify(jdbcTemplate, never()).update(contains("ultimo_error = ?,"), anyString(), anyDouble(), eq(1L));
+        verify(jdbcTemplate, never()).update(contains("ultimo_error = ?,"), anyString(), anyDouble(), eq(3L));
+        assertThat(meterRegistry.counter("faltauno_email_outbox_enviados_total").count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void mailSendExceptionSinDetallePorMensajeReintentaTodoElLote() {
+        reclamar(fila(1, "a@test.uy", 1), fila(2, "b@test.uy", 1));
+        doThrow(new MailSendException("connection reset")).when(mailSender).send(any(MimeMessage[].class));
+
+        outbox.despachar();
+        esperarEnvios();
+
+        verify(jdbcTemplate).update(contains("ultimo_error = ?,"), eq("connection reset"), anyDouble(), eq(1L));
+        verify(jdbcTemplate).update(contains("ultimo_error = ?,"), eq("connection reset"), anyDouble(), eq(2L));
+        verify(jdbcTemplate, never()).update(contains("SET estado = 'ENVIADO'"), any(Object[].class));
+    }
+
+    // ---- helpers ----
+
+    private void esperarEnvios() {
+        outbox.detener();
+    }
+
+    private record Fila(long id, String destinatario, int intentos) {}
+
+    private static Fila fila(long id, String destinatario, int intentos) {
+        return new Fila(id, destinatario, intentos);
+    }
+
+    /**
+     * El reclamo devuelve estas filas, pasadas por el RowMapper real del servicio
+     */
+    @SuppressWarnings("unchecked")
+    private void reclamar(Fila... filas) {
+        when(jdbcTemplate.query(contains("FOR UPDATE SKIP LOCKED"), any(RowMapper.class), any(), any()))
+                .thenAnswer(inv -> {
+                    RowMapper<Object> mapper = inv.getArgument(1);
+                    List<Object> reclamados = new ArrayList<>();
+                    for (int i = 0; i < filas.length; i++) {
+                        reclamados.add(mapper.mapRow(resultSet(filas[i]), i));
+                    }
+                    return reclamados;
+                });
+    }
+
+    private static ResultSet resultSet(Fila fila) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(fila.id());
+        when(rs.getString("destinatario")).thenReturn(fila.destinatario());
+        when(rs.getString("asunto")).thenReturn("Asunto " + fila.id());
+        when(rs.getString("cuerpo_html")).thenReturn("<p>Hola</p>");
+        when(rs.getInt("intentos")).thenReturn(fila.intentos());
+        when(rs.getTimestamp("created_at")).thenReturn(Timestamp.from(Instant.now().minusSeconds(5)));
+        return rs;
+    }
+
+    /** Los varargs llegan expandidos en getArguments() */
+    private static List<MimeMessage> mensajes(Object[] argumentos) {
+        return Arrays.stream(argumentos)
+                .flatMap(a -> a instanceof MimeMessage[] array ? Arrays.stream(array) : Stream.of(a))
+                .map(MimeMessage.class::cast)
+                .toList();
+    }
+
+    private static String destinatario(MimeMessage mensaje) throws MessagingException {
+        return mensaje.getRecipients(Message.RecipientType.TO)[0].toString();
+    }
+}
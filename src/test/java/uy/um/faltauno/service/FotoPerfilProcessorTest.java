@@ -0,0 +1,148 @@
+package uy.um.faltauno.service;
+
+import org.junit.jupiter.api.Test;
+import uy.um.faltauno.service.FotoPerfilProcessor.FotoVariante;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lectura del tag EXIF Orientation sin librerías (segmento APP1 del JPEG, IFD0 del TIFF)
+ * y su aplicación al generar las variantes.
+ */
+class FotoPerfilProcessorTest {
+
+    private static final byte[] SOI = {(byte) 0xFF, (byte) 0xD8};
+    private static final byte[] EOI = {(byte) 0xFF, (byte) 0xD9};
+
+    @Test
+    void leeOrientacionEnAmbosOrdenesDeBytes() {
+        for (int orientacion = 1; orientacion <= 8; orientacion++) {
+            assertThat(FotoPerfilProcessor.leerOrientacionExif(jpeg(app1Exif(orientacion, ByteOrder.LITTLE_ENDIAN))))
+                    .isEqualTo(orientacion);
+            assertThat(FotoPerfilProcessor.leerOrientacionExif(jpeg(app1Exif(orientacion, ByteOrder.BIG_ENDIAN))))
+                    .isEqualTo(orientacion);
+        }
+    }
+
+    @Test
+    void saltaSegmentosPreviosAlExif() {
+        byte[] app0 = segmento(0xE0, "JFIF\0".getBytes());
+        assertThat(FotoPerfilProcessor.leerOrientacionExif(jpeg(app0, app1Exif(6, ByteOrder.BIG_ENDIAN)))).isEqualTo(6);
+    }
+
+    @Test
+    void sinOrientacionValidaDevuelveUno() {
+        // No es JPEG / vacío / sin APP1
+        assertThat(FotoPerfilProcessor.leerOrientacionExif(new byte[0])).isEqualTo(1);
+        assertThat(FotoPerfilProcessor.leerOrientacionExif(new byte[]{(byte) 0x89, 'P', 'N', 'G', 0, 0})).isEqualTo(1);
+        assertThat(FotoPerfilProcessor.leerOrientacionExif(jpeg(segmento(0xE0, "JFIF\0".getBytes())))).isEqualTo(1);
+        // Valor fuera de 1..8
+        assertThat(FotoPerfilProcessor.leerOrientacionExif(jpeg(app1Exif(9, ByteOrder.BIG_ENDIAN)))).isEqualTo(1);
+        // APP1 que no es Exif (p. ej. XMP)
+        assertThat(FotoPerfilProcessor.leerOrientacionExif(jpeg(segmento(0xE1, "http://ns.adobe.com/xap/1.0/\0".getBytes()))))
+                .isEqualTo(1);
+        // Después del SOS ya no se busca metadata
+        byte[] sos = segmento(0xDA, new byte[]{1, 2, 3});
+        assertThat(FotoPerfilProcessor.leerOrientacionExif(jpeg(sos, app1Exif(6, ByteOrder.BIG_ENDIAN)))).isEqualTo(1);
+    }
+
+    @Test
+    void datosTruncadosOCorruptosNoFallan() {
+        byte[] completo = jpeg(app1Exif(6, ByteOrder.LITTLE_ENDIAN));
+        for (int largo = 0; largo < completo.length - EOI.length; largo++) {
+            int orientacion = FotoPerfilProcessor.leerOrientacionExif(Arrays.copyOf(completo, largo));
+            assertThat(orientacion).isBetween(1, 8);
+        }
+
+        // Offset del IFD0 fuera del segmento
+        byte[] ifdFuera = app1Exif(6, ByteOrder.BIG_ENDIAN);
+        ByteBuffer.wrap(ifdFuera).putInt(4 + 6 + 4, 0x7FFF_FFF0);
+        assertThat(FotoPerfilProcessor.leerOrientacionExif(jpeg(ifdFuera))).isEqualTo(1);
+    }
+
+    @Test
+    void procesarAplicaLaOrientacion() throws IOException {
+        // 400x200 con orientación 6 (90° horario): la foto real es 200x400
+        byte[] original = conExif(jpegReal(400, 200), 6);
+
+        List<FotoVariante> variantes = new FotoPerfilProcessor().procesar(original);
+
+        BufferedImage chica = ImageIO.read(new ByteArrayInputStream(variantes.get(0).contenido()));
+        assertThat(variantes.get(0).tamano()).isEqualTo(64);
+        assertThat(chica.getWidth()).isEqualTo(32);
+        assertThat(chica.getHeight()).isEqualTo(64);
+        // Re-codificada sin metadata
+        assertThat(FotoPerfilProcessor.leerOrientacionExif(variantes.get(0).contenido())).isEqualTo(1);
+    }
+
+    // ---- helpers ----
+
+    /**
+     * SOI + segmentos + EOI
+     */
+    private static byte[] jpeg(byte[]... segmentos) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(SOI);
+        for (byte[] segmento : segmentos) {
+            out.writeBytes(segmento);
+        }
+        out.writeBytes(EOI);
+        return out.toByteArray();
+    }
+
+    /**
+     * Marcador + largo (incluye los 2 bytes del largo) + datos
+     */
+    private static byte[] segmento(int marcador, byte[] datos) {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + datos.length);
+        buffer.put((byte) 0xFF).put((byte) marcador).putShort((short) (2 + datos.length)).put(datos);
+        return buffer.array();
+    }
+
+    /**
+     * APP1 "Exif\0\0" + TIFF con un IFD0 de dos entradas (ImageWidth y Orientation)
+     */
+    private static byte[] app1Exif(int orientacion, ByteOrder orden) {
+        ByteBuffer tiff = ByteBuffer.allocate(8 + 2 + 2 * 12 + 4).order(orden);
+        tiff.put(orden == ByteOrder.LITTLE_ENDIAN ? new byte[]{'I', 'I'} : new byte[]{'M', 'M'});
+        tiff.putShort((short) 42).putInt(8);
+        tiff.putShort((short) 2);
+        // ImageWidth (LONG) = 640
+        tiff.putShort((short) 0x0100).putShort((short) 4).putInt(1).putInt(640);
+        // Orientation (SHORT): el valor va en los primeros 2 bytes del campo
+        tiff.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientacion).putShort((short) 0);
+        tiff.putInt(0);
+
+        ByteBuffer datos = ByteBuffer.allocate(6 + tiff.capacity());
+        datos.put(new byte[]{'E', 'x', 'i', 'f', 0, 0}).put(tiff.array());
+        return segmento(0xE1, datos.array());
+    }
+
+    private static byte[] jpegReal(int ancho, int alto) throws IOException {
+        BufferedImage imagen = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(imagen, "jpeg", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Inserta un APP1 Exif justo después del SOI de un JPEG existente
+     */
+    private static byte[] conExif(byte[] jpeg, int orientacion) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        out.writeBytes(app1Exif(orientacion, ByteOrder.BIG_ENDIAN));
+        out.write(jpeg, 2, jpeg.length - 2);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,164 @@
+package uy.um.faltauno.service;
+
+import org.junit.jupiter.api.Test;
+import uy.um.faltauno.service.GrafoAmistadCache.Vecindario;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Intersección de vecindarios (amigos en común): merge lineal vs búsqueda binaria cuando un lado
+ * es más de 32 veces más chico, contra un HashSet como referencia.
+ */
+class GrafoAmistadCacheTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    void vacioNoTieneAmigosEnComun() {
+        Vecindario otro = vecindario(ids(10));
+        List<UUID> salida = new ArrayList<>();
+
+        assertThat(GrafoAmistadCache.interseccion(Vecindario.VACIO, otro, 5, salida)).isZero();
+        assertThat(GrafoAmistadCache.interseccion(otro, Vecindario.VACIO, 5, salida)).isZero();
+        assertThat(GrafoAmistadCache.interseccion(Vecindario.VACIO, Vecindario.VACIO, 5, salida)).isZero();
+        assertThat(salida).isEmpty();
+    }
+
+    @Test
+    void mergeConTamanosParecidos() {
+        List<UUID> comunes = ids(40);
+        List<UUID> a = union(comunes, ids(60));
+        List<UUID> b = union(comunes, ids(80));
+
+        verificar(a, b, 10);
+        verificar(b, a, 10);
+    }
+
+    @Test
+    void busquedaBinariaConTamanosMuyDistintos() {
+        List<UUID> comunes = ids(3);
+        List<UUID> chico = union(comunes, ids(2));
+        List<UUID> grande = union(comunes, ids(5_000));
+
+        // 5 * 32 < 5003: camino de búsqueda binaria, en los dos órdenes de argumentos
+        verificar(chico, grande, 10);
+        verificar(grande, chico, 10);
+    }
+
+    @Test
+    void enElUmbralAmbosCaminosDanLoMismo() {
+        List<UUID> comunes = ids(4);
+        List<UUID> chico = union(comunes, ids(6));
+        // m * 32 == n (merge) y m * 32 == n - 1 (binaria)
+        verificar(chico, union(comunes, ids(316)), 3);
+        verificar(chico, union(comunes, ids(317)), 3);
+    }
+
+    @Test
+    void sinInterseccion() {
+        verificar(ids(50), ids(70), 10);
+        verificar(ids(2), ids(1_000), 10);
+    }
+
+    @Test
+    void muestraAcotaElPreviewPeroNoElTotal() {
+        List<UUID> comunes = ids(25);
+        Vecindario a = vecindario(union(comunes, ids(5)));
+        Vecindario b = vecindario(union(comunes, ids(5)));
+        List<UUID> salida = new ArrayList<>();
+
+        assertThat(GrafoAmistadCache.interseccion(a, b, 3, salida)).isEqualTo(25);
+        assertThat(salida).containsExactlyElementsOf(ordenados(comunes).subList(0, 3));
+
+        // Solo contar: sin lista de salida
+        assertThat(GrafoAmistadCache.interseccion(a, b, 0, null)).isEqualTo(25);
+    }
+
+    @Test
+    void idsConSignoSeOrdenanComoEnLosArrays() {
+        // msb negativos y positivos: el orden de los arrays compactos es con signo, igual que UUID.compareTo
+        UUID negativo = new UUID(Long.MIN_VALUE, 1);
+        UUID cero = new UUID(0, 0);
+        UUID positivo = new UUID(Long.MAX_VALUE, -1);
+        List<UUID> todos = List.of(positivo, cero, negativo);
+
+        verificar(todos, List.of(negativo, positivo), 10);
+        assertThat(GrafoAmistadCache.comparar(negativo, positivo)).isNegative();
+        assertThat(GrafoAmistadCache.comparar(new UUID(5, -1), new UUID(5, 1))).isNegative();
+    }
+
+    @Test
+    void conAmigoYSinMantienenElOrden() {
+        List<UUID> base = ids(20);
+        Vecindario v = vecindario(base);
+        UUID nuevo = UUID.randomUUID();
+
+        Vecindario conNuevo = v.conAmigo(nuevo, UUID.randomUUID(), true);
+        assertThat(amigos(conNuevo)).containsExactlyElementsOf(ordenados(union(base, List.of(nuevo))));
+        assertThat(conNuevo.indiceAmigo(nuevo)).isNotNegative();
+        // El original no cambia (copy-on-write)
+        assertThat(v.indiceAmigo(nuevo)).isNegative();
+
+        Vecindario sinPrimero = conNuevo.sin(base.get(0));
+        assertThat(amigos(sinPrimero)).containsExactlyElementsOf(ordenados(union(base.subList(1, 20), List.of(nuevo))));
+        assertThat(sinPrimero.sin(UUID.randomUUID())).isSameAs(sinPrimero);
+    }
+
+    // ---- helpers ----
+
+    private void verificar(List<UUID> a, List<UUID> b, int muestra) {
+        Set<UUID> esperados = new HashSet<>(a);
+        esperados.retainAll(new HashSet<>(b));
+        List<UUID> preview = ordenados(new ArrayList<>(esperados));
+        List<UUID> salida = new ArrayList<>();
+
+        int total = GrafoAmistadCache.interseccion(vecindario(a), vecindario(b), muestra, salida);
+
+        assertThat(total).isEqualTo(esperados.size());
+        assertThat(salida).containsExactlyElementsOf(preview.subList(0, Math.min(muestra, preview.size())));
+    }
+
+    private List<UUID> ids(int cantidad) {
+        List<UUID> ids = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            ids.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+        return ids;
+    }
+
+    private static List<UUID> union(List<UUID> a, List<UUID> b) {
+        List<UUID> todos = new ArrayList<>(a);
+        todos.addAll(b);
+        return todos;
+    }
+
+    private static List<UUID> ordenados(List<UUID> ids) {
+        List<UUID> copia = new ArrayList<>(ids);
+        copia.sort(GrafoAmistadCache::comparar);
+        return copia;
+    }
+
+    private static Vecindario vecindario(List<UUID> amigos) {
+        List<Object[]> filas = new ArrayList<>(amigos.size());
+        for (UUID amigo : amigos) {
+            filas.add(new Object[]{amigo, UUID.randomUUID(), Boolean.TRUE});
+        }
+        return Vecindario.de(filas, Map.of());
+    }
+
+    private static List<UUID> amigos(Vecindario v) {
+        List<UUID> amigos = new ArrayList<>(v.cantidadAmigos());
+        for (int i = 0; i < v.cantidadAmigos(); i++) {
+            amigos.add(v.amigoEn(i));
+        }
+        return amigos;
+    }
+}
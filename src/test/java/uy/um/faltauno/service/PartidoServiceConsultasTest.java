@@ -0,0 +1,132 @@
+package uy.um.faltauno.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import uy.um.faltauno.dto.PartidoDTO;
+import uy.um.faltauno.entity.Inscripcion;
+import uy.um.faltauno.entity.Partido;
+import uy.um.faltauno.entity.Usuario;
+import uy.um.faltauno.repository.*;
+import uy.um.faltauno.util.PartidoMapper;
+import uy.um.faltauno.websocket.WebSocketEventPublisher;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * Regresión de cantidad de queries en los listados de partidos: un COUNT agrupado por lote
+ * de partidos (nunca uno por fila) y listas IN acotadas para no pasar el límite de parámetros de pgJDBC.
+ *
+ * Cada llamada a un repositorio es un round-trip a la base; se cuentan con Mockito.
+ */
+@ExtendWith(MockitoExtension.class)
+class PartidoServiceConsultasTest {
+
+    @Mock private PartidoRepository partidoRepository;
+    @Mock private UsuarioRepository usuarioRepository;
+    @Mock private InscripcionRepository inscripcionRepository;
+    @Mock private MensajeRepository mensajeRepository;
+    @Mock private ReviewRepository reviewRepository;
+    @Mock private PartidoDiarioRepository partidoDiarioRepository;
+    @Mock private PartidoMapper partidoMapper;
+    @Mock private NotificacionService notificacionService;
+    @Mock private ReviewService reviewService;
+    @Mock private WebSocketEventPublisher webSocketEventPublisher;
+    @Mock private ApplicationEventPublisher applicationEventPublisher;
+
+    private PartidoService partidoService;
+
+    @BeforeEach
+    void setUp() {
+        partidoService = new PartidoService(partidoRepository, usuarioRepository, inscripcionRepository,
+                mensajeRepository, reviewRepository, partidoDiarioRepository, partidoMapper, notificacionService,
+                reviewService, webSocketEventPublisher, new SimpleMeterRegistry(), applicationEventPublisher);
+        lenient().when(partidoMapper.toDto(any(Partido.class))).thenAnswer(inv -> {
+            Partido p = inv.getArgument(0);
+            PartidoDTO dto = new PartidoDTO();
+            dto.setId(p.getId());
+            dto.setFecha(p.getFecha());
+            dto.setHora(p.getHora());
+            return dto;
+        });
+        lenient().when(inscripcionRepository.countByPartidoIds(anyCollection())).thenReturn(List.of());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void listarPartidosHaceUnSoloCountParaLaPagina() {
+        when(partidoRepository.findBy(any(Specification.class), any())).thenReturn(partidos(20));
+
+        List<PartidoDTO> resultado = partidoService.listarPartidos(
+                null, null, null, null, null, null, null, null, null, null, Pageable.ofSize(20));
+
+        assertThat(resultado).hasSize(20);
+        verify(partidoRepository, times(1)).findBy(any(Specification.class), any());
+        verify(inscripcionRepository, times(1)).countByPartidoIds(anyCollection());
+        verify(inscripcionRepository, never()).countByPartidoId(any());
+    }
+
+    @Test
+    void listarPartidosPorUsuarioHaceUnSoloCount() {
+        UUID usuarioId = UUID.randomUUID();
+        List<Partido> creados = partidos(5);
+        List<Inscripcion> inscripciones = partidos(7).stream()
+                .map(p -> Inscripcion.builder().id(UUID.randomUUID()).partido(p).build())
+                .toList();
+        when(partidoRepository.findByOrganizadorIdWithOrganizador(usuarioId)).thenReturn(creados);
+        when(inscripcionRepository.findByUsuarioId(usuarioId)).thenReturn(inscripciones);
+
+        List<PartidoDTO> resultado = partidoService.listarPartidosPorUsuario(usuarioId);
+
+        assertThat(resultado).hasSize(12);
+        verify(inscripcionRepository, times(1)).countByPartidoIds(anyCollection());
+        verify(inscripcionRepository, never()).countByPartidoId(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void listarTodosParaAdminCuentaEnLotesAcotados() {
+        when(partidoRepository.findAll()).thenReturn(partidos(1201));
+
+        List<PartidoDTO> resultado = partidoService.listarTodosParaAdmin();
+
+        assertThat(resultado).hasSize(1201);
+        ArgumentCaptor<Collection<UUID>> lotes = ArgumentCaptor.forClass(Collection.class);
+        verify(inscripcionRepository, times(3)).countByPartidoIds(lotes.capture());
+        assertThat(lotes.getAllValues()).allSatisfy(lote -> assertThat(lote).hasSizeLessThanOrEqualTo(500));
+        assertThat(lotes.getAllValues().stream().mapToInt(Collection::size).sum()).isEqualTo(1201);
+        verify(inscripcionRepository, never()).countByPartidoId(any());
+    }
+
+    private static List<Partido> partidos(int cantidad) {
+        Usuario organizador = Usuario.builder().id(UUID.randomUUID()).nombre("Org").apellido("Test").build();
+        List<Partido> partidos = new ArrayList<>(cantidad);
+        IntStream.range(0, cantidad).forEach(i -> {
+            Partido p = new Partido();
+            p.setId(UUID.randomUUID());
+            p.setFecha(LocalDate.now().plusDays(1 + i % 30));
+            p.setHora(LocalTime.of(18, 0));
+            p.setOrganizador(organizador);
+            partidos.add(p);
+        });
+        return partidos;
+    }
+}
@@ -0,0 +1,161 @@
+package uy.um.faltauno.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import uy.um.faltauno.service.PresenciaTracker.Ventana;
+
+import java.security.Principal;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Anillo de buckets por minuto de PresenciaTracker: cada usuario cuenta una sola vez, en el bucket
+ * de su última actividad. La actividad pasada se siembra con la carga inicial (JdbcTemplate mockeado).
+ */
+@ExtendWith(MockitoExtension.class)
+class PresenciaTrackerTest {
+
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private ActividadBuffer actividadBuffer;
+
+    private PresenciaTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new PresenciaTracker(jdbcTemplate, actividadBuffer, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void sinActividadTodoEnCero() {
+        for (Ventana ventana : Ventana.values()) {
+            assertThat(tracker.contar(ventana)).isZero();
+        }
+    }
+
+    @Test
+    void cadaVentanaCuentaUsuariosDistintos() {
+        // Minutos atrás de la última actividad de cada usuario
+        cargar(Map.of(UUID.randomUUID(), 2L, UUID.randomUUID(), 30L, UUID.randomUUID(), 120L,
+                UUID.randomUUID(), 1_000L));
+
+        assertThat(tracker.contar(Ventana.CINCO_MINUTOS)).isEqualTo(1);
+        assertThat(tracker.contar(Ventana.UNA_HORA)).isEqualTo(2);
+        assertThat(tracker.contar(Ventana.UN_DIA)).isEqualTo(4);
+    }
+
+    @Test
+    void actividadRepetidaNoDuplica() {
+        UUID usuario = UUID.randomUUID();
+
+        tracker.registrarActividad(usuario);
+        tracker.registrarActividad(usuario);
+        tracker.registrarActividad(null);
+
+        assertThat(tracker.contar(Ventana.CINCO_MINUTOS)).isEqualTo(1);
+        assertThat(tracker.contar(Ventana.UN_DIA)).isEqualTo(1);
+    }
+
+    @Test
+    void nuevaActividadMueveAlUsuarioDeBucket() {
+        UUID usuario = UUID.randomUUID();
+        cargar(Map.of(usuario, 30L));
+        assertThat(tracker.contar(Ventana.CINCO_MINUTOS)).isZero();
+
+        tracker.registrarActividad(usuario);
+
+        // Sale del bucket de hace 30 minutos: sigue siendo un solo usuario en cada ventana
+        assertThat(tracker.contar(Ventana.CINCO_MINUTOS)).isEqualTo(1);
+        assertThat(tracker.contar(Ventana.UNA_HORA)).isEqualTo(1);
+        assertThat(tracker.contar(Ventana.UN_DIA)).isEqualTo(1);
+    }
+
+    @Test
+    void bucketsDeHaceMasDeUnDiaNoCuentanAunqueCompartanSlot() {
+        // Hace 1440 minutos cae en el mismo slot del anillo que ahora: el bucket se recicla, no se suma
+        cargar(Map.of(UUID.randomUUID(), 1_440L));
+        assertThat(tracker.contar(Ventana.UN_DIA)).isZero();
+
+        tracker.registrarActividad(UUID.randomUUID());
+
+        assertThat(tracker.contar(Ventana.CINCO_MINUTOS)).isEqualTo(1);
+        assertThat(tracker.contar(Ventana.UN_DIA)).isEqualTo(1);
+    }
+
+    @Test
+    void sesionStompCuentaComoActivaYSeRegistraParaLosConteosGlobales() {
+        UUID usuario = UUID.randomUUID();
+        cargar(Map.of(usuario, 30L));
+
+        tracker.onConectado(new SessionConnectedEvent(this, mensaje("s1"), principal(usuario)));
+        tracker.onConectado(new SessionConnectedEvent(this, mensaje("s2"), principal(usuario)));
+
+        assertThat(tracker.sesionesWebSocketAbiertas()).isEqualTo(2);
+        assertThat(tracker.contar(Ventana.CINCO_MINUTOS)).isEqualTo(1);
+
+        tracker.tick();
+        // Una vez por connect y una por tick (el usuario, no cada sesión)
+        verify(actividadBuffer, times(3)).registrar(usuario);
+
+        tracker.onDesconectado(new SessionDisconnectEvent(this, mensaje("s1"), "s1", CloseStatus.NORMAL));
+        tracker.onDesconectado(new SessionDisconnectEvent(this, mensaje("s1"), "s1", CloseStatus.NORMAL));
+        assertThat(tracker.sesionesWebSocketAbiertas()).isEqualTo(1);
+    }
+
+    @Test
+    void conexionSinUsuarioSeIgnora() {
+        tracker.onConectado(new SessionConnectedEvent(this, mensaje("s1"), null));
+        tracker.onConectado(new SessionConnectedEvent(this, mensaje("s2"), () -> "no-es-uuid"));
+
+        assertThat(tracker.sesionesWebSocketAbiertas()).isZero();
+        assertThat(tracker.contar(Ventana.UN_DIA)).isZero();
+        verifyNoInteractions(actividadBuffer);
+    }
+
+    // ---- helpers ----
+
+    /**
+     * Carga inicial con last_activity_at = ahora - minutos, para cada usuario
+     */
+    private void cargar(Map<UUID, Long> minutosAtras) {
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            LocalDateTime ahora = LocalDateTime.now();
+            for (Map.Entry<UUID, Long> fila : minutosAtras.entrySet()) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getObject("id", UUID.class)).thenReturn(fila.getKey());
+                when(rs.getTimestamp("last_activity_at")).thenReturn(Timestamp.valueOf(ahora.minusMinutes(fila.getValue())));
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Timestamp.class));
+
+        tracker.cargarDesdeBase();
+    }
+
+    private static Message<byte[]> mensaje(String sessionId) {
+        return MessageBuilder.withPayload(new byte[0]).setHeader("simpSessionId", sessionId).build();
+    }
+
+    private static Principal principal(UUID usuarioId) {
+        return usuarioId::toString;
+    }
+}
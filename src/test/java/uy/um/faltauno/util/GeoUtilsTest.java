@@ -0,0 +1,113 @@
+package uy.um.faltauno.util;
+
+import org.junit.jupiter.api.Test;
+import uy.um.faltauno.util.GeoUtils.BoundingBox;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Distancia haversine, bounding box y grilla de celdas usadas en la búsqueda por cercanía.
+ */
+class GeoUtilsTest {
+
+    private static final double MVD_LAT = -34.9011;
+    private static final double MVD_LNG = -56.1645;
+
+    @Test
+    void haversineDistanciasConocidas() {
+        assertThat(GeoUtils.haversineKm(MVD_LAT, MVD_LNG, MVD_LAT, MVD_LNG)).isZero();
+        // Montevideo - Buenos Aires
+        assertThat(GeoUtils.haversineKm(MVD_LAT, MVD_LNG, -34.6037, -58.3816)).isCloseTo(205.2, within(0.5));
+        // Un grado de latitud y media circunferencia sobre el ecuador
+        assertThat(GeoUtils.haversineKm(0, 0, 1, 0)).isCloseTo(111.195, within(0.01));
+        assertThat(GeoUtils.haversineKm(0, 0, 0, 180)).isCloseTo(Math.PI * GeoUtils.RADIO_TIERRA_KM, within(0.01));
+        // Simétrica
+        assertThat(GeoUtils.haversineKm(-34.6037, -58.3816, MVD_LAT, MVD_LNG))
+                .isEqualTo(GeoUtils.haversineKm(MVD_LAT, MVD_LNG, -34.6037, -58.3816));
+    }
+
+    @Test
+    void boundingBoxContieneElCirculo() {
+        double radioKm = 15;
+        BoundingBox box = GeoUtils.boundingBox(MVD_LAT, MVD_LNG, radioKm);
+
+        // Puntos en el borde del radio (menos el error de redondeo), en cualquier rumbo, quedan adentro
+        for (int grados = 0; grados < 360; grados += 15) {
+            double[] punto = destino(MVD_LAT, MVD_LNG, radioKm * 0.9999, grados);
+            assertThat(punto[0]).isBetween(box.minLat(), box.maxLat());
+            assertThat(punto[1]).isBetween(box.minLng(), box.maxLng());
+        }
+        // Y no es mucho más grande que el círculo
+        assertThat(GeoUtils.haversineKm(box.minLat(), MVD_LNG, box.maxLat(), MVD_LNG)).isCloseTo(2 * radioKm, within(0.01));
+    }
+
+    @Test
+    void boundingBoxEnPolosYAntimeridiano() {
+        BoundingBox polo = GeoUtils.boundingBox(89.99, 0, 50);
+        assertThat(polo.maxLat()).isEqualTo(90);
+        assertThat(polo.minLng()).isEqualTo(-180);
+        assertThat(polo.maxLng()).isEqualTo(180);
+
+        BoundingBox antimeridiano = GeoUtils.boundingBox(-16.5, 179.9, 30);
+        assertThat(antimeridiano.minLng()).isEqualTo(-180);
+        assertThat(antimeridiano.maxLng()).isEqualTo(180);
+        assertThat(antimeridiano.minLat()).isLessThan(-16.5);
+    }
+
+    @Test
+    void celdaDeUnPunto() {
+        assertThat(GeoUtils.celda(null, BigDecimal.ONE)).isNull();
+        assertThat(GeoUtils.celda(BigDecimal.ONE, null)).isNull();
+
+        // fila = floor((lat + 90) * 10), columna = floor((lng + 180) * 10), 3600 columnas
+        assertThat(GeoUtils.celda(new BigDecimal("-34.9011"), new BigDecimal("-56.1645")))
+                .isEqualTo(550L * 3600 + 1238);
+        // Borde exacto de celda: aritmética decimal, sin errores de redondeo binario
+        assertThat(GeoUtils.celda(new BigDecimal("-34.9"), new BigDecimal("-56.1")))
+                .isEqualTo(551L * 3600 + 1239);
+        // lng = 180 cae en la última columna, no en una columna 3600 inexistente
+        assertThat(GeoUtils.celda(BigDecimal.ZERO, BigDecimal.valueOf(180)))
+                .isEqualTo(900L * 3600 + 3599);
+    }
+
+    @Test
+    void celdasDelBoundingBoxCubrenLosPuntosDelRadio() {
+        double radioKm = 10;
+        BoundingBox box = GeoUtils.boundingBox(MVD_LAT, MVD_LNG, radioKm);
+        List<Long> celdas = GeoUtils.celdasEnBoundingBox(box, 100);
+
+        assertThat(celdas).isNotNull().doesNotHaveDuplicates();
+        for (int grados = 0; grados < 360; grados += 30) {
+            double[] punto = destino(MVD_LAT, MVD_LNG, radioKm * 0.99, grados);
+            Long celda = GeoUtils.celda(BigDecimal.valueOf(punto[0]), BigDecimal.valueOf(punto[1]));
+            assertThat(celdas).contains(celda);
+        }
+        assertThat(celdas).contains(GeoUtils.celda(BigDecimal.valueOf(MVD_LAT), BigDecimal.valueOf(MVD_LNG)));
+    }
+
+    @Test
+    void demasiadasCeldasDevuelveNull() {
+        BoundingBox grande = GeoUtils.boundingBox(MVD_LAT, MVD_LNG, 500);
+
+        assertThat(GeoUtils.celdasEnBoundingBox(grande, 100)).isNull();
+        assertThat(GeoUtils.celdasEnBoundingBox(new BoundingBox(0.01, 0.02, 0.01, 0.02), 1)).containsExactly(900L * 3600 + 1800);
+    }
+
+    /**
+     * Punto a {@code km} de (lat, lng) en el rumbo dado (esfera)
+     */
+    private static double[] destino(double lat, double lng, double km, double rumboGrados) {
+        double d = km / GeoUtils.RADIO_TIERRA_KM;
+        double rumbo = Math.toRadians(rumboGrados);
+        double lat1 = Math.toRadians(lat);
+        double lng1 = Math.toRadians(lng);
+        double lat2 = Math.asin(Math.sin(lat1) * Math.cos(d) + Math.cos(lat1) * Math.sin(d) * Math.cos(rumbo));
+        double lng2 = lng1 + Math.atan2(Math.sin(rumbo) * Math.sin(d) * Math.cos(lat1),
+                Math.cos(d) - Math.sin(lat1) * Math.sin(lat2));
+        return new double[]{Math.toDegrees(lat2), Math.toDegrees(lng2)};
+    }
+}
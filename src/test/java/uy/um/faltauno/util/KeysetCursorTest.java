@@ -0,0 +1,110 @@
+package uy.um.faltauno.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import uy.um.faltauno.dto.AmistadDTO;
+import uy.um.faltauno.dto.PartidoDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Formato de los cursores keyset (ida y vuelta, tokens inválidos) y tamaños de página.
+ */
+class KeysetCursorTest {
+
+    @Test
+    void amistadCursorIdaYVuelta() {
+        AmistadCursor cursor = new AmistadCursor(LocalDateTime.of(2025, 3, 9, 18, 30, 15, 123_456_000), UUID.randomUUID());
+
+        String token = cursor.encode();
+
+        assertThat(token).doesNotContain("|", "=", "+", "/");
+        assertThat(AmistadCursor.decode(token)).isEqualTo(cursor);
+    }
+
+    @Test
+    void partidoCursorIdaYVuelta() {
+        PartidoCursor cursor = new PartidoCursor(LocalDate.of(2025, 12, 31), LocalTime.of(23, 59), UUID.randomUUID());
+
+        assertThat(PartidoCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void amistadCursorSinTokenEsPrimeraPagina() {
+        assertThat(AmistadCursor.decode(null)).isNull();
+        assertThat(AmistadCursor.decode("  ")).isNull();
+    }
+
+    @Test
+    void tokensInvalidosLanzanIllegalArgument() {
+        String fechaMala = token("ayer|" + UUID.randomUUID());
+        String uuidMalo = token("2025-03-09T18:30|no-es-uuid");
+        String camposDeMas = token("2025-03-09T18:30|" + UUID.randomUUID() + "|extra");
+        String camposDeMenos = token("2025-03-09T18:30");
+
+        for (String invalido : List.of("%%%no-base64%%%", fechaMala, uuidMalo, camposDeMas, camposDeMenos)) {
+            assertThatThrownBy(() -> AmistadCursor.decode(invalido))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Cursor inválido");
+        }
+        // Un cursor de amistades no sirve como cursor de partidos (y viceversa)
+        String deAmistad = new AmistadCursor(LocalDateTime.now(), UUID.randomUUID()).encode();
+        assertThatThrownBy(() -> PartidoCursor.decode(deAmistad)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void acotarTamanoDePagina() {
+        assertThat(KeysetCursor.acotar(10, 100)).isEqualTo(10);
+        assertThat(KeysetCursor.acotar(1_000, 100)).isEqualTo(100);
+        assertThatThrownBy(() -> KeysetCursor.acotar(0, 100)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KeysetCursor.acotar(-5, 100)).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(AmistadCursor.tamanoPagina(null)).isNull();
+        assertThat(AmistadCursor.tamanoPagina(500)).isEqualTo(AmistadCursor.MAX_TAMANO_PAGINA);
+        assertThat(PartidoCursor.tamanoPagina(Pageable.unpaged())).isEqualTo(PartidoCursor.MAX_TAMANO_PAGINA);
+        assertThat(PartidoCursor.tamanoPagina(PageRequest.of(3, 20))).isEqualTo(20);
+    }
+
+    @Test
+    void siguienteSoloSiLaPaginaVinoCompleta() {
+        List<AmistadDTO> completa = amistades(20);
+        List<AmistadDTO> incompleta = amistades(19);
+
+        AmistadCursor siguiente = AmistadCursor.decode(AmistadCursor.siguiente(completa, 20));
+        assertThat(siguiente).isEqualTo(new AmistadCursor(completa.get(19).getCreatedAt(), completa.get(19).getId()));
+        assertThat(AmistadCursor.siguiente(incompleta, 20)).isNull();
+        assertThat(AmistadCursor.siguiente(List.of(), 20)).isNull();
+        // Sin paginar: lista completa, no hay página siguiente
+        assertThat(AmistadCursor.siguiente(completa, null)).isNull();
+
+        PartidoDTO ultimo = new PartidoDTO();
+        ultimo.setId(UUID.randomUUID());
+        ultimo.setFecha(LocalDate.of(2025, 6, 1));
+        ultimo.setHora(LocalTime.of(20, 0));
+        assertThat(PartidoCursor.decode(PartidoCursor.siguiente(List.of(new PartidoDTO(), ultimo), 2)))
+                .isEqualTo(new PartidoCursor(ultimo.getFecha(), ultimo.getHora(), ultimo.getId()));
+        assertThat(PartidoCursor.siguiente(List.of(ultimo), 2)).isNull();
+    }
+
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<AmistadDTO> amistades(int cantidad) {
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 12, 0);
+        return IntStream.range(0, cantidad)
+                .mapToObj(i -> AmistadDTO.builder().id(UUID.randomUUID()).createdAt(base.minusMinutes(i)).build())
+                .toList();
+    }
+}